@@ -0,0 +1,128 @@
+package trackvia.client;
+
+import java.io.IOException;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * The default transport: HTTP/1.1 over Apache HttpClient and a pool of persistent connections.
+ *
+ * The client leases, connects and releases its own connection, so each call holds exactly one
+ * pooled connection for its duration.
+ */
+public class ApacheTransport implements Transport {
+    protected CloseableHttpClient httpClient;
+    protected HttpClientConnectionManager connectionManager;
+    protected IdleConnectionEvictor connectionEvictor;
+
+    protected ApacheTransport() {}
+
+    /**
+     * Creates a transport with a connection pool sized and timed as configured.
+     *
+     * @param config connection pool and timeout settings
+     * @return a transport, ready for use
+     */
+    public static ApacheTransport create(final TrackviaClientConfig config) {
+        Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", SSLConnectionSocketFactory.getSocketFactory())
+                .build();
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(registry);
+        connectionManager.setDefaultMaxPerRoute(config.getMaxConnectionsPerRoute());
+        connectionManager.setMaxTotal(config.getMaxConnectionsTotal());
+
+        ApacheTransport transport = new ApacheTransport();
+        transport.connectionManager = connectionManager;
+        transport.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                // content codings are applied by the commands, counting wire and decoded bytes
+                .disableContentCompression()
+                .setDefaultRequestConfig(createRequestConfig(config))
+                .setKeepAliveStrategy(createKeepAliveStrategy(config))
+                .build();
+
+        if (config.getEvictionIntervalMillis() > 0) {
+            transport.connectionEvictor = new IdleConnectionEvictor(connectionManager,
+                    config.getEvictionIntervalMillis(), config.getIdleConnectionTimeoutMillis());
+            transport.connectionEvictor.start();
+        }
+
+        return transport;
+    }
+
+    /**
+     * Facilitates use of mocking frameworks for testing.
+     */
+    static ApacheTransport create(final CloseableHttpClient httpClient, final HttpClientConnectionManager connectionManager) {
+        ApacheTransport transport = new ApacheTransport();
+        transport.httpClient = httpClient;
+        transport.connectionManager = connectionManager;
+
+        return transport;
+    }
+
+    @Override
+    public CloseableHttpResponse execute(final HttpRequestBase request) throws IOException {
+        return this.httpClient.execute(request);
+    }
+
+    /**
+     * Gracefully shuts down connection management, allowing work on open connections
+     * to finish and disallowing new connections.
+     */
+    @Override
+    public void shutdown() {
+        if (this.connectionEvictor != null) this.connectionEvictor.shutdown();
+        this.connectionManager.shutdown();
+    }
+
+    public CloseableHttpClient getHttpClient() {
+        return this.httpClient;
+    }
+
+    public HttpClientConnectionManager getConnectionManager() {
+        return this.connectionManager;
+    }
+
+    static RequestConfig createRequestConfig(final TrackviaClientConfig config) {
+        return RequestConfig.custom()
+                .setConnectionRequestTimeout(config.getConnectionRequestTimeoutMillis())
+                .setConnectTimeout(config.getConnectTimeoutMillis())
+                .setSocketTimeout(config.getSocketTimeoutMillis())
+                .setStaleConnectionCheckEnabled(config.isStaleConnectionCheckEnabled())
+                .build();
+    }
+
+    /**
+     * Keeps a connection for as long as the service advertises, capped at the configured keep-alive.
+     */
+    static ConnectionKeepAliveStrategy createKeepAliveStrategy(final TrackviaClientConfig config) {
+        return new ConnectionKeepAliveStrategy() {
+            @Override
+            public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+                long advertised = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                long configured = config.getKeepAliveMillis();
+
+                if (configured <= 0) return advertised;
+                return (advertised > 0) ? (Math.min(advertised, configured)) : (configured);
+            }
+        };
+    }
+}
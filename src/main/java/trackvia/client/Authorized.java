@@ -4,7 +4,19 @@ import trackvia.client.model.ApiError;
 
 import java.util.concurrent.Callable;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes a call on behalf of the authenticated user, retrying it once with a refreshed access token
+ * (or API version) when the service rejects the one used - calls rejected together share one refresh -
+ * and retrying transient failures as the client's {@link RetryPolicy} allows, all within the call's
+ * {@link Deadline}, if it has one.  Sending the call again after a refresh doesn't use up one of the
+ * policy's attempts.
+ */
 public class Authorized<V> {
+    private static Logger LOG = LoggerFactory.getLogger(Authorized.class);
+
     private TrackviaClient client;
 
     public Authorized(final TrackviaClient client) {
@@ -12,24 +24,52 @@ public class Authorized<V> {
     }
 
     public V execute(final Callable<V> callable) {
-        boolean tryExecute = true;
+        client.getRetryBudget().deposit();
+
+        final Deadline deadline = Deadline.forCall(client.getConfig().getCallTimeoutMillis());
+        final Deadline outer = Deadline.enter(deadline);
+        try {
+            return attempt(callable, deadline);
+        } finally {
+            Deadline.exit(outer);
+        }
+    }
+
+    private V attempt(final Callable<V> callable, final Deadline deadline) {
+        final RetryPolicy retryPolicy = client.getConfig().getRetryPolicy();
+        boolean refreshToken = false;
+        TokenManager.Grant tokenUsed = null;
         boolean tryOnceTokenRefresh = false;
         boolean tryOnceVersionMisMatch = false;
-        V result = null;
+        int attempt = 1;
 
-        while (tryExecute) {
+        while (true) {
             try {
-                if (tryOnceTokenRefresh || tryOnceVersionMisMatch) client.refreshAccessToken();
+                if (deadline != null) deadline.check();
 
-                result = callable.call();
+                if (refreshToken) {
+                    refreshToken = false;
+                    client.getTokens().refresh(tokenUsed);
+                }
 
-                tryExecute = false;
+                tokenUsed = client.getTokens().current();
+                return callable.call();
             } catch (TrackviaApiException e) {
                 ApiError err = e.getApiError();
                 if ((err == ApiError.InvalidGrant || err == ApiError.InvalidToken) && !tryOnceTokenRefresh) {
                     tryOnceTokenRefresh = true;
+                    refreshToken = true;
                 } else if(err == ApiError.VersionMisMatch  && !tryOnceVersionMisMatch){
                 	tryOnceVersionMisMatch = true;
+                	refreshToken = true;
+                } else if (backOff(retryPolicy.retryDelayMillis(e, attempt), attempt, e, deadline)) {
+                    attempt++;
+                } else {
+                    throw e;
+                }
+            } catch (TrackviaClientException e) {
+                if (backOff(retryPolicy.retryDelayMillis(e, attempt), attempt, e, deadline)) {
+                    attempt++;
                 } else {
                     throw e;
                 }
@@ -37,7 +77,38 @@ public class Authorized<V> {
                 throw new TrackviaClientException(e);
             }
         }
+    }
+
+    /**
+     * Waits out the delay before a retry, if the policy allows one, the budget can pay for it and the
+     * retry would start before the deadline.
+     *
+     * @return whether to try again
+     */
+    private boolean backOff(final long delayMillis, final int attempt, final RuntimeException failure, final Deadline deadline) {
+        if (delayMillis < 0) return false;
+
+        if (deadline != null && delayMillis >= deadline.remainingMillis()) {
+            LOG.debug("deadline too close, not retrying attempt {}: {}", attempt, failure.toString());
+            return false;
+        }
+
+        if (!client.getRetryBudget().tryWithdraw()) {
+            client.getMetrics().recordRetryBudgetRejection();
+            LOG.debug("retry budget exhausted, not retrying attempt {}: {}", attempt, failure.toString());
+            return false;
+        }
+
+        LOG.debug("attempt {} failed, retrying in {} ms: {}", attempt, delayMillis, failure.toString());
+        client.getMetrics().recordRetry();
+
+        try {
+            Thread.sleep(delayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TrackviaClientException(e);
+        }
 
-        return result;
+        return true;
     }
 }
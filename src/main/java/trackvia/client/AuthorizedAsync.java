@@ -0,0 +1,138 @@
+package trackvia.client;
+
+import trackvia.client.model.ApiError;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking counterpart of {@link Authorized}.
+ *
+ * Observes the same retry semantics: a call failing with an invalid grant/token or a version
+ * mismatch is retried once, after refreshing the access token; calls rejected together share one refresh.
+ * Cancelling the returned future cancels whichever request is in flight at the time, except a shared token
+ * refresh, which other calls may be waiting on.
+ *
+ * A call has the same {@link Deadline} it would have on the blocking client: the configured
+ * {@link TrackviaClientConfig#getCallTimeoutMillis() call timeout}, or the deadline of the calling thread if
+ * earlier.  When it passes, the request in flight is aborted and the future fails with a
+ * {@link TrackviaDeadlineExceededException}.  Transient failures aren't retried.
+ */
+public class AuthorizedAsync<V> {
+    private TrackviaAsyncClient client;
+
+    public AuthorizedAsync(final TrackviaAsyncClient client) {
+        this.client = client;
+    }
+
+    public CompletableFuture<V> execute(final Supplier<CompletableFuture<V>> call) {
+        final CompletableFuture<V> result = new CompletableFuture<V>();
+        final AtomicReference<CompletableFuture<?>> inFlight = new AtomicReference<CompletableFuture<?>>();
+        final Deadline deadline = Deadline.forCall(this.client.client.getConfig().getCallTimeoutMillis());
+        final ScheduledFuture<?> expiry = (deadline != null)
+                ? (deadline.onExpiry(() -> result.completeExceptionally(deadline.exceeded(null)))) : (null);
+
+        result.whenComplete((value, error) -> {
+            if (expiry != null) expiry.cancel(false);
+
+            CompletableFuture<?> current = inFlight.get();
+            if ((result.isCancelled() || error instanceof TrackviaDeadlineExceededException) && current != null) {
+                current.cancel(true);
+            }
+        });
+
+        attempt(call, result, inFlight, deadline, false, false);
+
+        return result;
+    }
+
+    private void attempt(final Supplier<CompletableFuture<V>> call, final CompletableFuture<V> result,
+            final AtomicReference<CompletableFuture<?>> inFlight, final Deadline deadline,
+            final boolean triedTokenRefresh, final boolean triedVersionMisMatch) {
+        final CompletableFuture<V> attempt;
+        final TokenManager.Grant tokenUsed = this.client.client.getTokens().current();
+
+        // preparing the request checks the deadline, and cuts its timeouts and rate limiter wait to the time left
+        final Deadline outer = Deadline.enter(deadline);
+        try {
+            attempt = call.get();
+        } catch (TrackviaApiException | TrackviaClientException e) {
+            result.completeExceptionally(e);
+            return;
+        } catch (RuntimeException e) {
+            result.completeExceptionally(new TrackviaClientException(e));
+            return;
+        } finally {
+            Deadline.exit(outer);
+        }
+
+        inFlight.set(attempt);
+        if (result.isDone()) {
+            attempt.cancel(true);
+            return;
+        }
+
+        attempt.whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+                return;
+            }
+
+            Throwable cause = unwrap(error);
+            if (cause instanceof TrackviaApiException) {
+                ApiError err = ((TrackviaApiException) cause).getApiError();
+                if ((err == ApiError.InvalidGrant || err == ApiError.InvalidToken) && !triedTokenRefresh) {
+                    refreshThenAttempt(tokenUsed, call, result, inFlight, deadline, true, triedVersionMisMatch);
+                    return;
+                } else if (err == ApiError.VersionMisMatch && !triedVersionMisMatch) {
+                    refreshThenAttempt(tokenUsed, call, result, inFlight, deadline, triedTokenRefresh, true);
+                    return;
+                }
+            }
+
+            fail(result, cause);
+        });
+    }
+
+    private void refreshThenAttempt(final TokenManager.Grant tokenUsed, final Supplier<CompletableFuture<V>> call,
+            final CompletableFuture<V> result, final AtomicReference<CompletableFuture<?>> inFlight,
+            final Deadline deadline, final boolean triedTokenRefresh, final boolean triedVersionMisMatch) {
+        final CompletableFuture<Void> refresh = this.client.refreshAccessToken(tokenUsed);
+
+        inFlight.set(refresh);
+        if (result.isDone()) {
+            refresh.cancel(true);
+            return;
+        }
+
+        refresh.whenComplete((ignored, error) -> {
+            if (error != null) {
+                fail(result, unwrap(error));
+            } else {
+                attempt(call, result, inFlight, deadline, triedTokenRefresh, triedVersionMisMatch);
+            }
+        });
+    }
+
+    private static void fail(final CompletableFuture<?> result, final Throwable cause) {
+        if (cause instanceof CancellationException) {
+            result.cancel(false);
+        } else if (cause instanceof TrackviaApiException || cause instanceof TrackviaClientException) {
+            result.completeExceptionally(cause);
+        } else {
+            result.completeExceptionally(new TrackviaClientException(cause));
+        }
+    }
+
+    static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+}
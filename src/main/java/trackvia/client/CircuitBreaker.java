@@ -0,0 +1,175 @@
+package trackvia.client;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One circuit: the outcomes of the last calls through it, and whether calls are let through.
+ *
+ * @see CircuitBreakerPolicy for when the circuit opens and closes
+ */
+public class CircuitBreaker {
+    public enum State {
+        /**
+         * Calls go through; outcomes are recorded.
+         */
+        CLOSED,
+
+        /**
+         * Calls are rejected without being sent.
+         */
+        OPEN,
+
+        /**
+         * A few trial calls go through, deciding whether the circuit closes or reopens.
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * Notified, under the circuit's lock, as the circuit changes state; keep implementations quick.
+     */
+    interface StateListener {
+        void onStateChange(CircuitBreaker circuit, State from, State to);
+    }
+
+    private final String name;
+    private final CircuitBreakerPolicy policy;
+    private final StateListener listener;
+    private final long slowCallNanos;
+    private final long openNanos;
+
+    // outcomes of the window's calls, as a ring
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int next;
+    private int calls;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long openedAtNanos;
+    private int trialsStarted;
+    private int trialsSucceeded;
+
+    CircuitBreaker(final String name, final CircuitBreakerPolicy policy, final StateListener listener) {
+        this.name = name;
+        this.policy = policy;
+        this.listener = listener;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(policy.getSlowCallDurationMillis());
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(policy.getOpenDurationMillis());
+        this.failed = new boolean[policy.getWindowSize()];
+        this.slow = new boolean[policy.getWindowSize()];
+    }
+
+    /**
+     * @return the host, or host and endpoint, the circuit covers
+     */
+    public String getName() {
+        return name;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Lets a call through, or rejects it while the circuit is open.  A call let through must report its
+     * outcome, or release its permission if it's never sent.
+     *
+     * @throws TrackviaCircuitOpenException if the call is rejected
+     */
+    synchronized void acquirePermission() {
+        if (state == State.OPEN) {
+            long remainingNanos = openNanos - (System.nanoTime() - openedAtNanos);
+            if (remainingNanos > 0) {
+                throw new TrackviaCircuitOpenException(name, TimeUnit.NANOSECONDS.toMillis(remainingNanos) + 1);
+            }
+            transition(State.HALF_OPEN);
+        }
+
+        if (state == State.HALF_OPEN) {
+            if (trialsStarted >= policy.getHalfOpenCalls()) {
+                throw new TrackviaCircuitOpenException(name, 0);
+            }
+            trialsStarted++;
+        }
+    }
+
+    /**
+     * Gives back the permission of a call that was never sent.
+     */
+    synchronized void releasePermission() {
+        if (state == State.HALF_OPEN && trialsStarted > 0) trialsStarted--;
+    }
+
+    synchronized void onSuccess(final long durationNanos) {
+        record(false, durationNanos);
+    }
+
+    synchronized void onFailure(final long durationNanos) {
+        record(true, durationNanos);
+    }
+
+    private void record(final boolean callFailed, final long durationNanos) {
+        boolean callSlow = durationNanos >= slowCallNanos;
+
+        switch (state) {
+            case HALF_OPEN:
+                if (callFailed || callSlow) {
+                    open();
+                } else if (++trialsSucceeded >= policy.getHalfOpenCalls()) {
+                    resetWindow();
+                    transition(State.CLOSED);
+                }
+                break;
+            case CLOSED:
+                if (calls == failed.length) {
+                    if (failed[next]) failures--;
+                    if (slow[next]) slowCalls--;
+                } else {
+                    calls++;
+                }
+                failed[next] = callFailed;
+                slow[next] = callSlow;
+                if (callFailed) failures++;
+                if (callSlow) slowCalls++;
+                next = (next + 1) % failed.length;
+
+                if (calls >= policy.getMinimumCalls()
+                        && (failures >= policy.getFailureRateThreshold() * calls
+                            || slowCalls >= policy.getSlowCallRateThreshold() * calls)) {
+                    open();
+                }
+                break;
+            default:
+                // a call let through before the circuit opened; its outcome no longer matters
+                break;
+        }
+    }
+
+    private void open() {
+        openedAtNanos = System.nanoTime();
+        transition(State.OPEN);
+    }
+
+    private void resetWindow() {
+        next = 0;
+        calls = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+
+    private void transition(final State to) {
+        State from = state;
+        state = to;
+        trialsStarted = 0;
+        trialsSucceeded = 0;
+
+        if (listener != null) listener.onStateChange(this, from, to);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CircuitBreaker[%s, %s]", name, getState());
+    }
+}
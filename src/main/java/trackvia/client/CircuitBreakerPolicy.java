@@ -0,0 +1,209 @@
+package trackvia.client;
+
+/**
+ * When calls to a struggling service are cut short rather than left to wait out their timeouts.
+ *
+ * A circuit breaker watches the outcomes of the last calls to the service - a sliding window of a fixed
+ * number of calls.  Once enough calls have been seen and too many of them failed (a broken connection,
+ * a timeout or a 5xx response) or were slow, the circuit opens: calls fail at once with a
+ * {@link TrackviaCircuitOpenException}, without being sent.  After a while the circuit half-opens to let
+ * a few trial calls through; if they all succeed it closes again, otherwise it reopens.
+ *
+ * There is one circuit per service host, or, optionally, one per endpoint (method and path, with record
+ * and view identifiers left out), so one failing endpoint doesn't cut off the others.
+ *
+ * <pre>
+ * {@code
+ *      TrackviaClientConfig config = TrackviaClientConfig.custom()
+ *              .setCircuitBreakerPolicy(CircuitBreakerPolicy.custom()
+ *                      .setFailureRateThreshold(0.5)
+ *                      .setOpenDurationMillis(10000)
+ *                      .build())
+ *              .build();
+ * }
+ * </pre>
+ */
+public class CircuitBreakerPolicy {
+    public static final int DEFAULT_WINDOW_SIZE = 100;
+    public static final int DEFAULT_MINIMUM_CALLS = 20;
+    public static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+    public static final double DEFAULT_SLOW_CALL_RATE_THRESHOLD = 1.0;
+    public static final long DEFAULT_SLOW_CALL_DURATION_MILLIS = 10000;
+    public static final long DEFAULT_OPEN_DURATION_MILLIS = 30000;
+    public static final int DEFAULT_HALF_OPEN_CALLS = 5;
+
+    /**
+     * Calls are always sent.
+     */
+    public static final CircuitBreakerPolicy DISABLED = custom().setEnabled(false).build();
+
+    private final boolean enabled;
+    private final boolean perEndpoint;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallDurationMillis;
+    private final long openDurationMillis;
+    private final int halfOpenCalls;
+
+    private CircuitBreakerPolicy(final Builder builder) {
+        this.enabled = builder.enabled;
+        this.perEndpoint = builder.perEndpoint;
+        this.windowSize = builder.windowSize;
+        this.minimumCalls = builder.minimumCalls;
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.slowCallRateThreshold = builder.slowCallRateThreshold;
+        this.slowCallDurationMillis = builder.slowCallDurationMillis;
+        this.openDurationMillis = builder.openDurationMillis;
+        this.halfOpenCalls = builder.halfOpenCalls;
+    }
+
+    public static Builder custom() {
+        return new Builder();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return whether each endpoint has a circuit of its own, rather than one per host
+     */
+    public boolean isPerEndpoint() {
+        return perEndpoint;
+    }
+
+    /**
+     * @return number of most recent calls the rates are taken over
+     */
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * @return calls seen before the rates are acted on, so a couple of early failures don't open the circuit
+     */
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    /**
+     * @return share of failed calls in the window that opens the circuit
+     */
+    public double getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    /**
+     * @return share of slow calls in the window that opens the circuit
+     */
+    public double getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    /**
+     * @return how long a call takes, until its response arrives, to count as slow
+     */
+    public long getSlowCallDurationMillis() {
+        return slowCallDurationMillis;
+    }
+
+    /**
+     * @return how long an open circuit rejects calls before letting trial calls through
+     */
+    public long getOpenDurationMillis() {
+        return openDurationMillis;
+    }
+
+    /**
+     * @return trial calls let through a half-open circuit, all of which must succeed to close it
+     */
+    public int getHalfOpenCalls() {
+        return halfOpenCalls;
+    }
+
+    public static class Builder {
+        private boolean enabled = true;
+        private boolean perEndpoint = false;
+        private int windowSize = DEFAULT_WINDOW_SIZE;
+        private int minimumCalls = DEFAULT_MINIMUM_CALLS;
+        private double failureRateThreshold = DEFAULT_FAILURE_RATE_THRESHOLD;
+        private double slowCallRateThreshold = DEFAULT_SLOW_CALL_RATE_THRESHOLD;
+        private long slowCallDurationMillis = DEFAULT_SLOW_CALL_DURATION_MILLIS;
+        private long openDurationMillis = DEFAULT_OPEN_DURATION_MILLIS;
+        private int halfOpenCalls = DEFAULT_HALF_OPEN_CALLS;
+
+        protected Builder() {}
+
+        public Builder setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+            return this;
+        }
+
+        public Builder setPerEndpoint(final boolean perEndpoint) {
+            this.perEndpoint = perEndpoint;
+            return this;
+        }
+
+        public Builder setWindowSize(final int windowSize) {
+            this.windowSize = positive("windowSize", windowSize);
+            return this;
+        }
+
+        public Builder setMinimumCalls(final int minimumCalls) {
+            this.minimumCalls = positive("minimumCalls", minimumCalls);
+            return this;
+        }
+
+        public Builder setFailureRateThreshold(final double failureRateThreshold) {
+            this.failureRateThreshold = rate("failureRateThreshold", failureRateThreshold);
+            return this;
+        }
+
+        public Builder setSlowCallRateThreshold(final double slowCallRateThreshold) {
+            this.slowCallRateThreshold = rate("slowCallRateThreshold", slowCallRateThreshold);
+            return this;
+        }
+
+        public Builder setSlowCallDurationMillis(final long slowCallDurationMillis) {
+            this.slowCallDurationMillis = positive("slowCallDurationMillis", slowCallDurationMillis);
+            return this;
+        }
+
+        public Builder setOpenDurationMillis(final long openDurationMillis) {
+            this.openDurationMillis = positive("openDurationMillis", openDurationMillis);
+            return this;
+        }
+
+        public Builder setHalfOpenCalls(final int halfOpenCalls) {
+            this.halfOpenCalls = positive("halfOpenCalls", halfOpenCalls);
+            return this;
+        }
+
+        public CircuitBreakerPolicy build() {
+            if (minimumCalls > windowSize) {
+                throw new IllegalArgumentException(String.format(
+                        "minimumCalls (%d) exceeds windowSize (%d)", minimumCalls, windowSize));
+            }
+
+            return new CircuitBreakerPolicy(this);
+        }
+
+        private static int positive(final String name, final int value) {
+            return (int) positive(name, (long) value);
+        }
+
+        private static long positive(final String name, final long value) {
+            if (value <= 0) throw new IllegalArgumentException(String.format("%s must be positive: %d", name, value));
+            return value;
+        }
+
+        private static double rate(final String name, final double value) {
+            if (!(value > 0 && value <= 1)) {
+                throw new IllegalArgumentException(String.format("%s must be within (0, 1]: %s", name, value));
+            }
+            return value;
+        }
+    }
+}
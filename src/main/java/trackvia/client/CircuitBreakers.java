@@ -0,0 +1,75 @@
+package trackvia.client;
+
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.http.client.methods.HttpRequestBase;
+
+/**
+ * The circuits of one client, built from its {@link CircuitBreakerPolicy} as hosts and endpoints are called.
+ */
+final class CircuitBreakers {
+    private final CircuitBreakerPolicy policy;
+    private final TrackviaClientMetrics metrics;
+    private final ConcurrentMap<String, CircuitBreaker> circuits = new ConcurrentHashMap<String, CircuitBreaker>();
+
+    CircuitBreakers(final CircuitBreakerPolicy policy, final TrackviaClientMetrics metrics) {
+        this.policy = policy;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return the circuit a request goes through, or null if circuit breaking is disabled
+     */
+    CircuitBreaker circuitFor(final HttpRequestBase request) {
+        if (!policy.isEnabled()) return null;
+
+        String name = circuitName(request);
+        CircuitBreaker circuit = circuits.get(name);
+        if (circuit == null) {
+            CircuitBreaker created = new CircuitBreaker(name, policy, new CircuitBreaker.StateListener() {
+                @Override
+                public void onStateChange(CircuitBreaker circuit, CircuitBreaker.State from, CircuitBreaker.State to) {
+                    metrics.recordCircuitStateChange(circuit.getName(), from, to);
+                }
+            });
+            circuit = circuits.putIfAbsent(name, created);
+            if (circuit == null) {
+                circuit = created;
+                metrics.recordCircuitStateChange(name, null, CircuitBreaker.State.CLOSED);
+            }
+        }
+
+        return circuit;
+    }
+
+    private String circuitName(final HttpRequestBase request) {
+        URI uri = request.getURI();
+        String host = (uri.getPort() > 0) ? (uri.getHost() + ":" + uri.getPort()) : (uri.getHost());
+        if (!policy.isPerEndpoint()) return host;
+
+        return host + " " + request.getMethod() + " " + endpointPath(uri.getPath());
+    }
+
+    /**
+     * Leaves identifiers out of a path, so /openapi/views/1/records/42 and /openapi/views/2/records/7 are
+     * one endpoint.
+     */
+    static String endpointPath(final String path) {
+        StringBuilder endpoint = new StringBuilder(path.length());
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty()) continue;
+            endpoint.append('/').append(isIdentifier(segment) ? ("{id}") : (segment));
+        }
+        return (endpoint.length() > 0) ? (endpoint.toString()) : ("/");
+    }
+
+    private static boolean isIdentifier(final String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (!(Character.isDigit(c) || c == ',')) return false;
+        }
+        return true;
+    }
+}
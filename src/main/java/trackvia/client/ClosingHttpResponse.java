@@ -0,0 +1,26 @@
+package trackvia.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import org.apache.http.ProtocolVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.message.BasicHttpResponse;
+
+/**
+ * A response built by a transport other than Apache HttpClient, closing whatever the transport
+ * holds for it when the command is done with it.
+ */
+class ClosingHttpResponse extends BasicHttpResponse implements CloseableHttpResponse {
+    private final Closeable resource;
+
+    ClosingHttpResponse(final ProtocolVersion version, final int statusCode, final String reason, final Closeable resource) {
+        super(version, statusCode, reason);
+        this.resource = resource;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.resource != null) this.resource.close();
+    }
+}
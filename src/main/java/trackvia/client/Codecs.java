@@ -0,0 +1,138 @@
+package trackvia.client;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import trackvia.client.model.DomainRecord;
+import trackvia.client.model.DomainRecordDataBatch;
+import trackvia.client.model.DomainRecordDataBatchAdapterFactory;
+import trackvia.client.model.DomainRecordSet;
+import trackvia.client.model.Iso8601;
+import trackvia.client.model.RecordData;
+import trackvia.client.model.RecordDataDeserializer;
+import trackvia.client.model.RecordDataSerializer;
+import trackvia.client.model.StreamingRecordAdapterFactory;
+import trackvia.client.model.TrackviaSerializationExclusionStrategy;
+
+/**
+ * The Gson instances commands read and write JSON with.
+ *
+ * A Gson is costly to build - each one assembles its own type adapters - and safe to share once built.
+ * Each codec is built once and shared by every client, command and thread; those binding an application's
+ * domain class are built on its first use, one per class for reading records and record sets, and one for
+ * writing record batches.
+ * Record sets and records, as maps or domain objects, are read token by token as the response streams in,
+ * and batches of domain objects written token by token through accessors compiled for their class.
+ */
+final class Codecs {
+    // the codecs reading records as maps, by how they read and write them; each built on its first use
+    private static final AtomicReferenceArray<Gson> RECORD_CODECS = new AtomicReferenceArray<Gson>(8);
+
+    /**
+     * Reads records as maps, and writes them omitting nulls.
+     */
+    static final Gson RECORDS = records(false, false, false);
+
+    /**
+     * Writes the records of create and update requests as they are, nulls included, so an update can clear a
+     * field; whatever codec the client reads records with.
+     */
+    static final Gson REQUESTS = new GsonBuilder()
+            .registerTypeAdapter(Date.class, Iso8601.dateTimeAdapter())
+            .serializeNulls()
+            .create();
+
+    /**
+     * Reads the error responses of the service.
+     */
+    static final Gson ERRORS = new GsonBuilder()
+            .registerTypeAdapter(Date.class, Iso8601.dateTimeAdapter())
+            .registerTypeAdapter(RecordData.class, new RecordDataDeserializer())
+            .serializeNulls()
+            .create();
+
+    // reads both record sets and single records of the domain class
+    private static final ClassValue<Gson> DOMAIN_RECORDS = new ClassValue<Gson>() {
+        @Override
+        protected Gson computeValue(final Class<?> domainClass) {
+            return domainBuilder()
+                    .registerTypeAdapterFactory(StreamingRecordAdapterFactory.forDomainClass(domainClass))
+                    .create();
+        }
+    };
+
+    private static final ClassValue<Gson> DOMAIN_RECORD_BATCHES = new ClassValue<Gson>() {
+        @Override
+        protected Gson computeValue(final Class<?> domainClass) {
+            return domainBuilder()
+                    .registerTypeAdapterFactory(DomainRecordDataBatchAdapterFactory.forDomainClass(domainClass))
+                    .create();
+        }
+    };
+
+    private Codecs() {}
+
+    /**
+     * @param typed whether values are typed by the record structure rather than guessed
+     * @param compact whether records are read as {@link trackvia.client.model.CompactRecordData}
+     * @return the codec reading and writing records as maps
+     */
+    static Gson records(final boolean typed, final boolean compact, final boolean serializeNulls) {
+        final int key = ((typed) ? (1) : (0)) | ((compact) ? (2) : (0)) | ((serializeNulls) ? (4) : (0));
+
+        Gson gson = RECORD_CODECS.get(key);
+        if (gson == null) {
+            final GsonBuilder builder = recordsBuilder(typed, compact);
+            if (serializeNulls) builder.serializeNulls();
+
+            RECORD_CODECS.compareAndSet(key, null, builder.create());
+            gson = RECORD_CODECS.get(key);
+        }
+
+        return gson;
+    }
+
+    /**
+     * @param type a {@link DomainRecordSet} or {@link DomainRecord} of the domain class
+     * @return the codec reading the type
+     */
+    static Gson deserializer(final Class<?> domainClass, final ParameterizedType type) {
+        Type shape = type.getRawType();
+        if (shape == DomainRecordSet.class || shape == DomainRecord.class) return DOMAIN_RECORDS.get(domainClass);
+
+        throw new IllegalArgumentException(String.format(
+                "No deserializer available for type %s<%s>", shape.toString(), domainClass.getName()));
+    }
+
+    /**
+     * @param type a {@link DomainRecordDataBatch} of the domain class
+     * @return the codec writing the type
+     */
+    static Gson serializer(final Class<?> domainClass, final ParameterizedType type) {
+        Type shape = type.getRawType();
+        if (shape == DomainRecordDataBatch.class) return DOMAIN_RECORD_BATCHES.get(domainClass);
+
+        throw new IllegalArgumentException(String.format(
+                "No serializer available for type %s<%s>", shape.toString(), domainClass.getName()));
+    }
+
+    private static GsonBuilder recordsBuilder(final boolean typed, final boolean compact) {
+        return new GsonBuilder()
+                .registerTypeAdapter(Date.class, Iso8601.dateTimeAdapter())
+                .registerTypeAdapter(RecordData.class, new RecordDataDeserializer())
+                .registerTypeHierarchyAdapter(RecordData.class, new RecordDataSerializer())
+                .registerTypeAdapterFactory(new StreamingRecordAdapterFactory(typed, compact))
+                .addSerializationExclusionStrategy(new TrackviaSerializationExclusionStrategy());
+    }
+
+    private static GsonBuilder domainBuilder() {
+        return new GsonBuilder()
+                .registerTypeAdapter(Date.class, Iso8601.dateTimeAdapter())
+                .addSerializationExclusionStrategy(new TrackviaSerializationExclusionStrategy());
+    }
+}
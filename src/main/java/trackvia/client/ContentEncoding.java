@@ -0,0 +1,252 @@
+package trackvia.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.HttpEntityWrapper;
+
+/**
+ * Content codings of request and response bodies, applied the same whichever transport carries them.
+ *
+ * Responses are decoded as they're read, so a compressed body streams straight into the JSON parser.
+ * Both the wire and the decoded sizes are counted into the exchange's {@link TrackviaClientMetrics.Exchange}.
+ */
+final class ContentEncoding {
+    static final String GZIP = "gzip";
+    static final String DEFLATE = "deflate";
+    static final String IDENTITY = "identity";
+
+    private ContentEncoding() {}
+
+    /**
+     * Negotiates the response coding and compresses a large JSON request body, as configured.
+     */
+    static void encodeRequest(final HttpRequestBase request, final TrackviaClientConfig config,
+            final TrackviaClientMetrics.Exchange exchange) throws IOException {
+        // always explicit: some engines otherwise negotiate gzip on their own and hide the wire size
+        request.setHeader(HttpHeaders.ACCEPT_ENCODING, config.isResponseCompressionEnabled()
+                ? (GZIP + ", " + DEFLATE)
+                : (IDENTITY));
+
+        if (!(request instanceof HttpEntityEnclosingRequest)) return;
+
+        HttpEntityEnclosingRequest enclosingRequest = (HttpEntityEnclosingRequest) request;
+        HttpEntity entity = enclosingRequest.getEntity();
+        if (entity == null) return;
+
+        long contentLength = entity.getContentLength();
+        exchange.setRequestContentBytes(contentLength);
+        exchange.setRequestWireBytes(contentLength);
+
+        if (!config.isRequestCompressionEnabled() || contentLength < config.getRequestCompressionThresholdBytes()
+                || entity.getContentEncoding() != null || !entity.isRepeatable() || !isJson(entity)) {
+            return;
+        }
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream((int) Math.min(contentLength / 4, 1 << 20));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            entity.writeTo(gzip);
+        }
+
+        ByteArrayEntity encoded = new ByteArrayEntity(compressed.toByteArray());
+        encoded.setContentType(entity.getContentType());
+        encoded.setContentEncoding(GZIP);
+        enclosingRequest.setEntity(encoded);
+
+        exchange.setRequestContentEncoding(GZIP);
+        exchange.setRequestWireBytes(encoded.getContentLength());
+    }
+
+    /**
+     * Replaces the response entity with one decoding its content coding, counting bytes as they're read.
+     */
+    static void decodeResponse(final HttpResponse response, final TrackviaClientMetrics.Exchange exchange) {
+        exchange.setStatusCode(response.getStatusLine().getStatusCode());
+
+        HttpEntity entity = response.getEntity();
+        if (entity == null) return;
+
+        Header encodingHeader = (entity.getContentEncoding() != null)
+                ? (entity.getContentEncoding())
+                : (response.getFirstHeader(HttpHeaders.CONTENT_ENCODING));
+        String encoding = (encodingHeader != null) ? (encodingHeader.getValue().trim().toLowerCase(Locale.ROOT)) : (null);
+        if (IDENTITY.equals(encoding) || (encoding != null && encoding.isEmpty())) encoding = null;
+
+        if (encoding != null && !GZIP.equals(encoding) && !"x-gzip".equals(encoding) && !DEFLATE.equals(encoding)) {
+            throw new TrackviaClientException(String.format("Unsupported response content encoding: %s", encoding));
+        }
+
+        exchange.setResponseContentEncoding(encoding);
+        response.setEntity(new DecodingEntity(entity, encoding, exchange));
+        if (encoding != null) response.removeHeaders(HttpHeaders.CONTENT_ENCODING);
+    }
+
+    /**
+     * Reads whatever the parser left of the response body, so the byte counts are complete and the
+     * connection can be reused.
+     */
+    static void finishResponse(final HttpResponse response) {
+        HttpEntity entity = response.getEntity();
+        if (!(entity instanceof DecodingEntity)) return;
+
+        try (InputStream in = entity.getContent()) {
+            byte[] buffer = new byte[8192];
+            while (in.read(buffer) != -1) {
+                // discard
+            }
+        } catch (IOException e) {
+            // the connection won't be reused; nothing else to do
+        }
+    }
+
+    private static boolean isJson(final HttpEntity entity) {
+        Header contentType = entity.getContentType();
+        return contentType != null
+                && contentType.getValue().toLowerCase(Locale.ROOT).startsWith(ContentType.APPLICATION_JSON.getMimeType());
+    }
+
+    /**
+     * Decodes a response body lazily, on the first call to {@link #getContent()}.
+     */
+    private static class DecodingEntity extends HttpEntityWrapper {
+        private final String encoding;
+        private final TrackviaClientMetrics.Exchange exchange;
+        private InputStream content;
+
+        DecodingEntity(final HttpEntity entity, final String encoding, final TrackviaClientMetrics.Exchange exchange) {
+            super(entity);
+            this.encoding = encoding;
+            this.exchange = exchange;
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            if (content == null) {
+                InputStream wire = new CountingInputStream(wrappedEntity.getContent()) {
+                    @Override
+                    protected void counted(long bytes) {
+                        exchange.setResponseWireBytes(bytes);
+                    }
+                };
+                content = new CountingInputStream(decoder(wire)) {
+                    @Override
+                    protected void counted(long bytes) {
+                        exchange.setResponseContentBytes(bytes);
+                    }
+                };
+            }
+            return content;
+        }
+
+        private InputStream decoder(final InputStream wire) throws IOException {
+            if (encoding == null) return wire;
+            if (DEFLATE.equals(encoding)) return inflater(wire);
+
+            return new GZIPInputStream(wire, 8192);
+        }
+
+        /**
+         * "deflate" is specified as zlib-wrapped, but some servers send raw deflate data; tell them apart
+         * by the zlib header.
+         */
+        private static InputStream inflater(final InputStream wire) throws IOException {
+            PushbackInputStream in = new PushbackInputStream(wire, 2);
+            int b0 = in.read();
+            int b1 = (b0 == -1) ? (-1) : (in.read());
+            if (b1 != -1) in.unread(b1);
+            if (b0 != -1) in.unread(b0);
+
+            boolean zlib = (b0 != -1 && b1 != -1) && ((b0 & 0x0F) == 8) && ((((b0 << 8) | b1) % 31) == 0);
+            return new InflaterInputStream(in, new Inflater(!zlib), 8192);
+        }
+
+        @Override
+        public void writeTo(final OutputStream out) throws IOException {
+            InputStream in = getContent();
+            try {
+                byte[] buffer = new byte[8192];
+                for (int n; (n = in.read(buffer)) != -1; ) {
+                    out.write(buffer, 0, n);
+                }
+            } finally {
+                in.close();
+            }
+        }
+
+        @Override
+        public long getContentLength() {
+            return (encoding == null) ? (wrappedEntity.getContentLength()) : (-1);
+        }
+
+        @Override
+        public Header getContentEncoding() {
+            return (encoding == null) ? (wrappedEntity.getContentEncoding()) : (null);
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return true;
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return false;
+        }
+    }
+
+    /**
+     * Reports the running count of bytes read through it.
+     */
+    abstract static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(final InputStream in) {
+            super(in);
+        }
+
+        protected abstract void counted(long bytes);
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) counted(++count);
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) counted(count += n);
+            return n;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            long skipped = super.skip(n);
+            if (skipped > 0) counted(count += skipped);
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package trackvia.client;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpRequestBase;
+
+/**
+ * A point in time by which a call, with all its attempts, must have finished.
+ *
+ * Calls made within a deadline's scope - see {@link TrackviaClient#withDeadline(Deadline, java.util.concurrent.Callable)} - bound
+ * every wait by the time left: the wait for a rate limiter permit, for a pooled connection, to connect and
+ * to read, as well as the backoff before a retry and a token refresh.  A request still unanswered when the
+ * deadline passes is aborted, and the call fails with a {@link TrackviaDeadlineExceededException}.
+ *
+ * Deadlines nest: a call made within two scopes honours the earlier deadline.
+ */
+public final class Deadline {
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<Deadline>();
+    private static volatile ScheduledExecutorService timer;
+
+    private final long deadlineNanos;
+    private final long timeoutMillis;
+
+    private Deadline(final long deadlineNanos, final long timeoutMillis) {
+        this.deadlineNanos = deadlineNanos;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * @return a deadline the timeout from now
+     */
+    public static Deadline after(final long timeout, final TimeUnit unit) {
+        if (timeout <= 0) throw new IllegalArgumentException(String.format("timeout must be positive: %d", timeout));
+
+        return new Deadline(System.nanoTime() + unit.toNanos(timeout), unit.toMillis(timeout));
+    }
+
+    /**
+     * @return the earlier of this deadline and another, which may be null
+     */
+    public Deadline earliest(final Deadline other) {
+        return (other != null && other.deadlineNanos - this.deadlineNanos < 0) ? (other) : (this);
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    /**
+     * @return time left, or zero or less once expired
+     */
+    public long remainingNanos() {
+        return this.deadlineNanos - System.nanoTime();
+    }
+
+    /**
+     * @return time left in milliseconds, rounded up, or zero or less once expired
+     */
+    public long remainingMillis() {
+        long remainingNanos = remainingNanos();
+        return (remainingNanos > 0) ? (TimeUnit.NANOSECONDS.toMillis(remainingNanos + 999999)) : (TimeUnit.NANOSECONDS.toMillis(remainingNanos));
+    }
+
+    /**
+     * @return the timeout the deadline was set with
+     */
+    public long getTimeoutMillis() {
+        return this.timeoutMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Deadline[%d ms, %d ms left]", this.timeoutMillis, remainingMillis());
+    }
+
+    /**
+     * @return the deadline of the calls made on this thread, or null if they have none
+     */
+    static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @return the deadline of a call starting now: the current one, or the call timeout from now if earlier
+     */
+    static Deadline forCall(final long callTimeoutMillis) {
+        Deadline current = CURRENT.get();
+        if (callTimeoutMillis <= 0) return current;
+
+        return after(callTimeoutMillis, TimeUnit.MILLISECONDS).earliest(current);
+    }
+
+    /**
+     * Makes a deadline that of the calls on this thread, until {@link #exit(Deadline)}.
+     *
+     * @param deadline may be null, keeping the current deadline
+     * @return the deadline to restore on exit
+     */
+    static Deadline enter(final Deadline deadline) {
+        Deadline outer = CURRENT.get();
+        if (deadline != null) CURRENT.set(deadline.earliest(outer));
+
+        return outer;
+    }
+
+    static void exit(final Deadline outer) {
+        if (outer != null) {
+            CURRENT.set(outer);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * @return the failure of a call whose deadline passed, caused by what the passing deadline led to
+     */
+    TrackviaDeadlineExceededException exceeded(final Throwable cause) {
+        TrackviaDeadlineExceededException e = new TrackviaDeadlineExceededException(this.timeoutMillis);
+        if (cause != null) e.initCause(cause);
+
+        return e;
+    }
+
+    /**
+     * @throws TrackviaDeadlineExceededException if the deadline passed
+     */
+    void check() {
+        if (isExpired()) throw exceeded(null);
+    }
+
+    /**
+     * Bounds a request's waits for a pooled connection, to connect and to read by the time left.
+     */
+    void bound(final HttpRequestBase request, final RequestConfig defaultConfig) {
+        int remainingMillis = (int) Math.max(1, Math.min(Integer.MAX_VALUE, remainingMillis()));
+        RequestConfig config = (request.getConfig() != null) ? (request.getConfig()) : (defaultConfig);
+
+        request.setConfig(RequestConfig.copy(config)
+                .setConnectionRequestTimeout(bound(config.getConnectionRequestTimeout(), remainingMillis))
+                .setConnectTimeout(bound(config.getConnectTimeout(), remainingMillis))
+                .setSocketTimeout(bound(config.getSocketTimeout(), remainingMillis))
+                .build());
+    }
+
+    private static int bound(final int timeoutMillis, final int remainingMillis) {
+        // zero or less waits indefinitely
+        return (timeoutMillis <= 0 || timeoutMillis > remainingMillis) ? (remainingMillis) : (timeoutMillis);
+    }
+
+    /**
+     * Aborts a request should it still be under way when the deadline passes.
+     *
+     * @return the scheduled abort, to cancel once the request is done
+     */
+    ScheduledFuture<?> abortOnExpiry(final HttpRequestBase request) {
+        return onExpiry(new Runnable() {
+            @Override
+            public void run() {
+                request.abort();
+            }
+        });
+    }
+
+    /**
+     * Runs a task on the deadline timer once the deadline passes; the task must be quick.
+     *
+     * @return the scheduled task, to cancel once the call is done
+     */
+    ScheduledFuture<?> onExpiry(final Runnable task) {
+        return timer().schedule(task, Math.max(0, remainingNanos()), TimeUnit.NANOSECONDS);
+    }
+
+    private static ScheduledExecutorService timer() {
+        if (timer == null) {
+            synchronized (Deadline.class) {
+                if (timer == null) {
+                    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                        @Override
+                        public Thread newThread(final Runnable r) {
+                            Thread thread = new Thread(r, "trackvia-deadline");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                    // aborts of requests answered in time are cancelled; don't keep them queued
+                    executor.setRemoveOnCancelPolicy(true);
+                    timer = executor;
+                }
+            }
+        }
+        return timer;
+    }
+}
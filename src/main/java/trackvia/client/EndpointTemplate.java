@@ -0,0 +1,186 @@
+package trackvia.client;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The URI of a service endpoint, compiled once: a path whose variable segments are {@code {}} placeholders,
+ * and the names of the endpoint's query parameters.
+ *
+ * Expanding a template writes the URI into a single buffer, percent-encoding segment and parameter values
+ * per RFC 3986 - a slash in a file name stays within its segment, an ampersand in a search stays within
+ * its parameter - without the builder, formatted path and parameter pairs of a
+ * {@link org.apache.http.client.utils.URIBuilder}.
+ *
+ * <pre>
+ * {@code
+ *      EndpointTemplate RECORD = EndpointTemplate.compile("/openapi/views/{}/records/{}", "access_token", "user_key");
+ *
+ *      URI uri = RECORD.expand("https", "go.api.trackvia.com", 443, "", viewId, recordId, accessToken, userKey);
+ * }
+ * </pre>
+ */
+public final class EndpointTemplate {
+    private static final String PLACEHOLDER = "{}";
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * Characters left as they are in a path segment: unreserved, sub-delims, ':' and '@'.
+     */
+    private static final boolean[] SEGMENT = allowed("-._~!$&'()*+,;=:@");
+
+    /**
+     * Characters left as they are in a parameter value; '&', '=' and '+' would change its meaning.
+     */
+    private static final boolean[] QUERY = allowed("-._~!$'()*,;:@/?");
+
+    private final String path;
+    private final String[] literals;
+    private final String[] parameters;
+
+    private EndpointTemplate(final String path, final String[] literals, final String[] parameters) {
+        this.path = path;
+        this.literals = literals;
+        this.parameters = parameters;
+    }
+
+    /**
+     * @param path endpoint path below the client's base path, with a placeholder per variable segment
+     * @param parameterNames names of the endpoint's query parameters, in the order they're sent
+     */
+    public static EndpointTemplate compile(final String path, final String... parameterNames) {
+        if (path == null || !path.startsWith("/")) {
+            throw new IllegalArgumentException(String.format("path must start with a slash: %s", path));
+        }
+
+        List<String> literals = new ArrayList<String>();
+        int from = 0;
+        for (int at = path.indexOf(PLACEHOLDER); at >= 0; at = path.indexOf(PLACEHOLDER, from)) {
+            literals.add(path.substring(from, at));
+            from = at + PLACEHOLDER.length();
+        }
+        literals.add(path.substring(from));
+
+        String[] parameters = new String[parameterNames.length];
+        for (int i = 0; i < parameterNames.length; i++) {
+            StringBuilder name = new StringBuilder();
+            encode(name, parameterNames[i], QUERY);
+            parameters[i] = name.append('=').toString();
+        }
+
+        return new EndpointTemplate(path, literals.toArray(new String[literals.size()]), parameters);
+    }
+
+    /**
+     * @return how many values the template expands: its placeholders, then its query parameters
+     */
+    public int getVariables() {
+        return this.literals.length - 1 + this.parameters.length;
+    }
+
+    /**
+     * @param basePath prefixed to the template's path, e.g. empty, / or /gateway
+     * @param values of the placeholders, then of the query parameters; a parameter whose value is null isn't sent
+     * @return the endpoint's URI
+     */
+    public URI expand(final String scheme, final String hostname, final int port, final String basePath,
+            final Object... values) throws URISyntaxException {
+        if (values.length != getVariables()) {
+            throw new IllegalArgumentException(String.format("%s expands %d values, not %d",
+                    this.path, getVariables(), values.length));
+        }
+
+        StringBuilder uri = new StringBuilder(128)
+                .append(scheme).append("://").append(hostname).append(':').append(port);
+        if (basePath != null && !basePath.isEmpty()) {
+            // the template's path starts with its own slash; "/" alone, or a trailing one, adds nothing
+            int end = basePath.length();
+            if (basePath.charAt(end - 1) == '/') end--;
+            if (end > 0) {
+                if (basePath.charAt(0) != '/') uri.append('/');
+                uri.append(basePath, 0, end);
+            }
+        }
+
+        int value = 0;
+        uri.append(this.literals[0]);
+        for (int i = 1; i < this.literals.length; i++) {
+            append(uri, values[value++], SEGMENT);
+            uri.append(this.literals[i]);
+        }
+
+        char separator = '?';
+        for (String parameter : this.parameters) {
+            Object parameterValue = values[value++];
+            if (parameterValue == null) continue;
+
+            uri.append(separator).append(parameter);
+            append(uri, parameterValue, QUERY);
+            separator = '&';
+        }
+
+        return new URI(uri.toString());
+    }
+
+    @Override
+    public String toString() {
+        return this.path;
+    }
+
+    private static void append(final StringBuilder uri, final Object value, final boolean[] allowed) {
+        if (value instanceof Integer) {
+            uri.append(((Integer) value).intValue());
+        } else if (value instanceof Long) {
+            uri.append(((Long) value).longValue());
+        } else {
+            encode(uri, String.valueOf(value), allowed);
+        }
+    }
+
+    private static void encode(final StringBuilder uri, final String value, final boolean[] allowed) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80 && allowed[c]) {
+                uri.append(c);
+            } else if (c < 0x80) {
+                escape(uri, c);
+            } else {
+                int codePoint = value.codePointAt(i);
+                if (Character.isSupplementaryCodePoint(codePoint)) i++;
+                escapeUtf8(uri, codePoint);
+            }
+        }
+    }
+
+    private static void escapeUtf8(final StringBuilder uri, final int codePoint) {
+        if (codePoint < 0x800) {
+            escape(uri, 0xc0 | (codePoint >> 6));
+            escape(uri, 0x80 | (codePoint & 0x3f));
+        } else if (codePoint < 0x10000) {
+            escape(uri, 0xe0 | (codePoint >> 12));
+            escape(uri, 0x80 | ((codePoint >> 6) & 0x3f));
+            escape(uri, 0x80 | (codePoint & 0x3f));
+        } else {
+            escape(uri, 0xf0 | (codePoint >> 18));
+            escape(uri, 0x80 | ((codePoint >> 12) & 0x3f));
+            escape(uri, 0x80 | ((codePoint >> 6) & 0x3f));
+            escape(uri, 0x80 | (codePoint & 0x3f));
+        }
+    }
+
+    private static void escape(final StringBuilder uri, final int b) {
+        uri.append('%').append(HEX[(b >> 4) & 0xf]).append(HEX[b & 0xf]);
+    }
+
+    private static boolean[] allowed(final String punctuation) {
+        boolean[] allowed = new boolean[0x80];
+        for (char c = 'a'; c <= 'z'; c++) allowed[c] = true;
+        for (char c = 'A'; c <= 'Z'; c++) allowed[c] = true;
+        for (char c = '0'; c <= '9'; c++) allowed[c] = true;
+        for (char c : punctuation.toCharArray()) allowed[c] = true;
+
+        return allowed;
+    }
+}
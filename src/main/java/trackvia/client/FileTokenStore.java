@@ -0,0 +1,322 @@
+package trackvia.client;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import trackvia.client.model.Iso8601;
+import trackvia.client.model.OAuth2Token;
+
+/**
+ * Stores tokens in files of a local directory, one per key, encrypted with a key derived from a passphrase.
+ *
+ * Files are encrypted with AES-GCM, which also detects a file altered or encrypted with another passphrase;
+ * such a file is ignored, and replaced by the next token saved.  Where the file system has POSIX permissions,
+ * the directory is readable by its owner only, and so are the token and lock files.
+ *
+ * Clients sharing the directory, in this process or others on the host, coordinate through a lock file per
+ * key: while one client authorizes, the others wait for it and then start with the token it saved.
+ *
+ * <pre>
+ * {@code
+ *      TrackviaClientConfig config = TrackviaClientConfig.custom()
+ *              .setTokenStore(new FileTokenStore(Paths.get(System.getProperty("user.home"), ".trackvia"), passphrase))
+ *              .build();
+ * }
+ * </pre>
+ */
+public class FileTokenStore implements TokenStore {
+    private static Logger LOG = LoggerFactory.getLogger(FileTokenStore.class);
+
+    private static final byte[] MAGIC = { 'T', 'V', 'T', '1' };
+    private static final int SALT_BYTES = 16;
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+    private static final int KEY_BITS = 256;
+    private static final int KEY_ITERATIONS = 65536;
+
+    private static final Set<PosixFilePermission> OWNER_ONLY_DIRECTORY = PosixFilePermissions.fromString("rwx------");
+    private static final Set<PosixFilePermission> OWNER_ONLY_FILE = PosixFilePermissions.fromString("rw-------");
+
+    /**
+     * File locks are held by the process, not by a thread; clients of the one process also lock a monitor.
+     */
+    private static final ConcurrentMap<Path, Object> MONITORS = new ConcurrentHashMap<Path, Object>();
+
+    private final Path directory;
+    private final char[] passphrase;
+    private final SecureRandom random = new SecureRandom();
+    private final byte[] salt = new byte[SALT_BYTES];
+    private final SecretKey key;
+    private final Gson gson = new GsonBuilder().registerTypeAdapter(Date.class, Iso8601.dateTimeAdapter()).create();
+
+    /**
+     * @param directory where to keep the token files, created if missing
+     * @param passphrase from which to derive the encryption key; the store keeps a copy
+     */
+    public FileTokenStore(final Path directory, final char[] passphrase) {
+        if (directory == null) throw new IllegalArgumentException("directory must not be null");
+        if (passphrase == null || passphrase.length == 0) throw new IllegalArgumentException("passphrase must not be empty");
+
+        this.directory = directory.toAbsolutePath();
+        this.passphrase = passphrase.clone();
+        this.random.nextBytes(this.salt);
+        this.key = deriveKey(this.salt);
+    }
+
+    public Path getDirectory() {
+        return this.directory;
+    }
+
+    @Override
+    public OAuth2Token loadOrAuthorize(final String key, final Authorizer authorizer) {
+        final Path file = fileOf(key);
+        final Path lockFile = file.resolveSibling(file.getFileName() + ".lock");
+
+        synchronized (monitorOf(lockFile)) {
+            createDirectory();
+            try (FileChannel channel = openLockFile(lockFile)) {
+                // released as the channel closes
+                channel.lock();
+                OAuth2Token token = load(key, file);
+                if (token != null) {
+                    LOG.debug("reusing stored token for {}", key);
+                    return token;
+                }
+
+                token = authorizer.authorize();
+                write(key, file, token);
+
+                return token;
+            } catch (IOException e) {
+                throw new TrackviaClientException(e);
+            }
+        }
+    }
+
+    @Override
+    public void save(final String key, final OAuth2Token token) {
+        final Path file = fileOf(key);
+        final Path lockFile = file.resolveSibling(file.getFileName() + ".lock");
+
+        synchronized (monitorOf(lockFile)) {
+            createDirectory();
+            try (FileChannel channel = openLockFile(lockFile)) {
+                // released as the channel closes
+                channel.lock();
+                write(key, file, token);
+            } catch (IOException e) {
+                throw new TrackviaClientException(e);
+            }
+        }
+    }
+
+    /**
+     * @return the stored token, or null if there's none, it has expired or can't be read
+     */
+    private OAuth2Token load(final String key, final Path file) throws IOException {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+
+        OAuth2Token token;
+        try {
+            token = this.gson.fromJson(new String(decrypt(key, bytes), StandardCharsets.UTF_8), OAuth2Token.class);
+        } catch (GeneralSecurityException | JsonParseException e) {
+            LOG.warn("ignoring unreadable token file {}: {}", file, e.toString());
+            return null;
+        }
+
+        if (token == null || token.getValue() == null) return null;
+        if (token.getExpiration() != null && token.getExpiration().getTime() <= System.currentTimeMillis()) return null;
+
+        return token;
+    }
+
+    private void write(final String key, final Path file, final OAuth2Token token) throws IOException {
+        byte[] bytes;
+        try {
+            bytes = encrypt(key, toJson(token).getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new TrackviaClientException(e);
+        }
+
+        Path temp = (isPosix()) ?
+                (Files.createTempFile(this.directory, ".token", ".tmp", PosixFilePermissions.asFileAttribute(OWNER_ONLY_FILE))) :
+                (Files.createTempFile(this.directory, ".token", ".tmp"));
+        try {
+            Files.write(temp, bytes);
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Stores when the token expires rather than how long it lasts, since the file outlives the response.
+     */
+    private String toJson(final OAuth2Token token) {
+        JsonObject json = this.gson.toJsonTree(token).getAsJsonObject();
+        Long expiresInSeconds = (token.getExpiresIn() != null) ? (token.getExpiresIn()) : (token.getExpires_in());
+        if (token.getExpiration() == null && expiresInSeconds != null && expiresInSeconds > 0) {
+            Date expiration = new Date(System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(expiresInSeconds));
+            json.add("expiration", this.gson.toJsonTree(expiration));
+        }
+        json.remove("expiresIn");
+        json.remove("expires_in");
+
+        return this.gson.toJson(json);
+    }
+
+    /**
+     * @return magic, salt, IV and the cipher text; the key the file is stored under is authenticated too
+     */
+    private byte[] encrypt(final String key, final byte[] plain) throws GeneralSecurityException {
+        byte[] iv = new byte[IV_BYTES];
+        this.random.nextBytes(iv);
+
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, this.key, new GCMParameterSpec(TAG_BITS, iv));
+        cipher.updateAAD(key.getBytes(StandardCharsets.UTF_8));
+        byte[] sealed = cipher.doFinal(plain);
+
+        return ByteBuffer.allocate(MAGIC.length + SALT_BYTES + IV_BYTES + sealed.length)
+                .put(MAGIC).put(this.salt).put(iv).put(sealed)
+                .array();
+    }
+
+    private byte[] decrypt(final String key, final byte[] bytes) throws GeneralSecurityException {
+        if (bytes.length < MAGIC.length + SALT_BYTES + IV_BYTES || !Arrays.equals(MAGIC, Arrays.copyOf(bytes, MAGIC.length))) {
+            throw new GeneralSecurityException("not a token file");
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, MAGIC.length, bytes.length - MAGIC.length);
+        byte[] salt = new byte[SALT_BYTES];
+        byte[] iv = new byte[IV_BYTES];
+        buffer.get(salt).get(iv);
+
+        // files written by this store share its key; others were written with a salt of their own
+        SecretKey secretKey = (Arrays.equals(salt, this.salt)) ? (this.key) : (deriveKey(salt));
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(TAG_BITS, iv));
+        cipher.updateAAD(key.getBytes(StandardCharsets.UTF_8));
+
+        return cipher.doFinal(bytes, buffer.position(), buffer.remaining());
+    }
+
+    private SecretKey deriveKey(final byte[] salt) {
+        PBEKeySpec spec = new PBEKeySpec(this.passphrase, salt, KEY_ITERATIONS, KEY_BITS);
+        try {
+            byte[] encoded = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+            return new SecretKeySpec(encoded, "AES");
+        } catch (GeneralSecurityException e) {
+            throw new TrackviaClientException(e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    /**
+     * @return the file of a key, named by its digest so that neither the user nor the host shows
+     */
+    private Path fileOf(final String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(digest.length * 2 + 6);
+            for (byte b : digest) {
+                name.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return this.directory.resolve(name.append(".token").toString());
+        } catch (GeneralSecurityException e) {
+            throw new TrackviaClientException(e);
+        }
+    }
+
+    private FileChannel openLockFile(final Path lockFile) throws IOException {
+        Set<StandardOpenOption> options = EnumSet.of(StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+
+        return (isPosix()) ?
+                (FileChannel.open(lockFile, options, PosixFilePermissions.asFileAttribute(OWNER_ONLY_FILE))) :
+                (FileChannel.open(lockFile, options));
+    }
+
+    private void createDirectory() {
+        if (Files.isDirectory(this.directory)) return;
+
+        try {
+            if (isPosix(this.directory.getParent())) {
+                FileAttribute<Set<PosixFilePermission>> ownerOnly = PosixFilePermissions.asFileAttribute(OWNER_ONLY_DIRECTORY);
+                Files.createDirectories(this.directory, ownerOnly);
+            } else {
+                Files.createDirectories(this.directory);
+            }
+        } catch (IOException e) {
+            throw new TrackviaClientException(e);
+        }
+    }
+
+    private boolean isPosix() throws IOException {
+        return isPosix(this.directory);
+    }
+
+    private static boolean isPosix(final Path path) throws IOException {
+        Path existing = path;
+        while (existing != null && !Files.exists(existing)) {
+            existing = existing.getParent();
+        }
+        return existing != null && Files.getFileStore(existing).supportsFileAttributeView(PosixFileAttributeView.class);
+    }
+
+    private static Object monitorOf(final Path lockFile) {
+        Object monitor = MONITORS.get(lockFile);
+        if (monitor == null) {
+            Object created = new Object();
+            monitor = MONITORS.putIfAbsent(lockFile, created);
+            if (monitor == null) monitor = created;
+        }
+        return monitor;
+    }
+}
@@ -0,0 +1,147 @@
+package trackvia.client;
+
+/**
+ * When a slow read is sent a second time, so one slow service node doesn't stall the call.
+ *
+ * A read - fetching records or views, not files - that hasn't been answered within the hedge delay is
+ * sent again, and whichever attempt answers first is used; the other is aborted.  The delay is either
+ * fixed or, by default, a high percentile of the latencies recently observed for reads, so only the
+ * slowest few percent of calls are hedged.  Until enough latencies have been observed the fixed delay
+ * applies.  Only first attempts are observed; while more of them lose to their hedge than the percentile
+ * allows, reads aren't hedged until the ones answered unhedged show where the percentile lies.
+ *
+ * Hedges are extra load on the service, so they're paid for from a budget shared by all calls of a
+ * client, like retries: each read earns a fraction of a hedge, and a small allowance refills every
+ * second.  Hedges also take rate limiter permits, and are skipped rather than delayed when none is free.
+ *
+ * <pre>
+ * {@code
+ *      TrackviaClientConfig config = TrackviaClientConfig.custom()
+ *              .setHedgePolicy(HedgePolicy.custom().setDelayPercentile(0.95).setDelayMillis(200).build())
+ *              .build();
+ * }
+ * </pre>
+ */
+public class HedgePolicy {
+    public static final long DEFAULT_DELAY_MILLIS = 100;
+    public static final double DEFAULT_DELAY_PERCENTILE = 0.95;
+    public static final double DEFAULT_HEDGE_BUDGET_RATIO = 0.05;
+    public static final int DEFAULT_HEDGE_BUDGET_MIN_PER_SECOND = 1;
+
+    /**
+     * Every read is sent once only.
+     */
+    public static final HedgePolicy DISABLED = custom().setEnabled(false).build();
+
+    private final boolean enabled;
+    private final long delayMillis;
+    private final double delayPercentile;
+    private final double hedgeBudgetRatio;
+    private final int hedgeBudgetMinPerSecond;
+
+    private HedgePolicy(final Builder builder) {
+        this.enabled = builder.enabled;
+        this.delayMillis = builder.delayMillis;
+        this.delayPercentile = builder.delayPercentile;
+        this.hedgeBudgetRatio = builder.hedgeBudgetRatio;
+        this.hedgeBudgetMinPerSecond = builder.hedgeBudgetMinPerSecond;
+    }
+
+    public static Builder custom() {
+        return new Builder();
+    }
+
+    /**
+     * @return a builder holding this policy's settings, to derive a policy differing in a few of them
+     */
+    public static Builder copy(final HedgePolicy policy) {
+        return new Builder()
+                .setEnabled(policy.enabled)
+                .setDelayMillis(policy.delayMillis)
+                .setDelayPercentile(policy.delayPercentile)
+                .setHedgeBudgetRatio(policy.hedgeBudgetRatio)
+                .setHedgeBudgetMinPerSecond(policy.hedgeBudgetMinPerSecond);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return how long a read goes unanswered before it's hedged, when not going by observed latencies
+     */
+    public long getDelayMillis() {
+        return delayMillis;
+    }
+
+    /**
+     * @return percentile of recently observed read latencies a read goes unanswered before it's hedged,
+     * e.g. 0.95; zero always waits the fixed delay
+     */
+    public double getDelayPercentile() {
+        return delayPercentile;
+    }
+
+    /**
+     * @return hedges earned per read, e.g. 0.05 allows one hedge for every twenty reads
+     */
+    public double getHedgeBudgetRatio() {
+        return hedgeBudgetRatio;
+    }
+
+    /**
+     * @return hedges allowed every second regardless of the ratio
+     */
+    public int getHedgeBudgetMinPerSecond() {
+        return hedgeBudgetMinPerSecond;
+    }
+
+    public static class Builder {
+        private boolean enabled = true;
+        private long delayMillis = DEFAULT_DELAY_MILLIS;
+        private double delayPercentile = DEFAULT_DELAY_PERCENTILE;
+        private double hedgeBudgetRatio = DEFAULT_HEDGE_BUDGET_RATIO;
+        private int hedgeBudgetMinPerSecond = DEFAULT_HEDGE_BUDGET_MIN_PER_SECOND;
+
+        protected Builder() {}
+
+        public Builder setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+            return this;
+        }
+
+        public Builder setDelayMillis(final long delayMillis) {
+            if (delayMillis < 0) throw new IllegalArgumentException(String.format("delayMillis must not be negative: %d", delayMillis));
+            this.delayMillis = delayMillis;
+            return this;
+        }
+
+        public Builder setDelayPercentile(final double delayPercentile) {
+            if (!(delayPercentile >= 0 && delayPercentile < 1)) {
+                throw new IllegalArgumentException(String.format("delayPercentile must be within [0, 1): %s", delayPercentile));
+            }
+            this.delayPercentile = delayPercentile;
+            return this;
+        }
+
+        public Builder setHedgeBudgetRatio(final double hedgeBudgetRatio) {
+            if (!(hedgeBudgetRatio >= 0)) {
+                throw new IllegalArgumentException(String.format("hedgeBudgetRatio must not be negative: %s", hedgeBudgetRatio));
+            }
+            this.hedgeBudgetRatio = hedgeBudgetRatio;
+            return this;
+        }
+
+        public Builder setHedgeBudgetMinPerSecond(final int hedgeBudgetMinPerSecond) {
+            if (hedgeBudgetMinPerSecond < 0) {
+                throw new IllegalArgumentException(String.format("hedgeBudgetMinPerSecond must not be negative: %d", hedgeBudgetMinPerSecond));
+            }
+            this.hedgeBudgetMinPerSecond = hedgeBudgetMinPerSecond;
+            return this;
+        }
+
+        public HedgePolicy build() {
+            return new HedgePolicy(this);
+        }
+    }
+}
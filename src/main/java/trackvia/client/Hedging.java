@@ -0,0 +1,270 @@
+package trackvia.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends the reads of one client, hedging those left unanswered too long as its {@link HedgePolicy} allows.
+ *
+ * Attempts of a hedged read run on the client's hedging threads while the caller waits for the first
+ * response; the attempt left behind is aborted, and its response closed should it still arrive.
+ */
+final class Hedging {
+    private static Logger LOG = LoggerFactory.getLogger(Hedging.class);
+
+    private final HedgePolicy policy;
+    private final TrackviaClientMetrics metrics;
+    private final RateLimits rateLimits;
+    private final RetryBudget budget;
+    private final LatencyWindow latencies = new LatencyWindow();
+    private final ExecutorService executor;
+
+    Hedging(final HedgePolicy policy, final RateLimits rateLimits, final TrackviaClientMetrics metrics) {
+        this.policy = policy;
+        this.metrics = metrics;
+        this.rateLimits = rateLimits;
+        this.budget = new RetryBudget(policy);
+        this.executor = (policy.isEnabled()) ? (Executors.newCachedThreadPool(new HedgingThreadFactory())) : (null);
+    }
+
+    /**
+     * Sends a request, hedging it if it's a read the policy covers.
+     */
+    CloseableHttpResponse execute(final Transport transport, final HttpRequestBase request) throws IOException {
+        if (this.executor == null || !(request instanceof HttpGet)
+                || RateLimitPolicy.EndpointClass.of(request) != RateLimitPolicy.EndpointClass.READ) {
+            return transport.execute(request);
+        }
+
+        this.budget.deposit();
+        long startNanos = System.nanoTime();
+        Race race = new Race();
+        race.start(transport, request);
+
+        try {
+            if (!race.await(delayNanos())) {
+                HttpGet hedge = copyOf((HttpGet) request);
+                if (this.budget.tryWithdraw() && this.rateLimits.tryAcquire(hedge)) {
+                    LOG.debug("{} unanswered after {} ms, hedging", request.getURI().getPath(),
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+                    this.metrics.recordHedge();
+                    race.start(transport, hedge);
+                } else {
+                    this.metrics.recordHedgeSkipped();
+                }
+                // the first attempt is aborted at the call's deadline, but not the hedge
+                Deadline deadline = Deadline.current();
+                if (!race.await((deadline != null) ? (Math.max(0, deadline.remainingNanos())) : (Long.MAX_VALUE))) {
+                    race.abandon();
+                    throw new InterruptedIOException("deadline passed waiting for " + request.getURI().getPath());
+                }
+            }
+        } catch (InterruptedException e) {
+            race.abandon();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted waiting for " + request.getURI().getPath());
+        }
+
+        CloseableHttpResponse response = race.result();
+        if (race.winner() == request) {
+            this.latencies.record(System.nanoTime() - startNanos);
+        } else {
+            // the first attempt was aborted: its latency is unknown, but longer than the race's
+            this.latencies.recordUnanswered();
+            this.metrics.recordHedgeWin();
+        }
+
+        return response;
+    }
+
+    void shutdown() {
+        if (this.executor != null) this.executor.shutdownNow();
+    }
+
+    /**
+     * @return how long a read goes unanswered before it's hedged; Long.MAX_VALUE not to hedge it
+     */
+    private long delayNanos() {
+        if (this.policy.getDelayPercentile() > 0) {
+            // Long.MAX_VALUE while too many first attempts lost to their hedge to know the percentile
+            long percentileNanos = this.latencies.percentile(this.policy.getDelayPercentile());
+            if (percentileNanos >= 0) return percentileNanos;
+        }
+        return TimeUnit.MILLISECONDS.toNanos(this.policy.getDelayMillis());
+    }
+
+    private static HttpGet copyOf(final HttpGet request) {
+        HttpGet copy = new HttpGet(request.getURI());
+        copy.setHeaders(request.getAllHeaders());
+        copy.setConfig(request.getConfig());
+
+        return copy;
+    }
+
+    /**
+     * The attempts of one read; the first response wins.
+     */
+    private final class Race {
+        private final List<HttpRequestBase> attempts = new ArrayList<HttpRequestBase>(2);
+        private int running;
+        private boolean settled;
+        private HttpRequestBase winner;
+        private CloseableHttpResponse response;
+        private IOException failure;
+
+        void start(final Transport transport, final HttpRequestBase request) throws IOException {
+            synchronized (this) {
+                this.attempts.add(request);
+                this.running++;
+            }
+
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            finished(request, transport.execute(request), null);
+                        } catch (IOException e) {
+                            finished(request, null, e);
+                        } catch (RuntimeException e) {
+                            finished(request, null, new IOException(e));
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // the client was shut down
+                finished(request, null, new IOException("client is shut down", e));
+            }
+        }
+
+        private void finished(final HttpRequestBase request, final CloseableHttpResponse response, final IOException failure) {
+            List<HttpRequestBase> losers = null;
+            synchronized (this) {
+                this.running--;
+                if (!this.settled && response != null) {
+                    this.settled = true;
+                    this.winner = request;
+                    this.response = response;
+                    losers = new ArrayList<HttpRequestBase>(this.attempts);
+                    losers.remove(request);
+                } else if (response == null && this.failure == null) {
+                    this.failure = failure;
+                }
+                notifyAll();
+            }
+
+            if (losers != null) {
+                for (HttpRequestBase loser : losers) loser.abort();
+            } else if (response != null) {
+                // lost the race, or nobody waits for it any more
+                try { response.close(); } catch (IOException e) {}
+            }
+        }
+
+        /**
+         * Waits for a response, or for every attempt to fail.
+         *
+         * @return whether the race is over
+         */
+        synchronized boolean await(final long timeoutNanos) throws InterruptedException {
+            long deadline = System.nanoTime() + timeoutNanos;
+            while (!this.settled && this.running > 0) {
+                long remainingNanos = (timeoutNanos == Long.MAX_VALUE) ? (Long.MAX_VALUE) : (deadline - System.nanoTime());
+                if (remainingNanos <= 0) return false;
+                TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+            }
+            return true;
+        }
+
+        synchronized CloseableHttpResponse result() throws IOException {
+            if (this.response == null) throw this.failure;
+            return this.response;
+        }
+
+        synchronized HttpRequestBase winner() {
+            return this.winner;
+        }
+
+        void abandon() {
+            List<HttpRequestBase> running;
+            synchronized (this) {
+                this.settled = true;
+                running = new ArrayList<HttpRequestBase>(this.attempts);
+            }
+            for (HttpRequestBase request : running) request.abort();
+        }
+    }
+
+    /**
+     * The most recent latencies of first attempts, with a percentile estimate refreshed every few reads.
+     *
+     * A first attempt that lost to its hedge is recorded as slower than any answered: the race's latency
+     * would be no more than the hedge delay and the hedge's own, holding the percentile at the delay however
+     * slow reads get, and hedging ever more of them.
+     */
+    private static final class LatencyWindow {
+        private static final int SIZE = 1000;
+        private static final int MIN_SAMPLES = 20;
+        private static final int REFRESH_INTERVAL = 32;
+
+        private final long[] samples = new long[SIZE];
+        private int next;
+        private int count;
+        private int sinceRefresh;
+        private double percentile = -1;
+        private long percentileNanos = -1;
+
+        synchronized void recordUnanswered() {
+            record(Long.MAX_VALUE);
+        }
+
+        synchronized void record(final long nanos) {
+            this.samples[this.next] = nanos;
+            this.next = (this.next + 1) % SIZE;
+            if (this.count < SIZE) this.count++;
+            this.sinceRefresh++;
+        }
+
+        /**
+         * @return the estimate, or -1 while too few latencies have been observed
+         */
+        synchronized long percentile(final double percentile) {
+            if (this.count < MIN_SAMPLES) return -1;
+
+            if (percentile != this.percentile || this.percentileNanos < 0 || this.sinceRefresh >= REFRESH_INTERVAL) {
+                long[] sorted = Arrays.copyOf(this.samples, this.count);
+                Arrays.sort(sorted);
+                this.percentileNanos = sorted[Math.min(this.count - 1, (int) Math.ceil(percentile * this.count) - 1)];
+                this.percentile = percentile;
+                this.sinceRefresh = 0;
+            }
+            return this.percentileNanos;
+        }
+    }
+
+    private static final class HedgingThreadFactory implements ThreadFactory {
+        private static final AtomicInteger THREADS = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            Thread thread = new Thread(r, "trackvia-hedging-" + THREADS.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package trackvia.client;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHeaders;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.concurrent.Cancellable;
+import org.apache.http.entity.InputStreamEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSink;
+
+/**
+ * Carries requests over HTTP/2, multiplexing concurrent calls over a few connections.
+ *
+ * Commands build and process the same Apache request/response objects as over HTTP/1.1; this transport
+ * only carries them over the wire, using OkHttp as the HTTP/2 engine.
+ *
+ * Over TLS, HTTP/2 is negotiated per connection and HTTP/1.1 is used when the service doesn't offer it.
+ * Plain http connections can't negotiate, so HTTP/2 is spoken with prior knowledge (h2c) until the first
+ * exchange either confirms it or shows the service only understands HTTP/1.1, by answering the HTTP/2
+ * connection preface with something else.  The transport then stays on HTTP/1.1 for a while, and tries h2c
+ * again once that's over, in case the service was upgraded.
+ */
+public class Http2Transport implements Transport {
+    private static Logger LOG = LoggerFactory.getLogger(Http2Transport.class);
+
+    private static final ProtocolVersion HTTP_2_0 = new ProtocolVersion("HTTP", 2, 0);
+    private static final ProtocolVersion HTTP_1_1 = new ProtocolVersion("HTTP", 1, 1);
+    private static final ProtocolVersion HTTP_1_0 = new ProtocolVersion("HTTP", 1, 0);
+
+    private enum Cleartext { PROBING, H2C, HTTP_1_1 }
+
+    // how long a service found not to speak h2c is spoken to over HTTP/1.1 before it's probed again
+    private static final long REPROBE_AFTER_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    protected OkHttpClient tlsClient;
+    protected OkHttpClient h2cClient;
+    protected OkHttpClient h2cProbingClient;
+    protected OkHttpClient http11Client;
+    private volatile Cleartext cleartext = Cleartext.PROBING;
+    private volatile long http11SinceNanos;
+
+    public Http2Transport(final TrackviaClientConfig config) {
+        long keepAliveMillis = (config.getKeepAliveMillis() > 0) ? (config.getKeepAliveMillis()) : (TimeUnit.MINUTES.toMillis(5));
+
+        // the clients share one connection pool and dispatcher
+        this.tlsClient = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(config.getMaxConnectionsPerRoute(), keepAliveMillis, TimeUnit.MILLISECONDS))
+                .connectTimeout(config.getConnectTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .readTimeout(config.getSocketTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .writeTimeout(config.getSocketTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .build();
+        this.h2cClient = this.tlsClient.newBuilder()
+                .protocols(Arrays.asList(Protocol.H2_PRIOR_KNOWLEDGE))
+                .build();
+        // without silent route retries, an HTTP/1.1-only service surfaces as an IOException on the first call
+        this.h2cProbingClient = this.h2cClient.newBuilder()
+                .retryOnConnectionFailure(false)
+                .build();
+        this.http11Client = this.tlsClient.newBuilder()
+                .protocols(Arrays.asList(Protocol.HTTP_1_1))
+                .build();
+    }
+
+    @Override
+    public CloseableHttpResponse execute(final HttpRequestBase request) throws IOException {
+        return toApacheResponse(call(request));
+    }
+
+    @Override
+    public void shutdown() {
+        this.tlsClient.dispatcher().executorService().shutdown();
+        this.tlsClient.connectionPool().evictAll();
+    }
+
+    protected Response call(final HttpRequestBase request) throws IOException {
+        if (!"http".equalsIgnoreCase(request.getURI().getScheme())) {
+            return execute(this.tlsClient, request);
+        }
+
+        if (this.cleartext == Cleartext.HTTP_1_1 && System.nanoTime() - this.http11SinceNanos >= REPROBE_AFTER_NANOS) {
+            this.cleartext = Cleartext.PROBING;
+        }
+
+        if (this.cleartext == Cleartext.PROBING) {
+            try {
+                Response response = execute(this.h2cProbingClient, request);
+                this.cleartext = Cleartext.H2C;
+
+                return response;
+            } catch (IOException e) {
+                if (!isProtocolMismatch(e)) throw e;
+
+                LOG.info("{} doesn't speak h2c, falling back to HTTP/1.1: {}", request.getURI().getHost(), e.toString());
+                this.http11SinceNanos = System.nanoTime();
+                this.cleartext = Cleartext.HTTP_1_1;
+
+                // a streamed body may have been partly consumed by the failed attempt
+                if (!isRepeatable(request)) throw e;
+            }
+        }
+
+        OkHttpClient client = (this.cleartext == Cleartext.H2C) ? (this.h2cClient) : (this.http11Client);
+        return execute(client, request);
+    }
+
+    /**
+     * Executes the call, cancelling it should the request be aborted, e.g. when a hedged read is answered
+     * by its other attempt.
+     */
+    private static Response execute(final OkHttpClient client, final HttpRequestBase request) throws IOException {
+        final Call call = client.newCall(toOkHttpRequest(request));
+        request.setCancellable(new Cancellable() {
+            @Override
+            public boolean cancel() {
+                call.cancel();
+                return true;
+            }
+        });
+        // aborted before the cancellable was in place
+        if (request.isAborted()) call.cancel();
+
+        return call.execute();
+    }
+
+    /**
+     * A connection was made, but the service answered the HTTP/2 preface with something else - an HTTP/1.1
+     * response, read as a frame of impossible size or of the wrong type - or closed the connection on it.
+     * Failing to connect, timing out, or a stream reset by a service that does speak HTTP/2 isn't a mismatch.
+     */
+    private static boolean isProtocolMismatch(final IOException e) {
+        if (e instanceof EOFException) return true;
+        if (e.getClass() != IOException.class || e.getMessage() == null) return false;
+
+        return e.getMessage().startsWith("FRAME_SIZE_ERROR") || e.getMessage().startsWith("Expected a SETTINGS frame")
+                || e.getMessage().startsWith("unexpected end of stream");
+    }
+
+    private static boolean isRepeatable(final HttpRequestBase request) {
+        if (!(request instanceof HttpEntityEnclosingRequest)) return true;
+
+        HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+        return (entity == null) || entity.isRepeatable();
+    }
+
+    protected static Request toOkHttpRequest(final HttpRequestBase request) {
+        Request.Builder builder = new Request.Builder().url(HttpUrl.get(request.getURI()));
+
+        for (Header header : request.getAllHeaders()) {
+            builder.addHeader(header.getName(), header.getValue());
+        }
+
+        RequestBody body = null;
+        if (request instanceof HttpEntityEnclosingRequest) {
+            HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+            body = (entity != null) ? (new EntityRequestBody(entity)) : (RequestBody.create(null, new byte[0]));
+            if (entity != null && entity.getContentEncoding() != null) {
+                builder.header(HttpHeaders.CONTENT_ENCODING, entity.getContentEncoding().getValue());
+            }
+        }
+
+        return builder.method(request.getMethod(), body).build();
+    }
+
+    protected static CloseableHttpResponse toApacheResponse(final Response response) {
+        ClosingHttpResponse apacheResponse = new ClosingHttpResponse(toProtocolVersion(response.protocol()),
+                response.code(), response.message(), response);
+
+        for (String name : response.headers().names()) {
+            for (String value : response.headers(name)) {
+                apacheResponse.addHeader(name, value);
+            }
+        }
+
+        ResponseBody body = response.body();
+        if (body != null) {
+            InputStreamEntity entity = new InputStreamEntity(body.byteStream(), body.contentLength());
+            if (body.contentType() != null) entity.setContentType(body.contentType().toString());
+            entity.setContentEncoding(response.header(HttpHeaders.CONTENT_ENCODING));
+            apacheResponse.setEntity(entity);
+        }
+
+        return apacheResponse;
+    }
+
+    private static ProtocolVersion toProtocolVersion(final Protocol protocol) {
+        switch (protocol) {
+            case HTTP_2:
+            case H2_PRIOR_KNOWLEDGE:
+                return HTTP_2_0;
+            case HTTP_1_0:
+                return HTTP_1_0;
+            default:
+                return HTTP_1_1;
+        }
+    }
+
+    /**
+     * Streams an Apache request entity, e.g. a multipart file upload, into the HTTP/2 request.
+     */
+    private static class EntityRequestBody extends RequestBody {
+        private final HttpEntity entity;
+
+        EntityRequestBody(final HttpEntity entity) {
+            this.entity = entity;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return (entity.getContentType() != null) ? (MediaType.parse(entity.getContentType().getValue())) : (null);
+        }
+
+        @Override
+        public long contentLength() {
+            return entity.getContentLength();
+        }
+
+        @Override
+        public boolean isOneShot() {
+            return !entity.isRepeatable();
+        }
+
+        @Override
+        public void writeTo(final BufferedSink sink) throws IOException {
+            entity.writeTo(sink.outputStream());
+        }
+    }
+}
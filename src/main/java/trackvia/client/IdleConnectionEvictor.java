@@ -0,0 +1,52 @@
+package trackvia.client;
+
+import org.apache.http.conn.HttpClientConnectionManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background sweep of a connection pool, closing connections past their keep-alive and
+ * connections left idle longer than the configured timeout.  Runs on a daemon thread until
+ * shut down, so a forgotten client won't keep the JVM alive.
+ */
+class IdleConnectionEvictor extends Thread {
+    private final HttpClientConnectionManager connectionManager;
+    private final long intervalMillis;
+    private final long idleTimeoutMillis;
+    private volatile boolean shutdown;
+
+    IdleConnectionEvictor(final HttpClientConnectionManager connectionManager, final long intervalMillis,
+            final long idleTimeoutMillis) {
+        super("trackvia-idle-connection-evictor");
+        this.connectionManager = connectionManager;
+        this.intervalMillis = intervalMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!shutdown) {
+                synchronized (this) {
+                    wait(intervalMillis);
+                }
+                if (shutdown) break;
+
+                connectionManager.closeExpiredConnections();
+                if (idleTimeoutMillis > 0) {
+                    connectionManager.closeIdleConnections(idleTimeoutMillis, TimeUnit.MILLISECONDS);
+                }
+            }
+        } catch (InterruptedException e) {
+            // shutting down
+        }
+    }
+
+    public void shutdown() {
+        shutdown = true;
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package trackvia.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpStatus;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+
+/**
+ * Serves responses from memory, without sockets or threads.
+ *
+ * Requests are routed by URI path to a handler, which builds the response.  Request bodies are
+ * written out and discarded, so serialization costs what it would on the wire.  With network and
+ * service out of the way, the client's own work - building requests, parsing and binding
+ * responses - can be measured and tested in isolation.
+ *
+ * <pre>
+ *     LoopbackTransport transport = new LoopbackTransport();
+ *     transport.respond("/openapi/views/1", 200, json);
+ *     TrackviaClient client = TrackviaClient.create(transport, "localhost", "token", "/", "http", 80, "key", config);
+ * </pre>
+ */
+public class LoopbackTransport implements Transport {
+    private static final ProtocolVersion HTTP_1_1 = new ProtocolVersion("HTTP", 1, 1);
+    private static final byte[] NOT_FOUND = "{\"code\":\"404\",\"error\":\"not_found\",\"message\":\"No loopback handler\"}"
+            .getBytes(StandardCharsets.UTF_8);
+    private static final OutputStream DISCARD = new OutputStream() {
+        @Override
+        public void write(int b) {}
+
+        @Override
+        public void write(byte[] b, int off, int len) {}
+    };
+
+    /**
+     * Builds the response to one request.  Called concurrently when the transport is shared.
+     */
+    public interface Handler {
+        CloseableHttpResponse handle(HttpRequestBase request) throws IOException;
+    }
+
+    private final Map<String, Handler> handlers = new ConcurrentHashMap<String, Handler>();
+    private final AtomicLong requests = new AtomicLong();
+
+    /**
+     * Routes requests for a path to a handler, replacing any earlier handler for it.
+     *
+     * @param path URI path, e.g. /openapi/views/1
+     * @param handler builds the responses
+     */
+    public void handle(final String path, final Handler handler) {
+        this.handlers.put(path, handler);
+    }
+
+    /**
+     * Answers every request for a path with the same JSON document.
+     *
+     * @param path URI path, e.g. /openapi/views/1
+     * @param statusCode response status
+     * @param json response body
+     */
+    public void respond(final String path, final int statusCode, final String json) {
+        final byte[] body = json.getBytes(StandardCharsets.UTF_8);
+
+        handle(path, new Handler() {
+            @Override
+            public CloseableHttpResponse handle(HttpRequestBase request) {
+                return response(statusCode, body);
+            }
+        });
+    }
+
+    /**
+     * @return number of requests executed, whether or not a handler answered them
+     */
+    public long getRequests() {
+        return this.requests.get();
+    }
+
+    @Override
+    public CloseableHttpResponse execute(final HttpRequestBase request) throws IOException {
+        this.requests.incrementAndGet();
+
+        if (request instanceof HttpEntityEnclosingRequest) {
+            HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+            if (entity != null) entity.writeTo(DISCARD);
+        }
+
+        Handler handler = this.handlers.get(request.getURI().getPath());
+        if (handler == null) return response(HttpStatus.SC_NOT_FOUND, NOT_FOUND);
+
+        return handler.handle(request);
+    }
+
+    @Override
+    public void shutdown() {
+        this.handlers.clear();
+    }
+
+    /**
+     * Builds a fresh response with a JSON body, ready to be read once.
+     *
+     * @param statusCode response status
+     * @param json response body, UTF-8 encoded
+     * @return the response
+     */
+    public static CloseableHttpResponse response(final int statusCode, final byte[] json) {
+        ClosingHttpResponse response = new ClosingHttpResponse(HTTP_1_1, statusCode, null, null);
+        response.setEntity(new ByteArrayEntity(json, ContentType.APPLICATION_JSON));
+
+        return response;
+    }
+}
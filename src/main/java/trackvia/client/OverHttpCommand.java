@@ -1,6 +1,7 @@
 package trackvia.client;
 
 import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -9,46 +10,225 @@ import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.concurrent.ScheduledFuture;
 
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.protocol.HttpClientContext;
-import org.apache.http.impl.client.CloseableHttpClient;
 import org.slf4j.Logger;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonSyntaxException;
 
 import trackvia.client.model.ApiError;
 import trackvia.client.model.ApiErrorResponse;
-import trackvia.client.model.RecordData;
-import trackvia.client.model.RecordDataDeserializer;
 import trackvia.client.model.VersionMisMatchExcpetionResponse;
 
 public abstract class OverHttpCommand<T> {
-	protected Gson gson;
+	protected Gson errorGson;
 	protected HttpClientContext context;
 	protected TrackviaClient tvClient;
+	protected TrackviaClientMetrics.Exchange exchange;
+	protected CircuitBreaker circuit;
+	protected long sentAtNanos;
+	private HttpResponse response;
+	private boolean responseDetached;
 	
     public abstract HttpClientContext getContext();
-    public abstract T execute(CloseableHttpClient httpClient);
     public abstract URI getApiRequestUri() throws URISyntaxException;
     public abstract T processResponseEntity(final HttpEntity entity) throws IOException;
+
+    /**
+     * Builds a new, fully-formed request for this command (URI, headers and entity).
+     * A fresh request is built for every attempt, so retries pick up a refreshed access token.
+     */
+    public abstract HttpRequestBase createRequest() throws URISyntaxException, IOException;
+
+    /**
+     * Validates the response status and turns the response entity into the command's result.
+     */
+    public abstract T processResponse(final HttpRequestBase request, final HttpResponse response) throws IOException;
     
     public OverHttpCommand(final HttpClientContext context, TrackviaClient tvClient) {
     	this.tvClient = tvClient;
         this.context = context;
-        this.gson = new GsonBuilder()
-                .setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX")
-                .registerTypeAdapter(RecordData.class, new RecordDataDeserializer())
-		.serializeNulls()
-                .create();
+        this.errorGson = Codecs.ERRORS;
     }
     
     
+    /**
+     * Creates the request and applies the configured content codings to it, once its circuit and the client's
+     * rate limiter let it go.  Transports send what this returns.
+     *
+     * Within a {@link Deadline}, the request's connection and read timeouts are cut to the time left.
+     *
+     * @throws TrackviaCircuitOpenException if the request's circuit is open
+     * @throws TrackviaRateLimitException if the request would wait too long for the rate limiter
+     * @throws TrackviaDeadlineExceededException if the call's deadline passed
+     */
+    public HttpRequestBase prepareRequest() throws URISyntaxException, IOException {
+        HttpRequestBase request = createRequest();
+
+        Deadline deadline = Deadline.current();
+        if (deadline != null) deadline.check();
+
+        this.circuit = tvClient.getCircuitBreakers().circuitFor(request);
+        if (this.circuit != null) {
+            try {
+                this.circuit.acquirePermission();
+            } catch (TrackviaCircuitOpenException e) {
+                this.circuit = null;
+                tvClient.getMetrics().recordCircuitBreakerRejection();
+                throw e;
+            }
+        }
+
+        try {
+            tvClient.getRateLimits().acquire(request, tvClient.getMetrics());
+            if (deadline != null) deadline.bound(request, ApacheTransport.createRequestConfig(tvClient.getConfig()));
+
+            this.exchange = new TrackviaClientMetrics.Exchange(request.getMethod(), request.getURI().getPath());
+            ContentEncoding.encodeRequest(request, tvClient.getConfig(), this.exchange);
+        } catch (RuntimeException | IOException e) {
+            releaseCircuit();
+            throw e;
+        }
+
+        this.sentAtNanos = System.nanoTime();
+        return request;
+    }
+
+    /**
+     * Reports a call that got no response, e.g. on a broken connection or a timeout, to its circuit.
+     */
+    void recordFailure() {
+        recordOutcome(false);
+    }
+
+    /**
+     * Reports a call that got no response to its circuit, unless the call's own deadline cut it short: the
+     * endpoint wasn't given the time to answer, which says nothing of its health.
+     */
+    void recordFailure(final Deadline deadline) {
+        if (deadline != null && deadline.isExpired()) {
+            releaseCircuit();
+        } else {
+            recordFailure();
+        }
+    }
+
+    /**
+     * Gives back the circuit's permission for a call whose outcome won't be known, e.g. when cancelled.
+     */
+    void releaseCircuit() {
+        CircuitBreaker circuit = this.circuit;
+        this.circuit = null;
+        if (circuit != null) circuit.releasePermission();
+    }
+
+    private void recordOutcome(final boolean success) {
+        CircuitBreaker circuit = this.circuit;
+        this.circuit = null;
+        if (circuit == null) return;
+
+        long durationNanos = System.nanoTime() - this.sentAtNanos;
+        if (success) {
+            circuit.onSuccess(durationNanos);
+        } else {
+            circuit.onFailure(durationNanos);
+        }
+    }
+
+    /**
+     * Decodes the response content and processes the response, recording the exchange in the client's metrics.
+     */
+    public T completeResponse(final HttpRequestBase request, final HttpResponse response) throws IOException {
+        recordOutcome(response.getStatusLine().getStatusCode() < HttpStatus.SC_INTERNAL_SERVER_ERROR);
+        this.response = response;
+
+        try {
+            ContentEncoding.decodeResponse(response, this.exchange);
+
+            return processResponse(request, response);
+        } catch (TrackviaApiException e) {
+            // what a retry policy needs to know
+            e.setStatusCode(response.getStatusLine().getStatusCode());
+            e.setRequestMethod(request.getMethod());
+            Header retryAfter = response.getFirstHeader(HttpHeaders.RETRY_AFTER);
+            if (retryAfter != null) e.setRetryAfterMillis(RetryPolicy.parseRetryAfter(retryAfter.getValue(), System.currentTimeMillis()));
+            throw e;
+        } finally {
+            if (!this.responseDetached) ContentEncoding.finishResponse(response);
+            tvClient.getMetrics().record(this.exchange);
+        }
+    }
+
+    /**
+     * Hands the response being processed over to the command's result, for a result reading the response
+     * body as it's consumed, e.g. a {@link RecordCursor}.  The response is then left open when the command
+     * completes, for the result to close.
+     *
+     * @return the response, or null if there's nothing to close
+     */
+    protected Closeable detachResponse() {
+        this.responseDetached = true;
+
+        return (this.response instanceof Closeable) ? ((Closeable) this.response) : (null);
+    }
+
+    /**
+     * Executes this command, blocking the calling thread until the response is processed.
+     *
+     * @param transport transport carrying the request
+     * @return the processed response
+     */
+    public T execute(Transport transport) {
+        T result = null;
+        HttpRequestBase request = null;
+        CloseableHttpResponse response = null;
+        Deadline deadline = Deadline.current();
+        ScheduledFuture<?> abort = null;
+
+        try {
+            request = prepareRequest();
+            if (deadline != null) abort = deadline.abortOnExpiry(request);
+            response = (isHedgeable()) ? (tvClient.getHedging().execute(transport, request)) : (transport.execute(request));
+
+            result = completeResponse(request, response);
+        } catch (URISyntaxException | IOException e) {
+            recordFailure(deadline);
+            TrackviaClientException failure = (deadline != null && deadline.isExpired())
+                    ? (deadline.exceeded(e)) : (new TrackviaClientException(e));
+            if (request != null) failure.setRequestMethod(request.getMethod());
+            throw failure;
+        } catch (TrackviaApiException | TrackviaClientException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            // e.g. the parser failing on a response stream aborted at the deadline
+            if (deadline != null && deadline.isExpired()) throw deadline.exceeded(e);
+            throw e;
+        } finally {
+            if (abort != null) abort.cancel(false);
+            releaseCircuit();
+            if (response != null && !this.responseDetached) try { response.close(); } catch (IOException e) {}
+        }
+
+        return result;
+    }
+
+    /**
+     * @return whether a second attempt may be raced against a slow first one, as the client's
+     * {@link HedgePolicy} allows; only for commands the service can safely answer twice
+     */
+    protected boolean isHedgeable() {
+        return false;
+    }
+
     /**
      * setup the headers
      * Mostly this just puts the API version in
@@ -90,7 +270,7 @@ public abstract class OverHttpCommand<T> {
      * @return
      * @throws IOException
      */
-    protected T handleResponse(CloseableHttpClient client, HttpRequestBase request, List<Integer> validResponseCodes, CloseableHttpResponse response, URI uri, Logger log) throws IOException{
+    protected T handleResponse(HttpRequestBase request, List<Integer> validResponseCodes, HttpResponse response, URI uri, Logger log) throws IOException{
     	T result = null;
     	int statusCode = response.getStatusLine().getStatusCode();
     	String badJsonStr = "Nothing went wrong first. This should never happen";
@@ -108,7 +288,7 @@ public abstract class OverHttpCommand<T> {
         	jsonReader.mark(1024*1024);
             ApiErrorResponse apiError = null;
             try{
-            	apiError = gson.fromJson(jsonReader, ApiErrorResponse.class);
+            	apiError = errorGson.fromJson(jsonReader, ApiErrorResponse.class);
             } catch(JsonSyntaxException badJson){
             	try{
             		badJsonStr = badJson.toString();
@@ -149,7 +329,7 @@ public abstract class OverHttpCommand<T> {
      */
     protected void handleVersionMisMatch(CloseableHttpResponse response) throws IllegalStateException, IOException{
     	Reader jsonReader = new InputStreamReader(response.getEntity().getContent());
-    	VersionMisMatchExcpetionResponse versionException = gson.fromJson(jsonReader, VersionMisMatchExcpetionResponse.class);
+    	VersionMisMatchExcpetionResponse versionException = errorGson.fromJson(jsonReader, VersionMisMatchExcpetionResponse.class);
     	
         //need to retry
     }
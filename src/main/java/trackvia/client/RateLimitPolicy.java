@@ -0,0 +1,179 @@
+package trackvia.client;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.apache.http.client.methods.HttpRequestBase;
+
+/**
+ * How fast a client may send requests, to stay just under the API gateway's quota for its user key.
+ *
+ * A limit is a steady rate plus a burst allowance.  The client-wide limit covers every request; reads,
+ * writes and file transfers can each be held to a limit of their own as well, e.g. when the gateway's
+ * write quota is tighter.  Every attempt counts, retries included.
+ *
+ * A request over its limit waits for a permit, up to the maximum wait; one that would wait longer fails
+ * at once with a {@link TrackviaRateLimitException}.  A maximum wait of zero rejects rather than waits.  The
+ * asynchronous client waits on the calling thread, before handing the request off.
+ *
+ * <pre>
+ * {@code
+ *      TrackviaClientConfig config = TrackviaClientConfig.custom()
+ *              .setRateLimitPolicy(RateLimitPolicy.custom()
+ *                      .setLimit(10, 20)
+ *                      .setEndpointLimit(RateLimitPolicy.EndpointClass.WRITE, 2, 5)
+ *                      .build())
+ *              .build();
+ * }
+ * </pre>
+ */
+public class RateLimitPolicy {
+    /**
+     * Kinds of request a limit can be set for.
+     */
+    public enum EndpointClass {
+        /**
+         * GETs, other than of files.
+         */
+        READ,
+
+        /**
+         * Creates, updates and deletes, other than of files.
+         */
+        WRITE,
+
+        /**
+         * File uploads, downloads and deletes.
+         */
+        FILE;
+
+        static EndpointClass of(final HttpRequestBase request) {
+            if (request.getURI().getPath().contains("/files/")) return FILE;
+
+            String method = request.getMethod();
+            return ("GET".equals(method) || "HEAD".equals(method)) ? (READ) : (WRITE);
+        }
+    }
+
+    /**
+     * Requests are sent as fast as callers issue them.
+     */
+    public static final RateLimitPolicy UNLIMITED = custom().build();
+
+    private final double permitsPerSecond;
+    private final int burst;
+    private final Map<EndpointClass, Limit> endpointLimits;
+    private final long maxWaitMillis;
+
+    private RateLimitPolicy(final Builder builder) {
+        this.permitsPerSecond = builder.permitsPerSecond;
+        this.burst = builder.burst;
+        this.endpointLimits = Collections.unmodifiableMap(new EnumMap<EndpointClass, Limit>(builder.endpointLimits));
+        this.maxWaitMillis = builder.maxWaitMillis;
+    }
+
+    public static Builder custom() {
+        return new Builder();
+    }
+
+    /**
+     * @return client-wide sustained rate, or 0 if unlimited
+     */
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    /**
+     * @return client-wide burst allowance
+     */
+    public int getBurst() {
+        return burst;
+    }
+
+    /**
+     * @return whether requests of the class are held to a limit of their own
+     */
+    public boolean hasEndpointLimit(final EndpointClass endpointClass) {
+        return endpointLimits.containsKey(endpointClass);
+    }
+
+    /**
+     * @return sustained rate of the class's own limit, or 0 if it has none
+     */
+    public double getEndpointPermitsPerSecond(final EndpointClass endpointClass) {
+        Limit limit = endpointLimits.get(endpointClass);
+        return (limit != null) ? (limit.permitsPerSecond) : (0);
+    }
+
+    /**
+     * @return burst allowance of the class's own limit, or 0 if it has none
+     */
+    public int getEndpointBurst(final EndpointClass endpointClass) {
+        Limit limit = endpointLimits.get(endpointClass);
+        return (limit != null) ? (limit.burst) : (0);
+    }
+
+    /**
+     * @return longest a request waits for a permit before failing; zero rejects rather than waits
+     */
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    private static final class Limit {
+        final double permitsPerSecond;
+        final int burst;
+
+        Limit(final double permitsPerSecond, final int burst) {
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+        }
+    }
+
+    public static class Builder {
+        private double permitsPerSecond = 0;
+        private int burst = 1;
+        private final Map<EndpointClass, Limit> endpointLimits = new EnumMap<EndpointClass, Limit>(EndpointClass.class);
+        private long maxWaitMillis = Long.MAX_VALUE;
+
+        protected Builder() {}
+
+        /**
+         * Limits every request of the client.
+         */
+        public Builder setLimit(final double permitsPerSecond, final int burst) {
+            validate(permitsPerSecond, burst);
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+            return this;
+        }
+
+        /**
+         * Limits requests of one class, on top of the client-wide limit.
+         */
+        public Builder setEndpointLimit(final EndpointClass endpointClass, final double permitsPerSecond, final int burst) {
+            if (endpointClass == null) throw new IllegalArgumentException("endpointClass must not be null");
+            validate(permitsPerSecond, burst);
+            this.endpointLimits.put(endpointClass, new Limit(permitsPerSecond, burst));
+            return this;
+        }
+
+        public Builder setMaxWaitMillis(final long maxWaitMillis) {
+            if (maxWaitMillis < 0) throw new IllegalArgumentException(String.format("maxWaitMillis must not be negative: %d", maxWaitMillis));
+            this.maxWaitMillis = maxWaitMillis;
+            return this;
+        }
+
+        public RateLimitPolicy build() {
+            return new RateLimitPolicy(this);
+        }
+
+        private static void validate(final double permitsPerSecond, final int burst) {
+            if (!(permitsPerSecond > 0)) {
+                throw new IllegalArgumentException(String.format("permitsPerSecond must be positive: %s", permitsPerSecond));
+            }
+            if (burst <= 0) throw new IllegalArgumentException(String.format("burst must be positive: %d", burst));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package trackvia.client;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket, refilled at a steady rate and holding up to a burst of permits.
+ *
+ * The bucket is kept as the single instant the next permit is due (the generic cell rate algorithm),
+ * updated by compare-and-set, so concurrent callers never block one another to take a permit.  A caller
+ * willing to wait reserves the next free permit and sleeps until it's due; callers queue up in the
+ * order they reserved.
+ */
+public class RateLimiter {
+    private final double permitsPerSecond;
+    private final int burst;
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong nextPermitNanos;
+
+    /**
+     * @param permitsPerSecond sustained rate
+     * @param burst most permits taken at once after a quiet spell; starts full
+     */
+    public RateLimiter(final double permitsPerSecond, final int burst) {
+        if (!(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException(String.format("permitsPerSecond must be positive: %s", permitsPerSecond));
+        }
+        if (burst <= 0) throw new IllegalArgumentException(String.format("burst must be positive: %d", burst));
+
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.toleranceNanos = (burst - 1) * this.intervalNanos;
+        this.nextPermitNanos = new AtomicLong(System.nanoTime());
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    /**
+     * Takes a permit if one is available right now.
+     *
+     * @return whether a permit was taken
+     */
+    public boolean tryAcquire() {
+        return reserve(0) == 0;
+    }
+
+    /**
+     * Takes a permit, waiting for one up to a timeout.  Nothing is taken if the wait would be longer.
+     *
+     * @return whether a permit was taken
+     * @throws InterruptedException if interrupted while waiting; the permit is forfeited
+     */
+    public boolean tryAcquire(final long timeout, final TimeUnit unit) throws InterruptedException {
+        long waitNanos = reserve(unit.toNanos(timeout));
+        if (waitNanos < 0) return false;
+
+        TimeUnit.NANOSECONDS.sleep(waitNanos);
+        return true;
+    }
+
+    /**
+     * Reserves the next permit.
+     *
+     * @param maxWaitNanos longest the caller would wait for it
+     * @return nanoseconds until the reserved permit is due, or -1 if it's further off than the caller
+     * would wait, in which case nothing is reserved
+     */
+    long reserve(final long maxWaitNanos) {
+        while (true) {
+            long now = System.nanoTime();
+            long next = this.nextPermitNanos.get();
+            long waitNanos = Math.max(0, next - now - this.toleranceNanos);
+            if (waitNanos > maxWaitNanos) return -1;
+
+            long following = ((next - now > 0) ? (next) : (now)) + this.intervalNanos;
+            if (this.nextPermitNanos.compareAndSet(next, following)) return waitNanos;
+        }
+    }
+}
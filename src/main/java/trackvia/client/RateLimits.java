@@ -0,0 +1,84 @@
+package trackvia.client;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.methods.HttpRequestBase;
+
+/**
+ * The rate limiters of one client, built from its {@link RateLimitPolicy}.
+ */
+final class RateLimits {
+    private final RateLimiter clientLimiter;
+    private final Map<RateLimitPolicy.EndpointClass, RateLimiter> endpointLimiters =
+            new EnumMap<RateLimitPolicy.EndpointClass, RateLimiter>(RateLimitPolicy.EndpointClass.class);
+    private final long maxWaitNanos;
+
+    RateLimits(final RateLimitPolicy policy) {
+        this.clientLimiter = (policy.getPermitsPerSecond() > 0)
+                ? (new RateLimiter(policy.getPermitsPerSecond(), policy.getBurst())) : (null);
+        for (RateLimitPolicy.EndpointClass endpointClass : RateLimitPolicy.EndpointClass.values()) {
+            if (policy.hasEndpointLimit(endpointClass)) {
+                this.endpointLimiters.put(endpointClass, new RateLimiter(
+                        policy.getEndpointPermitsPerSecond(endpointClass), policy.getEndpointBurst(endpointClass)));
+            }
+        }
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(policy.getMaxWaitMillis());
+    }
+
+    /**
+     * Takes the permits a request needs, waiting for them if the policy and the call's deadline allow.
+     *
+     * @throws TrackviaRateLimitException if the request would wait longer than allowed
+     * @throws TrackviaDeadlineExceededException if the request would wait past the call's deadline
+     */
+    void acquire(final HttpRequestBase request, final TrackviaClientMetrics metrics) {
+        RateLimitPolicy.EndpointClass endpointClass = RateLimitPolicy.EndpointClass.of(request);
+        RateLimiter endpointLimiter = this.endpointLimiters.get(endpointClass);
+        if (this.clientLimiter == null && endpointLimiter == null) return;
+
+        // no waiting past the call's deadline
+        Deadline deadline = Deadline.current();
+        long maxWaitNanos = this.maxWaitNanos;
+        boolean deadlineBound = (deadline != null && deadline.remainingNanos() < maxWaitNanos);
+        if (deadlineBound) maxWaitNanos = Math.max(0, deadline.remainingNanos());
+
+        // a client-wide permit reserved ahead of a rejected endpoint permit is forfeited, erring under quota
+        long waitNanos = reserve(this.clientLimiter, maxWaitNanos);
+        if (waitNanos >= 0) {
+            long endpointWaitNanos = reserve(endpointLimiter, maxWaitNanos);
+            waitNanos = (endpointWaitNanos < 0) ? (-1) : (Math.max(waitNanos, endpointWaitNanos));
+        }
+        if (waitNanos < 0) {
+            metrics.recordRateLimitRejection();
+            if (deadlineBound) throw deadline.exceeded(null);
+            throw new TrackviaRateLimitException(endpointClass);
+        }
+        if (waitNanos == 0) return;
+
+        metrics.recordRateLimitDelay();
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TrackviaClientException(e);
+        }
+    }
+
+    /**
+     * Takes the permits a request needs only if they're free right away.
+     *
+     * @return whether the permits were taken
+     */
+    boolean tryAcquire(final HttpRequestBase request) {
+        RateLimiter endpointLimiter = this.endpointLimiters.get(RateLimitPolicy.EndpointClass.of(request));
+
+        return (this.clientLimiter == null || this.clientLimiter.tryAcquire())
+                && (endpointLimiter == null || endpointLimiter.tryAcquire());
+    }
+
+    private static long reserve(final RateLimiter limiter, final long maxWaitNanos) {
+        return (limiter != null) ? (limiter.reserve(maxWaitNanos)) : (0);
+    }
+}
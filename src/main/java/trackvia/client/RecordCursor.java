@@ -0,0 +1,186 @@
+package trackvia.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.util.EntityUtils;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import trackvia.client.model.FieldMetadata;
+import trackvia.client.model.RecordData;
+import trackvia.client.model.RecordReader;
+
+/**
+ * The records of a view, read one at a time while the response streams in.
+ *
+ * Only the record being read is held in memory.  The cursor holds the response open until its last
+ * record is read, or until it's closed: closing a cursor before its last record aborts the connection rather
+ * than reading the rest of the response.  Close every cursor, preferably with try-with-resources.
+ *
+ * <pre>
+ * {@code
+ *      try (RecordCursor cursor = client.openRecords(viewId)) {
+ *          List<FieldMetadata> structure = cursor.getStructure();
+ *
+ *          while (cursor.hasNext()) {
+ *              RecordData record = cursor.next();
+ *              ...
+ *          }
+ *      }
+ * }
+ * </pre>
+ *
+ * A cursor isn't thread-safe.  Reading its records isn't bound by the deadline of the call opening it.
+ */
+public class RecordCursor implements Iterator<RecordData>, Closeable {
+    private final HttpEntity entity;
+    private final Closeable response;
+    private final JsonReader in;
+    private final RecordReader records;
+
+    private List<FieldMetadata> structure;
+    private int totalCount = -1;
+    private boolean reading;
+    private boolean closed;
+
+    /**
+     * Reads the response up to its first record.
+     *
+     * @param response closed by the cursor; on failure, before this returns
+     * @param records the reader of the response's records, used by this cursor alone
+     */
+    RecordCursor(final HttpEntity entity, final Closeable response, final RecordReader records) throws IOException {
+        this.entity = entity;
+        this.response = response;
+        this.records = records;
+
+        try {
+            this.in = new JsonReader(new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8));
+            this.in.beginObject();
+            this.reading = readToData();
+            if (!this.reading) finish();
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return field metadata of the records, or null if the service sends it after the records and they
+     * haven't all been read
+     */
+    public List<FieldMetadata> getStructure() {
+        return this.structure;
+    }
+
+    /**
+     * @return total count of the view's records, or -1 if the service sends it after the records and they
+     * haven't all been read
+     */
+    public int getTotalCount() {
+        return this.totalCount;
+    }
+
+    /**
+     * @throws TrackviaClientException if reading the response fails
+     */
+    @Override
+    public boolean hasNext() {
+        if (this.closed || !this.reading) return false;
+
+        try {
+            if (this.in.hasNext()) return true;
+
+            this.in.endArray();
+            this.reading = false;
+            readToData();
+            finish();
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw failure(e);
+        }
+
+        return false;
+    }
+
+    /**
+     * @return the next record, read from the response
+     * @throws TrackviaClientException if reading the response fails
+     */
+    @Override
+    public RecordData next() {
+        if (!hasNext()) throw new NoSuchElementException();
+
+        try {
+            return this.records.readRecordData(this.in);
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw failure(e);
+        }
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("remove");
+    }
+
+    /**
+     * Releases the response, aborting its connection if any records are left unread.
+     */
+    @Override
+    public void close() {
+        if (this.closed) return;
+        this.closed = true;
+        this.reading = false;
+
+        try {
+            if (this.response != null) this.response.close();
+        } catch (IOException e) {
+            // the connection is gone either way
+        }
+    }
+
+    /**
+     * Reads the record set's other fields, up to the start of its records or its end.
+     *
+     * @return whether records follow
+     */
+    private boolean readToData() throws IOException {
+        while (this.in.hasNext()) {
+            final String name = this.in.nextName();
+            if ("structure".equals(name)) {
+                this.structure = this.records.readStructure(this.in);
+            } else if ("totalCount".equals(name)) {
+                this.totalCount = this.in.nextInt();
+            } else if ("data".equals(name) && this.in.peek() == JsonToken.BEGIN_ARRAY) {
+                this.in.beginArray();
+                return true;
+            } else {
+                this.in.skipValue();
+            }
+        }
+        this.in.endObject();
+
+        return false;
+    }
+
+    /**
+     * Reads what's left of a completely read response, so its connection can be reused, and releases it.
+     */
+    private void finish() throws IOException {
+        EntityUtils.consume(this.entity);
+        close();
+    }
+
+    private static TrackviaClientException failure(final Exception e) {
+        return (e instanceof TrackviaClientException) ? ((TrackviaClientException) e) : (new TrackviaClientException(e));
+    }
+}
@@ -0,0 +1,60 @@
+package trackvia.client;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retries a client may spend, shared by all its calls.
+ *
+ * Every call deposits a fraction of a retry and every retry withdraws a whole one, so retries stay a
+ * bounded share of the traffic.  A minimum allowance refills over time for clients making few calls.
+ * The balance is capped, so a long quiet spell doesn't bank enough retries for a storm later.
+ *
+ * Hedged reads are paid for from a budget of their own, kept the same way.
+ */
+final class RetryBudget {
+    private static final long WINDOW_SECONDS = 10;
+
+    private final double depositPerCall;
+    private final double refillPerNano;
+    private final double capacity;
+    private double balance;
+    private long lastRefillNanos;
+
+    RetryBudget(final RetryPolicy policy) {
+        this(policy.getRetryBudgetRatio(), policy.getRetryBudgetMinPerSecond());
+    }
+
+    RetryBudget(final HedgePolicy policy) {
+        this(policy.getHedgeBudgetRatio(), policy.getHedgeBudgetMinPerSecond());
+    }
+
+    private RetryBudget(final double ratio, final int minPerSecond) {
+        this.depositPerCall = ratio;
+        this.refillPerNano = minPerSecond / (double) TimeUnit.SECONDS.toNanos(1);
+        this.capacity = Math.max(1, minPerSecond) * WINDOW_SECONDS;
+        this.balance = minPerSecond;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    synchronized void deposit() {
+        refill();
+        this.balance = Math.min(this.capacity, this.balance + this.depositPerCall);
+    }
+
+    /**
+     * @return whether a retry could be paid for
+     */
+    synchronized boolean tryWithdraw() {
+        refill();
+        if (this.balance < 1) return false;
+
+        this.balance -= 1;
+        return true;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        this.balance = Math.min(this.capacity, this.balance + (now - this.lastRefillNanos) * this.refillPerNano);
+        this.lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,293 @@
+package trackvia.client;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+
+/**
+ * When and how soon a failed call is tried again.
+ *
+ * Calls failing transiently - rate limited (429), a gateway or the service briefly unavailable
+ * (502, 503, 504), a connection refused, reset or timed out - are retried up to a number of attempts.
+ * Attempts are spaced by exponential backoff with full jitter, unless the service says when to come
+ * back with a Retry-After header.
+ *
+ * Only idempotent calls (GET, PUT, DELETE) are retried after the request may have reached the service;
+ * a retried POST could create records twice.  Calls the service provably didn't process - the connection
+ * was never made, or it answered 429 - are retried whatever the verb.
+ *
+ * Retries are also limited by a budget shared by all calls of a client: each call earns a fraction of a
+ * retry, and a small allowance refills every second.  When the service browns out and most calls fail,
+ * the budget runs dry and calls fail fast rather than multiplying the load with retries.
+ *
+ * A client retries only when configured with a policy allowing it, e.g. {@link #DEFAULT}; otherwise each
+ * call is attempted once.
+ *
+ * <pre>
+ * {@code
+ *      TrackviaClientConfig config = TrackviaClientConfig.custom()
+ *              .setRetryPolicy(RetryPolicy.custom().setMaxAttempts(5).setInitialBackoffMillis(200).build())
+ *              .build();
+ * }
+ * </pre>
+ */
+public class RetryPolicy {
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 100;
+    public static final long DEFAULT_MAX_BACKOFF_MILLIS = 5000;
+    public static final long DEFAULT_MAX_RETRY_AFTER_MILLIS = 30000;
+    public static final double DEFAULT_RETRY_BUDGET_RATIO = 0.2;
+    public static final int DEFAULT_RETRY_BUDGET_MIN_PER_SECOND = 5;
+
+    /**
+     * Up to three attempts of a call, with the default backoff and budget.
+     */
+    public static final RetryPolicy DEFAULT = custom().build();
+
+    /**
+     * Every call is attempted once only.
+     */
+    public static final RetryPolicy NONE = custom().setMaxAttempts(1).build();
+
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long maxRetryAfterMillis;
+    private final boolean retryNonIdempotent;
+    private final double retryBudgetRatio;
+    private final int retryBudgetMinPerSecond;
+
+    private RetryPolicy(final Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.initialBackoffMillis = builder.initialBackoffMillis;
+        this.maxBackoffMillis = builder.maxBackoffMillis;
+        this.maxRetryAfterMillis = builder.maxRetryAfterMillis;
+        this.retryNonIdempotent = builder.retryNonIdempotent;
+        this.retryBudgetRatio = builder.retryBudgetRatio;
+        this.retryBudgetMinPerSecond = builder.retryBudgetMinPerSecond;
+    }
+
+    public static Builder custom() {
+        return new Builder();
+    }
+
+    /**
+     * @return a builder holding this policy's settings, to derive a policy differing in a few of them
+     */
+    public static Builder copy(final RetryPolicy policy) {
+        return new Builder()
+                .setMaxAttempts(policy.maxAttempts)
+                .setInitialBackoffMillis(policy.initialBackoffMillis)
+                .setMaxBackoffMillis(policy.maxBackoffMillis)
+                .setMaxRetryAfterMillis(policy.maxRetryAfterMillis)
+                .setRetryNonIdempotent(policy.retryNonIdempotent)
+                .setRetryBudgetRatio(policy.retryBudgetRatio)
+                .setRetryBudgetMinPerSecond(policy.retryBudgetMinPerSecond);
+    }
+
+    /**
+     * @return most attempts made of one call, the first included; one disables retries
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @return upper bound of the delay before the first retry; the bound doubles with every retry
+     */
+    public long getInitialBackoffMillis() {
+        return initialBackoffMillis;
+    }
+
+    /**
+     * @return most the backoff bound grows to
+     */
+    public long getMaxBackoffMillis() {
+        return maxBackoffMillis;
+    }
+
+    /**
+     * @return longest Retry-After the client waits out; a call asked to wait longer fails instead
+     */
+    public long getMaxRetryAfterMillis() {
+        return maxRetryAfterMillis;
+    }
+
+    /**
+     * @return whether POSTs are retried after they may have reached the service
+     */
+    public boolean isRetryNonIdempotent() {
+        return retryNonIdempotent;
+    }
+
+    /**
+     * @return retries earned per call, e.g. 0.2 allows one retry for every five calls
+     */
+    public double getRetryBudgetRatio() {
+        return retryBudgetRatio;
+    }
+
+    /**
+     * @return retries allowed every second regardless of the ratio, so a lightly used client still retries
+     */
+    public int getRetryBudgetMinPerSecond() {
+        return retryBudgetMinPerSecond;
+    }
+
+    /**
+     * Decides whether a call failing with the service's error response may be tried again.
+     *
+     * @return how long to wait before the next attempt, or -1 not to retry
+     */
+    long retryDelayMillis(final TrackviaApiException e, final int attempt) {
+        if (attempt >= maxAttempts) return -1;
+
+        int statusCode = e.getStatusCode();
+        boolean transientStatus = (statusCode == 429 || statusCode == 502 || statusCode == 503 || statusCode == 504);
+        if (!transientStatus) return -1;
+        if (statusCode != 429 && !mayRepeat(e.getRequestMethod())) return -1;
+
+        if (e.getRetryAfterMillis() >= 0) {
+            return (e.getRetryAfterMillis() <= maxRetryAfterMillis) ? (e.getRetryAfterMillis()) : (-1);
+        }
+        return backoffMillis(attempt);
+    }
+
+    /**
+     * Decides whether a call failing outside the service, e.g. on a broken connection, may be tried again.
+     *
+     * @return how long to wait before the next attempt, or -1 not to retry
+     */
+    long retryDelayMillis(final TrackviaClientException e, final int attempt) {
+        if (attempt >= maxAttempts) return -1;
+
+        IOException cause = ioCause(e);
+        if (cause == null || cause instanceof ConnectionPoolTimeoutException) return -1;
+
+        boolean notSent = (cause instanceof ConnectException || cause instanceof ConnectTimeoutException);
+        boolean broken = (cause instanceof SocketException || cause instanceof SocketTimeoutException
+                || cause instanceof NoHttpResponseException);
+        if (notSent || (broken && mayRepeat(e.getRequestMethod()))) return backoffMillis(attempt);
+
+        return -1;
+    }
+
+    /**
+     * Full jitter: uniformly random between zero and the exponentially growing bound, so clients failing
+     * together don't retry together.
+     */
+    long backoffMillis(final int attempt) {
+        long bound = initialBackoffMillis << Math.min(attempt - 1, 30);
+        if (bound <= 0 || bound > maxBackoffMillis) bound = maxBackoffMillis;
+
+        return (bound > 0) ? (ThreadLocalRandom.current().nextLong(bound + 1)) : (0);
+    }
+
+    private boolean mayRepeat(final String method) {
+        return retryNonIdempotent || isIdempotent(method);
+    }
+
+    static boolean isIdempotent(final String method) {
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method)
+                || "PUT".equals(method) || "DELETE".equals(method);
+    }
+
+    private static IOException ioCause(final Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof IOException) return (IOException) t;
+            if (t.getCause() == t) break;
+        }
+        return null;
+    }
+
+    /**
+     * Parses a Retry-After header, given either as delay-seconds or as an HTTP date.
+     *
+     * @return milliseconds to wait, or -1 if the header is absent or malformed
+     */
+    static long parseRetryAfter(final String value, final long nowMillis) {
+        if (value == null) return -1;
+
+        String trimmed = value.trim();
+        try {
+            long seconds = Long.parseLong(trimmed);
+            return (seconds >= 0) ? (seconds * 1000) : (-1);
+        } catch (NumberFormatException e) {
+            Date date = DateUtils.parseDate(trimmed);
+            return (date != null) ? (Math.max(0, date.getTime() - nowMillis)) : (-1);
+        }
+    }
+
+    public static class Builder {
+        private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+        private long initialBackoffMillis = DEFAULT_INITIAL_BACKOFF_MILLIS;
+        private long maxBackoffMillis = DEFAULT_MAX_BACKOFF_MILLIS;
+        private long maxRetryAfterMillis = DEFAULT_MAX_RETRY_AFTER_MILLIS;
+        private boolean retryNonIdempotent = false;
+        private double retryBudgetRatio = DEFAULT_RETRY_BUDGET_RATIO;
+        private int retryBudgetMinPerSecond = DEFAULT_RETRY_BUDGET_MIN_PER_SECOND;
+
+        protected Builder() {}
+
+        public Builder setMaxAttempts(final int maxAttempts) {
+            if (maxAttempts <= 0) throw new IllegalArgumentException(String.format("maxAttempts must be positive: %d", maxAttempts));
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        public Builder setInitialBackoffMillis(final long initialBackoffMillis) {
+            this.initialBackoffMillis = notNegative("initialBackoffMillis", initialBackoffMillis);
+            return this;
+        }
+
+        public Builder setMaxBackoffMillis(final long maxBackoffMillis) {
+            this.maxBackoffMillis = notNegative("maxBackoffMillis", maxBackoffMillis);
+            return this;
+        }
+
+        public Builder setMaxRetryAfterMillis(final long maxRetryAfterMillis) {
+            this.maxRetryAfterMillis = notNegative("maxRetryAfterMillis", maxRetryAfterMillis);
+            return this;
+        }
+
+        public Builder setRetryNonIdempotent(final boolean retryNonIdempotent) {
+            this.retryNonIdempotent = retryNonIdempotent;
+            return this;
+        }
+
+        public Builder setRetryBudgetRatio(final double retryBudgetRatio) {
+            if (!(retryBudgetRatio >= 0)) {
+                throw new IllegalArgumentException(String.format("retryBudgetRatio must not be negative: %s", retryBudgetRatio));
+            }
+            this.retryBudgetRatio = retryBudgetRatio;
+            return this;
+        }
+
+        public Builder setRetryBudgetMinPerSecond(final int retryBudgetMinPerSecond) {
+            this.retryBudgetMinPerSecond = (int) notNegative("retryBudgetMinPerSecond", retryBudgetMinPerSecond);
+            return this;
+        }
+
+        public RetryPolicy build() {
+            if (initialBackoffMillis > maxBackoffMillis) {
+                throw new IllegalArgumentException(String.format(
+                        "initialBackoffMillis (%d) exceeds maxBackoffMillis (%d)", initialBackoffMillis, maxBackoffMillis));
+            }
+
+            return new RetryPolicy(this);
+        }
+
+        private static long notNegative(final String name, final long value) {
+            if (value < 0) throw new IllegalArgumentException(String.format("%s must not be negative: %d", name, value));
+            return value;
+        }
+    }
+}
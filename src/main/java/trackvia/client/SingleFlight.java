@@ -0,0 +1,151 @@
+package trackvia.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import trackvia.client.model.Record;
+import trackvia.client.model.RecordSet;
+import trackvia.client.model.View;
+
+/**
+ * Coalesces identical reads issued concurrently by a client into one call to the service.
+ *
+ * The first caller of a read makes the call; callers asking for the same read while it's in flight wait
+ * for it and share its outcome, result or failure.  A result is mutable, so when a call was shared
+ * every caller gets a copy of its own, down to the record data values.
+ */
+final class SingleFlight {
+    /**
+     * Copies a result for one of the callers sharing it.
+     */
+    interface Copier<V> {
+        V copy(V value);
+    }
+
+    static final Copier<Record> RECORD = new Copier<Record>() {
+        @Override
+        public Record copy(final Record record) {
+            return (record != null) ? (record.copy()) : (null);
+        }
+    };
+
+    static final Copier<RecordSet> RECORD_SET = new Copier<RecordSet>() {
+        @Override
+        public RecordSet copy(final RecordSet rs) {
+            return (rs != null) ? (rs.copy()) : (null);
+        }
+    };
+
+    static final Copier<List<View>> VIEWS = new Copier<List<View>>() {
+        @Override
+        public List<View> copy(final List<View> views) {
+            if (views == null) return null;
+
+            List<View> copy = new ArrayList<View>(views.size());
+            for (View view : views) {
+                copy.add((view != null) ? (new View(view.getId(), view.getName(), view.getApplicationName())) : (null));
+            }
+            return copy;
+        }
+    };
+
+    private final boolean enabled;
+    private final long callTimeoutMillis;
+    private final TrackviaClientMetrics metrics;
+    private final ConcurrentMap<String, Flight<?>> flights = new ConcurrentHashMap<String, Flight<?>>();
+
+    SingleFlight(final TrackviaClientConfig config, final TrackviaClientMetrics metrics) {
+        this.enabled = config.isCoalescingEnabled();
+        this.callTimeoutMillis = config.getCallTimeoutMillis();
+        this.metrics = metrics;
+    }
+
+    /**
+     * Executes a read, or joins the identical read already in flight, waiting for it no longer than the
+     * joining call's deadline allows.
+     *
+     * @param key identifies the read; equal keys must mean equal requests
+     */
+    @SuppressWarnings("unchecked")
+    <V> V execute(final String key, final Copier<V> copier, final Authorized<V> action, final Callable<V> callable) {
+        if (!this.enabled) return action.execute(callable);
+
+        Flight<V> flight = new Flight<V>();
+        while (true) {
+            Flight<V> inFlight = (Flight<V>) this.flights.putIfAbsent(key, flight);
+            if (inFlight == null) break;
+            if (inFlight.join()) {
+                this.metrics.recordCoalescedCall();
+                return copier.copy(inFlight.await(Deadline.forCall(this.callTimeoutMillis)));
+            }
+            // the flight ended between the lookup and the join
+            this.flights.remove(key, inFlight);
+        }
+
+        try {
+            flight.complete(action.execute(callable), null);
+        } catch (RuntimeException e) {
+            flight.complete(null, e);
+            throw e;
+        } catch (Error e) {
+            flight.complete(null, new TrackviaClientException(e));
+            throw e;
+        } finally {
+            this.flights.remove(key, flight);
+        }
+
+        // callers that joined copy the result as it's returned; leave them the original
+        return (flight.close() > 0) ? (copier.copy(flight.result)) : (flight.result);
+    }
+
+    private static final class Flight<V> {
+        private final CountDownLatch done = new CountDownLatch(1);
+        private V result;
+        private RuntimeException failure;
+        private int joined;
+        private boolean closed;
+
+        synchronized boolean join() {
+            if (this.closed) return false;
+            this.joined++;
+            return true;
+        }
+
+        /**
+         * Stops callers joining.
+         *
+         * @return number of callers that joined
+         */
+        synchronized int close() {
+            this.closed = true;
+            return this.joined;
+        }
+
+        void complete(final V result, final RuntimeException failure) {
+            this.result = result;
+            this.failure = failure;
+            this.done.countDown();
+        }
+
+        V await(final Deadline deadline) {
+            try {
+                if (deadline == null) {
+                    this.done.await();
+                } else if (!this.done.await(Math.max(0, deadline.remainingNanos()), TimeUnit.NANOSECONDS)) {
+                    throw deadline.exceeded(null);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TrackviaClientException(e);
+            }
+
+            if (this.failure != null) throw this.failure;
+            return this.result;
+        }
+    }
+}
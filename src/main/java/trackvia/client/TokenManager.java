@@ -0,0 +1,293 @@
+package trackvia.client;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import trackvia.client.model.OAuth2Token;
+
+/**
+ * Holds the OAuth2 token of one client.
+ *
+ * Every request reads the token, so reads don't lock: the token and its API version are kept as one
+ * immutable {@link Grant}, replaced whole.  Calls finding their token rejected at the same time refresh
+ * it once between them; a call whose token was replaced while it waited to refresh just tries again.
+ * A token the service says expires is refreshed in the background ahead of its expiry, see
+ * {@link TrackviaClientConfig#getTokenRefreshAheadMillis()}, so calls seldom see it rejected at all.
+ */
+final class TokenManager {
+    private static Logger LOG = LoggerFactory.getLogger(TokenManager.class);
+
+    /**
+     * Wait before trying a failed background refresh again, while the token is still good.
+     */
+    private static final long RETRY_MILLIS = 5000;
+
+    private final TrackviaClient client;
+    private final long refreshAheadMillis;
+    private final AtomicReference<Grant> current = new AtomicReference<Grant>();
+    private final AtomicReference<CompletableFuture<Void>> asyncRefresh = new AtomicReference<CompletableFuture<Void>>();
+
+    private final Object refreshLock = new Object();
+    private volatile int refreshAttempts;
+    private RuntimeException refreshFailure;
+
+    private volatile TokenStore store = TokenStore.NONE;
+    private volatile String storeKey;
+
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> scheduled;
+    private boolean shutdown;
+
+    TokenManager(final TrackviaClient client, final long refreshAheadMillis) {
+        this.client = client;
+        this.refreshAheadMillis = refreshAheadMillis;
+    }
+
+    /**
+     * @return the token in use, or null before the client is authorized
+     */
+    Grant current() {
+        return this.current.get();
+    }
+
+    String getAccessToken() {
+        Grant grant = this.current.get();
+        return (grant != null) ? (grant.accessToken) : (null);
+    }
+
+    String getRefreshToken() {
+        Grant grant = this.current.get();
+        return (grant != null) ? (grant.refreshToken) : (null);
+    }
+
+    String getApiVersion() {
+        Grant grant = this.current.get();
+        return (grant != null) ? (grant.apiVersion) : (null);
+    }
+
+    /**
+     * Starts using a token just obtained from the service, saving it to the store if there's one.
+     */
+    void set(final OAuth2Token token) {
+        Grant grant = new Grant(token, token.getApiVersion(), System.currentTimeMillis());
+        this.current.set(grant);
+        schedule(grant);
+
+        String key = this.storeKey;
+        if (key != null) {
+            try {
+                this.store.save(key, token);
+            } catch (RuntimeException e) {
+                LOG.warn("failed to store access token: {}", e.toString());
+            }
+        }
+    }
+
+    /**
+     * Saves the tokens set from now on to a store, under the key of the user they're issued to.
+     */
+    void storeTo(final TokenStore store, final String key) {
+        this.store = store;
+        this.storeKey = key;
+    }
+
+    void updateApiVersion(final String apiVersion) {
+        while (true) {
+            Grant grant = this.current.get();
+            if (grant == null || this.current.compareAndSet(grant, grant.withApiVersion(apiVersion))) return;
+        }
+    }
+
+    /**
+     * Refreshes the token a call was rejected with, unless another call refreshed it meanwhile.
+     * Calls arriving while a refresh is under way wait for it and share its outcome.
+     *
+     * @param used the token the call was made with
+     * @throws TrackviaApiException if the service refuses to refresh the token
+     * @throws TrackviaClientException if an error occurs outside the service, failing the refresh
+     */
+    void refresh(final Grant used) {
+        final int attempts = this.refreshAttempts;
+
+        synchronized (this.refreshLock) {
+            if (tokenOf(this.current.get()) != tokenOf(used)) return;
+            // a refresh failed while this call waited for it
+            if (this.refreshAttempts != attempts) throw this.refreshFailure;
+
+            this.refreshAttempts++;
+            try {
+                OAuth2Token token = (OAuth2Token) this.client.execute(this.client.refreshAccessTokenCommand());
+                this.client.getMetrics().recordTokenRefresh();
+                set(token);
+            } catch (RuntimeException e) {
+                this.refreshFailure = e;
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Non-blocking counterpart of {@link #refresh(Grant)}.  Cancelling the returned future leaves the shared
+     * refresh running for the other calls waiting on it.
+     *
+     * @param refresh sends the refresh request
+     */
+    CompletableFuture<Void> refreshAsync(final Grant used, final Supplier<CompletableFuture<OAuth2Token>> refresh) {
+        while (true) {
+            if (tokenOf(this.current.get()) != tokenOf(used)) return CompletableFuture.completedFuture(null);
+
+            CompletableFuture<Void> running = this.asyncRefresh.get();
+            if (running != null) return running.thenApply(ignored -> null);
+
+            final CompletableFuture<Void> mine = new CompletableFuture<Void>();
+            if (!this.asyncRefresh.compareAndSet(null, mine)) continue;
+
+            if (tokenOf(this.current.get()) != tokenOf(used)) {
+                // refreshed between the two looks
+                this.asyncRefresh.compareAndSet(mine, null);
+                mine.complete(null);
+                return mine.thenApply(ignored -> null);
+            }
+
+            CompletableFuture<OAuth2Token> request;
+            try {
+                request = refresh.get();
+            } catch (RuntimeException e) {
+                request = new CompletableFuture<OAuth2Token>();
+                request.completeExceptionally(e);
+            }
+            request.whenComplete((token, error) -> {
+                if (error == null) {
+                    this.client.getMetrics().recordTokenRefresh();
+                    set(token);
+                }
+                this.asyncRefresh.compareAndSet(mine, null);
+                if (error == null) {
+                    mine.complete(null);
+                } else {
+                    mine.completeExceptionally(error);
+                }
+            });
+
+            return mine.thenApply(ignored -> null);
+        }
+    }
+
+    synchronized void shutdown() {
+        this.shutdown = true;
+        if (this.scheduler != null) this.scheduler.shutdownNow();
+    }
+
+    /**
+     * Plans the background refresh of a token ahead of its expiry, replacing that of the token before.
+     */
+    private synchronized void schedule(final Grant grant) {
+        if (this.scheduled != null) {
+            this.scheduled.cancel(false);
+            this.scheduled = null;
+        }
+        if (this.refreshAheadMillis <= 0 || grant.refreshToken == null || grant.expiresAtMillis <= 0) return;
+
+        long lifetimeMillis = grant.expiresAtMillis - grant.receivedAtMillis;
+        long delayMillis = lifetimeMillis - Math.min(this.refreshAheadMillis, lifetimeMillis / 2);
+        schedule(grant, Math.max(0, delayMillis));
+    }
+
+    private synchronized void schedule(final Grant grant, final long delayMillis) {
+        if (this.shutdown) return;
+
+        try {
+            this.scheduled = scheduler().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    refreshAhead(grant);
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // the client was shut down
+        }
+    }
+
+    private void refreshAhead(final Grant grant) {
+        try {
+            LOG.debug("access token expires in {} ms, refreshing", grant.expiresAtMillis - System.currentTimeMillis());
+            refresh(grant);
+        } catch (RuntimeException e) {
+            long remainingMillis = grant.expiresAtMillis - System.currentTimeMillis();
+            if (tokenOf(this.current.get()) == grant.token && remainingMillis > 0) {
+                LOG.warn("refreshing access token ahead of expiry failed, trying again: {}", e.toString());
+                schedule(grant, Math.min(RETRY_MILLIS, remainingMillis / 2));
+            } else {
+                LOG.warn("refreshing access token ahead of expiry failed: {}", e.toString());
+            }
+        }
+    }
+
+    private ScheduledExecutorService scheduler() {
+        if (this.scheduler == null) {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable r) {
+                    Thread thread = new Thread(r, "trackvia-token-refresh");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            this.scheduler = executor;
+        }
+        return this.scheduler;
+    }
+
+    private static OAuth2Token tokenOf(final Grant grant) {
+        return (grant != null) ? (grant.token) : (null);
+    }
+
+    /**
+     * A token as the client uses it, with the API version the service last reported.
+     */
+    static final class Grant {
+        final OAuth2Token token;
+        final String accessToken;
+        final String refreshToken;
+        final String apiVersion;
+        final long receivedAtMillis;
+        final long expiresAtMillis;
+
+        private Grant(final OAuth2Token token, final String apiVersion, final long receivedAtMillis) {
+            this.token = token;
+            this.accessToken = token.getValue();
+            this.refreshToken = (token.getRefreshToken() != null) ? (token.getRefreshToken().getValue()) : (null);
+            this.apiVersion = apiVersion;
+            this.receivedAtMillis = receivedAtMillis;
+            this.expiresAtMillis = expiresAt(token, receivedAtMillis);
+        }
+
+        Grant withApiVersion(final String apiVersion) {
+            return new Grant(this.token, apiVersion, this.receivedAtMillis);
+        }
+
+        /**
+         * @return when the token expires, or 0 if the service didn't say
+         */
+        private static long expiresAt(final OAuth2Token token, final long receivedAtMillis) {
+            Long expiresInSeconds = (token.getExpiresIn() != null) ? (token.getExpiresIn()) : (token.getExpires_in());
+            if (expiresInSeconds != null && expiresInSeconds > 0) {
+                return receivedAtMillis + TimeUnit.SECONDS.toMillis(expiresInSeconds);
+            }
+            if (token.getExpiration() != null) return token.getExpiration().getTime();
+
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package trackvia.client;
+
+import trackvia.client.model.OAuth2Token;
+
+/**
+ * Keeps the OAuth2 tokens of authorized users beyond the life of a client, so a client created for a user
+ * whose token is still good starts without authorizing again.
+ *
+ * Tokens are stored by key, naming the service endpoint and the user.  A client authorizing through a store
+ * saves every token it's issued from then on, refreshed tokens included.
+ *
+ * A stored token stands in for the user's credentials: a client starting with one doesn't authenticate, so
+ * it isn't told when the password it was given is wrong.  Keep a store only where whoever can create clients
+ * may act as the stored users.
+ *
+ * @see FileTokenStore
+ */
+public interface TokenStore {
+    /**
+     * Stores nothing; every client authorizes.
+     */
+    TokenStore NONE = new TokenStore() {
+        @Override
+        public OAuth2Token loadOrAuthorize(final String key, final Authorizer authorizer) {
+            return authorizer.authorize();
+        }
+
+        @Override
+        public void save(final String key, final OAuth2Token token) {}
+    };
+
+    /**
+     * Obtains a token from the service.
+     */
+    interface Authorizer {
+        /**
+         * @throws TrackviaApiException if authorization fails
+         * @throws TrackviaClientException if an error occurs outside the service, failing the request
+         */
+        OAuth2Token authorize();
+    }
+
+    /**
+     * @return the token stored under the key, unless there's none or it has expired, else the token the
+     * authorizer obtains, saved under the key.  Clients sharing the store - in other processes too - wait
+     * for one another, so that only one of them authorizes.
+     */
+    OAuth2Token loadOrAuthorize(String key, Authorizer authorizer);
+
+    /**
+     * Stores a token, replacing the one stored under the key.
+     *
+     * @throws TrackviaClientException if the token can't be stored
+     */
+    void save(String key, OAuth2Token token);
+}
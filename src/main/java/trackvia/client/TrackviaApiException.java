@@ -6,6 +6,9 @@ import trackvia.client.model.ApiErrorResponse;
 public class TrackviaApiException extends RuntimeException {
     private ApiErrorResponse apiErrorResponse;
     private Throwable cause;
+    private int statusCode;
+    private long retryAfterMillis = -1;
+    private String requestMethod;
 
     public TrackviaApiException(final ApiErrorResponse apiErrorResponse) {
     	super(apiErrorResponse.getMessage());
@@ -26,6 +29,39 @@ public class TrackviaApiException extends RuntimeException {
         this.apiErrorResponse = apiErrorResponse;
     }
 
+    /**
+     * @return HTTP status of the service's response, or 0 if the error wasn't taken from a response
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    void setStatusCode(int statusCode) {
+        this.statusCode = statusCode;
+    }
+
+    /**
+     * @return how long the service asked the client to wait before trying again, or -1 if it didn't say
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+
+    void setRetryAfterMillis(long retryAfterMillis) {
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * @return HTTP method of the failed request, or null if unknown
+     */
+    public String getRequestMethod() {
+        return requestMethod;
+    }
+
+    void setRequestMethod(String requestMethod) {
+        this.requestMethod = requestMethod;
+    }
+
     public Throwable getCause() {
         return cause;
     }
@@ -0,0 +1,489 @@
+package trackvia.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+
+import trackvia.client.model.App;
+import trackvia.client.model.ColumnarRecordSet;
+import trackvia.client.model.DomainRecord;
+import trackvia.client.model.DomainRecordDataBatch;
+import trackvia.client.model.DomainRecordSet;
+import trackvia.client.model.Identifiable;
+import trackvia.client.model.Record;
+import trackvia.client.model.RecordData;
+import trackvia.client.model.RecordDataBatch;
+import trackvia.client.model.RecordSet;
+import trackvia.client.model.User;
+import trackvia.client.model.UserRecord;
+import trackvia.client.model.UserRecordSet;
+import trackvia.client.model.View;
+
+/**
+ * Non-blocking Trackvia Open API Java client
+ *
+ * Mirrors the operations of {@link TrackviaClient}, returning a {@link CompletableFuture} instead of blocking
+ * the calling thread.  Requests run on a non-blocking HTTP engine, so many concurrent calls don't park one
+ * thread apiece.
+ *
+ * The async client wraps an authenticated {@link TrackviaClient}, sharing its endpoint settings, OAuth2
+ * tokens and {@link TrackviaClientConfig}; refreshing a token through either client makes it available to both.
+ * The non-blocking engine speaks HTTP/1.1, whichever protocol the wrapped client is configured for.
+ *
+ * <pre>
+ * {@code
+ *      TrackviaClient client = TrackviaClient.create("go.api.trackvia.com", "myuser", "mypassword", "userkey");
+ *      TrackviaAsyncClient asyncClient = TrackviaAsyncClient.create(client);
+ *
+ *      CompletableFuture<RecordSet> records = asyncClient.getRecords(viewId);
+ * }
+ * </pre>
+ *
+ * Futures fail with the same {@link TrackviaApiException} or {@link TrackviaClientException} the blocking
+ * client throws.  Cancelling a future aborts its in-flight request.
+ *
+ * Calls are bound by the {@link TrackviaClientConfig#getCallTimeoutMillis() call timeout}, or by the
+ * {@link Deadline} of the thread making them if earlier: the request in flight when it passes is aborted, and
+ * the future fails with a {@link TrackviaDeadlineExceededException}.  Rate limits and circuit breakers apply
+ * as they do to blocking calls.  The {@link TrackviaClientConfig#getRetryPolicy() retry policy},
+ * {@link TrackviaClientConfig#getHedgePolicy() hedge policy} and
+ * {@link TrackviaClientConfig#isCoalescingEnabled() coalescing} don't: each call sends its own requests, and
+ * transient failures fail the future.
+ *
+ * Response bodies are read into memory by the HTTP engine, then parsed on the response executor (by default
+ * the common fork-join pool), keeping parsing off the engine's I/O threads.
+ */
+public class TrackviaAsyncClient {
+    protected TrackviaClient client;
+    protected CloseableHttpAsyncClient httpClient;
+    protected Executor responseExecutor;
+
+    protected TrackviaAsyncClient() {}
+
+    /**
+     * Creates a non-blocking client, acting on behalf of the user authenticated by the given client.
+     *
+     * @param client an authenticated client
+     * @return a non-blocking client sharing the given client's endpoint and tokens
+     */
+    public static TrackviaAsyncClient create(final TrackviaClient client) {
+        return create(client, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a non-blocking client, acting on behalf of the user authenticated by the given client.
+     *
+     * @param client an authenticated client
+     * @param responseExecutor runs response parsing and completes the returned futures
+     * @return a non-blocking client sharing the given client's endpoint and tokens
+     */
+    public static TrackviaAsyncClient create(final TrackviaClient client, final Executor responseExecutor) {
+        TrackviaAsyncClient asyncClient = new TrackviaAsyncClient();
+        asyncClient.client = client;
+        asyncClient.responseExecutor = responseExecutor;
+        asyncClient.initializeHttpClient();
+
+        return asyncClient;
+    }
+
+    /**
+     * Shuts down the HTTP engine, aborting requests still in flight.  The wrapped
+     * {@link TrackviaClient} is left running.
+     */
+    public void shutdown() {
+        try {
+            this.httpClient.close();
+        } catch (IOException e) {
+            throw new TrackviaClientException(e);
+        }
+    }
+
+    public TrackviaClient getClient() {
+        return this.client;
+    }
+
+    protected void initializeHttpClient() {
+        TrackviaClientConfig config = this.client.getConfig();
+        this.httpClient = HttpAsyncClients.custom()
+                .setMaxConnPerRoute(config.getMaxConnectionsPerRoute())
+                .setMaxConnTotal(config.getMaxConnectionsTotal())
+                .setDefaultRequestConfig(ApacheTransport.createRequestConfig(config))
+                .setKeepAliveStrategy(ApacheTransport.createKeepAliveStrategy(config))
+                .build();
+        this.httpClient.start();
+    }
+
+    protected <T> CompletableFuture<T> execute(final OverHttpCommand<T> command) {
+        final CompletableFuture<T> result = new CompletableFuture<T>();
+        final Deadline deadline = Deadline.current();
+        final HttpRequestBase request;
+
+        try {
+            request = command.prepareRequest();
+            bufferRequestEntity(request);
+        } catch (URISyntaxException | IOException e) {
+            command.releaseCircuit();
+            result.completeExceptionally(new TrackviaClientException(e));
+            return result;
+        } catch (TrackviaClientException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+
+        final Future<HttpResponse> exchange = this.httpClient.execute(request, command.getContext(),
+                new FutureCallback<HttpResponse>() {
+                    @Override
+                    public void completed(final HttpResponse response) {
+                        try {
+                            responseExecutor.execute(() -> complete(command, request, response, result));
+                        } catch (RejectedExecutionException e) {
+                            command.releaseCircuit();
+                            result.completeExceptionally(new TrackviaClientException(e));
+                        }
+                    }
+
+                    @Override
+                    public void failed(final Exception e) {
+                        command.recordFailure(deadline);
+                        result.completeExceptionally((deadline != null && deadline.isExpired())
+                                ? (deadline.exceeded(e)) : (new TrackviaClientException(e)));
+                    }
+
+                    @Override
+                    public void cancelled() {
+                        command.releaseCircuit();
+                        result.cancel(false);
+                    }
+                });
+
+        // Cancelling the caller's future aborts the exchange, releasing its connection.
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) exchange.cancel(true);
+        });
+
+        return result;
+    }
+
+    private <T> void complete(final OverHttpCommand<T> command, final HttpRequestBase request,
+            final HttpResponse response, final CompletableFuture<T> result) {
+        try {
+            result.complete(command.completeResponse(request, response));
+        } catch (TrackviaApiException | TrackviaClientException e) {
+            result.completeExceptionally(e);
+        } catch (Exception e) {
+            result.completeExceptionally(new TrackviaClientException(e));
+        }
+    }
+
+    /**
+     * The non-blocking engine produces request content from {@link HttpEntity#getContent()}, which
+     * multipart entities don't implement.  Buffer anything other than in-memory entities first.
+     */
+    protected void bufferRequestEntity(final HttpRequestBase request) throws IOException {
+        if (!(request instanceof HttpEntityEnclosingRequest)) return;
+
+        final HttpEntityEnclosingRequest enclosingRequest = (HttpEntityEnclosingRequest) request;
+        final HttpEntity entity = enclosingRequest.getEntity();
+        if (entity == null || entity instanceof StringEntity || entity instanceof ByteArrayEntity) return;
+
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        entity.writeTo(content);
+
+        final ByteArrayEntity buffered = new ByteArrayEntity(content.toByteArray());
+        buffered.setContentType(entity.getContentType());
+        buffered.setContentEncoding(entity.getContentEncoding());
+        enclosingRequest.setEntity(buffered);
+    }
+
+    /**
+     * Like {@link CompletableFuture#thenApply(Function)}, but cancelling the returned future also
+     * cancels the source future, aborting its request.
+     */
+    protected static <T, R> CompletableFuture<R> thenApply(final CompletableFuture<T> source,
+            final Function<? super T, ? extends R> fn) {
+        final CompletableFuture<R> mapped = source.thenApply(fn);
+        mapped.whenComplete((value, error) -> {
+            if (mapped.isCancelled()) source.cancel(true);
+        });
+
+        return mapped;
+    }
+
+    /**
+     * @see TrackviaClient#refreshAccessToken()
+     */
+    public CompletableFuture<Void> refreshAccessToken() {
+        return refreshAccessToken(this.client.getTokens().current());
+    }
+
+    /**
+     * Refreshes the token a call was rejected with, unless another call refreshed it meanwhile.
+     */
+    CompletableFuture<Void> refreshAccessToken(final TokenManager.Grant used) {
+        return this.client.getTokens().refreshAsync(used, () -> execute(this.client.refreshAccessTokenCommand()));
+    }
+
+    /**
+     * @see TrackviaClient#getUsers(int, int)
+     */
+    public CompletableFuture<List<User>> getUsers(final int start, final int max) {
+        final AuthorizedAsync<UserRecordSet> action = new AuthorizedAsync<>(this);
+
+        return thenApply(action.execute(() -> execute(client.getUsersCommand(start, max))),
+                UserRecordSet::getData);
+    }
+
+    /**
+     * @see TrackviaClient#createUser(String, String, String, TimeZone)
+     */
+    public CompletableFuture<User> createUser(final String email, final String firstName, final String lastName,
+            final TimeZone timeZone) {
+        final AuthorizedAsync<UserRecord> action = new AuthorizedAsync<>(this);
+
+        return thenApply(action.execute(() -> execute(client.createUserCommand(email, firstName, lastName, timeZone))),
+                (UserRecord userRecord) -> (userRecord != null) ? (userRecord.getData()) : (null));
+    }
+
+    /**
+     * @see TrackviaClient#getApps()
+     */
+    public CompletableFuture<List<App>> getApps() {
+        final AuthorizedAsync<List<App>> action = new AuthorizedAsync<>(this);
+
+        return action.execute(() -> execute(client.getAppsCommand()));
+    }
+
+    /**
+     * @see TrackviaClient#getView(String)
+     */
+    public CompletableFuture<View> getView(final String name) {
+        return thenApply(getViews(name),
+                (List<View> views) -> (views == null || views.isEmpty()) ? (null) : (views.get(0)));
+    }
+
+    /**
+     * @see TrackviaClient#getViews()
+     */
+    public CompletableFuture<List<View>> getViews() {
+        return getViews(null);
+    }
+
+    protected CompletableFuture<List<View>> getViews(final String optionalName) {
+        final AuthorizedAsync<List<View>> action = new AuthorizedAsync<>(this);
+
+        return action.execute(() -> execute(client.getViewsCommand(optionalName)));
+    }
+
+    /**
+     * @see TrackviaClient#findRecords(Class, int, String, int, int)
+     */
+    public <T> CompletableFuture<DomainRecordSet<T>> findRecords(final Class<T> domainClass, final int viewId,
+            final String q, final int start, final int max) {
+        final AuthorizedAsync<DomainRecordSet<T>> action = new AuthorizedAsync<>(this);
+
+        return action.execute(() -> execute(client.findRecordsCommand(domainClass, viewId, q, start, max)));
+    }
+
+    /**
+     * @see TrackviaClient#findRecords(int, String, int, int)
+     */
+    public CompletableFuture<RecordSet> findRecords(final int viewId, final String q, final int start, final int max) {
+        final AuthorizedAsync<RecordSet> action = new AuthorizedAsync<>(this);
+
+        return action.execute(() -> execute(client.findRecordsCommand(viewId, q, start, max)));
+    }
+
+    /**
+     * @see TrackviaClient#getRecords(Class, int)
+     */
+    public <T> CompletableFuture<DomainRecordSet<T>> getRecords(final Class<T> domainClass, final int viewId) {
+        final AuthorizedAsync<DomainRecordSet<T>> action = new AuthorizedAsync<>(this);
+
+        return action.execute(() -> execute(client.getRecordsCommand(domainClass, viewId)));
+    }
+
+    /**
+     * @see TrackviaClient#getRecords(int)
+     */
+    public CompletableFuture<RecordSet> getRecords(final int viewId) {
+        final AuthorizedAsync<RecordSet> action = new AuthorizedAsync<>(this);
+
+        return action.execute(() -> execute(client.getRecordsCommand(viewId)));
+    }
+
+    /**
+     * @see TrackviaClient#getColumnarRecords(int)
+     */
+    public CompletableFuture<ColumnarRecordSet> getColumnarRecords(final int viewId) {
+        final AuthorizedAsync<ColumnarRecordSet> action = new AuthorizedAsync<>(this);
+
+        return action.execute(() -> execute(client.getColumnarRecordsCommand(viewId)));
+    }
+
+    /**
+     * @see TrackviaClient#getRecord(Class, long, long)
+     */
+    public <T> CompletableFuture<DomainRecord<T>> getRecord(final Class<T> domainClass, final long viewId,
+            final long recordId) {
+        final AuthorizedAsync<DomainRecord<T>> action = new AuthorizedAsync<>(this);
+
+        return action.execute(() -> execute(client.getRecordCommand(domainClass, viewId, recordId)));
+    }
+
+    /**
+     * @see TrackviaClient#getRecord(long, long)
+     */
+    public CompletableFuture<Record> getRecord(final long viewId, final long recordId) {
+        final AuthorizedAsync<Record> action = new AuthorizedAsync<>(this);
+
+        return action.execute(() -> execute(client.getRecordCommand(viewId, recordId)));
+    }
+
+    /**
+     * @see TrackviaClient#createRecords(int, DomainRecordDataBatch)
+     */
+    public <T> CompletableFuture<DomainRecordSet<T>> createRecords(final int viewId,
+            final DomainRecordDataBatch<T> batch) {
+        // assertions
+        if (batch == null || batch.getData() == null || batch.getData().size() == 0) {
+            throw new IllegalArgumentException("Batch input is either empty or null");
+        }
+
+        final AuthorizedAsync<DomainRecordSet<T>> action = new AuthorizedAsync<>(this);
+
+        return action.execute(() -> execute(client.createRecordsCommand(viewId, batch)));
+    }
+
+    /**
+     * @see TrackviaClient#createRecord(long, RecordData)
+     */
+    public CompletableFuture<RecordData> createRecord(final long viewId, final RecordData data) {
+        return thenApply(createRecords(viewId, client.batchOfOne(data)), (RecordSet rs) -> rs.getData().get(0));
+    }
+
+    /**
+     * @see TrackviaClient#createRecords(long, RecordDataBatch)
+     */
+    public CompletableFuture<RecordSet> createRecords(final long viewId, final RecordDataBatch batch) {
+        final AuthorizedAsync<RecordSet> action = new AuthorizedAsync<>(this);
+
+        return action.execute(() -> execute(client.createRecordsCommand(viewId, batch)));
+    }
+
+    /**
+     * @see TrackviaClient#updateRecord(int, long, Object)
+     */
+    public <T> CompletableFuture<DomainRecord<T>> updateRecord(final int viewId, final long recordId, final T data) {
+        // assertions
+        if (data == null) {
+            throw new IllegalArgumentException("Data must be non null");
+        }
+
+        final AuthorizedAsync<DomainRecordSet<T>> action = new AuthorizedAsync<>(this);
+
+        return thenApply(action.execute(() -> execute(client.updateRecordCommand(viewId, recordId, data))),
+                (DomainRecordSet<T> rs) -> client.firstDomainRecordOf(rs));
+    }
+
+    /**
+     * @see TrackviaClient#updateRecord(int, long, RecordData)
+     */
+    public CompletableFuture<Record> updateRecord(final int viewId, final long recordId, final RecordData data) {
+        data.put(Identifiable.INTERNAL_ID_FIELD_NAME, recordId);
+        final AuthorizedAsync<RecordSet> action = new AuthorizedAsync<>(this);
+
+        return thenApply(action.execute(() -> execute(client.updateRecordCommand(viewId, data))),
+                (RecordSet rs) -> client.firstRecordOf(rs));
+    }
+
+    /**
+     * @see TrackviaClient#deleteRecord(int, long)
+     */
+    public CompletableFuture<Void> deleteRecord(final int viewId, final long recordId) {
+        final AuthorizedAsync<Void> action = new AuthorizedAsync<>(this);
+
+        return action.execute(() -> execute(client.deleteRecordCommand(viewId, recordId)));
+    }
+
+    /**
+     * @see TrackviaClient#addFile(Class, int, long, String, Path)
+     */
+    public <T> CompletableFuture<DomainRecord<T>> addFile(final Class<T> domainClass, final int viewId,
+            final long recordId, final String fileName, final Path filePath) {
+        final AuthorizedAsync<DomainRecord<T>> action = new AuthorizedAsync<>(this);
+
+        return action.execute(() -> execute(client.addFileCommand(domainClass, viewId, recordId, fileName, filePath)));
+    }
+
+    /**
+     * @see TrackviaClient#addFile(int, long, String, Path)
+     */
+    public CompletableFuture<Record> addFile(final int viewId, final long recordId, final String fileName,
+            final Path filePath) {
+        final AuthorizedAsync<Record> action = new AuthorizedAsync<>(this);
+
+        return action.execute(() -> execute(client.addFileCommand(viewId, recordId, fileName, filePath)));
+    }
+
+    /**
+     * The stream is read into memory before the request is sent.
+     *
+     * @see TrackviaClient#addFile(int, long, String, String, InputStream)
+     */
+    public CompletableFuture<Record> addFile(final int viewId, final long recordId, final String fileName,
+            final String inputFileName, final InputStream inputStream) {
+        final AuthorizedAsync<Record> action = new AuthorizedAsync<>(this);
+
+        return action.execute(() -> execute(client.addFileCommand(viewId, recordId, fileName, inputFileName,
+                inputStream)));
+    }
+
+    /**
+     * The file content is held in memory until the response completes, then written to the given path.
+     *
+     * @see TrackviaClient#getFile(int, long, String, Path)
+     */
+    public CompletableFuture<Void> getFile(final int viewId, final long recordId, final String fileName,
+            final Path filePath) {
+        final AuthorizedAsync<Void> action = new AuthorizedAsync<>(this);
+
+        return action.execute(() -> {
+            // fail fast if the target 'filePath' already exists; no overwrites allowed.
+            if (Files.exists(filePath)) {
+                throw new TrackviaClientException(String.format("Will not overwrite the file %s; aborting", filePath.toString()));
+            }
+
+            return execute(client.getFileCommand(viewId, recordId, fileName, filePath));
+        });
+    }
+
+    /**
+     * @see TrackviaClient#deleteFile(int, long, String)
+     */
+    public CompletableFuture<Void> deleteFile(final int viewId, final long recordId, final String fileName) {
+        final AuthorizedAsync<Void> action = new AuthorizedAsync<>(this);
+
+        return action.execute(() -> execute(client.deleteFileCommand(viewId, recordId, fileName)));
+    }
+}
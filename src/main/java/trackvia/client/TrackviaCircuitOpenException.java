@@ -0,0 +1,34 @@
+package trackvia.client;
+
+/**
+ * A call was rejected without being sent, as the circuit to its host or endpoint is open after too many
+ * recent failures.
+ *
+ * @see CircuitBreakerPolicy
+ */
+public class TrackviaCircuitOpenException extends TrackviaClientException {
+    private static final long serialVersionUID = 1L;
+
+    private final String circuit;
+    private final long retryAfterMillis;
+
+    public TrackviaCircuitOpenException(final String circuit, final long retryAfterMillis) {
+        super(String.format("Circuit %s is open", circuit));
+        this.circuit = circuit;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * @return the host, or host and endpoint, whose circuit is open
+     */
+    public String getCircuit() {
+        return circuit;
+    }
+
+    /**
+     * @return how long until the circuit lets trial calls through, or 0 if trial calls are under way
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -1,19 +1,22 @@
 package trackvia.client;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -21,45 +24,33 @@ import java.util.TimeZone;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 
-import org.apache.http.HttpClientConnection;
 import org.apache.http.HttpEntity;
-import org.apache.http.HttpHost;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.protocol.HttpClientContext;
-import org.apache.http.client.utils.URIBuilder;
-import org.apache.http.config.Registry;
-import org.apache.http.config.RegistryBuilder;
-import org.apache.http.conn.ConnectionRequest;
 import org.apache.http.conn.HttpClientConnectionManager;
-import org.apache.http.conn.routing.HttpRoute;
-import org.apache.http.conn.socket.ConnectionSocketFactory;
-import org.apache.http.conn.socket.PlainConnectionSocketFactory;
-import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
 import org.apache.http.entity.mime.content.FileBody;
 import org.apache.http.entity.mime.content.InputStreamBody;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
-import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.BasicNameValuePair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
 
 import trackvia.client.model.App;
+import trackvia.client.model.ColumnarRecordSet;
 import trackvia.client.model.DomainRecord;
 import trackvia.client.model.DomainRecordDataBatch;
-import trackvia.client.model.DomainRecordDataBatchSerializer;
 import trackvia.client.model.DomainRecordDataBatchType;
-import trackvia.client.model.DomainRecordDeserializer;
 import trackvia.client.model.DomainRecordSet;
-import trackvia.client.model.DomainRecordSetDeserializer;
 import trackvia.client.model.DomainRecordSetType;
 import trackvia.client.model.DomainRecordType;
 import trackvia.client.model.Identifiable;
@@ -67,10 +58,8 @@ import trackvia.client.model.OAuth2Token;
 import trackvia.client.model.Record;
 import trackvia.client.model.RecordData;
 import trackvia.client.model.RecordDataBatch;
-import trackvia.client.model.RecordDataDeserializer;
-import trackvia.client.model.RecordDataSerializer;
+import trackvia.client.model.RecordReader;
 import trackvia.client.model.RecordSet;
-import trackvia.client.model.TrackviaSerializationExclusionStrategy;
 import trackvia.client.model.User;
 import trackvia.client.model.UserRecord;
 import trackvia.client.model.UserRecordSet;
@@ -298,17 +287,45 @@ public class TrackviaClient {
     protected static final String ACCESS_TOKEN_QUERY_PARAM = "access_token";
     protected static final String USER_KEY_QUERY_PARAM = "user_key";
     protected static final String API_VERSION_HEADER = "api-version";
+
+    private static final EndpointTemplate REFRESH_TOKEN = EndpointTemplate.compile("/oauth/token",
+            "refresh_token", "client_id", "grant_type", "redirect_uri");
+    private static final EndpointTemplate PASSWORD_TOKEN = EndpointTemplate.compile("/oauth/token",
+            "username", "password", "client_id", "grant_type");
+    private static final EndpointTemplate USERS_PAGE = EndpointTemplate.compile("/openapi/users",
+            "start", "max", ACCESS_TOKEN_QUERY_PARAM, USER_KEY_QUERY_PARAM);
+    private static final EndpointTemplate USERS = EndpointTemplate.compile("/openapi/users",
+            ACCESS_TOKEN_QUERY_PARAM, USER_KEY_QUERY_PARAM);
+    private static final EndpointTemplate APPS = EndpointTemplate.compile("/openapi/apps",
+            ACCESS_TOKEN_QUERY_PARAM, USER_KEY_QUERY_PARAM);
+    private static final EndpointTemplate VIEWS = EndpointTemplate.compile("/openapi/views",
+            ACCESS_TOKEN_QUERY_PARAM, USER_KEY_QUERY_PARAM, "name");
+    private static final EndpointTemplate VIEW = EndpointTemplate.compile("/openapi/views/{}",
+            ACCESS_TOKEN_QUERY_PARAM, USER_KEY_QUERY_PARAM);
+    private static final EndpointTemplate VIEW_FIND = EndpointTemplate.compile("/openapi/views/{}/find",
+            "q", "start", "max", ACCESS_TOKEN_QUERY_PARAM, USER_KEY_QUERY_PARAM);
+    private static final EndpointTemplate RECORDS = EndpointTemplate.compile("/openapi/views/{}/records",
+            ACCESS_TOKEN_QUERY_PARAM, USER_KEY_QUERY_PARAM);
+    private static final EndpointTemplate RECORD = EndpointTemplate.compile("/openapi/views/{}/records/{}",
+            ACCESS_TOKEN_QUERY_PARAM, USER_KEY_QUERY_PARAM);
+    private static final EndpointTemplate RECORD_FILE = EndpointTemplate.compile("/openapi/views/{}/records/{}/files/{}",
+            ACCESS_TOKEN_QUERY_PARAM, USER_KEY_QUERY_PARAM);
     
-    protected CloseableHttpClient httpClient;
-    protected HttpClientConnectionManager connectionManager;
+    protected Transport transport;
+    protected TrackviaClientConfig config = TrackviaClientConfig.DEFAULT;
+    protected TrackviaClientMetrics metrics = new TrackviaClientMetrics();
+    protected RetryBudget retryBudget = new RetryBudget(RetryPolicy.DEFAULT);
+    protected RateLimits rateLimits = new RateLimits(RateLimitPolicy.UNLIMITED);
+    protected CircuitBreakers circuitBreakers = new CircuitBreakers(CircuitBreakerPolicy.DISABLED, this.metrics);
+    protected Hedging hedging = new Hedging(HedgePolicy.DISABLED, this.rateLimits, this.metrics);
+    protected SingleFlight singleFlight = new SingleFlight(TrackviaClientConfig.DEFAULT, this.metrics);
+    protected TokenManager tokens = new TokenManager(this, TrackviaClientConfig.DEFAULT_TOKEN_REFRESH_AHEAD_MILLIS);
     protected String baseUriPath;
     protected String scheme = DEFAULT_SCHEME;
     protected String hostname;
     protected String apiUserKey;
     protected int port = DEFAULT_PORT;
-    private OAuth2Token lastGoodToken;
     protected Gson recordAsMapGson;
-    private Map<String, Gson> typeToGsonCache = new HashMap<String, Gson>();
 
     protected TrackviaClient() {}
 
@@ -329,7 +346,23 @@ public class TrackviaClient {
      */
     public static TrackviaClient create(final String hostname, final String username, final String password,
             final String apiUserKey) throws TrackviaApiException {
-        return create(DEFAULT_BASE_URI_PATH, DEFAULT_SCHEME, hostname, DEFAULT_PORT, username, password, apiUserKey);
+        return create(hostname, username, password, apiUserKey, TrackviaClientConfig.DEFAULT);
+    }
+
+    /**
+     * Creates a client, with which to access the Trackvia API, tuning its connection pool and timeouts.
+     *
+     * @param hostname host of the service api endpoint
+     * @param username name of an account user with access to targeted views and forms
+     * @param password password of the account user
+     * @param apiUserKey 3Scale user key, granted when registering using the Trackvia Developer Portal
+     * @param config connection pool and timeout settings
+     * @return a client acting on behalf of an authenticated user
+     * @throws TrackviaApiException if authentication fails for whatever reason
+     */
+    public static TrackviaClient create(final String hostname, final String username, final String password,
+            final String apiUserKey, final TrackviaClientConfig config) throws TrackviaApiException {
+        return create(DEFAULT_BASE_URI_PATH, DEFAULT_SCHEME, hostname, DEFAULT_PORT, username, password, apiUserKey, config);
     }
     
     /**
@@ -347,25 +380,60 @@ public class TrackviaClient {
      * @throws TrackviaApiException if authentication fails for whatever reason
      */
     public static TrackviaClient create(final String hostname, final String accessToken, String apiUserKey) {
-    	return create(hostname, accessToken, DEFAULT_BASE_URI_PATH, DEFAULT_SCHEME, DEFAULT_PORT, apiUserKey);
+    	return create(hostname, accessToken, apiUserKey, TrackviaClientConfig.DEFAULT);
+    }
+
+    /**
+     * Creates a client, with which to access the Trackvia API, tuning its connection pool and timeouts.
+     *
+     * @param hostname host of the service api endpoint
+     * @param accessToken Trackvia oauth access token
+     * @param apiUserKey 3Scale user key, granted when registering using the Trackvia Developer Portal
+     * @param config connection pool and timeout settings
+     * @return a client acting on behalf of already authenticated access token
+     */
+    public static TrackviaClient create(final String hostname, final String accessToken, String apiUserKey,
+            final TrackviaClientConfig config) {
+        return create(hostname, accessToken, DEFAULT_BASE_URI_PATH, DEFAULT_SCHEME, DEFAULT_PORT, apiUserKey, config);
     }
     
     public static TrackviaClient create(final String hostname, final String accessToken, String basePath, String scheme, Integer port, String apiUserKey) {
+        return create(hostname, accessToken, basePath, scheme, port, apiUserKey, TrackviaClientConfig.DEFAULT);
+    }
+
+    public static TrackviaClient create(final String hostname, final String accessToken, String basePath, String scheme, Integer port, String apiUserKey,
+            final TrackviaClientConfig config) {
+        return create(createTransport(config), hostname, accessToken, basePath, scheme, port, apiUserKey, config);
+    }
+
+    /**
+     * Creates a client, with which to access the Trackvia API, over a transport of the caller's choosing.
+     *
+     * @see LoopbackTransport to serve responses from memory, e.g. to benchmark response processing
+     *
+     * @param transport carries requests to the service; shut down with the client
+     * @param hostname host of the service api endpoint
+     * @param accessToken an already authenticated access token
+     * @param basePath prefixed to every HTTP request, before API-specific path segments (e.g., /openapi)
+     * @param scheme one of the supported protocol schemes (http or https)
+     * @param port port of the service endpoint
+     * @param apiUserKey 3Scale user key, granted when registering using the Trackvia Developer Portal
+     * @param config content coding settings; the transport's own settings are fixed when it's created
+     * @return a client acting on behalf of already authenticated access token
+     */
+    public static TrackviaClient create(final Transport transport, final String hostname, final String accessToken,
+            String basePath, String scheme, Integer port, String apiUserKey, final TrackviaClientConfig config) {
         TrackviaClient trackviaClient = new TrackviaClient();
-        trackviaClient.initializeHttpClient();
+        trackviaClient.init(config);
+        trackviaClient.transport = transport;
         trackviaClient.baseUriPath = basePath;
         trackviaClient.scheme = scheme;
         trackviaClient.hostname = hostname;
         trackviaClient.port = port;
         trackviaClient.apiUserKey = apiUserKey;
 
-        trackviaClient.recordAsMapGson = new GsonBuilder()
-                .setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX")
-                .registerTypeAdapter(RecordData.class, new RecordDataDeserializer())
-                .registerTypeAdapter(RecordData.class, new RecordDataSerializer())
-                .addSerializationExclusionStrategy(new TrackviaSerializationExclusionStrategy())
-		.serializeNulls()
-                .create();
+        trackviaClient.recordAsMapGson = Codecs.records(config.isTypedRecordsEnabled(),
+                config.isCompactRecordsEnabled(), true);
 
         OAuth2Token token = new OAuth2Token();
         token.setAccessToken(accessToken);
@@ -393,28 +461,95 @@ public class TrackviaClient {
     public static TrackviaClient create(final String baseUriPath, final String scheme, final String hostname, final int port,
                                         final String username, final String password, final String apiUserKey)
             throws TrackviaApiException {
-        TrackviaClient trackviaClient = new TrackviaClient();
-        trackviaClient.initializeHttpClient();
+        return create(baseUriPath, scheme, hostname, port, username, password, apiUserKey, TrackviaClientConfig.DEFAULT);
+    }
+
+    /**
+     * Creates a client, with which to access the Trackvia API.
+     *
+     * @param baseUriPath prefixed to every HTTP request, before API-specific path segments (e.g., /openapi)
+     * @param scheme one of the supported protocol schemes (http or https)
+     * @param hostname host of the service api endpoint
+     * @param port port of the service endpoint (default: 443)
+     * @param username name of an account user with access to targeted views and forms
+     * @param password password of the account user
+     * @param apiUserKey 3Scale user key, granted when registering using the Trackvia Developer Portal
+     * @param config connection pool and timeout settings
+     * @return a client acting on behalf of an authenticated user
+     * @throws TrackviaApiException if authentication fails for whatever reason
+     */
+    public static TrackviaClient create(final String baseUriPath, final String scheme, final String hostname, final int port,
+                                        final String username, final String password, final String apiUserKey,
+                                        final TrackviaClientConfig config)
+            throws TrackviaApiException {
+        return create(createTransport(config), baseUriPath, scheme, hostname, port, username, password, apiUserKey, config);
+    }
+
+    /**
+     * Creates a client, with which to access the Trackvia API, sending requests over the given transport.
+     *
+     * Should the config have a {@link TokenStore} holding a good token for the user, the client starts with
+     * that token instead of authorizing: the password isn't checked, and a wrong one goes unnoticed until the
+     * stored token expires or is revoked.
+     *
+     * @param transport sends the client's HTTP requests
+     * @param baseUriPath prefixed to every HTTP request, before API-specific path segments (e.g., /openapi)
+     * @param scheme one of the supported protocol schemes (http or https)
+     * @param hostname host of the service api endpoint
+     * @param port port of the service endpoint (default: 443)
+     * @param username name of an account user with access to targeted views and forms
+     * @param password password of the account user
+     * @param apiUserKey 3Scale user key, granted when registering using the Trackvia Developer Portal
+     * @param config connection pool and timeout settings
+     * @return a client acting on behalf of an authenticated user
+     * @throws TrackviaApiException if authentication fails for whatever reason
+     */
+    public static TrackviaClient create(final Transport transport, final String baseUriPath, final String scheme,
+                                        final String hostname, final int port, final String username,
+                                        final String password, final String apiUserKey, final TrackviaClientConfig config)
+            throws TrackviaApiException {
+        final TrackviaClient trackviaClient = new TrackviaClient();
+        trackviaClient.init(config);
+        trackviaClient.transport = transport;
         trackviaClient.baseUriPath = baseUriPath;
         trackviaClient.scheme = scheme;
         trackviaClient.hostname = hostname;
         trackviaClient.port = port;
         trackviaClient.apiUserKey = apiUserKey;
 
-        trackviaClient.recordAsMapGson = new GsonBuilder()
-                .setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX")
-                .registerTypeAdapter(RecordData.class, new RecordDataDeserializer())
-                .registerTypeAdapter(RecordData.class, new RecordDataSerializer())
-                .addSerializationExclusionStrategy(new TrackviaSerializationExclusionStrategy())
-                .create();
+        trackviaClient.recordAsMapGson = Codecs.records(config.isTypedRecordsEnabled(),
+                config.isCompactRecordsEnabled(), false);
 
-        // Obtain user credentials to use the API.  authorize() throws TrackviaApiException if the
-        // authorization process fails for any reason.  Let it propagate.
-        trackviaClient.authorize(username, password);
+        // Obtain user credentials to use the API, unless the store has them.  Authorizing throws
+        // TrackviaApiException if the authorization process fails for any reason.  Let it propagate.
+        final TokenStore store = config.getTokenStore();
+        final String key = trackviaClient.tokenStoreKey(username);
+        OAuth2Token token = store.loadOrAuthorize(key, new TokenStore.Authorizer() {
+            @Override
+            public OAuth2Token authorize() {
+                return (OAuth2Token) trackviaClient.execute(trackviaClient.authorizeCommand(username, password));
+            }
+        });
+        trackviaClient.setAuthToken(token);
+        trackviaClient.tokens.storeTo(store, key);
 
         return trackviaClient;
     }
 
+    /**
+     * Sets up the parts of the client the config settles: its retry budget, rate limits, circuit breakers,
+     * hedging, request coalescing and token refresh.
+     */
+    private void init(final TrackviaClientConfig config) {
+        this.config = config;
+        this.retryBudget = new RetryBudget(config.getRetryPolicy());
+        this.rateLimits = new RateLimits(config.getRateLimitPolicy());
+        this.circuitBreakers = new CircuitBreakers(config.getCircuitBreakerPolicy(), this.metrics);
+        this.hedging = new Hedging(config.getHedgePolicy(), this.rateLimits, this.metrics);
+        this.singleFlight = new SingleFlight(config, this.metrics);
+        this.tokens = new TokenManager(this, config.getTokenRefreshAheadMillis());
+    }
+
     /**
      * Facilitates use of mocking frameworks for testing.
      *
@@ -424,16 +559,10 @@ public class TrackviaClient {
                                  final HttpClientConnectionManager mockConnectionManager,
                                  final String hostname, final String username, final String password) {
         TrackviaClient trackviaClient = new TrackviaClient();
-        trackviaClient.httpClient = mockHttpClient;
+        trackviaClient.transport = ApacheTransport.create(mockHttpClient, mockConnectionManager);
         trackviaClient.hostname = hostname;
-        trackviaClient.connectionManager = mockConnectionManager;
 
-        trackviaClient.recordAsMapGson = new GsonBuilder()
-                .setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX")
-                .registerTypeAdapter(RecordData.class, new RecordDataDeserializer())
-                .registerTypeAdapter(RecordData.class, new RecordDataSerializer())
-                .addSerializationExclusionStrategy(new TrackviaSerializationExclusionStrategy())
-                .create();
+        trackviaClient.recordAsMapGson = Codecs.RECORDS;
 
         return trackviaClient;
     }
@@ -443,139 +572,176 @@ public class TrackviaClient {
      * to finish and disallowing new connections.
      */
     public void shutdown() {
-        this.connectionManager.shutdown();
-    }
-
-    protected void initializeHttpClient() {
-        PlainConnectionSocketFactory plainsf = PlainConnectionSocketFactory.getSocketFactory();
-        SSLConnectionSocketFactory sslsf = SSLConnectionSocketFactory.getSocketFactory();
-        Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
-                .register("http", plainsf)
-                .register(this.scheme, sslsf)
-                .build();
-        this.connectionManager = new PoolingHttpClientConnectionManager(registry);
-        ((PoolingHttpClientConnectionManager)connectionManager).setDefaultMaxPerRoute(50);
-        ((PoolingHttpClientConnectionManager)connectionManager).setMaxTotal(250);
-        
-        this.httpClient = HttpClients.custom()
-                .setConnectionManager(this.connectionManager)
-                .build();
+        if (this.transport != null) this.transport.shutdown();
+        this.hedging.shutdown();
+        this.tokens.shutdown();
     }
 
-    protected <T> Gson lookupSerializer(final Class<T> domainClass, final ParameterizedType parameterClass) {
-        String key = String.format("%s-%s", domainClass.getName(), parameterClass.getRawType().toString());
-        Gson gson = typeToGsonCache.get(key);
-
-        if (gson == null) {
-            Object serializer = null;
-            if (parameterClass.getRawType() == DomainRecordDataBatch.class) {
-                serializer = new DomainRecordDataBatchSerializer<>(domainClass);
-            } else {
-                throw new IllegalArgumentException(String.format(
-                        "No serializer available for type %s<%s>", parameterClass.getRawType().toString(),
-                        domainClass.getName()));
-            }
-
-            gson = new GsonBuilder()
-                    .setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX")
-                    .registerTypeAdapter(parameterClass.getRawType(), serializer)
-                    .addSerializationExclusionStrategy(new TrackviaSerializationExclusionStrategy())
-                    .create();
-
-            typeToGsonCache.put(key, gson);
-        }
+    public TrackviaClientConfig getConfig() {
+        return this.config;
+    }
 
-        return gson;
+    /**
+     * @return running totals of this client's traffic, with a hook to observe each exchange
+     */
+    public TrackviaClientMetrics getMetrics() {
+        return this.metrics;
     }
 
-    protected <T> Gson lookupDeserializer(final Class<T> domainClass, final ParameterizedType parameterClass) {
-        String key = String.format("%s-%s", domainClass.getName(), parameterClass.getRawType().toString());
-        Gson gson = typeToGsonCache.get(key);
-
-        if (gson == null) {
-            Object deserializer = null;
-            if (parameterClass.getRawType() == DomainRecordSet.class) {
-                deserializer = new DomainRecordSetDeserializer<>(domainClass);
-            } else if (parameterClass.getRawType() == DomainRecord.class) {
-                deserializer = new DomainRecordDeserializer<>(domainClass);
-            } else {
-                throw new IllegalArgumentException(String.format(
-                        "No deserializer available for type %s<%s>", parameterClass.getRawType().toString(),
-                        domainClass.getName()));
-            }
-
-            gson = new GsonBuilder()
-                    .setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX")
-                    .registerTypeAdapter(parameterClass, deserializer)
-                    .addSerializationExclusionStrategy(new TrackviaSerializationExclusionStrategy())
-                    .create();
-
-            typeToGsonCache.put(key, gson);
-        }
+    RetryBudget getRetryBudget() {
+        return this.retryBudget;
+    }
 
-        return gson;
+    RateLimits getRateLimits() {
+        return this.rateLimits;
     }
 
-    protected Object execute(OverHttpCommand command) {
-        HttpRoute route = new HttpRoute(new HttpHost(TrackviaClient.this.hostname, this.port));
-        ConnectionRequest cr = this.connectionManager.requestConnection(route, null);
-        HttpClientConnection connection = null;
-        Object apiResponse = null;
+    CircuitBreakers getCircuitBreakers() {
+        return this.circuitBreakers;
+    }
 
-        try {
-            connection = cr.get(5, TimeUnit.SECONDS);
+    Hedging getHedging() {
+        return this.hedging;
+    }
 
-            if (!connection.isOpen()) {
-                this.connectionManager.connect(connection, route, 1000, command.getContext());
-                this.connectionManager.routeComplete(connection, route, command.getContext());
-            }
+    TokenManager getTokens() {
+        return this.tokens;
+    }
 
-            apiResponse = command.execute(this.httpClient);
+    /**
+     * Makes calls that must finish within a timeout, from the first attempt of the first call to the
+     * last attempt of the last, e.g.
+     *
+     * <pre>
+     * {@code
+     *      RecordSet rs = client.withTimeout(800, TimeUnit.MILLISECONDS, () -> client.getRecords(viewId));
+     * }
+     * </pre>
+     *
+     * @param timeout time allowed for the calls
+     * @param unit unit of the timeout
+     * @param calls the calls to make, on this thread
+     * @return what the calls returned
+     * @throws TrackviaDeadlineExceededException if the calls didn't finish in time
+     *
+     * @see #withDeadline(Deadline, Callable)
+     */
+    public <V> V withTimeout(final long timeout, final TimeUnit unit, final Callable<V> calls)
+            throws TrackviaApiException, TrackviaClientException {
+        return withDeadline(Deadline.after(timeout, unit), calls);
+    }
 
-        } catch (TrackviaApiException e) {
+    /**
+     * Makes calls that must finish by a deadline.  Every wait of the calls - for a rate limiter permit, a
+     * pooled connection, to connect, to read, to back off before a retry - is cut to the time left, and a
+     * request still under way when the deadline passes is aborted.  A deadline nested within another
+     * can't extend it, nor can the configured {@link TrackviaClientConfig#getCallTimeoutMillis() call timeout}.
+     *
+     * @param deadline when the calls must have finished
+     * @param calls the calls to make, on this thread
+     * @return what the calls returned
+     * @throws TrackviaDeadlineExceededException if the calls didn't finish in time
+     */
+    public <V> V withDeadline(final Deadline deadline, final Callable<V> calls)
+            throws TrackviaApiException, TrackviaClientException {
+        final Deadline outer = Deadline.enter(deadline);
+        try {
+            return calls.call();
+        } catch (TrackviaApiException | TrackviaClientException e) {
             throw e;
         } catch (Exception e) {
             throw new TrackviaClientException(e);
         } finally {
-            if (connection != null) this.connectionManager.releaseConnection(connection, null, 1, TimeUnit.SECONDS);
+            Deadline.exit(outer);
+        }
+    }
+
+    /**
+     * @return the transport carrying this client's requests
+     */
+    public Transport getTransport() {
+        return this.transport;
+    }
+
+    /**
+     * Creates the transport for the configured HTTP protocol.
+     */
+    protected static Transport createTransport(final TrackviaClientConfig config) {
+        if (config.getHttpProtocol() == TrackviaClientConfig.HttpProtocol.HTTP_2) {
+            return new Http2Transport(config);
+        }
+
+        return ApacheTransport.create(config);
+    }
+
+    protected <T> Gson lookupSerializer(final Class<T> domainClass, final ParameterizedType parameterClass) {
+        return Codecs.serializer(domainClass, parameterClass);
+    }
+
+    protected <T> Gson lookupDeserializer(final Class<T> domainClass, final ParameterizedType parameterClass) {
+        return Codecs.deserializer(domainClass, parameterClass);
+    }
+
+    /**
+     * @return the source as a JSON request entity, encoded as it's written rather than built up as a String
+     */
+    protected static HttpEntity jsonEntity(final Gson serializer, final Object src, final Type type) {
+        final ByteArrayOutputStream json = new ByteArrayOutputStream();
+        final Writer writer = new OutputStreamWriter(json, StandardCharsets.UTF_8);
+        try {
+            serializer.toJson(src, type, new JsonWriter(writer));
+            writer.flush();
+        } catch (IOException e) {
+            throw new JsonIOException(e);
         }
 
-        return apiResponse;
+        return new ByteArrayEntity(json.toByteArray(), ContentType.APPLICATION_JSON);
+    }
+
+    /**
+     * Executes a command over this client's transport, blocking until the response is processed.
+     */
+    protected Object execute(OverHttpCommand command) {
+        try {
+            return command.execute(this.transport);
+        } catch (TrackviaApiException | TrackviaClientException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new TrackviaClientException(e);
+        }
     }
 
     protected String getApiUserKey() { return this.apiUserKey; }
 
-    protected synchronized void setAuthToken(OAuth2Token token) {
-        this.lastGoodToken = token;
+    /**
+     * @return the URI of an endpoint of this client's service
+     */
+    protected URI endpointUri(final EndpointTemplate template, final Object... values) throws URISyntaxException {
+        return template.expand(this.scheme, this.hostname, this.port, this.baseUriPath, values);
+    }
+
+    protected void setAuthToken(OAuth2Token token) {
+        this.tokens.set(token);
     }
     
-    public synchronized void updateApiVersion(String apiVersion) {
-        if(lastGoodToken == null){
-        	return;
-        }
-        lastGoodToken.setApiVersion(apiVersion);
-        
+    public void updateApiVersion(String apiVersion) {
+        this.tokens.updateApiVersion(apiVersion);
     }
 
-    protected synchronized String getAccessToken() {
-        return (this.lastGoodToken != null) ? (this.lastGoodToken.getValue()) : (null);
+    protected String getAccessToken() {
+        return this.tokens.getAccessToken();
     }
 
-    protected synchronized String getRefreshToken() {
-        return (this.lastGoodToken != null && this.lastGoodToken.getRefreshToken() != null) ?
-                (this.lastGoodToken.getRefreshToken().getValue()) : (null);
+    protected String getRefreshToken() {
+        return this.tokens.getRefreshToken();
     }
     
     /**
      * Grab the api version as a string, else gets negative
      * @return
      */
-    protected synchronized String getApiVersion(){
-    	if(this.lastGoodToken != null && this.lastGoodToken.getApiVersion() != null){
-    		return lastGoodToken.getApiVersion();
-    	} else {
-    		return null;
-    	}
+    protected String getApiVersion(){
+        return this.tokens.getApiVersion();
     }
 
     /**
@@ -586,7 +752,9 @@ public class TrackviaClient {
      * an ApiError.InvalidToken error on any service call.  Should this fail, that error
      * will be rethrown.  Catching it will provide an empty to handle authentication outside
      * of the client.  The advantage of refreshAccessToken is it is faster than calling
-     * authorize().
+     * authorize().  A token the service says expires is also refreshed in the background
+     * ahead of its expiry, see {@link TrackviaClientConfig#getTokenRefreshAheadMillis()}.
+     * Concurrent refreshes are made as one.
      *
      * @see #authorize(String, String) to obtain another access and refresh token
      *
@@ -594,40 +762,39 @@ public class TrackviaClient {
      * @throws TrackviaClientException if an error occurs outside the service, failing the request
      */
     public void refreshAccessToken() throws TrackviaApiException, TrackviaClientException {
+        this.tokens.refresh(this.tokens.current());
+    }
+
+    protected OverHttpCommand<OAuth2Token> refreshAccessTokenCommand() {
         final Gson gson = this.recordAsMapGson;
         final HttpClientContext context = HttpClientContext.create();
-        final OAuth2Token token = (OAuth2Token) execute(new CommandOverHttpGet<OAuth2Token>(context, TrackviaClient.this) {
+        return new CommandOverHttpGet<OAuth2Token>(context, TrackviaClient.this) {
             @Override
             public URI getApiRequestUri() throws URISyntaxException {
-                final String path = String.format("%s/oauth/token", TrackviaClient.this.baseUriPath);
-                return new URIBuilder()
-                        .setScheme(TrackviaClient.this.scheme)
-                        .setHost(TrackviaClient.this.hostname)
-                        .setPort(TrackviaClient.this.port)
-                        .setPath(path)
-                        .setParameter("refresh_token", getRefreshToken())
-                        .setParameter("client_id", "TrackViaAPI")
-                        .setParameter("grant_type", "refresh_token")
-                        .setParameter("redirect_uri", "")
-                        .build();
+                return endpointUri(REFRESH_TOKEN, getRefreshToken(), "TrackViaAPI", "refresh_token", "");
+            }
+
+            // a grant sent twice issues two tokens, one of them thrown away with the refresh token it rotated
+            @Override
+            protected boolean isHedgeable() {
+                return false;
             }
 
             @Override
             public OAuth2Token processResponseEntity(final HttpEntity entity) throws IOException {
-                Reader jsonReader = new InputStreamReader(entity.getContent());
+                Reader jsonReader = new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8);
 
                 return gson.fromJson(jsonReader, OAuth2Token.class);
             }
-        });
-
-        setAuthToken(token);
+        };
     }
 
     /**
      * Authorizes the client for access to views and forms of a given account user.
      *
      * A side effect of a successful authentication try is the client saves the resulting
-     * access and refresh token, caching it for future client calls.
+     * access and refresh token, caching it for future client calls, and in the config's
+     * {@link TokenStore}.
      *
      * @param username name of the account user
      * @param password password of the account user
@@ -635,33 +802,42 @@ public class TrackviaClient {
      * @throws TrackviaClientException if an error occurs outside the service, failing the request
      */
     public void authorize(final String username, final String password) throws TrackviaApiException, TrackviaClientException {
+        OAuth2Token token = (OAuth2Token) execute(authorizeCommand(username, password));
+
+        this.tokens.storeTo(this.config.getTokenStore(), tokenStoreKey(username));
+        setAuthToken(token);
+    }
+
+    /**
+     * @return the key of a user's tokens in the token store: the user at the service endpoint.  The password
+     * isn't part of it; a store holding a token for the user skips authentication.
+     */
+    protected String tokenStoreKey(final String username) {
+        return String.format("%s://%s:%d%s#%s", this.scheme, this.hostname, this.port, this.baseUriPath, username);
+    }
+
+    protected OverHttpCommand<OAuth2Token> authorizeCommand(final String username, final String password) {
         final Gson gson = this.recordAsMapGson;
         HttpClientContext context = HttpClientContext.create();
-        OAuth2Token token = (OAuth2Token) execute(new CommandOverHttpGet<OAuth2Token>(context, TrackviaClient.this) {
+        return new CommandOverHttpGet<OAuth2Token>(context, TrackviaClient.this) {
             @Override
             public URI getApiRequestUri() throws URISyntaxException {
-                final String path = String.format("%s/oauth/token", TrackviaClient.this.baseUriPath);
-                return new URIBuilder()
-                        .setScheme(TrackviaClient.this.scheme)
-                        .setHost(TrackviaClient.this.hostname)
-                        .setPort(TrackviaClient.this.port)
-                        .setPath(path)
-                        .setParameter("username", username)
-                        .setParameter("password", password)
-                        .setParameter("client_id", "TrackViaAPI")
-                        .setParameter("grant_type", "password")
-                        .build();
+                return endpointUri(PASSWORD_TOKEN, username, password, "TrackViaAPI", "password");
+            }
+
+            // a grant sent twice issues two tokens, one of them thrown away with the refresh token it rotated
+            @Override
+            protected boolean isHedgeable() {
+                return false;
             }
 
             @Override
             public OAuth2Token processResponseEntity(final HttpEntity entity) throws IOException {
-                Reader jsonReader = new InputStreamReader(entity.getContent());
+                Reader jsonReader = new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8);
 
                 return gson.fromJson(jsonReader, OAuth2Token.class);
             }
-        });
-
-        setAuthToken(token);
+        };
     }
 
     /**
@@ -674,78 +850,36 @@ public class TrackviaClient {
      * @throws TrackviaClientException if an error occurs outside the service, failing the request
      */
     public List<User> getUsers(final int start, final int max) throws TrackviaApiException, TrackviaClientException {
-        final Gson gson = this.recordAsMapGson;
         Authorized<UserRecordSet> action = new Authorized<>(this);
         UserRecordSet rs = action.execute(new Callable<UserRecordSet>() {
             @Override
             public UserRecordSet call() throws Exception {
-                HttpClientContext context = HttpClientContext.create();
-                return (UserRecordSet) execute(new CommandOverHttpGet<UserRecordSet>(context, TrackviaClient.this) {
-                    @Override
-                    public URI getApiRequestUri() throws URISyntaxException {
-                        final List<NameValuePair> params = pairsFromGetUsersParams(start, max);
-                        params.add(new NameValuePair() {
-                            @Override public String getName() {
-                                return ACCESS_TOKEN_QUERY_PARAM;
-                            }
-                            @Override public String getValue() {
-                                return TrackviaClient.this.getAccessToken();
-                            }
-                        });
-                        params.add(new NameValuePair() {
-                            @Override public String getName() {
-                                return USER_KEY_QUERY_PARAM;
-                            }
-                            @Override public String getValue() {
-                                return TrackviaClient.this.getApiUserKey();
-                            }
-                        });
-                        final String path = String.format("%s/openapi/users", TrackviaClient.this.baseUriPath);
-                        return new URIBuilder()
-                                .setScheme(TrackviaClient.this.scheme)
-                                .setHost(TrackviaClient.this.hostname)
-                                .setPort(TrackviaClient.this.port)
-                                .setPath(path)
-                                .setParameters(params)
-                                .build();
-                    }
-
-                    @Override
-                    public UserRecordSet processResponseEntity(final HttpEntity entity) throws IOException {
-                        Reader jsonReader = new InputStreamReader(entity.getContent());
-
-                        return gson.fromJson(jsonReader, UserRecordSet.class);
-                    }
-                });
+                return (UserRecordSet) execute(getUsersCommand(start, max));
             }
         });
         return rs.getData();
     }
 
-    private List<NameValuePair> pairsFromGetUsersParams(final int start, final int max) {
-        List<NameValuePair> pairs = new ArrayList<NameValuePair>(3);
-
-        pairs.add(new NameValuePair() {
-            @Override public String getName() {
-                return "start";
-            }
-            @Override public String getValue() {
-                return (start < 0) ? ("0") : (String.valueOf(start));
+    protected OverHttpCommand<UserRecordSet> getUsersCommand(final int start, final int max) {
+        final Gson gson = this.recordAsMapGson;
+        HttpClientContext context = HttpClientContext.create();
+        return new CommandOverHttpGet<UserRecordSet>(context, TrackviaClient.this) {
+            @Override
+            public URI getApiRequestUri() throws URISyntaxException {
+                return endpointUri(USERS_PAGE, Math.max(0, start), Math.max(0, max),
+                        TrackviaClient.this.getAccessToken(), TrackviaClient.this.getApiUserKey());
             }
-        });
 
-        pairs.add(new NameValuePair() {
-            @Override public String getName() {
-                return "max";
-            }
-            @Override public String getValue() {
-                return (max < 0) ? ("0") : (String.valueOf(max));
-            }
-        });
+            @Override
+            public UserRecordSet processResponseEntity(final HttpEntity entity) throws IOException {
+                Reader jsonReader = new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8);
 
-        return pairs;
+                return gson.fromJson(jsonReader, UserRecordSet.class);
+            }
+        };
     }
 
+
     /**
      * Creates a new account user.  The user's initial state starts with email confirmation.
      *
@@ -759,49 +893,45 @@ public class TrackviaClient {
      */
     public User createUser(final String email, final String firstName, final String lastName, final TimeZone timeZone)
             throws TrackviaApiException, TrackviaClientException {
-        final Gson gson = this.recordAsMapGson;
         final Authorized<UserRecord> action = new Authorized<>(this);
         final UserRecord userRecord = action.execute(new Callable<UserRecord>() {
             @Override
             public UserRecord call() throws Exception {
-                HttpClientContext context = HttpClientContext.create();
-
-                return (UserRecord) execute(new CommandOverHttpPost<UserRecord>(context, TrackviaClient.this) {
-                    @Override
-                    public URI getApiRequestUri() throws URISyntaxException {
-                        final String path = String.format("%s/openapi/users", TrackviaClient.this.baseUriPath);
-                        return new URIBuilder()
-                                .setScheme(TrackviaClient.this.scheme)
-                                .setHost(TrackviaClient.this.hostname)
-                                .setPort(TrackviaClient.this.port)
-                                .setPath(path)
-                                .setParameter(ACCESS_TOKEN_QUERY_PARAM, getAccessToken())
-                                .setParameter(USER_KEY_QUERY_PARAM, getApiUserKey())
-                                .build();
-                    }
+                return (UserRecord) execute(createUserCommand(email, firstName, lastName, timeZone));
+            }
+        });
 
-                    @Override
-                    public UserRecord processResponseEntity(final HttpEntity entity) throws IOException {
-                        Reader jsonReader = new InputStreamReader(entity.getContent());
+        return (userRecord != null) ? (userRecord.getData()) : (null);
+    }
 
-                        return gson.fromJson(jsonReader, UserRecord.class);
-                    }
+    protected OverHttpCommand<UserRecord> createUserCommand(final String email, final String firstName,
+            final String lastName, final TimeZone timeZone) {
+        final Gson gson = this.recordAsMapGson;
+        HttpClientContext context = HttpClientContext.create();
+        return new CommandOverHttpPost<UserRecord>(context, TrackviaClient.this) {
+            @Override
+            public URI getApiRequestUri() throws URISyntaxException {
+                return endpointUri(USERS, TrackviaClient.this.getAccessToken(), TrackviaClient.this.getApiUserKey());
+            }
 
-                    @Override
-                    public HttpEntity getApiRequestEntity() throws UnsupportedEncodingException {
-                        List<NameValuePair> params = new ArrayList<NameValuePair>();
-                        params.add(new BasicNameValuePair("email", email));
-                        params.add(new BasicNameValuePair("firstName", firstName));
-                        params.add(new BasicNameValuePair("lastName", lastName));
-                        params.add(new BasicNameValuePair("timeZone", timeZone.getDisplayName(false, TimeZone.SHORT)));
-                        UrlEncodedFormEntity entity = new UrlEncodedFormEntity(params);
-                        return entity;
-                    }
-                });
+            @Override
+            public UserRecord processResponseEntity(final HttpEntity entity) throws IOException {
+                Reader jsonReader = new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8);
+
+                return gson.fromJson(jsonReader, UserRecord.class);
             }
-        });
 
-        return (userRecord != null) ? (userRecord.getData()) : (null);
+            @Override
+            public HttpEntity getApiRequestEntity() throws UnsupportedEncodingException {
+                List<NameValuePair> params = new ArrayList<NameValuePair>();
+                params.add(new BasicNameValuePair("email", email));
+                params.add(new BasicNameValuePair("firstName", firstName));
+                params.add(new BasicNameValuePair("lastName", lastName));
+                params.add(new BasicNameValuePair("timeZone", timeZone.getDisplayName(false, TimeZone.SHORT)));
+                UrlEncodedFormEntity entity = new UrlEncodedFormEntity(params);
+                return entity;
+            }
+        };
     }
 
     /**
@@ -812,39 +942,34 @@ public class TrackviaClient {
      * @throws TrackviaClientException if an error occurs outside the service, failing the request
      */
     public List<App> getApps() throws TrackviaApiException, TrackviaClientException {
-        final Gson gson = this.recordAsMapGson;
         final Authorized<List<App>> action = new Authorized<>(this);
 
         return action.execute(new Callable<List<App>>() {
             @Override
             public List<App> call() throws Exception {
-                HttpClientContext context = HttpClientContext.create();
-
-                return (List<App>) execute(new CommandOverHttpGet<List<App>>(context, TrackviaClient.this) {
-                    @Override
-                    public URI getApiRequestUri() throws URISyntaxException {
-                        final String path = String.format("%s/openapi/apps", TrackviaClient.this.baseUriPath);
-                        return new URIBuilder()
-                                .setScheme(TrackviaClient.this.scheme)
-                                .setHost(TrackviaClient.this.hostname)
-                                .setPort(TrackviaClient.this.port)
-                                .setPath(path)
-                                .setParameter(ACCESS_TOKEN_QUERY_PARAM, TrackviaClient.this.getAccessToken())
-                                .setParameter(USER_KEY_QUERY_PARAM, TrackviaClient.this.getApiUserKey())
-                                .build();
-                    }
+                return (List<App>) execute(getAppsCommand());
+            }
+        });
+    }
+
+    protected OverHttpCommand<List<App>> getAppsCommand() {
+        final Gson gson = this.recordAsMapGson;
+        HttpClientContext context = HttpClientContext.create();
+        return new CommandOverHttpGet<List<App>>(context, TrackviaClient.this) {
+            @Override
+            public URI getApiRequestUri() throws URISyntaxException {
+                return endpointUri(APPS, TrackviaClient.this.getAccessToken(), TrackviaClient.this.getApiUserKey());
+            }
 
-                    @Override
-                    public List<App> processResponseEntity(final HttpEntity entity) throws IOException {
-                        Reader jsonReader = new InputStreamReader(entity.getContent());
-                        Type responseType = new TypeToken<List<App>>() {
-                        }.getType();
+            @Override
+            public List<App> processResponseEntity(final HttpEntity entity) throws IOException {
+                Reader jsonReader = new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8);
+                Type responseType = new TypeToken<List<App>>() {
+                }.getType();
 
-                        return gson.fromJson(jsonReader, responseType);
-                    }
-                });
+                return gson.fromJson(jsonReader, responseType);
             }
-        });
+        };
     }
 
     /**
@@ -877,46 +1002,37 @@ public class TrackviaClient {
     }
 
     protected List<View> getViews(final String optionalName) throws TrackviaApiException, TrackviaClientException {
-        final Gson gson = this.recordAsMapGson;
         final Authorized<List<View>> action = new Authorized<>(this);
+        final String key = (optionalName == null) ? ("views") : ("views?name=" + optionalName);
 
-        return action.execute(new Callable<List<View>>() {
+        return this.singleFlight.execute(key, SingleFlight.VIEWS, action, new Callable<List<View>>() {
             @SuppressWarnings("unchecked")
 			@Override
             public List<View> call() throws Exception {
-                HttpClientContext context = HttpClientContext.create();
-
-                return (List<View>) execute(new CommandOverHttpGet<List<View>>(context, TrackviaClient.this) {
-                    @Override
-                    public URI getApiRequestUri() throws URISyntaxException {
-                        final String basePath = String.format("%s/openapi/views", TrackviaClient.this.baseUriPath);
-                        URIBuilder builder = new URIBuilder();
-                        
-                        builder.setScheme(TrackviaClient.this.scheme)
-                                .setHost(TrackviaClient.this.hostname)
-                                .setPort(TrackviaClient.this.port)
-                                .setPath(basePath)
-                                .setParameter(ACCESS_TOKEN_QUERY_PARAM, TrackviaClient.this.getAccessToken())
-                                .setParameter(USER_KEY_QUERY_PARAM, TrackviaClient.this.getApiUserKey());
-              
-                        if (optionalName != null && !optionalName.isEmpty()) {
-                        	builder.setParameter("name", optionalName);
-                        }
-                        
-                        return builder.build();
-                    }
+                return (List<View>) execute(getViewsCommand(optionalName));
+            }
+        });
+    }
 
-                    @Override
-                    public List<View> processResponseEntity(final HttpEntity entity) throws IOException {
-                        Reader jsonReader = new InputStreamReader(entity.getContent());
-                        Type responseType = new TypeToken<List<View>>() {
-                        }.getType();
+    protected OverHttpCommand<List<View>> getViewsCommand(final String optionalName) {
+        final Gson gson = this.recordAsMapGson;
+        HttpClientContext context = HttpClientContext.create();
+        return new CommandOverHttpGet<List<View>>(context, TrackviaClient.this) {
+            @Override
+            public URI getApiRequestUri() throws URISyntaxException {
+                return endpointUri(VIEWS, TrackviaClient.this.getAccessToken(), TrackviaClient.this.getApiUserKey(),
+                        (optionalName != null && !optionalName.isEmpty()) ? (optionalName) : (null));
+            }
 
-                        return gson.fromJson(jsonReader, responseType);
-                    }
-                });
+            @Override
+            public List<View> processResponseEntity(final HttpEntity entity) throws IOException {
+                Reader jsonReader = new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8);
+                Type responseType = new TypeToken<List<View>>() {
+                }.getType();
+
+                return gson.fromJson(jsonReader, responseType);
             }
-        });
+        };
     }
 
     /**
@@ -954,53 +1070,35 @@ public class TrackviaClient {
      */
     public <T> DomainRecordSet<T> findRecords(final Class<T> domainClass, final int viewId, final String q,
             final int start, final int max) throws TrackviaApiException, TrackviaClientException {
-        final ParameterizedType returnType = new DomainRecordSetType<T>(domainClass);
-        final Gson deserializer = lookupDeserializer(domainClass, returnType);
         final Authorized<DomainRecordSet<T>> action = new Authorized<>(this);
 
         return action.execute(new Callable<DomainRecordSet<T>>() {
             @Override
             public DomainRecordSet<T> call() throws Exception {
-                HttpClientContext context = HttpClientContext.create();
-                return (DomainRecordSet<T>) execute(new CommandOverHttpGet<DomainRecordSet<T>>(context, TrackviaClient.this) {
-                    @Override
-                    public URI getApiRequestUri() throws URISyntaxException {
-                        final List<NameValuePair> params = pairsFromFindRecordParams(q, start, max);
-                        params.add(new NameValuePair() {
-                            @Override public String getName() {
-                                return ACCESS_TOKEN_QUERY_PARAM;
-                            }
-                            @Override public String getValue() {
-                                return TrackviaClient.this.getAccessToken();
-                            }
-                        });
-                        params.add(new NameValuePair() {
-                            @Override public String getName() {
-                                return USER_KEY_QUERY_PARAM;
-                            }
-                            @Override public String getValue() {
-                                return TrackviaClient.this.getApiUserKey();
-                            }
-                        });
-                        final String path = String.format("%s/openapi/views/%d/find", TrackviaClient.this.baseUriPath, viewId);
-                        return new URIBuilder()
-                                .setScheme(TrackviaClient.this.scheme)
-                                .setHost(TrackviaClient.this.hostname)
-                                .setPort(TrackviaClient.this.port)
-                                .setPath(path)
-                                .setParameters(params)
-                                .build();
-                    }
+                return (DomainRecordSet<T>) execute(findRecordsCommand(domainClass, viewId, q, start, max));
+            }
+        });
+    }
 
-                    @Override
-                    public DomainRecordSet<T> processResponseEntity(final HttpEntity entity) throws IOException {
-                        Reader jsonReader = new InputStreamReader(entity.getContent());
+    protected <T> OverHttpCommand<DomainRecordSet<T>> findRecordsCommand(final Class<T> domainClass, final int viewId,
+            final String q, final int start, final int max) {
+        final ParameterizedType returnType = new DomainRecordSetType<T>(domainClass);
+        final Gson deserializer = lookupDeserializer(domainClass, returnType);
+        HttpClientContext context = HttpClientContext.create();
+        return new CommandOverHttpGet<DomainRecordSet<T>>(context, TrackviaClient.this) {
+            @Override
+            public URI getApiRequestUri() throws URISyntaxException {
+                return endpointUri(VIEW_FIND, viewId, q, Math.max(0, start), Math.max(0, max),
+                        TrackviaClient.this.getAccessToken(), TrackviaClient.this.getApiUserKey());
+            }
 
-                        return deserializer.fromJson(jsonReader, returnType);
-                    }
-                });
+            @Override
+            public DomainRecordSet<T> processResponseEntity(final HttpEntity entity) throws IOException {
+                Reader jsonReader = new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8);
+
+                return deserializer.fromJson(jsonReader, returnType);
             }
-        });
+        };
     }
 
     /**
@@ -1021,75 +1119,40 @@ public class TrackviaClient {
      */
     public RecordSet findRecords(final int viewId, final String q, final int start, final int max)
             throws TrackviaApiException, TrackviaClientException {
-        final Gson gson = this.recordAsMapGson;
         final Authorized<RecordSet> action = new Authorized<>(this);
+        // leaves a null q out, as the request does, so it doesn't share a key with the query "null"
+        final String key = "views/" + viewId + "/find?start=" + start + "&max=" + max
+                + ((q != null) ? ("&q=" + q) : (""));
 
-        return action.execute(new Callable<RecordSet>() {
+        return this.singleFlight.execute(key, SingleFlight.RECORD_SET, action, new Callable<RecordSet>() {
             @Override
             public RecordSet call() throws Exception {
-                HttpClientContext context = HttpClientContext.create();
-                return (RecordSet) execute(new CommandOverHttpGet<RecordSet>(context, TrackviaClient.this) {
-                    @Override
-                    public URI getApiRequestUri() throws URISyntaxException {
-                        final List<NameValuePair> params = pairsFromFindRecordParams(q, start, max);
-                        params.add(new NameValuePair() {
-                            @Override public String getName() {
-                                return ACCESS_TOKEN_QUERY_PARAM;
-                            }
-                            @Override public String getValue() {
-                                return getAccessToken();
-                            }
-                        });
-                        params.add(new NameValuePair() {
-                            @Override public String getName() {
-                                return USER_KEY_QUERY_PARAM;
-                            }
-                            @Override public String getValue() {
-                                return TrackviaClient.this.getApiUserKey();
-                            }
-                        });
-                        final String path = String.format("%s/openapi/views/%d/find", TrackviaClient.this.baseUriPath, viewId);
-                        return new URIBuilder()
-                                .setScheme(TrackviaClient.this.scheme)
-                                .setHost(TrackviaClient.this.hostname)
-                                .setPort(TrackviaClient.this.port)
-                                .setPath(path)
-                                .setParameters(params)
-                                .build();
-                    }
-
-                    @Override
-                    public RecordSet processResponseEntity(final HttpEntity entity) throws IOException {
-                        Reader jsonReader = new InputStreamReader(entity.getContent());
-
-                        return gson.fromJson(jsonReader, RecordSet.class);
-                    }
-                });
+                return (RecordSet) execute(findRecordsCommand(viewId, q, start, max));
             }
         });
     }
 
-    private List<NameValuePair> pairsFromFindRecordParams(final String q, final int start, final int max) {
-        List<NameValuePair> pairs = new ArrayList<NameValuePair>(3);
+    protected OverHttpCommand<RecordSet> findRecordsCommand(final int viewId, final String q, final int start,
+            final int max) {
+        final Gson gson = this.recordAsMapGson;
+        HttpClientContext context = HttpClientContext.create();
+        return new CommandOverHttpGet<RecordSet>(context, TrackviaClient.this) {
+            @Override
+            public URI getApiRequestUri() throws URISyntaxException {
+                return endpointUri(VIEW_FIND, viewId, q, Math.max(0, start), Math.max(0, max),
+                        TrackviaClient.this.getAccessToken(), TrackviaClient.this.getApiUserKey());
+            }
 
-        pairs.add(new NameValuePair() {
-            @Override public String getName() { return "q"; }
-            @Override public String getValue() { return q; }
-        });
+            @Override
+            public RecordSet processResponseEntity(final HttpEntity entity) throws IOException {
+                Reader jsonReader = new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8);
 
-        pairs.add(new NameValuePair() {
-            @Override public String getName() { return "start"; }
-            @Override public String getValue() { return (start < 0) ? ("0") : (String.valueOf(start)); }
-        });
-
-        pairs.add(new NameValuePair() {
-            @Override public String getName() { return "max"; }
-            @Override public String getValue() { return (max < 0) ? ("0") : (String.valueOf(max)); }
-        });
-
-        return pairs;
+                return gson.fromJson(jsonReader, RecordSet.class);
+            }
+        };
     }
 
+
     /**
      * Gets records available to the authenticated user in the given view.
      *
@@ -1107,37 +1170,33 @@ public class TrackviaClient {
      */
     public <T> DomainRecordSet<T> getRecords(final Class<T> domainClass, final int viewId)
             throws TrackviaApiException, TrackviaClientException {
-        final ParameterizedType returnType = new DomainRecordSetType<T>(domainClass);
-        final Gson deserializer = lookupDeserializer(domainClass, returnType);
         final Authorized<DomainRecordSet<T>> action = new Authorized<>(this);
 
         return action.execute(new Callable<DomainRecordSet<T>>() {
             @Override
             public DomainRecordSet<T> call() throws Exception {
-                HttpClientContext context = HttpClientContext.create();
-                return (DomainRecordSet<T>) execute(new CommandOverHttpGet<DomainRecordSet<T>>(context, TrackviaClient.this) {
-                    @Override
-                    public URI getApiRequestUri() throws URISyntaxException {
-                        final String path = String.format("%s/openapi/views/%d", TrackviaClient.this.baseUriPath, viewId);
-                        return new URIBuilder()
-                                .setScheme(TrackviaClient.this.scheme)
-                                .setHost(TrackviaClient.this.hostname)
-                                .setPort(TrackviaClient.this.port)
-                                .setPath(path)
-                                .setParameter(ACCESS_TOKEN_QUERY_PARAM, TrackviaClient.this.getAccessToken())
-                                .setParameter(USER_KEY_QUERY_PARAM, TrackviaClient.this.getApiUserKey())
-                                .build();
-                    }
+                return (DomainRecordSet<T>) execute(getRecordsCommand(domainClass, viewId));
+            }
+        });
+    }
 
-                    @Override
-                    public DomainRecordSet<T> processResponseEntity(final HttpEntity entity) throws IOException {
-                        Reader jsonReader = new InputStreamReader(entity.getContent());
+    protected <T> OverHttpCommand<DomainRecordSet<T>> getRecordsCommand(final Class<T> domainClass, final int viewId) {
+        final ParameterizedType returnType = new DomainRecordSetType<T>(domainClass);
+        final Gson deserializer = lookupDeserializer(domainClass, returnType);
+        HttpClientContext context = HttpClientContext.create();
+        return new CommandOverHttpGet<DomainRecordSet<T>>(context, TrackviaClient.this) {
+            @Override
+            public URI getApiRequestUri() throws URISyntaxException {
+                return endpointUri(VIEW, viewId, TrackviaClient.this.getAccessToken(), TrackviaClient.this.getApiUserKey());
+            }
 
-                        return deserializer.fromJson(jsonReader, returnType);
-                    }
-                });
+            @Override
+            public DomainRecordSet<T> processResponseEntity(final HttpEntity entity) throws IOException {
+                Reader jsonReader = new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8);
+
+                return deserializer.fromJson(jsonReader, returnType);
             }
-        });
+        };
     }
 
     /**
@@ -1153,38 +1212,164 @@ public class TrackviaClient {
      * @see #getRecords(Class, int) for records as an application-defined class
      */
     public RecordSet getRecords(final int viewId) throws TrackviaApiException, TrackviaClientException {
-        final Gson gson = this.recordAsMapGson;
         final Authorized<RecordSet> action = new Authorized<>(this);
 
         return action.execute(new Callable<RecordSet>() {
             @Override
             public RecordSet call() throws Exception {
-                HttpClientContext context = HttpClientContext.create();
-                return (RecordSet) execute(new CommandOverHttpGet<RecordSet>(context, TrackviaClient.this) {
-                    @Override
-                    public URI getApiRequestUri() throws URISyntaxException {
-                        final String path = String.format("%s/openapi/views/%d", TrackviaClient.this.baseUriPath, viewId);
-                        return new URIBuilder()
-                                .setScheme(TrackviaClient.this.scheme)
-                                .setHost(TrackviaClient.this.hostname)
-                                .setPort(TrackviaClient.this.port)
-                                .setPath(path)
-                                .setParameter(ACCESS_TOKEN_QUERY_PARAM, TrackviaClient.this.getAccessToken())
-                                .setParameter(USER_KEY_QUERY_PARAM, TrackviaClient.this.getApiUserKey())
-                                .build();
-                    }
+                return (RecordSet) execute(getRecordsCommand(viewId));
+            }
+        });
+    }
+
+    protected OverHttpCommand<RecordSet> getRecordsCommand(final int viewId) {
+        final Gson gson = this.recordAsMapGson;
+        HttpClientContext context = HttpClientContext.create();
+        return new CommandOverHttpGet<RecordSet>(context, TrackviaClient.this) {
+            @Override
+            public URI getApiRequestUri() throws URISyntaxException {
+                return endpointUri(VIEW, viewId, TrackviaClient.this.getAccessToken(), TrackviaClient.this.getApiUserKey());
+            }
 
-                    @Override
-                    public RecordSet processResponseEntity(final HttpEntity entity) throws IOException {
-                        Reader jsonReader = new InputStreamReader(entity.getContent());
+            @Override
+            public RecordSet processResponseEntity(final HttpEntity entity) throws IOException {
+                Reader jsonReader = new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8);
 
-                        return gson.fromJson(jsonReader, RecordSet.class);
-                    }
-                });
+                return gson.fromJson(jsonReader, RecordSet.class);
+            }
+        };
+    }
+
+    /**
+     * Gets the records available to the authenticated user in the given view, held column by column.
+     *
+     * Use with large tables: numbers, ids and dates are held as primitives, text once per distinct string, and
+     * field names once per set rather than once per record.  Values are decoded by the type of their column,
+     * whether or not typed records are enabled.
+     *
+     * @param viewId view identifier in which to get records
+     * @return the view's records, by column
+     * @throws TrackviaApiException if the service fails to process this request
+     * @throws TrackviaClientException if an error occurs outside the service, failing the request
+     *
+     * @see #getRecords(int) for a map per record
+     */
+    public ColumnarRecordSet getColumnarRecords(final int viewId) throws TrackviaApiException, TrackviaClientException {
+        final Authorized<ColumnarRecordSet> action = new Authorized<>(this);
+
+        return action.execute(new Callable<ColumnarRecordSet>() {
+            @Override
+            public ColumnarRecordSet call() throws Exception {
+                return (ColumnarRecordSet) execute(getColumnarRecordsCommand(viewId));
             }
         });
     }
 
+    protected OverHttpCommand<ColumnarRecordSet> getColumnarRecordsCommand(final int viewId) {
+        final Gson gson = this.recordAsMapGson;
+        HttpClientContext context = HttpClientContext.create();
+        return new CommandOverHttpGet<ColumnarRecordSet>(context, TrackviaClient.this) {
+            @Override
+            public URI getApiRequestUri() throws URISyntaxException {
+                return endpointUri(VIEW, viewId, TrackviaClient.this.getAccessToken(), TrackviaClient.this.getApiUserKey());
+            }
+
+            @Override
+            public ColumnarRecordSet processResponseEntity(final HttpEntity entity) throws IOException {
+                Reader jsonReader = new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8);
+
+                return gson.fromJson(jsonReader, ColumnarRecordSet.class);
+            }
+        };
+    }
+
+    // reads one response's records as the configuration says
+    private RecordReader recordReader() {
+        return new RecordReader(this.config.isTypedRecordsEnabled(), this.config.isCompactRecordsEnabled());
+    }
+
+    /**
+     * Opens a cursor on the records available to the authenticated user in the given view, reading them
+     * one at a time as the response streams in rather than all at once.
+     *
+     * Use with large tables.  The cursor holds a connection until closed.
+     *
+     * @param viewId view identifier in which to get records
+     * @return a cursor on the view's records, positioned before the first
+     * @throws TrackviaApiException if the service fails to process this request
+     * @throws TrackviaClientException if an error occurs outside the service, failing the request
+     *
+     * @see #getRecords(int) for all records at once
+     */
+    public RecordCursor openRecords(final int viewId) throws TrackviaApiException, TrackviaClientException {
+        final Authorized<RecordCursor> action = new Authorized<>(this);
+
+        return action.execute(new Callable<RecordCursor>() {
+            @Override
+            public RecordCursor call() throws Exception {
+                return (RecordCursor) execute(openRecordsCommand(viewId));
+            }
+        });
+    }
+
+    protected OverHttpCommand<RecordCursor> openRecordsCommand(final int viewId) {
+        HttpClientContext context = HttpClientContext.create();
+        return new CommandOverHttpGet<RecordCursor>(context, TrackviaClient.this) {
+            @Override
+            public URI getApiRequestUri() throws URISyntaxException {
+                return endpointUri(VIEW, viewId, TrackviaClient.this.getAccessToken(), TrackviaClient.this.getApiUserKey());
+            }
+
+            @Override
+            public RecordCursor processResponseEntity(final HttpEntity entity) throws IOException {
+                return new RecordCursor(entity, detachResponse(), recordReader());
+            }
+        };
+    }
+
+    /**
+     * Opens a cursor on the records matching given search criteria, reading them one at a time as the
+     * response streams in rather than all at once.  The cursor holds a connection until closed.
+     *
+     * @param viewId view identifier in which to search for records
+     * @param q query substring used for a substring match against all of the user-defined fields
+     * @param start the index (0 based) of the first record, useful for paging
+     * @param max retrieve no more than this many records
+     * @return a cursor on the matching records, positioned before the first
+     * @throws TrackviaApiException if the service fails to process this request
+     * @throws TrackviaClientException if an error occurs outside the service, failing the request
+     *
+     * @see #findRecords(int, String, int, int) for all matching records at once
+     */
+    public RecordCursor openRecords(final int viewId, final String q, final int start, final int max)
+            throws TrackviaApiException, TrackviaClientException {
+        final Authorized<RecordCursor> action = new Authorized<>(this);
+
+        return action.execute(new Callable<RecordCursor>() {
+            @Override
+            public RecordCursor call() throws Exception {
+                return (RecordCursor) execute(openRecordsCommand(viewId, q, start, max));
+            }
+        });
+    }
+
+    protected OverHttpCommand<RecordCursor> openRecordsCommand(final int viewId, final String q, final int start,
+            final int max) {
+        HttpClientContext context = HttpClientContext.create();
+        return new CommandOverHttpGet<RecordCursor>(context, TrackviaClient.this) {
+            @Override
+            public URI getApiRequestUri() throws URISyntaxException {
+                return endpointUri(VIEW_FIND, viewId, q, Math.max(0, start), Math.max(0, max),
+                        TrackviaClient.this.getAccessToken(), TrackviaClient.this.getApiUserKey());
+            }
+
+            @Override
+            public RecordCursor processResponseEntity(final HttpEntity entity) throws IOException {
+                return new RecordCursor(entity, detachResponse(), recordReader());
+            }
+        };
+    }
+
     /**
      * Gets a record.  The record must be available to the authenticated user in the given view.
      *
@@ -1200,38 +1385,34 @@ public class TrackviaClient {
      */
     public <T> DomainRecord<T> getRecord(final Class<T> domainClass, final long viewId, final long recordId)
             throws TrackviaApiException, TrackviaClientException {
-        final ParameterizedType returnType = new DomainRecordType<T>(domainClass);
-        final Gson deserializer = lookupDeserializer(domainClass, returnType);
         final Authorized<DomainRecord<T>> action = new Authorized<>(this);
 
         return action.execute(new Callable<DomainRecord<T>>() {
             @Override
             public DomainRecord<T> call() throws Exception {
-                HttpClientContext context = HttpClientContext.create();
-                return (DomainRecord<T>) execute(new CommandOverHttpGet<DomainRecord<T>>(context, TrackviaClient.this) {
-                    @Override
-                    public URI getApiRequestUri() throws URISyntaxException {
-                        final String path = String.format("%s/openapi/views/%d/records/%d", TrackviaClient.this.baseUriPath,
-                                viewId, recordId);
-                        return new URIBuilder()
-                                .setScheme(TrackviaClient.this.scheme)
-                                .setHost(TrackviaClient.this.hostname)
-                                .setPort(TrackviaClient.this.port)
-                                .setPath(path)
-                                .setParameter(ACCESS_TOKEN_QUERY_PARAM, TrackviaClient.this.getAccessToken())
-                                .setParameter(USER_KEY_QUERY_PARAM, TrackviaClient.this.getApiUserKey())
-                                .build();
-                    }
+                return (DomainRecord<T>) execute(getRecordCommand(domainClass, viewId, recordId));
+            }
+        });
+    }
 
-                    @Override
-                    public DomainRecord<T> processResponseEntity(final HttpEntity entity) throws IOException {
-                        Reader jsonReader = new InputStreamReader(entity.getContent());
+    protected <T> OverHttpCommand<DomainRecord<T>> getRecordCommand(final Class<T> domainClass, final long viewId,
+            final long recordId) {
+        final ParameterizedType returnType = new DomainRecordType<T>(domainClass);
+        final Gson deserializer = lookupDeserializer(domainClass, returnType);
+        HttpClientContext context = HttpClientContext.create();
+        return new CommandOverHttpGet<DomainRecord<T>>(context, TrackviaClient.this) {
+            @Override
+            public URI getApiRequestUri() throws URISyntaxException {
+                return endpointUri(RECORD, viewId, recordId, TrackviaClient.this.getAccessToken(), TrackviaClient.this.getApiUserKey());
+            }
 
-                        return deserializer.fromJson(jsonReader, returnType);
-                    }
-                });
+            @Override
+            public DomainRecord<T> processResponseEntity(final HttpEntity entity) throws IOException {
+                Reader jsonReader = new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8);
+
+                return deserializer.fromJson(jsonReader, returnType);
             }
-        });
+        };
     }
 
     /**
@@ -1247,37 +1428,33 @@ public class TrackviaClient {
      */
     public Record getRecord(final long viewId, final long recordId)
             throws TrackviaApiException, TrackviaClientException {
-        final Gson gson = this.recordAsMapGson;
         final Authorized<Record> action = new Authorized<>(this);
+        final String key = String.format("views/%d/records/%d", viewId, recordId);
 
-        return action.execute(new Callable<Record>() {
+        return this.singleFlight.execute(key, SingleFlight.RECORD, action, new Callable<Record>() {
             @Override
             public Record call() throws Exception {
-                HttpClientContext context = HttpClientContext.create();
-                return (Record) execute(new CommandOverHttpGet<Record>(context, TrackviaClient.this) {
-                    @Override
-                    public URI getApiRequestUri() throws URISyntaxException {
-                        final String path = String.format("%s/openapi/views/%d/records/%d", TrackviaClient.this.baseUriPath,
-                                viewId, recordId);
-                        return new URIBuilder()
-                                .setScheme(TrackviaClient.this.scheme)
-                                .setHost(TrackviaClient.this.hostname)
-                                .setPort(TrackviaClient.this.port)
-                                .setPath(path)
-                                .setParameter(ACCESS_TOKEN_QUERY_PARAM, TrackviaClient.this.getAccessToken())
-                                .setParameter(USER_KEY_QUERY_PARAM, TrackviaClient.this.getApiUserKey())
-                                .build();
-                    }
+                return (Record) execute(getRecordCommand(viewId, recordId));
+            }
+        });
+    }
+
+    protected OverHttpCommand<Record> getRecordCommand(final long viewId, final long recordId) {
+        final Gson gson = this.recordAsMapGson;
+        HttpClientContext context = HttpClientContext.create();
+        return new CommandOverHttpGet<Record>(context, TrackviaClient.this) {
+            @Override
+            public URI getApiRequestUri() throws URISyntaxException {
+                return endpointUri(RECORD, viewId, recordId, TrackviaClient.this.getAccessToken(), TrackviaClient.this.getApiUserKey());
+            }
 
-                    @Override
-                    public Record processResponseEntity(final HttpEntity entity) throws IOException {
-                        Reader jsonReader = new InputStreamReader(entity.getContent());
+            @Override
+            public Record processResponseEntity(final HttpEntity entity) throws IOException {
+                Reader jsonReader = new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8);
 
-                        return gson.fromJson(jsonReader, Record.class);
-                    }
-                });
+                return gson.fromJson(jsonReader, Record.class);
             }
-        });
+        };
     }
 
     /**
@@ -1301,47 +1478,44 @@ public class TrackviaClient {
             throw new IllegalArgumentException("Batch input is either empty or null");
         }
 
+        final Authorized<DomainRecordSet<T>> action = new Authorized<>(this);
+
+        return action.execute(new Callable<DomainRecordSet<T>>() {
+            @Override
+            public DomainRecordSet<T> call() throws Exception {
+                return (DomainRecordSet<T>) execute(createRecordsCommand(viewId, batch));
+            }
+        });
+    }
+
+    protected <T> OverHttpCommand<DomainRecordSet<T>> createRecordsCommand(final int viewId,
+            final DomainRecordDataBatch<T> batch) {
         final Class<T> domainClass = (Class<T>) batch.getData().get(0).getClass();
         final ParameterizedType returnType = new DomainRecordSetType<T>(domainClass);
         final ParameterizedType requestType = new DomainRecordDataBatchType<T>(domainClass);
         final Gson deserializer = lookupDeserializer(domainClass, returnType);
         final Gson serializer = lookupSerializer(domainClass, requestType);
-        final Authorized<DomainRecordSet<T>> action = new Authorized<>(this);
-
-        return action.execute(new Callable<DomainRecordSet<T>>() {
+        HttpClientContext context = HttpClientContext.create();
+        return new CommandOverHttpPost<DomainRecordSet<T>>(context, TrackviaClient.this) {
             @Override
-            public DomainRecordSet<T> call() throws Exception {
-                HttpClientContext context = HttpClientContext.create();
-                return (DomainRecordSet<T>) execute(new CommandOverHttpPost<DomainRecordSet<T>>(context, TrackviaClient.this) {
-                    @Override
-                    public URI getApiRequestUri() throws URISyntaxException {
-                        final String path = String.format("%s/openapi/views/%d/records", TrackviaClient.this.baseUriPath, viewId);
-                        return new URIBuilder()
-                                .setScheme(TrackviaClient.this.scheme)
-                                .setHost(TrackviaClient.this.hostname)
-                                .setPort(TrackviaClient.this.port)
-                                .setPath(path)
-                                .setParameter(ACCESS_TOKEN_QUERY_PARAM, TrackviaClient.this.getAccessToken())
-                                .setParameter(USER_KEY_QUERY_PARAM, TrackviaClient.this.getApiUserKey())
-                                .build();
-                    }
+            public URI getApiRequestUri() throws URISyntaxException {
+                return endpointUri(RECORDS, viewId, TrackviaClient.this.getAccessToken(), TrackviaClient.this.getApiUserKey());
+            }
 
-                    @Override
-                    public DomainRecordSet<T> processResponseEntity(final HttpEntity entity) throws IOException {
-                        Reader jsonReader = new InputStreamReader(entity.getContent());
+            @Override
+            public DomainRecordSet<T> processResponseEntity(final HttpEntity entity) throws IOException {
+                Reader jsonReader = new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8);
 
-                        return deserializer.fromJson(jsonReader, returnType);
-                    }
+                return deserializer.fromJson(jsonReader, returnType);
+            }
 
-                    @Override
-                    public HttpEntity getApiRequestEntity() throws UnsupportedEncodingException {
-                        return new StringEntity(serializer.toJson(batch, requestType), ContentType.APPLICATION_JSON);
-                    }
-                });
+            @Override
+            public HttpEntity getApiRequestEntity() throws UnsupportedEncodingException {
+                return jsonEntity(serializer, batch, requestType);
             }
-        });
+        };
     }
-    
+
     /**
      * Helper method for when you want to create just one record
      * @param viewId
@@ -1349,11 +1523,15 @@ public class TrackviaClient {
      * @return
      */
     public RecordData createRecord(long viewId, RecordData data){
+    	return createRecords(viewId, batchOfOne(data)).getData().get(0);
+    }
+
+    protected RecordDataBatch batchOfOne(RecordData data) {
     	RecordDataBatch batch = new RecordDataBatch();
     	LinkedList<RecordData> list = new LinkedList<RecordData>();
     	list.add(data);
     	batch.setData(list);
-    	return createRecords(viewId, batch).getData().get(0);
+    	return batch;
     }
 
     /**
@@ -1373,41 +1551,37 @@ public class TrackviaClient {
      */
     public RecordSet createRecords(final long viewId, final RecordDataBatch batch)
             throws TrackviaApiException, TrackviaClientException {
-        final Gson gson = this.recordAsMapGson;
         final Authorized<RecordSet> action = new Authorized<>(this);
 
         return action.execute(new Callable<RecordSet>() {
             @Override
             public RecordSet call() throws Exception {
-                HttpClientContext context = HttpClientContext.create();
-                return (RecordSet) execute(new CommandOverHttpPost<RecordSet>(context, TrackviaClient.this) {
-                    @Override
-                    public URI getApiRequestUri() throws URISyntaxException {
-                        final String path = String.format("%s/openapi/views/%d/records", TrackviaClient.this.baseUriPath, viewId);
-                        return new URIBuilder()
-                                .setScheme(TrackviaClient.this.scheme)
-                                .setHost(TrackviaClient.this.hostname)
-                                .setPort(TrackviaClient.this.port)
-                                .setPath(path)
-                                .setParameter(ACCESS_TOKEN_QUERY_PARAM, TrackviaClient.this.getAccessToken())
-                                .setParameter(USER_KEY_QUERY_PARAM, TrackviaClient.this.getApiUserKey())
-                                .build();
-                    }
+                return (RecordSet) execute(createRecordsCommand(viewId, batch));
+            }
+        });
+    }
 
-                    @Override
-                    public RecordSet processResponseEntity(final HttpEntity entity) throws IOException {
-                        Reader jsonReader = new InputStreamReader(entity.getContent());
+    protected OverHttpCommand<RecordSet> createRecordsCommand(final long viewId, final RecordDataBatch batch) {
+        final Gson gson = this.recordAsMapGson;
+        HttpClientContext context = HttpClientContext.create();
+        return new CommandOverHttpPost<RecordSet>(context, TrackviaClient.this) {
+            @Override
+            public URI getApiRequestUri() throws URISyntaxException {
+                return endpointUri(RECORDS, viewId, TrackviaClient.this.getAccessToken(), TrackviaClient.this.getApiUserKey());
+            }
 
-                        return gson.fromJson(jsonReader, RecordSet.class);
-                    }
+            @Override
+            public RecordSet processResponseEntity(final HttpEntity entity) throws IOException {
+                Reader jsonReader = new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8);
 
-                    @Override
-                    public HttpEntity getApiRequestEntity() throws UnsupportedEncodingException {
-                        return new StringEntity(gson.toJson(batch), ContentType.APPLICATION_JSON);
-                    }
-                });
+                return gson.fromJson(jsonReader, RecordSet.class);
             }
-        });
+
+            @Override
+            public HttpEntity getApiRequestEntity() throws UnsupportedEncodingException {
+                return new StringEntity(Codecs.REQUESTS.toJson(batch), ContentType.APPLICATION_JSON);
+            }
+        };
     }
 
     /**
@@ -1434,54 +1608,54 @@ public class TrackviaClient {
             throw new IllegalArgumentException("Data must be non null");
         }
 
+        final Authorized<DomainRecordSet<T>> action = new Authorized<>(this);
+        final DomainRecordSet<T> rs = action.execute(new Callable<DomainRecordSet<T>>() {
+            @Override
+            public DomainRecordSet<T> call() throws Exception {
+                return (DomainRecordSet<T>) execute(updateRecordCommand(viewId, recordId, data));
+            }
+        });
+
+        return firstDomainRecordOf(rs);
+    }
+
+    protected <T> OverHttpCommand<DomainRecordSet<T>> updateRecordCommand(final int viewId, final long recordId,
+            final T data) {
         final Class<T> domainClass = (Class<T>) data.getClass();
         final ParameterizedType returnType = new DomainRecordSetType<T>(domainClass);
         final ParameterizedType requestType = new DomainRecordDataBatchType<T>(domainClass);
         final Gson deserializer = lookupDeserializer(domainClass, returnType);
         final Gson serializer = lookupSerializer(domainClass, requestType);
-        final Authorized<DomainRecordSet<T>> action = new Authorized<>(this);
-        final DomainRecordSet<T> rs = action.execute(new Callable<DomainRecordSet<T>>() {
+        HttpClientContext context = HttpClientContext.create();
+        return new CommandOverHttpPut<DomainRecordSet<T>>(context, TrackviaClient.this) {
             @Override
-            public DomainRecordSet<T> call() throws Exception {
-                HttpClientContext context = HttpClientContext.create();
-                return (DomainRecordSet<T>) execute(new CommandOverHttpPut<DomainRecordSet<T>>(context, TrackviaClient.this) {
-                    @Override
-                    public URI getApiRequestUri() throws URISyntaxException {
-                        final String path = String.format("%s/openapi/views/%d/records/%s", TrackviaClient.this.baseUriPath,
-                                viewId, recordId);
-                        return new URIBuilder()
-                                .setScheme(TrackviaClient.this.scheme)
-                                .setHost(TrackviaClient.this.hostname)
-                                .setPort(TrackviaClient.this.port)
-                                .setPath(path)
-                                .setParameter(ACCESS_TOKEN_QUERY_PARAM, TrackviaClient.this.getAccessToken())
-                                .setParameter(USER_KEY_QUERY_PARAM, TrackviaClient.this.getApiUserKey())
-                                .build();
-                    }
+            public URI getApiRequestUri() throws URISyntaxException {
+                return endpointUri(RECORD, viewId, recordId, TrackviaClient.this.getAccessToken(), TrackviaClient.this.getApiUserKey());
+            }
 
-                    @Override
-                    public DomainRecordSet<T> processResponseEntity(final HttpEntity entity) throws IOException {
-                        Reader jsonReader = new InputStreamReader(entity.getContent());
+            @Override
+            public DomainRecordSet<T> processResponseEntity(final HttpEntity entity) throws IOException {
+                Reader jsonReader = new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8);
 
-                        return deserializer.fromJson(jsonReader, returnType);
-                    }
+                return deserializer.fromJson(jsonReader, returnType);
+            }
 
-                    @Override
-                    public HttpEntity getApiRequestEntity() throws UnsupportedEncodingException {
-                        DomainRecordDataBatch<T> batchOfOne = new DomainRecordDataBatch<T>();
-                        List<T> list = new ArrayList<T>();
-                        list.add(data);
-                        batchOfOne.setData(list);
+            @Override
+            public HttpEntity getApiRequestEntity() throws UnsupportedEncodingException {
+                DomainRecordDataBatch<T> batchOfOne = new DomainRecordDataBatch<T>();
+                List<T> list = new ArrayList<T>();
+                list.add(data);
+                batchOfOne.setData(list);
 
-                        return new StringEntity(serializer.toJson(batchOfOne), ContentType.APPLICATION_JSON);
-                    }
-                });
+                return jsonEntity(serializer, batchOfOne, requestType);
             }
-        });
+        };
+    }
 
-        // For updates, the structure between the Service APIs (batch) and client APIs (single) is somewhat different.
-        // Exposing 'batch' in the Client API would be misleading since the Service API doesn't support batch
-        // updates (yet).
+    // For updates, the structure between the Service APIs (batch) and client APIs (single) is somewhat different.
+    // Exposing 'batch' in the Client API would be misleading since the Service API doesn't support batch
+    // updates (yet).
+    protected <T> DomainRecord<T> firstDomainRecordOf(final DomainRecordSet<T> rs) {
         DomainRecord<T> updatedRecord = null;
         if (rs.getData() != null) {
             updatedRecord = new DomainRecord<T>(rs.getStructure(), rs.getData().get(0));
@@ -1507,60 +1681,59 @@ public class TrackviaClient {
     public Record updateRecord(final int viewId, final long recordId, final RecordData data)
             throws TrackviaApiException, TrackviaClientException {
     	data.put(Identifiable.INTERNAL_ID_FIELD_NAME, recordId);
-        final Gson gson = this.recordAsMapGson;
         final Authorized<RecordSet> action = new Authorized<>(this);
         final RecordSet rs = action.execute(new Callable<RecordSet>() {
             @Override
             public RecordSet call() throws Exception {
-                HttpClientContext context = HttpClientContext.create();
-                return (RecordSet) execute(new CommandOverHttpPut<RecordSet>(context, TrackviaClient.this) {
-                    @Override
-                    public URI getApiRequestUri() throws URISyntaxException {
-                        final String path = String.format("%s/openapi/views/%d/records/%s", TrackviaClient.this.baseUriPath,
-                                viewId, data.getId());
-                        return new URIBuilder()
-                                .setScheme(TrackviaClient.this.scheme)
-                                .setHost(TrackviaClient.this.hostname)
-                                .setPort(TrackviaClient.this.port)
-                                .setPath(path)
-                                .setParameter(ACCESS_TOKEN_QUERY_PARAM, TrackviaClient.this.getAccessToken())
-                                .setParameter(USER_KEY_QUERY_PARAM, TrackviaClient.this.getApiUserKey())
-                                .build();
-                    }
+                return (RecordSet) execute(updateRecordCommand(viewId, data));
+            }
+        });
 
-                    @Override
-                    public RecordSet processResponseEntity(final HttpEntity entity) throws IOException {
-                        Reader jsonReader = new InputStreamReader(entity.getContent());
+        return firstRecordOf(rs);
+    }
 
-                        return gson.fromJson(jsonReader, RecordSet.class);
-                    }
+    protected OverHttpCommand<RecordSet> updateRecordCommand(final int viewId, final RecordData data) {
+        final Gson gson = this.recordAsMapGson;
+        HttpClientContext context = HttpClientContext.create();
+        return new CommandOverHttpPut<RecordSet>(context, TrackviaClient.this) {
+            @Override
+            public URI getApiRequestUri() throws URISyntaxException {
+                return endpointUri(RECORD, viewId, data.getId(), TrackviaClient.this.getAccessToken(), TrackviaClient.this.getApiUserKey());
+            }
+
+            @Override
+            public RecordSet processResponseEntity(final HttpEntity entity) throws IOException {
+                Reader jsonReader = new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8);
 
-                    @Override
-                    public HttpEntity getApiRequestEntity() throws UnsupportedEncodingException {
-                        RecordDataBatch batchOfOne = new RecordDataBatch();
-                        batchOfOne.setData(Arrays.asList(new RecordData[]{filterImpossibles(data)}));
+                return gson.fromJson(jsonReader, RecordSet.class);
+            }
 
-                        return new StringEntity(gson.toJson(batchOfOne), ContentType.APPLICATION_JSON);
-                    }
+            @Override
+            public HttpEntity getApiRequestEntity() throws UnsupportedEncodingException {
+                RecordDataBatch batchOfOne = new RecordDataBatch();
+                batchOfOne.setData(Arrays.asList(new RecordData[]{filterImpossibles(data)}));
+
+                return new StringEntity(Codecs.REQUESTS.toJson(batchOfOne), ContentType.APPLICATION_JSON);
+            }
 
-                    // TODO: the service throws exception when this column is present.  It has special significance
-                    // and must be handled individually in the service itself.
-                    RecordData filterImpossibles(RecordData data) {
-                        RecordData filtered = new RecordData();
-                        for (String key : data.keySet()) {
-                            if (!"Record ID".equalsIgnoreCase(key)) {
-                                filtered.put(key, data.get(key));
-                            }
-                        }
-                        return filtered;
+            // TODO: the service throws exception when this column is present.  It has special significance
+            // and must be handled individually in the service itself.
+            RecordData filterImpossibles(RecordData data) {
+                RecordData filtered = new RecordData();
+                for (String key : data.keySet()) {
+                    if (!"Record ID".equalsIgnoreCase(key)) {
+                        filtered.put(key, data.get(key));
                     }
-                });
+                }
+                return filtered;
             }
-        });
+        };
+    }
 
-        // For updates, the structure between the Service APIs (batch) and client APIs (single) is somewhat different.
-        // Exposing 'batch' in the Client API would be misleading since the Service API doesn't support batch
-        // updates (yet).
+    // For updates, the structure between the Service APIs (batch) and client APIs (single) is somewhat different.
+    // Exposing 'batch' in the Client API would be misleading since the Service API doesn't support batch
+    // updates (yet).
+    protected Record firstRecordOf(final RecordSet rs) {
         Record updatedRecord = null;
         if (rs.getData() != null) {
             updatedRecord = new Record(rs.getStructure(), rs.getData().get(0));
@@ -1579,38 +1752,32 @@ public class TrackviaClient {
      * @throws TrackviaClientException if an error occurs outside the service, failing the request
      */
     public void deleteRecord(final int viewId, final long recordId) throws TrackviaApiException, TrackviaClientException {
-        final Gson gson = this.recordAsMapGson;
         final Authorized<Void> action = new Authorized<>(this);
         action.execute(new Callable<Void>() {
             @Override
             public Void call() throws Exception {
-                HttpClientContext context = HttpClientContext.create();
-                execute(new CommandOverHttpDelete<Void>(context, TrackviaClient.this) {
-                    @Override
-                    public URI getApiRequestUri() throws URISyntaxException {
-                        final String path = String.format("%s/openapi/views/%d/records/%d", TrackviaClient.this.baseUriPath,
-                                viewId, recordId);
-                        return new URIBuilder()
-                                .setScheme(TrackviaClient.this.scheme)
-                                .setHost(TrackviaClient.this.hostname)
-                                .setPort(TrackviaClient.this.port)
-                                .setPath(path)
-                                .setParameter(ACCESS_TOKEN_QUERY_PARAM, TrackviaClient.this.getAccessToken())
-                                .setParameter(USER_KEY_QUERY_PARAM, TrackviaClient.this.getApiUserKey())
-                                .build();
-                    }
-
-					@Override
-					public Void processResponseEntity(HttpEntity entity) throws IOException {
-						// no-op
-						return null;
-					}
-                });
+                execute(deleteRecordCommand(viewId, recordId));
                 return null;
             }
         });
     }
 
+    protected OverHttpCommand<Void> deleteRecordCommand(final int viewId, final long recordId) {
+        HttpClientContext context = HttpClientContext.create();
+        return new CommandOverHttpDelete<Void>(context, TrackviaClient.this) {
+            @Override
+            public URI getApiRequestUri() throws URISyntaxException {
+                return endpointUri(RECORD, viewId, recordId, TrackviaClient.this.getAccessToken(), TrackviaClient.this.getApiUserKey());
+            }
+
+			@Override
+			public Void processResponseEntity(HttpEntity entity) throws IOException {
+				// no-op
+				return null;
+			}
+        };
+    }
+
     /**
      * Adds a file to a record in the view of the authenticated user.
      *
@@ -1629,44 +1796,40 @@ public class TrackviaClient {
      */
     public <T> DomainRecord<T> addFile(final Class<T> domainClass, final int viewId, final long recordId,
             final String fileName, final Path filePath) throws TrackviaApiException, TrackviaClientException {
-        final ParameterizedType returnType = new DomainRecordType<T>(domainClass);
-        final Gson deserializer = lookupDeserializer(domainClass, returnType);
         final Authorized<DomainRecord<T>> action = new Authorized<>(this);
         return action.execute(new Callable<DomainRecord<T>>() {
             @Override
             public DomainRecord<T> call() throws Exception {
-                HttpClientContext context = HttpClientContext.create();
-                return (DomainRecord<T>) execute(new CommandOverHttpPost<DomainRecord<T>>(context, TrackviaClient.this) {
-                    @Override
-                    public URI getApiRequestUri() throws URISyntaxException {
-                        final String path = String.format("%s/openapi/views/%d/records/%d/files/%s",
-                                TrackviaClient.this.baseUriPath, viewId, recordId, fileName);
-                        return new URIBuilder()
-                                .setScheme(TrackviaClient.this.scheme)
-                                .setHost(TrackviaClient.this.hostname)
-                                .setPort(TrackviaClient.this.port)
-                                .setPath(path)
-                                .setParameter(ACCESS_TOKEN_QUERY_PARAM, TrackviaClient.this.getAccessToken())
-                                .setParameter(USER_KEY_QUERY_PARAM, TrackviaClient.this.getApiUserKey())
-                                .build();
-                    }
+                return (DomainRecord<T>) execute(addFileCommand(domainClass, viewId, recordId, fileName, filePath));
+            }
+        });
+    }
 
-                    @Override
-                    public DomainRecord<T> processResponseEntity(final HttpEntity entity) throws IOException {
-                        Reader jsonReader = new InputStreamReader(entity.getContent());
+    protected <T> OverHttpCommand<DomainRecord<T>> addFileCommand(final Class<T> domainClass, final int viewId,
+            final long recordId, final String fileName, final Path filePath) {
+        final ParameterizedType returnType = new DomainRecordType<T>(domainClass);
+        final Gson deserializer = lookupDeserializer(domainClass, returnType);
+        HttpClientContext context = HttpClientContext.create();
+        return new CommandOverHttpPost<DomainRecord<T>>(context, TrackviaClient.this) {
+            @Override
+            public URI getApiRequestUri() throws URISyntaxException {
+                return endpointUri(RECORD_FILE, viewId, recordId, fileName, TrackviaClient.this.getAccessToken(), TrackviaClient.this.getApiUserKey());
+            }
 
-                        return deserializer.fromJson(jsonReader, returnType);
-                    }
+            @Override
+            public DomainRecord<T> processResponseEntity(final HttpEntity entity) throws IOException {
+                Reader jsonReader = new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8);
 
-                    @Override
-                    public HttpEntity getApiRequestEntity() throws UnsupportedEncodingException {
-                        return MultipartEntityBuilder.create()
-                                .addPart("file", new FileBody(filePath.toFile()))
-                                .build();
-                    }
-                });
+                return deserializer.fromJson(jsonReader, returnType);
             }
-        });
+
+            @Override
+            public HttpEntity getApiRequestEntity() throws UnsupportedEncodingException {
+                return MultipartEntityBuilder.create()
+                        .addPart("file", new FileBody(filePath.toFile()))
+                        .build();
+            }
+        };
     }
 
     /**
@@ -1683,47 +1846,43 @@ public class TrackviaClient {
      */
     public Record addFile(final int viewId, final long recordId, final String fileName, final Path filePath)
             throws TrackviaApiException, TrackviaClientException {
-        final Gson gson = this.recordAsMapGson;
         final Authorized<Record> action = new Authorized<>(this);
         return action.execute(new Callable<Record>() {
             @Override
             public Record call() throws Exception {
-                HttpClientContext context = HttpClientContext.create();
-                return (Record) execute(new CommandOverHttpPost<Record>(context, TrackviaClient.this) {
-                    @Override
-                    public URI getApiRequestUri() throws URISyntaxException {
-                        final String path = String.format("%s/openapi/views/%d/records/%d/files/%s",
-                                TrackviaClient.this.baseUriPath, viewId, recordId, fileName);
-                        return new URIBuilder()
-                                .setScheme(TrackviaClient.this.scheme)
-                                .setHost(TrackviaClient.this.hostname)
-                                .setPort(TrackviaClient.this.port)
-                                .setPath(path)
-                                .setParameter(ACCESS_TOKEN_QUERY_PARAM, TrackviaClient.this.getAccessToken())
-                                .setParameter(USER_KEY_QUERY_PARAM, TrackviaClient.this.getApiUserKey())
-                                .build();
-                    }
+                return (Record) execute(addFileCommand(viewId, recordId, fileName, filePath));
+            }
+        });
+    }
 
-                    @Override
-                    public Record processResponseEntity(final HttpEntity entity) throws IOException {
-                        Reader jsonReader = new InputStreamReader(entity.getContent());
+    protected OverHttpCommand<Record> addFileCommand(final int viewId, final long recordId, final String fileName,
+            final Path filePath) {
+        final Gson gson = this.recordAsMapGson;
+        HttpClientContext context = HttpClientContext.create();
+        return new CommandOverHttpPost<Record>(context, TrackviaClient.this) {
+            @Override
+            public URI getApiRequestUri() throws URISyntaxException {
+                return endpointUri(RECORD_FILE, viewId, recordId, fileName, TrackviaClient.this.getAccessToken(), TrackviaClient.this.getApiUserKey());
+            }
 
-                        return gson.fromJson(jsonReader, Record.class);
-                    }
+            @Override
+            public Record processResponseEntity(final HttpEntity entity) throws IOException {
+                Reader jsonReader = new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8);
 
-                    @Override
-                    public HttpEntity getApiRequestEntity() throws UnsupportedEncodingException {
-                        return MultipartEntityBuilder.create()
-                                .addPart("file", new FileBody(filePath.toFile()))
-                                .build();
-                    }
-                });
+                return gson.fromJson(jsonReader, Record.class);
             }
-        });
+
+            @Override
+            public HttpEntity getApiRequestEntity() throws UnsupportedEncodingException {
+                return MultipartEntityBuilder.create()
+                        .addPart("file", new FileBody(filePath.toFile()))
+                        .build();
+            }
+        };
     }
-    
-    
-    
+
+
+
     /**
      * Adds a file to a record in the view of the authenticated user.
      * Uses an input stream as the file source
@@ -1739,41 +1898,37 @@ public class TrackviaClient {
      */
     public Record addFile(final int viewId, final long recordId, final String fileName, final String inputFileName, final InputStream inputStream)
             throws TrackviaApiException, TrackviaClientException {
-        final Gson gson = this.recordAsMapGson;
         final Authorized<Record> action = new Authorized<>(this);
         return action.execute(new Callable<Record>() {
             @Override
             public Record call() throws Exception {
-                HttpClientContext context = HttpClientContext.create();
-                return (Record) execute(new CommandOverHttpPost<Record>(context, TrackviaClient.this) {
-                    @Override
-                    public URI getApiRequestUri() throws URISyntaxException {
-                        final String path = String.format("%s/openapi/views/%d/records/%d/files/%s",
-                                TrackviaClient.this.baseUriPath, viewId, recordId, fileName);
-                        return new URIBuilder()
-                                .setScheme(TrackviaClient.this.scheme)
-                                .setHost(TrackviaClient.this.hostname)
-                                .setPort(TrackviaClient.this.port)
-                                .setPath(path)
-                                .setParameter(ACCESS_TOKEN_QUERY_PARAM, TrackviaClient.this.getAccessToken())
-                                .setParameter(USER_KEY_QUERY_PARAM, TrackviaClient.this.getApiUserKey())
-                                .build();
-                    }
+                return (Record) execute(addFileCommand(viewId, recordId, fileName, inputFileName, inputStream));
+            }
+        });
+    }
 
-                    @Override
-                    public Record processResponseEntity(final HttpEntity entity) throws IOException {
-                        Reader jsonReader = new InputStreamReader(entity.getContent());
+    protected OverHttpCommand<Record> addFileCommand(final int viewId, final long recordId, final String fileName,
+            final String inputFileName, final InputStream inputStream) {
+        final Gson gson = this.recordAsMapGson;
+        HttpClientContext context = HttpClientContext.create();
+        return new CommandOverHttpPost<Record>(context, TrackviaClient.this) {
+            @Override
+            public URI getApiRequestUri() throws URISyntaxException {
+                return endpointUri(RECORD_FILE, viewId, recordId, fileName, TrackviaClient.this.getAccessToken(), TrackviaClient.this.getApiUserKey());
+            }
 
-                        return gson.fromJson(jsonReader, Record.class);
-                    }
+            @Override
+            public Record processResponseEntity(final HttpEntity entity) throws IOException {
+                Reader jsonReader = new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8);
 
-                    @Override
-                    public HttpEntity getApiRequestEntity() throws UnsupportedEncodingException {
-                    	return MultipartEntityBuilder.create().addBinaryBody("file", inputStream, ContentType.DEFAULT_BINARY, inputFileName).build();
-                    }
-                });
+                return gson.fromJson(jsonReader, Record.class);
             }
-        });
+
+            @Override
+            public HttpEntity getApiRequestEntity() throws UnsupportedEncodingException {
+            	return MultipartEntityBuilder.create().addBinaryBody("file", inputStream, ContentType.DEFAULT_BINARY, inputFileName).build();
+            }
+        };
     }
 
     /**
@@ -1794,39 +1949,34 @@ public class TrackviaClient {
         action.execute(new Callable<Void>() {
             @Override
             public Void call() throws Exception {
-                HttpClientContext context = HttpClientContext.create();
-
                 // fail fast if the target 'filePath' already exists; no overwrites allowed.
                 if (Files.exists(filePath)) {
                     throw new TrackviaClientException(String.format("Will not overwrite the file %s; aborting", filePath.toString()));
                 }
 
-                execute(new CommandOverHttpGet<Void>(context, TrackviaClient.this) {
-                    @Override
-                    public URI getApiRequestUri() throws URISyntaxException {
-                        final String path = String.format("%s/openapi/views/%d/records/%d/files/%s",
-                                TrackviaClient.this.baseUriPath, viewId, recordId, fileName);
-                        return new URIBuilder()
-                                .setScheme(TrackviaClient.this.scheme)
-                                .setHost(TrackviaClient.this.hostname)
-                                .setPort(TrackviaClient.this.port)
-                                .setPath(path)
-                                .setParameter(ACCESS_TOKEN_QUERY_PARAM, TrackviaClient.this.getAccessToken())
-                                .setParameter(USER_KEY_QUERY_PARAM, TrackviaClient.this.getApiUserKey())
-                                .build();
-                    }
+                execute(getFileCommand(viewId, recordId, fileName, filePath));
+
+                return null;
+            }
+        });
+    }
 
-                    @Override
-                    public Void processResponseEntity(final HttpEntity entity) throws IOException {
-                        Files.copy(entity.getContent(), filePath);
+    protected OverHttpCommand<Void> getFileCommand(final int viewId, final long recordId, final String fileName,
+            final Path filePath) {
+        HttpClientContext context = HttpClientContext.create();
+        return new CommandOverHttpGet<Void>(context, TrackviaClient.this) {
+            @Override
+            public URI getApiRequestUri() throws URISyntaxException {
+                return endpointUri(RECORD_FILE, viewId, recordId, fileName, TrackviaClient.this.getAccessToken(), TrackviaClient.this.getApiUserKey());
+            }
 
-                        return null;
-                    }
-                });
+            @Override
+            public Void processResponseEntity(final HttpEntity entity) throws IOException {
+                Files.copy(entity.getContent(), filePath);
 
                 return null;
             }
-        });
+        };
     }
 
     /**
@@ -1845,31 +1995,26 @@ public class TrackviaClient {
         action.execute(new Callable<Void>() {
             @Override
             public Void call() throws Exception {
-                HttpClientContext context = HttpClientContext.create();
-                execute(new CommandOverHttpDelete<Void>(context, TrackviaClient.this) {
-                    @Override
-                    public URI getApiRequestUri() throws URISyntaxException {
-                        final String path = String.format("%s/openapi/views/%d/records/%d/files/%s",
-                                TrackviaClient.this.baseUriPath, viewId, recordId, fileName);
-                        return new URIBuilder()
-                                .setScheme(TrackviaClient.this.scheme)
-                                .setHost(TrackviaClient.this.hostname)
-                                .setPort(TrackviaClient.this.port)
-                                .setPath(path)
-                                .setParameter(ACCESS_TOKEN_QUERY_PARAM, TrackviaClient.this.getAccessToken())
-                                .setParameter(USER_KEY_QUERY_PARAM, TrackviaClient.this.getApiUserKey())
-                                .build();
-                    }
-
-					@Override
-					public Void processResponseEntity(HttpEntity entity) throws IOException {
-						//no-op
-						return null;
-					}
-                });
+                execute(deleteFileCommand(viewId, recordId, fileName));
 
                 return null;
             }
         });
     }
+
+    protected OverHttpCommand<Void> deleteFileCommand(final int viewId, final long recordId, final String fileName) {
+        HttpClientContext context = HttpClientContext.create();
+        return new CommandOverHttpDelete<Void>(context, TrackviaClient.this) {
+            @Override
+            public URI getApiRequestUri() throws URISyntaxException {
+                return endpointUri(RECORD_FILE, viewId, recordId, fileName, TrackviaClient.this.getAccessToken(), TrackviaClient.this.getApiUserKey());
+            }
+
+			@Override
+			public Void processResponseEntity(HttpEntity entity) throws IOException {
+				//no-op
+				return null;
+			}
+        };
+    }
 }
@@ -0,0 +1,485 @@
+package trackvia.client;
+
+/**
+ * Connection pool, timeout, retry, hedging, coalescing, token refresh and storage, rate limit, circuit breaker and record decoding settings of a {@link TrackviaClient}.
+ *
+ * Settings are immutable once built; start from the defaults and override what differs:
+ *
+ * <pre>
+ * {@code
+ *      TrackviaClientConfig config = TrackviaClientConfig.custom()
+ *              .setMaxConnectionsPerRoute(10)
+ *              .setConnectTimeoutMillis(500)
+ *              .setSocketTimeoutMillis(2000)
+ *              .build();
+ *
+ *      TrackviaClient client = TrackviaClient.create("go.api.trackvia.com", "myuser", "mypassword", "userkey", config);
+ * }
+ * </pre>
+ *
+ * Timeouts of zero wait indefinitely.
+ */
+public class TrackviaClientConfig {
+    /**
+     * Wire protocol spoken to the Trackvia service.
+     */
+    public enum HttpProtocol {
+        /**
+         * One request at a time per pooled connection.
+         */
+        HTTP_1_1,
+
+        /**
+         * Concurrent requests multiplexed over a few connections.  Over TLS the protocol is negotiated,
+         * falling back to HTTP/1.1 when the service doesn't offer HTTP/2.  Over plain http, HTTP/2 is
+         * spoken with prior knowledge (h2c), falling back to HTTP/1.1 if the first exchange shows the
+         * service doesn't understand it.
+         */
+        HTTP_2
+    }
+
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 50;
+    public static final int DEFAULT_MAX_CONNECTIONS_TOTAL = 250;
+    public static final int DEFAULT_CONNECTION_REQUEST_TIMEOUT_MILLIS = 5000;
+    public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 1000;
+    public static final int DEFAULT_SOCKET_TIMEOUT_MILLIS = 0;
+    public static final long DEFAULT_CALL_TIMEOUT_MILLIS = 0;
+    public static final long DEFAULT_KEEP_ALIVE_MILLIS = 30000;
+    public static final long DEFAULT_IDLE_CONNECTION_TIMEOUT_MILLIS = 60000;
+    public static final long DEFAULT_EVICTION_INTERVAL_MILLIS = 5000;
+    public static final HttpProtocol DEFAULT_HTTP_PROTOCOL = HttpProtocol.HTTP_1_1;
+    public static final int DEFAULT_REQUEST_COMPRESSION_THRESHOLD_BYTES = 8192;
+    public static final long DEFAULT_TOKEN_REFRESH_AHEAD_MILLIS = 60000;
+
+    public static final TrackviaClientConfig DEFAULT = custom().build();
+
+    private final int maxConnectionsPerRoute;
+    private final int maxConnectionsTotal;
+    private final int connectionRequestTimeoutMillis;
+    private final int connectTimeoutMillis;
+    private final int socketTimeoutMillis;
+    private final long callTimeoutMillis;
+    private final long keepAliveMillis;
+    private final long idleConnectionTimeoutMillis;
+    private final long evictionIntervalMillis;
+    private final boolean staleConnectionCheckEnabled;
+    private final HttpProtocol httpProtocol;
+    private final boolean responseCompressionEnabled;
+    private final boolean requestCompressionEnabled;
+    private final int requestCompressionThresholdBytes;
+    private final RetryPolicy retryPolicy;
+    private final HedgePolicy hedgePolicy;
+    private final boolean coalescingEnabled;
+    private final long tokenRefreshAheadMillis;
+    private final TokenStore tokenStore;
+    private final RateLimitPolicy rateLimitPolicy;
+    private final CircuitBreakerPolicy circuitBreakerPolicy;
+    private final boolean typedRecordsEnabled;
+    private final boolean compactRecordsEnabled;
+
+    private TrackviaClientConfig(final Builder builder) {
+        this.maxConnectionsPerRoute = builder.maxConnectionsPerRoute;
+        this.maxConnectionsTotal = builder.maxConnectionsTotal;
+        this.connectionRequestTimeoutMillis = builder.connectionRequestTimeoutMillis;
+        this.connectTimeoutMillis = builder.connectTimeoutMillis;
+        this.socketTimeoutMillis = builder.socketTimeoutMillis;
+        this.callTimeoutMillis = builder.callTimeoutMillis;
+        this.keepAliveMillis = builder.keepAliveMillis;
+        this.idleConnectionTimeoutMillis = builder.idleConnectionTimeoutMillis;
+        this.evictionIntervalMillis = builder.evictionIntervalMillis;
+        this.staleConnectionCheckEnabled = builder.staleConnectionCheckEnabled;
+        this.httpProtocol = builder.httpProtocol;
+        this.responseCompressionEnabled = builder.responseCompressionEnabled;
+        this.requestCompressionEnabled = builder.requestCompressionEnabled;
+        this.requestCompressionThresholdBytes = builder.requestCompressionThresholdBytes;
+        this.retryPolicy = builder.retryPolicy;
+        this.hedgePolicy = builder.hedgePolicy;
+        this.coalescingEnabled = builder.coalescingEnabled;
+        this.tokenRefreshAheadMillis = builder.tokenRefreshAheadMillis;
+        this.tokenStore = builder.tokenStore;
+        this.rateLimitPolicy = builder.rateLimitPolicy;
+        this.circuitBreakerPolicy = builder.circuitBreakerPolicy;
+        this.typedRecordsEnabled = builder.typedRecordsEnabled;
+        this.compactRecordsEnabled = builder.compactRecordsEnabled;
+    }
+
+    public static Builder custom() {
+        return new Builder();
+    }
+
+    /**
+     * @return a builder holding this config's settings, to derive a config differing in a few of them
+     */
+    public static Builder copy(final TrackviaClientConfig config) {
+        return new Builder()
+                .setMaxConnectionsPerRoute(config.maxConnectionsPerRoute)
+                .setMaxConnectionsTotal(config.maxConnectionsTotal)
+                .setConnectionRequestTimeoutMillis(config.connectionRequestTimeoutMillis)
+                .setConnectTimeoutMillis(config.connectTimeoutMillis)
+                .setSocketTimeoutMillis(config.socketTimeoutMillis)
+                .setCallTimeoutMillis(config.callTimeoutMillis)
+                .setKeepAliveMillis(config.keepAliveMillis)
+                .setIdleConnectionTimeoutMillis(config.idleConnectionTimeoutMillis)
+                .setEvictionIntervalMillis(config.evictionIntervalMillis)
+                .setStaleConnectionCheckEnabled(config.staleConnectionCheckEnabled)
+                .setHttpProtocol(config.httpProtocol)
+                .setResponseCompressionEnabled(config.responseCompressionEnabled)
+                .setRequestCompressionEnabled(config.requestCompressionEnabled)
+                .setRequestCompressionThresholdBytes(config.requestCompressionThresholdBytes)
+                .setRetryPolicy(config.retryPolicy)
+                .setHedgePolicy(config.hedgePolicy)
+                .setCoalescingEnabled(config.coalescingEnabled)
+                .setTokenRefreshAheadMillis(config.tokenRefreshAheadMillis)
+                .setTokenStore(config.tokenStore)
+                .setRateLimitPolicy(config.rateLimitPolicy)
+                .setCircuitBreakerPolicy(config.circuitBreakerPolicy)
+                .setTypedRecordsEnabled(config.typedRecordsEnabled)
+                .setCompactRecordsEnabled(config.compactRecordsEnabled);
+    }
+
+    /**
+     * @return most connections pooled to the one Trackvia endpoint
+     */
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    /**
+     * @return most connections pooled across all routes
+     */
+    public int getMaxConnectionsTotal() {
+        return maxConnectionsTotal;
+    }
+
+    /**
+     * @return how long a call waits for a pooled connection to free up
+     */
+    public int getConnectionRequestTimeoutMillis() {
+        return connectionRequestTimeoutMillis;
+    }
+
+    /**
+     * @return how long a call waits to establish a new connection
+     */
+    public int getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    /**
+     * @return how long a call waits on a connection for response data
+     */
+    public int getSocketTimeoutMillis() {
+        return socketTimeoutMillis;
+    }
+
+    /**
+     * @return how long a call may take overall - waits for a connection, retries and token refreshes included -
+     * before it fails with a {@link TrackviaDeadlineExceededException}
+     *
+     * @see TrackviaClient#withDeadline(Deadline, java.util.concurrent.Callable) to give a single call a deadline
+     */
+    public long getCallTimeoutMillis() {
+        return callTimeoutMillis;
+    }
+
+    /**
+     * @return longest a connection stays pooled for reuse; a shorter keep-alive advertised by the
+     * service wins.  Zero keeps connections for as long as the service allows.
+     */
+    public long getKeepAliveMillis() {
+        return keepAliveMillis;
+    }
+
+    /**
+     * @return how long a pooled connection may sit unused before the evictor closes it
+     */
+    public long getIdleConnectionTimeoutMillis() {
+        return idleConnectionTimeoutMillis;
+    }
+
+    /**
+     * @return how often the evictor sweeps the pool for expired and idle connections; zero disables it
+     */
+    public long getEvictionIntervalMillis() {
+        return evictionIntervalMillis;
+    }
+
+    /**
+     * @return whether a pooled connection is checked for a half-closed socket before reuse
+     */
+    public boolean isStaleConnectionCheckEnabled() {
+        return staleConnectionCheckEnabled;
+    }
+
+    /**
+     * @return wire protocol spoken to the service.  Over HTTP/2 the pool sizes bound idle connections
+     * kept for reuse, and the lease timeout doesn't apply.
+     */
+    public HttpProtocol getHttpProtocol() {
+        return httpProtocol;
+    }
+
+    /**
+     * @return whether the service is asked for gzip or deflate compressed responses
+     */
+    public boolean isResponseCompressionEnabled() {
+        return responseCompressionEnabled;
+    }
+
+    /**
+     * @return whether JSON request bodies, e.g. record batches, are sent gzip compressed once they reach
+     * the threshold size
+     */
+    public boolean isRequestCompressionEnabled() {
+        return requestCompressionEnabled;
+    }
+
+    /**
+     * @return smallest request body compressed, in bytes; smaller bodies aren't worth the CPU
+     */
+    public int getRequestCompressionThresholdBytes() {
+        return requestCompressionThresholdBytes;
+    }
+
+    /**
+     * @return when and how soon calls failing transiently are tried again; by default {@link RetryPolicy#NONE},
+     * each call attempted once
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * @return when slow reads are sent a second time
+     */
+    public HedgePolicy getHedgePolicy() {
+        return hedgePolicy;
+    }
+
+    /**
+     * @return whether identical reads issued concurrently - of a record, of views or a record search - share
+     * one call to the service, each caller getting its own copy of the result
+     */
+    public boolean isCoalescingEnabled() {
+        return coalescingEnabled;
+    }
+
+    /**
+     * @return how long before an access token expires it is refreshed in the background, or at half its
+     * lifetime if that's sooner; zero only refreshes once the service rejects the token
+     */
+    public long getTokenRefreshAheadMillis() {
+        return tokenRefreshAheadMillis;
+    }
+
+    /**
+     * @return where the tokens of users authorized by username and password are kept, for clients created
+     * later for the same user - in this process or another - to reuse while they're good
+     */
+    public TokenStore getTokenStore() {
+        return tokenStore;
+    }
+
+    /**
+     * @return how fast requests may be sent
+     */
+    public RateLimitPolicy getRateLimitPolicy() {
+        return rateLimitPolicy;
+    }
+
+    /**
+     * @return when calls to a failing service are cut short
+     */
+    public CircuitBreakerPolicy getCircuitBreakerPolicy() {
+        return circuitBreakerPolicy;
+    }
+
+    /**
+     * @return whether the values of records read as maps are decoded by the type of their column in the
+     * record structure, rather than guessed from the value
+     */
+    public boolean isTypedRecordsEnabled() {
+        return typedRecordsEnabled;
+    }
+
+    /**
+     * @return whether records read as maps are {@link trackvia.client.model.CompactRecordData}, holding their
+     * values in the slots of a schema shared by the records of a response, rather than a hash table each
+     */
+    public boolean isCompactRecordsEnabled() {
+        return compactRecordsEnabled;
+    }
+
+    public static class Builder {
+        private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+        private int maxConnectionsTotal = DEFAULT_MAX_CONNECTIONS_TOTAL;
+        private int connectionRequestTimeoutMillis = DEFAULT_CONNECTION_REQUEST_TIMEOUT_MILLIS;
+        private int connectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT_MILLIS;
+        private int socketTimeoutMillis = DEFAULT_SOCKET_TIMEOUT_MILLIS;
+        private long callTimeoutMillis = DEFAULT_CALL_TIMEOUT_MILLIS;
+        private long keepAliveMillis = DEFAULT_KEEP_ALIVE_MILLIS;
+        private long idleConnectionTimeoutMillis = DEFAULT_IDLE_CONNECTION_TIMEOUT_MILLIS;
+        private long evictionIntervalMillis = DEFAULT_EVICTION_INTERVAL_MILLIS;
+        private boolean staleConnectionCheckEnabled = true;
+        private HttpProtocol httpProtocol = DEFAULT_HTTP_PROTOCOL;
+        private boolean responseCompressionEnabled = true;
+        private boolean requestCompressionEnabled = false;
+        private int requestCompressionThresholdBytes = DEFAULT_REQUEST_COMPRESSION_THRESHOLD_BYTES;
+        private RetryPolicy retryPolicy = RetryPolicy.NONE;
+        private HedgePolicy hedgePolicy = HedgePolicy.DISABLED;
+        private boolean coalescingEnabled = false;
+        private long tokenRefreshAheadMillis = DEFAULT_TOKEN_REFRESH_AHEAD_MILLIS;
+        private TokenStore tokenStore = TokenStore.NONE;
+        private RateLimitPolicy rateLimitPolicy = RateLimitPolicy.UNLIMITED;
+        private CircuitBreakerPolicy circuitBreakerPolicy = CircuitBreakerPolicy.DISABLED;
+        private boolean typedRecordsEnabled = false;
+        private boolean compactRecordsEnabled = false;
+
+        protected Builder() {}
+
+        public Builder setMaxConnectionsPerRoute(final int maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = positive("maxConnectionsPerRoute", maxConnectionsPerRoute);
+            return this;
+        }
+
+        public Builder setMaxConnectionsTotal(final int maxConnectionsTotal) {
+            this.maxConnectionsTotal = positive("maxConnectionsTotal", maxConnectionsTotal);
+            return this;
+        }
+
+        public Builder setConnectionRequestTimeoutMillis(final int connectionRequestTimeoutMillis) {
+            this.connectionRequestTimeoutMillis = notNegative("connectionRequestTimeoutMillis", connectionRequestTimeoutMillis);
+            return this;
+        }
+
+        public Builder setConnectTimeoutMillis(final int connectTimeoutMillis) {
+            this.connectTimeoutMillis = notNegative("connectTimeoutMillis", connectTimeoutMillis);
+            return this;
+        }
+
+        public Builder setSocketTimeoutMillis(final int socketTimeoutMillis) {
+            this.socketTimeoutMillis = notNegative("socketTimeoutMillis", socketTimeoutMillis);
+            return this;
+        }
+
+        public Builder setCallTimeoutMillis(final long callTimeoutMillis) {
+            this.callTimeoutMillis = notNegative("callTimeoutMillis", callTimeoutMillis);
+            return this;
+        }
+
+        public Builder setKeepAliveMillis(final long keepAliveMillis) {
+            this.keepAliveMillis = notNegative("keepAliveMillis", keepAliveMillis);
+            return this;
+        }
+
+        public Builder setIdleConnectionTimeoutMillis(final long idleConnectionTimeoutMillis) {
+            this.idleConnectionTimeoutMillis = notNegative("idleConnectionTimeoutMillis", idleConnectionTimeoutMillis);
+            return this;
+        }
+
+        public Builder setEvictionIntervalMillis(final long evictionIntervalMillis) {
+            this.evictionIntervalMillis = notNegative("evictionIntervalMillis", evictionIntervalMillis);
+            return this;
+        }
+
+        public Builder setStaleConnectionCheckEnabled(final boolean staleConnectionCheckEnabled) {
+            this.staleConnectionCheckEnabled = staleConnectionCheckEnabled;
+            return this;
+        }
+
+        public Builder setHttpProtocol(final HttpProtocol httpProtocol) {
+            if (httpProtocol == null) throw new IllegalArgumentException("httpProtocol must not be null");
+            this.httpProtocol = httpProtocol;
+            return this;
+        }
+
+        public Builder setResponseCompressionEnabled(final boolean responseCompressionEnabled) {
+            this.responseCompressionEnabled = responseCompressionEnabled;
+            return this;
+        }
+
+        public Builder setRequestCompressionEnabled(final boolean requestCompressionEnabled) {
+            this.requestCompressionEnabled = requestCompressionEnabled;
+            return this;
+        }
+
+        public Builder setRequestCompressionThresholdBytes(final int requestCompressionThresholdBytes) {
+            this.requestCompressionThresholdBytes = notNegative("requestCompressionThresholdBytes", requestCompressionThresholdBytes);
+            return this;
+        }
+
+        public Builder setRetryPolicy(final RetryPolicy retryPolicy) {
+            if (retryPolicy == null) throw new IllegalArgumentException("retryPolicy must not be null");
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        public Builder setHedgePolicy(final HedgePolicy hedgePolicy) {
+            if (hedgePolicy == null) throw new IllegalArgumentException("hedgePolicy must not be null");
+            this.hedgePolicy = hedgePolicy;
+            return this;
+        }
+
+        public Builder setCoalescingEnabled(final boolean coalescingEnabled) {
+            this.coalescingEnabled = coalescingEnabled;
+            return this;
+        }
+
+        public Builder setTokenRefreshAheadMillis(final long tokenRefreshAheadMillis) {
+            this.tokenRefreshAheadMillis = notNegative("tokenRefreshAheadMillis", tokenRefreshAheadMillis);
+            return this;
+        }
+
+        public Builder setTokenStore(final TokenStore tokenStore) {
+            if (tokenStore == null) throw new IllegalArgumentException("tokenStore must not be null");
+            this.tokenStore = tokenStore;
+            return this;
+        }
+
+        public Builder setRateLimitPolicy(final RateLimitPolicy rateLimitPolicy) {
+            if (rateLimitPolicy == null) throw new IllegalArgumentException("rateLimitPolicy must not be null");
+            this.rateLimitPolicy = rateLimitPolicy;
+            return this;
+        }
+
+        public Builder setCircuitBreakerPolicy(final CircuitBreakerPolicy circuitBreakerPolicy) {
+            if (circuitBreakerPolicy == null) throw new IllegalArgumentException("circuitBreakerPolicy must not be null");
+            this.circuitBreakerPolicy = circuitBreakerPolicy;
+            return this;
+        }
+
+        public Builder setTypedRecordsEnabled(final boolean typedRecordsEnabled) {
+            this.typedRecordsEnabled = typedRecordsEnabled;
+            return this;
+        }
+
+        public Builder setCompactRecordsEnabled(final boolean compactRecordsEnabled) {
+            this.compactRecordsEnabled = compactRecordsEnabled;
+            return this;
+        }
+
+        public TrackviaClientConfig build() {
+            if (maxConnectionsPerRoute > maxConnectionsTotal) {
+                throw new IllegalArgumentException(String.format(
+                        "maxConnectionsPerRoute (%d) exceeds maxConnectionsTotal (%d)",
+                        maxConnectionsPerRoute, maxConnectionsTotal));
+            }
+
+            return new TrackviaClientConfig(this);
+        }
+
+        private static int positive(final String name, final int value) {
+            if (value <= 0) throw new IllegalArgumentException(String.format("%s must be positive: %d", name, value));
+            return value;
+        }
+
+        private static int notNegative(final String name, final int value) {
+            return (int) notNegative(name, (long) value);
+        }
+
+        private static long notNegative(final String name, final long value) {
+            if (value < 0) throw new IllegalArgumentException(String.format("%s must not be negative: %d", name, value));
+            return value;
+        }
+    }
+}
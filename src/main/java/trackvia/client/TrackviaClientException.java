@@ -3,6 +3,7 @@ package trackvia.client;
 public class TrackviaClientException extends RuntimeException {
     private String message;
     private Throwable cause;
+    private String requestMethod;
 
     public TrackviaClientException(final String message) {
         this.message = message;
@@ -29,4 +30,15 @@ public class TrackviaClientException extends RuntimeException {
     public void setMessage(String message) {
         this.message = message;
     }
+
+    /**
+     * @return HTTP method of the failed request, or null if the failure wasn't tied to a request
+     */
+    public String getRequestMethod() {
+        return requestMethod;
+    }
+
+    void setRequestMethod(String requestMethod) {
+        this.requestMethod = requestMethod;
+    }
 }
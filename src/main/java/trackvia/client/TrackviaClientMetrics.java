@@ -0,0 +1,344 @@
+package trackvia.client;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals of the traffic a {@link TrackviaClient} exchanged with the service, plus a hook to
+ * observe each exchange as it completes.
+ *
+ * Byte counts are of message bodies: "wire" counts are bytes as sent or received, possibly compressed,
+ * while "content" counts are the bodies before compression or after decompression.
+ *
+ * Counters are updated without locking and may be read at any time, e.g. by a monitoring thread.
+ */
+public class TrackviaClientMetrics {
+    /**
+     * Notified on the calling thread after every exchange; keep implementations quick.
+     */
+    public interface ExchangeListener {
+        void onExchange(Exchange exchange);
+    }
+
+    /**
+     * Notified as a circuit changes state, on the thread whose call caused the change; keep
+     * implementations quick, e.g. to start shedding load upstream while a circuit is open.
+     */
+    public interface CircuitBreakerListener {
+        void onStateChange(String circuit, CircuitBreaker.State from, CircuitBreaker.State to);
+    }
+
+    private final LongAdder exchanges = new LongAdder();
+    private final LongAdder requestWireBytes = new LongAdder();
+    private final LongAdder requestContentBytes = new LongAdder();
+    private final LongAdder responseWireBytes = new LongAdder();
+    private final LongAdder responseContentBytes = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder retryBudgetRejections = new LongAdder();
+    private final LongAdder rateLimitDelays = new LongAdder();
+    private final LongAdder rateLimitRejections = new LongAdder();
+    private final LongAdder circuitBreakerRejections = new LongAdder();
+    private final LongAdder circuitBreakerOpenings = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder hedgesSkipped = new LongAdder();
+    private final LongAdder coalescedCalls = new LongAdder();
+    private final LongAdder tokenRefreshes = new LongAdder();
+    private final ConcurrentMap<String, CircuitBreaker.State> circuitStates = new ConcurrentHashMap<String, CircuitBreaker.State>();
+    private final CopyOnWriteArrayList<CircuitBreakerListener> circuitBreakerListeners = new CopyOnWriteArrayList<CircuitBreakerListener>();
+    private final CopyOnWriteArrayList<ExchangeListener> listeners = new CopyOnWriteArrayList<ExchangeListener>();
+
+    public void addListener(final ExchangeListener listener) {
+        this.listeners.add(listener);
+    }
+
+    public void removeListener(final ExchangeListener listener) {
+        this.listeners.remove(listener);
+    }
+
+    public void addCircuitBreakerListener(final CircuitBreakerListener listener) {
+        this.circuitBreakerListeners.add(listener);
+    }
+
+    public void removeCircuitBreakerListener(final CircuitBreakerListener listener) {
+        this.circuitBreakerListeners.remove(listener);
+    }
+
+    /**
+     * @return exchanges completed, each attempt counting once
+     */
+    public long getExchanges() {
+        return exchanges.sum();
+    }
+
+    public long getRequestWireBytes() {
+        return requestWireBytes.sum();
+    }
+
+    public long getRequestContentBytes() {
+        return requestContentBytes.sum();
+    }
+
+    public long getResponseWireBytes() {
+        return responseWireBytes.sum();
+    }
+
+    public long getResponseContentBytes() {
+        return responseContentBytes.sum();
+    }
+
+    /**
+     * @return attempts made beyond each call's first
+     */
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    /**
+     * @return retries forgone because the client's retry budget ran dry
+     */
+    public long getRetryBudgetRejections() {
+        return retryBudgetRejections.sum();
+    }
+
+    /**
+     * @return requests held back by the client's rate limiter until a permit was due
+     */
+    public long getRateLimitDelays() {
+        return rateLimitDelays.sum();
+    }
+
+    /**
+     * @return requests rejected by the client's rate limiter, without being sent
+     */
+    public long getRateLimitRejections() {
+        return rateLimitRejections.sum();
+    }
+
+    /**
+     * @return calls rejected by an open circuit, without being sent
+     */
+    public long getCircuitBreakerRejections() {
+        return circuitBreakerRejections.sum();
+    }
+
+    /**
+     * @return times a circuit opened
+     */
+    public long getCircuitBreakerOpenings() {
+        return circuitBreakerOpenings.sum();
+    }
+
+    /**
+     * @return second attempts sent for reads left unanswered past the hedge delay
+     */
+    public long getHedges() {
+        return hedges.sum();
+    }
+
+    /**
+     * @return hedges answered before the attempt they hedged
+     */
+    public long getHedgeWins() {
+        return hedgeWins.sum();
+    }
+
+    /**
+     * @return reads left unhedged past the hedge delay, for want of hedge budget or a rate limiter permit
+     */
+    public long getHedgesSkipped() {
+        return hedgesSkipped.sum();
+    }
+
+    /**
+     * @return reads answered by joining an identical read already in flight, without a call of their own
+     */
+    public long getCoalescedCalls() {
+        return coalescedCalls.sum();
+    }
+
+    /**
+     * @return access tokens refreshed, whether ahead of expiry or once the service rejected one
+     */
+    public long getTokenRefreshes() {
+        return tokenRefreshes.sum();
+    }
+
+    /**
+     * @return current state of every circuit called through so far, by name
+     */
+    public Map<String, CircuitBreaker.State> getCircuitBreakerStates() {
+        return Collections.unmodifiableMap(new TreeMap<String, CircuitBreaker.State>(circuitStates));
+    }
+
+    protected void recordRetry() {
+        retries.increment();
+    }
+
+    protected void recordRetryBudgetRejection() {
+        retryBudgetRejections.increment();
+    }
+
+    protected void recordRateLimitDelay() {
+        rateLimitDelays.increment();
+    }
+
+    protected void recordRateLimitRejection() {
+        rateLimitRejections.increment();
+    }
+
+    protected void recordCircuitBreakerRejection() {
+        circuitBreakerRejections.increment();
+    }
+
+    protected void recordHedge() {
+        hedges.increment();
+    }
+
+    protected void recordHedgeWin() {
+        hedgeWins.increment();
+    }
+
+    protected void recordHedgeSkipped() {
+        hedgesSkipped.increment();
+    }
+
+    protected void recordCoalescedCall() {
+        coalescedCalls.increment();
+    }
+
+    protected void recordTokenRefresh() {
+        tokenRefreshes.increment();
+    }
+
+    protected void recordCircuitStateChange(final String circuit, final CircuitBreaker.State from, final CircuitBreaker.State to) {
+        circuitStates.put(circuit, to);
+        if (from == null) return;
+
+        if (to == CircuitBreaker.State.OPEN) circuitBreakerOpenings.increment();
+        for (CircuitBreakerListener listener : circuitBreakerListeners) {
+            listener.onStateChange(circuit, from, to);
+        }
+    }
+
+    protected void record(final Exchange exchange) {
+        exchanges.increment();
+        requestWireBytes.add(exchange.getRequestWireBytes());
+        requestContentBytes.add(exchange.getRequestContentBytes());
+        responseWireBytes.add(exchange.getResponseWireBytes());
+        responseContentBytes.add(exchange.getResponseContentBytes());
+
+        for (ExchangeListener listener : listeners) {
+            listener.onExchange(exchange);
+        }
+    }
+
+    /**
+     * Body sizes and encodings of one request/response exchange.
+     */
+    public static class Exchange {
+        private final String method;
+        private final String path;
+        private int statusCode;
+        private String requestContentEncoding;
+        private String responseContentEncoding;
+        private long requestWireBytes;
+        private long requestContentBytes;
+        private long responseWireBytes;
+        private long responseContentBytes;
+
+        Exchange(final String method, final String path) {
+            this.method = method;
+            this.path = path;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * @return response status, or 0 if no response was received
+         */
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        void setStatusCode(int statusCode) {
+            this.statusCode = statusCode;
+        }
+
+        /**
+         * @return coding applied to the request body, or null if sent as is
+         */
+        public String getRequestContentEncoding() {
+            return requestContentEncoding;
+        }
+
+        void setRequestContentEncoding(String requestContentEncoding) {
+            this.requestContentEncoding = requestContentEncoding;
+        }
+
+        /**
+         * @return coding the service applied to the response body, or null if received as is
+         */
+        public String getResponseContentEncoding() {
+            return responseContentEncoding;
+        }
+
+        void setResponseContentEncoding(String responseContentEncoding) {
+            this.responseContentEncoding = responseContentEncoding;
+        }
+
+        public long getRequestWireBytes() {
+            return requestWireBytes;
+        }
+
+        void setRequestWireBytes(long requestWireBytes) {
+            this.requestWireBytes = requestWireBytes;
+        }
+
+        public long getRequestContentBytes() {
+            return requestContentBytes;
+        }
+
+        void setRequestContentBytes(long requestContentBytes) {
+            this.requestContentBytes = requestContentBytes;
+        }
+
+        /**
+         * @return response body bytes read off the wire; a body the caller didn't read to the end counts
+         * only what was read
+         */
+        public long getResponseWireBytes() {
+            return responseWireBytes;
+        }
+
+        void setResponseWireBytes(long responseWireBytes) {
+            this.responseWireBytes = responseWireBytes;
+        }
+
+        public long getResponseContentBytes() {
+            return responseContentBytes;
+        }
+
+        void setResponseContentBytes(long responseContentBytes) {
+            this.responseContentBytes = responseContentBytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %s %d: request %d/%d bytes (%s), response %d/%d bytes (%s)", method, path,
+                    statusCode, requestWireBytes, requestContentBytes, requestContentEncoding,
+                    responseWireBytes, responseContentBytes, responseContentEncoding);
+        }
+    }
+}
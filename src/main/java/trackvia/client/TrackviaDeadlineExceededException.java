@@ -0,0 +1,24 @@
+package trackvia.client;
+
+/**
+ * A call didn't finish by its deadline; an attempt still under way was aborted.
+ *
+ * @see Deadline
+ */
+public class TrackviaDeadlineExceededException extends TrackviaClientException {
+    private static final long serialVersionUID = 1L;
+
+    private final long timeoutMillis;
+
+    public TrackviaDeadlineExceededException(final long timeoutMillis) {
+        super(String.format("Deadline of %d ms exceeded", timeoutMillis));
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * @return the timeout the call's deadline was set with
+     */
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+}
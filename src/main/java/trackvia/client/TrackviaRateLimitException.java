@@ -0,0 +1,23 @@
+package trackvia.client;
+
+/**
+ * A request was turned away by the client's own rate limiter, without being sent, as it would have
+ * waited longer for a permit than the {@link RateLimitPolicy} allows.
+ */
+public class TrackviaRateLimitException extends TrackviaClientException {
+    private static final long serialVersionUID = 1L;
+
+    private final RateLimitPolicy.EndpointClass endpointClass;
+
+    public TrackviaRateLimitException(final RateLimitPolicy.EndpointClass endpointClass) {
+        super(String.format("Rate limit exceeded for %s requests", endpointClass));
+        this.endpointClass = endpointClass;
+    }
+
+    /**
+     * @return kind of request that was rejected
+     */
+    public RateLimitPolicy.EndpointClass getEndpointClass() {
+        return endpointClass;
+    }
+}
@@ -0,0 +1,34 @@
+package trackvia.client;
+
+import java.io.IOException;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+
+/**
+ * Carries a command's request to the Trackvia service and hands back the service's response.
+ *
+ * Commands build requests and process responses themselves, so a transport deals in messages only:
+ * how they travel, pooling, protocol and timeouts are its business.  Implementations must be safe
+ * for concurrent use by many threads.
+ *
+ * @see ApacheTransport the default, HTTP/1.1 over a connection pool
+ * @see Http2Transport HTTP/2, multiplexing calls over a few connections
+ * @see LoopbackTransport in-memory responses, without sockets
+ */
+public interface Transport {
+    /**
+     * Sends a request, blocking until the response head has arrived.  The caller reads the response
+     * entity, then closes the response to release whatever it holds, e.g. a pooled connection.
+     *
+     * @param request fully-formed request
+     * @return the service's response, whatever its status
+     * @throws IOException if no response was received
+     */
+    CloseableHttpResponse execute(HttpRequestBase request) throws IOException;
+
+    /**
+     * Releases the transport's resources.  Requests in flight may fail.
+     */
+    void shutdown();
+}
@@ -0,0 +1,106 @@
+package trackvia.client.model;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Compiles a domain class's bean methods into functional accessors, called like any other lambda rather
+ * than through {@link Method#invoke}.
+ *
+ * Setters are spun by {@link LambdaMetafactory}.  Where it can't link one - e.g. a domain class loaded
+ * by a class loader this one can't see - the accessor calls a method handle instead, still free of
+ * reflection's per-call access checks and argument arrays.  Fields, which the metafactory can't link,
+ * are always read through a method handle.
+ */
+final class Accessors {
+    private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+
+    private Accessors() {}
+
+    /**
+     * @param setter a public, single-argument instance method
+     * @return a consumer calling the setter on its first argument with its second; converting the value
+     * to the setter's type fails with a ClassCastException, or a NullPointerException for a primitive, and
+     * calling a setter this class may not fails with an IllegalStateException
+     */
+    @SuppressWarnings("unchecked")
+    static BiConsumer<Object, Object> setter(final Method setter) {
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        final MethodHandle handle;
+        try {
+            handle = lookup.unreflect(setter);
+        } catch (final IllegalAccessException e) {
+            return new BiConsumer<Object, Object>() {
+                @Override
+                public void accept(final Object target, final Object value) {
+                    throw new IllegalStateException(e.getMessage(), e);
+                }
+            };
+        }
+
+        try {
+            final MethodType instantiated = MethodType.methodType(void.class, setter.getDeclaringClass(),
+                    MethodType.methodType(setter.getParameterTypes()[0]).wrap().returnType());
+            final CallSite site = LambdaMetafactory.metafactory(lookup, "accept",
+                    MethodType.methodType(BiConsumer.class), SETTER, handle, instantiated);
+
+            return (BiConsumer<Object, Object>) site.getTarget().invoke();
+        } catch (Throwable e) {
+            final MethodHandle generic = handle.asType(SETTER);
+
+            return new BiConsumer<Object, Object>() {
+                @Override
+                public void accept(final Object target, final Object value) {
+                    try {
+                        generic.invokeExact(target, value);
+                    } catch (RuntimeException | Error t) {
+                        throw t;
+                    } catch (Throwable t) {
+                        throw new IllegalStateException(t);
+                    }
+                }
+            };
+        }
+    }
+
+    /**
+     * @param field an instance field, of any visibility
+     * @return a function reading the field of its argument; reading a field this class may not fails with
+     * an IllegalStateException
+     */
+    static Function<Object, Object> getter(final Field field) {
+        final MethodHandle handle;
+        try {
+            field.setAccessible(true);
+            handle = MethodHandles.lookup().unreflectGetter(field).asType(GETTER);
+        } catch (final IllegalAccessException | RuntimeException e) {
+            return new Function<Object, Object>() {
+                @Override
+                public Object apply(final Object target) {
+                    throw new IllegalStateException(e.getMessage(), e);
+                }
+            };
+        }
+
+        return new Function<Object, Object>() {
+            @Override
+            public Object apply(final Object target) {
+                try {
+                    return handle.invokeExact(target);
+                } catch (RuntimeException | Error t) {
+                    throw t;
+                } catch (Throwable t) {
+                    throw new IllegalStateException(t);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,341 @@
+package trackvia.client.model;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * The values of one column of a {@link ColumnarRecordSet}, row by row.
+ *
+ * A bitmap records the rows that have the field at all, null or not.  Numbers, ids, dates and text are held
+ * in primitive arrays, with a second bitmap of the rows holding a value there; a value of some other type -
+ * the odd string in a number column - is kept boxed, on the side.
+ */
+abstract class ColumnVector {
+    private final BitSet present = new BitSet();
+    private Map<Integer, Object> others;
+
+    /**
+     * @return the vector holding values of the field's type
+     */
+    static ColumnVector of(final FieldMetadata fm) {
+        final RecordReader.Decoder decoder = RecordReader.Decoder.of(fm);
+
+        switch (decoder) {
+            case WHOLE_NUMBER:
+            case DATE_TIME:
+            case DATE:
+                return new LongVector(decoder);
+            case DECIMAL_NUMBER:
+                return new DoubleVector();
+            case TEXT:
+                return new StringVector();
+            default:
+                return new ObjectVector(decoder);
+        }
+    }
+
+    /**
+     * @return the vector holding a field the structure doesn't list, its values guessed at
+     */
+    static ColumnVector guessed() {
+        return new ObjectVector(RecordReader.Decoder.GUESSED);
+    }
+
+    /**
+     * Reads the row's value from a stream.
+     */
+    final void read(final JsonReader in, final int row) throws IOException {
+        this.present.set(row);
+
+        final JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+        } else {
+            decode(in, token, row);
+        }
+    }
+
+    /**
+     * Sets the row's value from one already read.
+     */
+    final void set(final int row, final Object value) {
+        this.present.set(row);
+        if (value != null) store(row, value);
+    }
+
+    final boolean isPresent(final int row) {
+        return this.present.get(row);
+    }
+
+    /**
+     * @return the row's value, boxed, or null if it has none
+     */
+    final Object get(final int row) {
+        final Object value = value(row);
+
+        return (value != null || this.others == null) ? (value) : (this.others.get(row));
+    }
+
+    boolean isNull(final int row) {
+        return get(row) == null;
+    }
+
+    double getDouble(final int row) {
+        final Object value = get(row);
+
+        return (value == null) ? (0.0) : (((Number) value).doubleValue());
+    }
+
+    long getLong(final int row) {
+        final Object value = get(row);
+
+        return (value == null) ? (0L) : (((Number) value).longValue());
+    }
+
+    String getString(final int row) {
+        final Object value = get(row);
+
+        return (value == null) ? (null) : (value.toString());
+    }
+
+    /**
+     * Keeps a value not of the column's type.
+     */
+    final void other(final int row, final Object value) {
+        if (this.others == null) this.others = new HashMap<Integer, Object>();
+
+        this.others.put(row, value);
+    }
+
+    abstract void decode(JsonReader in, JsonToken token, int row) throws IOException;
+
+    abstract void store(int row, Object value);
+
+    /**
+     * @return the row's value of the column's type, or null
+     */
+    abstract Object value(int row);
+
+    /**
+     * Resizes the vector to hold the given number of rows.
+     */
+    abstract void resize(int capacity);
+
+    /**
+     * Numbers, Currencies and Percentages.
+     */
+    static final class DoubleVector extends ColumnVector {
+        private final BitSet valid = new BitSet();
+        private double[] values = new double[0];
+
+        @Override
+        void decode(final JsonReader in, final JsonToken token, final int row) throws IOException {
+            if (token == JsonToken.NUMBER) {
+                this.values[row] = in.nextDouble();
+                this.valid.set(row);
+            } else {
+                other(row, RecordReader.readGuessed(in, false));
+            }
+        }
+
+        @Override
+        void store(final int row, final Object value) {
+            if (value instanceof Number) {
+                this.values[row] = ((Number) value).doubleValue();
+                this.valid.set(row);
+            } else {
+                other(row, value);
+            }
+        }
+
+        @Override
+        Object value(final int row) {
+            return (this.valid.get(row)) ? (Double.valueOf(this.values[row])) : (null);
+        }
+
+        @Override
+        double getDouble(final int row) {
+            return (this.valid.get(row)) ? (this.values[row]) : (super.getDouble(row));
+        }
+
+        @Override
+        void resize(final int capacity) {
+            this.values = Arrays.copyOf(this.values, capacity);
+        }
+    }
+
+    /**
+     * Identifiers, auto increments, documents and images, and DateTimes and Dates as epoch milliseconds.
+     */
+    static final class LongVector extends ColumnVector {
+        private final RecordReader.Decoder kind;
+        private final BitSet valid = new BitSet();
+        private long[] values = new long[0];
+
+        LongVector(final RecordReader.Decoder kind) {
+            this.kind = kind;
+        }
+
+        @Override
+        void decode(final JsonReader in, final JsonToken token, final int row) throws IOException {
+            if (this.kind == RecordReader.Decoder.WHOLE_NUMBER && token == JsonToken.NUMBER) {
+                store(row, RecordReader.readNumber(in.nextString()));
+            } else if (this.kind != RecordReader.Decoder.WHOLE_NUMBER && token == JsonToken.STRING) {
+                store(row, in.nextString());
+            } else {
+                other(row, RecordReader.readGuessed(in, false));
+            }
+        }
+
+        @Override
+        void store(final int row, final Object value) {
+            if (this.kind == RecordReader.Decoder.WHOLE_NUMBER) {
+                if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                    put(row, ((Number) value).longValue());
+                } else {
+                    other(row, value);
+                }
+                return;
+            }
+
+            Date date = null;
+            if (value instanceof Date) {
+                date = (Date) value;
+            } else if (value instanceof String) {
+                date = (this.kind == RecordReader.Decoder.DATE_TIME)
+                        ? (Iso8601.parseDateTime((String) value)) : (Iso8601.parseDate((String) value));
+            }
+
+            if (date != null) {
+                put(row, date.getTime());
+            } else {
+                other(row, value);
+            }
+        }
+
+        private void put(final int row, final long value) {
+            this.values[row] = value;
+            this.valid.set(row);
+        }
+
+        @Override
+        Object value(final int row) {
+            if (!this.valid.get(row)) return null;
+
+            return (this.kind == RecordReader.Decoder.WHOLE_NUMBER)
+                    ? (Long.valueOf(this.values[row])) : (new Date(this.values[row]));
+        }
+
+        @Override
+        long getLong(final int row) {
+            return (this.valid.get(row)) ? (this.values[row]) : (super.getLong(row));
+        }
+
+        @Override
+        double getDouble(final int row) {
+            return (this.valid.get(row)) ? (this.values[row]) : (super.getDouble(row));
+        }
+
+        @Override
+        void resize(final int capacity) {
+            this.values = Arrays.copyOf(this.values, capacity);
+        }
+    }
+
+    /**
+     * Text, each distinct string held once and rows holding its code: its index in the dictionary, plus one.
+     */
+    static final class StringVector extends ColumnVector {
+        private final List<String> dictionary = new ArrayList<String>();
+        private final Map<String, Integer> codes = new HashMap<String, Integer>();
+        private int[] rows = new int[0];
+
+        @Override
+        void decode(final JsonReader in, final JsonToken token, final int row) throws IOException {
+            if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+                this.rows[row] = code(in.nextString());
+            } else {
+                other(row, RecordReader.readGuessed(in, false));
+            }
+        }
+
+        @Override
+        void store(final int row, final Object value) {
+            if (value instanceof String) {
+                this.rows[row] = code((String) value);
+            } else {
+                other(row, value);
+            }
+        }
+
+        private int code(final String value) {
+            final Integer code = this.codes.get(value);
+            if (code != null) return code;
+
+            this.dictionary.add(value);
+            this.codes.put(value, this.dictionary.size());
+
+            return this.dictionary.size();
+        }
+
+        @Override
+        Object value(final int row) {
+            final int code = this.rows[row];
+
+            return (code == 0) ? (null) : (this.dictionary.get(code - 1));
+        }
+
+        @Override
+        String getString(final int row) {
+            final int code = this.rows[row];
+
+            return (code == 0) ? (super.getString(row)) : (this.dictionary.get(code - 1));
+        }
+
+        @Override
+        void resize(final int capacity) {
+            this.rows = Arrays.copyOf(this.rows, capacity);
+        }
+    }
+
+    /**
+     * Check boxes, drop downs, points, and types the reader doesn't know, held as read.
+     */
+    static final class ObjectVector extends ColumnVector {
+        private final RecordReader.Decoder decoder;
+        private Object[] values = new Object[0];
+
+        ObjectVector(final RecordReader.Decoder decoder) {
+            this.decoder = decoder;
+        }
+
+        @Override
+        void decode(final JsonReader in, final JsonToken token, final int row) throws IOException {
+            this.values[row] = this.decoder.decode(in, token);
+        }
+
+        @Override
+        void store(final int row, final Object value) {
+            this.values[row] = value;
+        }
+
+        @Override
+        Object value(final int row) {
+            return this.values[row];
+        }
+
+        @Override
+        void resize(final int capacity) {
+            this.values = Arrays.copyOf(this.values, capacity);
+        }
+    }
+}
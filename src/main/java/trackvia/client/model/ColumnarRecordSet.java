@@ -0,0 +1,316 @@
+package trackvia.client.model;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * A record set held column by column, for views too large to hold as a map per record.
+ *
+ * Each column of the structure keeps its values in one vector: Numbers, Currencies and Percentages as
+ * {@code double}s, identifiers and the record id as {@code long}s, DateTimes and Dates as epoch milliseconds,
+ * and text dictionary-encoded, each distinct string held once.  Bitmaps record which records have a field,
+ * and which hold a value of its column's type.  Check boxes, drop downs and points, fields the structure
+ * doesn't list, and the odd value that doesn't fit its column are held boxed, as read.  Field names are held
+ * once, by the set, rather than by every record.
+ *
+ * Values are decoded by the type of their column, as a typed {@link RecordReader} decodes them.  Read them
+ * by row and column through the typed getters, or a row at a time as a {@link RecordData} - a copy - for code
+ * written against {@link RecordSet}.
+ *
+ * <pre>
+ * {@code
+ *      ColumnarRecordSet records = client.getColumnarRecords(viewId);
+ *      int amount = records.columnIndex("Amount");
+ *      double total = 0;
+ *      for (int row = 0; row < records.size(); row++) {
+ *          if (!records.isNull(row, amount)) total += records.getDouble(row, amount);
+ *      }
+ * }
+ * </pre>
+ *
+ * A set is not safe to add records to while other threads read it.
+ */
+public class ColumnarRecordSet {
+    private static final int MIN_CAPACITY = 16;
+
+    private final List<FieldMetadata> structure;
+    private final List<String> names = new ArrayList<String>();
+    private final Map<String, Integer> indexes = new HashMap<String, Integer>();
+    private final List<ColumnVector> columns = new ArrayList<ColumnVector>();
+    private int size;
+    private int capacity;
+    private int totalCount;
+
+    /**
+     * @param structure the columns of the records to hold
+     */
+    public ColumnarRecordSet(final List<FieldMetadata> structure) {
+        if (structure == null) throw new IllegalArgumentException("A columnar record set needs a structure");
+
+        this.structure = Collections.unmodifiableList(new ArrayList<FieldMetadata>(structure));
+        for (FieldMetadata fm : structure) {
+            addColumn(fm.getName(), ColumnVector.of(fm));
+        }
+    }
+
+    /**
+     * @return the records of a record set, held by column
+     */
+    public static ColumnarRecordSet of(final RecordSet recordSet) {
+        final List<FieldMetadata> structure = recordSet.getStructure();
+        final ColumnarRecordSet columnar = new ColumnarRecordSet(
+                (structure != null) ? (structure) : (Collections.<FieldMetadata>emptyList()));
+
+        if (recordSet.getData() != null) {
+            for (RecordData rd : recordSet.getData()) {
+                columnar.add(rd);
+            }
+        }
+        columnar.setTotalCount(recordSet.getTotalCount());
+        columnar.trimToSize();
+
+        return columnar;
+    }
+
+    public List<FieldMetadata> getStructure() {
+        return this.structure;
+    }
+
+    /**
+     * @return the number of records held
+     */
+    public int size() {
+        return this.size;
+    }
+
+    public int getTotalCount() {
+        return this.totalCount;
+    }
+
+    public void setTotalCount(final int totalCount) {
+        this.totalCount = totalCount;
+    }
+
+    /**
+     * @return the names of the columns: the structure's, then those of fields records had that it doesn't list
+     */
+    public List<String> getColumnNames() {
+        return Collections.unmodifiableList(this.names);
+    }
+
+    /**
+     * @return the index of the named column, or -1 if there's none
+     */
+    public int columnIndex(final String name) {
+        final Integer column = this.indexes.get(name);
+
+        return (column == null) ? (-1) : (column);
+    }
+
+    /**
+     * Adds a record, converting its values to those of their columns.
+     */
+    public void add(final RecordData rd) {
+        final int row = nextRow();
+
+        for (Map.Entry<String, Object> field : rd.entrySet()) {
+            int column = columnIndex(field.getKey());
+            if (column < 0) column = addColumn(field.getKey(), ColumnVector.guessed());
+
+            this.columns.get(column).set(row, field.getValue());
+        }
+    }
+
+    /**
+     * Reads a record object, decoding each value straight into its column.
+     */
+    void read(final JsonReader in) throws IOException {
+        final int row = nextRow();
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return;
+        }
+
+        int next = 0;
+        in.beginObject();
+        while (in.hasNext()) {
+            final String fieldName = in.nextName();
+
+            // records list their fields in structure order; look a field up only when it's out of order
+            int column = (next < this.names.size() && fieldName.equals(this.names.get(next)))
+                    ? (next) : (columnIndex(fieldName));
+            if (column < 0) column = addColumn(fieldName, ColumnVector.guessed());
+
+            this.columns.get(column).read(in, row);
+            next = column + 1;
+        }
+        in.endObject();
+    }
+
+    /**
+     * @return a copy of the record, as a map of its fields
+     */
+    public RecordData get(final int row) {
+        checkRow(row);
+
+        final RecordData rd = new RecordData();
+        for (int column = 0; column < this.columns.size(); column++) {
+            final ColumnVector vector = this.columns.get(column);
+            if (vector.isPresent(row)) rd.put(this.names.get(column), vector.get(row));
+        }
+
+        return rd;
+    }
+
+    /**
+     * @return the records as a list of maps, each made as it's got
+     * @see #get(int)
+     */
+    public List<RecordData> getData() {
+        return new AbstractList<RecordData>() {
+            @Override
+            public RecordData get(final int index) {
+                return ColumnarRecordSet.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return ColumnarRecordSet.this.size;
+            }
+        };
+    }
+
+    /**
+     * @return the records, each as a map of its fields
+     */
+    public RecordSet toRecordSet() {
+        final List<RecordData> data = new ArrayList<RecordData>(this.size);
+        for (int row = 0; row < this.size; row++) {
+            data.add(get(row));
+        }
+
+        return RecordSet.wrap(new ArrayList<FieldMetadata>(this.structure), data, this.totalCount);
+    }
+
+    /**
+     * @return whether the record has the field, null or not
+     */
+    public boolean contains(final int row, final int column) {
+        return vector(row, column).isPresent(row);
+    }
+
+    /**
+     * @return whether the record's field is null, or the record doesn't have it
+     */
+    public boolean isNull(final int row, final int column) {
+        return vector(row, column).isNull(row);
+    }
+
+    /**
+     * @return the field's value, as {@link #get(int)} would map it
+     */
+    public Object getValue(final int row, final int column) {
+        return vector(row, column).get(row);
+    }
+
+    /**
+     * @return the field's value as a double, or 0 if it's null
+     * @throws ClassCastException if the value isn't a number
+     */
+    public double getDouble(final int row, final int column) {
+        return vector(row, column).getDouble(row);
+    }
+
+    /**
+     * @return the field's value as a long - the epoch milliseconds of a DateTime or Date - or 0 if it's null
+     * @throws ClassCastException if the value isn't a number, DateTime or Date
+     */
+    public long getLong(final int row, final int column) {
+        return vector(row, column).getLong(row);
+    }
+
+    /**
+     * @return the field's value as a string, or null
+     */
+    public String getString(final int row, final int column) {
+        return vector(row, column).getString(row);
+    }
+
+    public boolean isNull(final int row, final String column) {
+        return isNull(row, column(column));
+    }
+
+    public Object getValue(final int row, final String column) {
+        return getValue(row, column(column));
+    }
+
+    public double getDouble(final int row, final String column) {
+        return getDouble(row, column(column));
+    }
+
+    public long getLong(final int row, final String column) {
+        return getLong(row, column(column));
+    }
+
+    public String getString(final int row, final String column) {
+        return getString(row, column(column));
+    }
+
+    /**
+     * Sizes the columns to the records held, releasing the room kept for more.
+     */
+    public void trimToSize() {
+        resize(this.size);
+    }
+
+    private int nextRow() {
+        if (this.size == this.capacity) resize(Math.max(MIN_CAPACITY, this.capacity * 2));
+
+        return this.size++;
+    }
+
+    private void resize(final int capacity) {
+        for (ColumnVector vector : this.columns) {
+            vector.resize(capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    private int addColumn(final String name, final ColumnVector vector) {
+        vector.resize(this.capacity);
+        this.columns.add(vector);
+        this.names.add(name);
+
+        final int column = this.columns.size() - 1;
+        if (name != null && !this.indexes.containsKey(name)) this.indexes.put(name, column);
+
+        return column;
+    }
+
+    private int column(final String name) {
+        final int column = columnIndex(name);
+        if (column < 0) throw new IllegalArgumentException(String.format("No column named '%s'", name));
+
+        return column;
+    }
+
+    private ColumnVector vector(final int row, final int column) {
+        checkRow(row);
+
+        return this.columns.get(column);
+    }
+
+    private void checkRow(final int row) {
+        if (row < 0 || row >= this.size) {
+            throw new IndexOutOfBoundsException(String.format("Row %d of %d", row, this.size));
+        }
+    }
+}
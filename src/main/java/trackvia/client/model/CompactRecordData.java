@@ -0,0 +1,515 @@
+package trackvia.client.model;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * A record's fields held compactly: a slot per field of a {@link RecordSchema} shared by every record of a
+ * response, rather than a hash table of its own with an entry per field.
+ *
+ * Whole numbers and decimals are held unboxed; {@link #getLong(String)} and {@link #getDouble(String)} read
+ * them as they are, and {@link #get(Object)} boxes them as it returns them.  Fields the schema doesn't list
+ * are held as any {@link RecordData} holds them.  Otherwise the record is a {@link RecordData} like any other
+ * - a mutable map of field names to values - listing the schema's fields first, in order.
+ *
+ * Serialized, the record is written as a plain {@link RecordData}.
+ */
+public class CompactRecordData extends RecordData {
+    private static final long serialVersionUID = 1L;
+
+    // a slot's value when the field holds a number, kept in the primitives, or is null
+    private static final Object LONG = new Object();
+    private static final Object DOUBLE = new Object();
+    private static final Object NULL = new Object();
+
+    private final RecordSchema schema;
+    private final Object[] values;
+    private long[] primitives;
+    private int present;
+
+    /**
+     * @param schema the fields the record holds in slots
+     */
+    public CompactRecordData(final RecordSchema schema) {
+        this.schema = schema;
+        this.values = new Object[schema.size()];
+    }
+
+    public RecordSchema getSchema() {
+        return this.schema;
+    }
+
+    @Override
+    public long getLong(final String name) {
+        final int slot = this.schema.indexOf(name);
+        if (slot >= 0 && this.values[slot] == LONG) return this.primitives[slot];
+        if (slot >= 0 && this.values[slot] == DOUBLE) return (long) Double.longBitsToDouble(this.primitives[slot]);
+
+        return super.getLong(name);
+    }
+
+    @Override
+    public double getDouble(final String name) {
+        final int slot = this.schema.indexOf(name);
+        if (slot >= 0 && this.values[slot] == DOUBLE) return Double.longBitsToDouble(this.primitives[slot]);
+        if (slot >= 0 && this.values[slot] == LONG) return this.primitives[slot];
+
+        return super.getDouble(name);
+    }
+
+    void setLong(final int slot, final long value) {
+        mark(slot, LONG);
+        primitives()[slot] = value;
+    }
+
+    void setDouble(final int slot, final double value) {
+        mark(slot, DOUBLE);
+        primitives()[slot] = Double.doubleToRawLongBits(value);
+    }
+
+    /**
+     * @return the slot's previous value
+     */
+    Object set(final int slot, final Object value) {
+        final Object previous = value(slot);
+
+        if (value instanceof Long) {
+            setLong(slot, (Long) value);
+        } else if (value instanceof Double) {
+            setDouble(slot, (Double) value);
+        } else {
+            mark(slot, (value == null) ? (NULL) : (value));
+        }
+
+        return previous;
+    }
+
+    private void mark(final int slot, final Object value) {
+        if (this.values[slot] == null) this.present++;
+        this.values[slot] = value;
+    }
+
+    private long[] primitives() {
+        if (this.primitives == null) this.primitives = new long[this.values.length];
+
+        return this.primitives;
+    }
+
+    // the slot's value, boxed; null if the field is absent or null
+    private Object value(final int slot) {
+        final Object value = this.values[slot];
+
+        if (value == LONG) return Long.valueOf(this.primitives[slot]);
+        if (value == DOUBLE) return Double.valueOf(Double.longBitsToDouble(this.primitives[slot]));
+
+        return (value == NULL) ? (null) : (value);
+    }
+
+    private Object clear(final int slot) {
+        final Object previous = value(slot);
+
+        if (this.values[slot] != null) {
+            this.values[slot] = null;
+            this.present--;
+        }
+
+        return previous;
+    }
+
+    private int nextSlot(int slot) {
+        while (slot < this.values.length && this.values[slot] == null) slot++;
+
+        return slot;
+    }
+
+    @Override
+    public int size() {
+        return this.present + super.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        final int slot = this.schema.indexOf(key);
+
+        return (slot >= 0) ? (this.values[slot] != null) : (super.containsKey(key));
+    }
+
+    @Override
+    public boolean containsValue(final Object value) {
+        for (int slot = nextSlot(0); slot < this.values.length; slot = nextSlot(slot + 1)) {
+            if (Objects.equals(value, value(slot))) return true;
+        }
+
+        return super.containsValue(value);
+    }
+
+    @Override
+    public Object get(final Object key) {
+        final int slot = this.schema.indexOf(key);
+
+        return (slot >= 0) ? (value(slot)) : (super.get(key));
+    }
+
+    @Override
+    public Object put(final String key, final Object value) {
+        final int slot = this.schema.indexOf(key);
+
+        return (slot >= 0) ? (set(slot, value)) : (super.put(key, value));
+    }
+
+    @Override
+    public void putAll(final Map<? extends String, ?> m) {
+        for (Map.Entry<? extends String, ?> entry : m.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public Object remove(final Object key) {
+        final int slot = this.schema.indexOf(key);
+
+        return (slot >= 0) ? (clear(slot)) : (super.remove(key));
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(this.values, null);
+        this.present = 0;
+        super.clear();
+    }
+
+    // HashMap implements these on its own table; implement them on the slots, as Map's defaults do
+
+    @Override
+    public Object getOrDefault(final Object key, final Object defaultValue) {
+        return (containsKey(key)) ? (get(key)) : (defaultValue);
+    }
+
+    @Override
+    public Object putIfAbsent(final String key, final Object value) {
+        final Object current = get(key);
+
+        return (current == null) ? (put(key, value)) : (current);
+    }
+
+    @Override
+    public boolean remove(final Object key, final Object value) {
+        if (!containsKey(key) || !Objects.equals(get(key), value)) return false;
+
+        remove(key);
+        return true;
+    }
+
+    @Override
+    public boolean replace(final String key, final Object oldValue, final Object newValue) {
+        if (!containsKey(key) || !Objects.equals(get(key), oldValue)) return false;
+
+        put(key, newValue);
+        return true;
+    }
+
+    @Override
+    public Object replace(final String key, final Object value) {
+        return (containsKey(key)) ? (put(key, value)) : (null);
+    }
+
+    @Override
+    public Object computeIfAbsent(final String key, final Function<? super String, ? extends Object> mappingFunction) {
+        final Object current = get(key);
+        if (current != null) return current;
+
+        final Object value = mappingFunction.apply(key);
+        if (value != null) put(key, value);
+
+        return value;
+    }
+
+    @Override
+    public Object computeIfPresent(final String key,
+            final BiFunction<? super String, ? super Object, ? extends Object> remappingFunction) {
+        final Object current = get(key);
+        if (current == null) return null;
+
+        return remap(key, remappingFunction.apply(key, current));
+    }
+
+    @Override
+    public Object compute(final String key,
+            final BiFunction<? super String, ? super Object, ? extends Object> remappingFunction) {
+        return remap(key, remappingFunction.apply(key, get(key)));
+    }
+
+    @Override
+    public Object merge(final String key, final Object value,
+            final BiFunction<? super Object, ? super Object, ? extends Object> remappingFunction) {
+        if (value == null) throw new NullPointerException();
+
+        final Object current = get(key);
+
+        return remap(key, (current == null) ? (value) : (remappingFunction.apply(current, value)));
+    }
+
+    private Object remap(final String key, final Object value) {
+        if (value == null) {
+            remove(key);
+        } else {
+            put(key, value);
+        }
+
+        return value;
+    }
+
+    @Override
+    public void forEach(final BiConsumer<? super String, ? super Object> action) {
+        for (Map.Entry<String, Object> entry : entrySet()) {
+            action.accept(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public void replaceAll(final BiFunction<? super String, ? super Object, ? extends Object> function) {
+        for (int slot = nextSlot(0); slot < this.values.length; slot = nextSlot(slot + 1)) {
+            set(slot, function.apply(this.schema.name(slot), value(slot)));
+        }
+        super.replaceAll(function);
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return new AbstractSet<Map.Entry<String, Object>>() {
+            @Override
+            public Iterator<Map.Entry<String, Object>> iterator() {
+                return new Entries();
+            }
+
+            @Override
+            public int size() {
+                return CompactRecordData.this.size();
+            }
+
+            @Override
+            public void clear() {
+                CompactRecordData.this.clear();
+            }
+        };
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return new AbstractSet<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                final Entries entries = new Entries();
+
+                return new Iterator<String>() {
+                    @Override
+                    public boolean hasNext() {
+                        return entries.hasNext();
+                    }
+
+                    @Override
+                    public String next() {
+                        return entries.next().getKey();
+                    }
+
+                    @Override
+                    public void remove() {
+                        entries.remove();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return CompactRecordData.this.size();
+            }
+
+            @Override
+            public boolean contains(final Object key) {
+                return containsKey(key);
+            }
+
+            @Override
+            public boolean remove(final Object key) {
+                if (!containsKey(key)) return false;
+
+                CompactRecordData.this.remove(key);
+                return true;
+            }
+
+            @Override
+            public void clear() {
+                CompactRecordData.this.clear();
+            }
+        };
+    }
+
+    @Override
+    public Collection<Object> values() {
+        return new AbstractCollection<Object>() {
+            @Override
+            public Iterator<Object> iterator() {
+                final Entries entries = new Entries();
+
+                return new Iterator<Object>() {
+                    @Override
+                    public boolean hasNext() {
+                        return entries.hasNext();
+                    }
+
+                    @Override
+                    public Object next() {
+                        return entries.next().getValue();
+                    }
+
+                    @Override
+                    public void remove() {
+                        entries.remove();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return CompactRecordData.this.size();
+            }
+
+            @Override
+            public void clear() {
+                CompactRecordData.this.clear();
+            }
+        };
+    }
+
+    @Override
+    public Object clone() {
+        final CompactRecordData copy = new CompactRecordData(this.schema);
+        System.arraycopy(this.values, 0, copy.values, 0, this.values.length);
+        copy.primitives = (this.primitives != null) ? (this.primitives.clone()) : (null);
+        copy.present = this.present;
+        for (Map.Entry<String, Object> entry : super.entrySet()) {
+            copy.put(entry.getKey(), entry.getValue());
+        }
+
+        return copy;
+    }
+
+    @Override
+    public CompactRecordData copy() {
+        final CompactRecordData copy = new CompactRecordData(this.schema);
+        for (int slot = 0; slot < this.values.length; slot++) {
+            copy.values[slot] = copyValue(this.values[slot]);
+        }
+        copy.primitives = (this.primitives != null) ? (this.primitives.clone()) : (null);
+        copy.present = this.present;
+        for (Map.Entry<String, Object> entry : super.entrySet()) {
+            copy.put(entry.getKey(), copyValue(entry.getValue()));
+        }
+
+        return copy;
+    }
+
+    private Object writeReplace() {
+        return new RecordData(this);
+    }
+
+    /**
+     * The fields in slots, in order, then the others.
+     */
+    private final class Entries implements Iterator<Map.Entry<String, Object>> {
+        private final Iterator<Map.Entry<String, Object>> others = CompactRecordData.super.entrySet().iterator();
+        private int next = nextSlot(0);
+        private int last = -1;
+        private boolean lastOther;
+
+        @Override
+        public boolean hasNext() {
+            return this.next < values.length || this.others.hasNext();
+        }
+
+        @Override
+        public Map.Entry<String, Object> next() {
+            if (this.next < values.length) {
+                this.last = this.next;
+                this.lastOther = false;
+                this.next = nextSlot(this.next + 1);
+
+                return new SlotEntry(this.last);
+            }
+            if (!this.others.hasNext()) throw new NoSuchElementException();
+
+            this.lastOther = true;
+            return this.others.next();
+        }
+
+        @Override
+        public void remove() {
+            if (this.lastOther) {
+                this.others.remove();
+                this.lastOther = false;
+            } else if (this.last >= 0) {
+                CompactRecordData.this.clear(this.last);
+                this.last = -1;
+            } else {
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    private final class SlotEntry implements Map.Entry<String, Object> {
+        private final int slot;
+
+        SlotEntry(final int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public String getKey() {
+            return schema.name(this.slot);
+        }
+
+        @Override
+        public Object getValue() {
+            return value(this.slot);
+        }
+
+        @Override
+        public Object setValue(final Object value) {
+            return set(this.slot, value);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof Map.Entry)) return false;
+
+            final Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+
+            return Objects.equals(getKey(), e.getKey()) && Objects.equals(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+}
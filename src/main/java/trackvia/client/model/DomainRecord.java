@@ -15,6 +15,14 @@ public class DomainRecord<T> {
         this.data = data;
     }
 
+    /**
+     * @return a copy of the record with a structure of its own; the domain object is the application's, and is
+     * shared rather than copied
+     */
+    public DomainRecord<T> copy() {
+        return new DomainRecord<T>(FieldMetadata.copyOf(this.structure), this.data);
+    }
+
     public List<FieldMetadata> getStructure() {
         return structure;
     }
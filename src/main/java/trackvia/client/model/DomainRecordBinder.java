@@ -0,0 +1,123 @@
+package trackvia.client.model;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * Binds the records of one view structure to a domain class.
+ *
+ * Built once per structure: each column is resolved to its Trackvia type and to the domain class's setter
+ * up front, so binding a record does no name normalization, metadata lookup or reflective call.  A record's
+ * fields are matched to columns by position - records list their fields in structure order - falling back to
+ * a lookup by name for a field out of order.  Fields without a column, and columns without a setter, are
+ * skipped.
+ */
+final class DomainRecordBinder<T> {
+    private final DomainRecordDeserializerBase<T> deserializer;
+    private final String[] names;
+    private final TrackviaDataType[] types;
+    private final BiConsumer<Object, Object>[] setters;
+    private final String[] setterNames;
+    private final Map<String, Integer> columns = new HashMap<String, Integer>();
+
+    DomainRecordBinder(final DomainRecordDeserializerBase<T> deserializer, final List<FieldMetadata> structure) {
+        final int count = structure.size();
+
+        this.deserializer = deserializer;
+        this.names = new String[count];
+        this.types = new TrackviaDataType[count];
+        @SuppressWarnings("unchecked")
+        final BiConsumer<Object, Object>[] setters = (BiConsumer<Object, Object>[]) new BiConsumer<?, ?>[count];
+        this.setters = setters;
+        this.setterNames = new String[count];
+
+        for (int column = 0; column < count; column++) {
+            final FieldMetadata fm = structure.get(column);
+            final String normalizedName = deserializer.normalizeName(fm.getName());
+
+            this.names[column] = fm.getName();
+            this.types[column] = fm.getType();
+            this.setters[column] = deserializer.setterFor(normalizedName);
+            this.setterNames[column] = deserializer.setterNameFor(normalizedName);
+
+            if (!this.columns.containsKey(normalizedName)) this.columns.put(normalizedName, column);
+        }
+        for (int column = count - 1; column >= 0; column--) {
+            this.columns.put(this.names[column], column);
+        }
+    }
+
+    /**
+     * Reads a record's fields from the stream straight into a new domain object.
+     */
+    T read(final JsonReader in, final RecordReader values) throws IOException {
+        final T recordData = this.deserializer.newDomainRecord();
+        int next = 0;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            final int column = columnOf(in.nextName(), next);
+            if (column >= 0) next = column + 1;
+            if (column < 0 || this.setters[column] == null) {
+                in.skipValue();
+                continue;
+            }
+
+            set(recordData, column, convert(column, values.readValue(in, false)));
+        }
+        in.endObject();
+
+        return recordData;
+    }
+
+    /**
+     * Binds a record read as a tree to a new domain object.
+     */
+    T bind(final JsonObject recordDataObject) {
+        final T recordData = this.deserializer.newDomainRecord();
+        int next = 0;
+
+        for (Map.Entry<String, JsonElement> entry : recordDataObject.entrySet()) {
+            final int column = columnOf(entry.getKey(), next);
+            if (column >= 0) next = column + 1;
+            if (column < 0 || this.setters[column] == null) continue;
+
+            set(recordData, column, convert(column, this.deserializer.deserialize(entry.getValue())));
+        }
+
+        return recordData;
+    }
+
+    private int columnOf(final String fieldName, final int next) {
+        if (next < this.names.length && this.names[next].equals(fieldName)) return next;
+
+        Integer column = this.columns.get(fieldName);
+        if (column == null) column = this.columns.get(this.deserializer.normalizeName(fieldName));
+
+        return (column == null) ? (-1) : (column);
+    }
+
+    private Object convert(final int column, final Object value) {
+        final TrackviaDataType type = this.types[column];
+
+        // a type this client doesn't know yet is bound as read
+        return (type == null) ? (value) : (this.deserializer.convert(type, value));
+    }
+
+    private void set(final T recordData, final int column, final Object value) {
+        try {
+            this.setters[column].accept(recordData, value);
+        } catch (RuntimeException e) {
+            throw new JsonParseException(String.format("Error invoking setter (%s(%s)): %s", this.setterNames[column],
+                    String.valueOf(value), e.getMessage()), e);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package trackvia.client.model;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Lets Gson write a {@link DomainRecordDataBatch} of a domain class token by token, straight to its output.
+ *
+ * Records of the domain class are written by accessors compiled once per class, rather than through
+ * Gson's reflective adapter and an intermediate tree; the JSON is that of {@link DomainRecordDataBatchSerializer}.
+ * Records of any other class are left to Gson, as is reading a batch.
+ *
+ * <pre>
+ * {@code
+ *      Gson gson = new GsonBuilder()
+ *              .addSerializationExclusionStrategy(new TrackviaSerializationExclusionStrategy())
+ *              .registerTypeAdapterFactory(DomainRecordDataBatchAdapterFactory.forDomainClass(Contact.class))
+ *              .create();
+ * }
+ * </pre>
+ */
+public class DomainRecordDataBatchAdapterFactory<T> implements TypeAdapterFactory {
+    private final Class<T> domainClass;
+    private final ExclusionStrategy exclusionStrategy;
+
+    /**
+     * @param exclusionStrategy the serialization exclusion strategy of the Gson this factory is registered
+     * with, or null if it has none
+     */
+    public DomainRecordDataBatchAdapterFactory(final Class<T> domainClass, final ExclusionStrategy exclusionStrategy) {
+        this.domainClass = domainClass;
+        this.exclusionStrategy = exclusionStrategy;
+    }
+
+    /**
+     * Writes batches of the domain class under the {@link TrackviaSerializationExclusionStrategy}.
+     */
+    public static <T> DomainRecordDataBatchAdapterFactory<T> forDomainClass(final Class<T> domainClass) {
+        return new DomainRecordDataBatchAdapterFactory<T>(domainClass, new TrackviaSerializationExclusionStrategy());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <X> TypeAdapter<X> create(final Gson gson, final TypeToken<X> typeToken) {
+        if (typeToken.getRawType() != DomainRecordDataBatch.class) return null;
+
+        final TypeAdapter<X> delegate = gson.getDelegateAdapter(this, typeToken);
+        final DomainRecordWriter<T> writer = new DomainRecordWriter<T>(this.domainClass, gson, this.exclusionStrategy);
+
+        return (TypeAdapter<X>) new TypeAdapter<DomainRecordDataBatch<?>>() {
+            @Override
+            public void write(final JsonWriter out, final DomainRecordDataBatch<?> batch) throws IOException {
+                if (batch == null) {
+                    out.nullValue();
+                    return;
+                }
+
+                out.beginObject();
+                final List<?> data = batch.getData();
+                if (data != null) {
+                    out.name("data");
+                    out.beginArray();
+                    for (Object record : data) {
+                        writeRecord(out, record);
+                    }
+                    out.endArray();
+                } else if (out.getSerializeNulls()) {
+                    out.name("data").nullValue();
+                }
+                out.endObject();
+            }
+
+            private void writeRecord(final JsonWriter out, final Object record) throws IOException {
+                if (record == null) {
+                    out.nullValue();
+                } else if (record.getClass() == domainClass) {
+                    writer.write(out, (T) record, gson);
+                } else {
+                    ((TypeAdapter<Object>) gson.getAdapter(record.getClass())).write(out, record);
+                }
+            }
+
+            @Override
+            public DomainRecordDataBatch<?> read(final JsonReader in) throws IOException {
+                return (DomainRecordDataBatch<?>) delegate.read(in);
+            }
+        };
+    }
+}
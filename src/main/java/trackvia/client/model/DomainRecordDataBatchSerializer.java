@@ -31,6 +31,9 @@ import java.lang.reflect.Type;
  * because a) the internal "Record ID" field has a name that's not a legal Java identifier and b)
  * setting the internal "Record ID" is not a legal API operation.
  *
+ * The TrackviaClient itself writes batches with a {@link DomainRecordDataBatchAdapterFactory}, which produces
+ * the same JSON from accessors compiled for the domain class.
+ *
  * @see trackvia.client.model.TrackviaSerializationExclusionStrategy
  */
 public class DomainRecordDataBatchSerializer<T> implements JsonSerializer<DomainRecordDataBatch<T>> {
@@ -2,10 +2,11 @@ package trackvia.client.model;
 
 import com.google.gson.*;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
 
+import java.io.IOException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -82,13 +83,43 @@ public class DomainRecordDeserializer<T> extends DomainRecordDeserializerBase<T>
         final T data;
 
         // deserialize 'data' elements
-        final Map<String, FieldMetadata> fieldNameToFieldMetaMap = new HashMap<String, FieldMetadata>();
-        for (FieldMetadata fm : structure) {
-            final String normalizedName = fm.getName().toUpperCase();
-            fieldNameToFieldMetaMap.put(normalizedName, fm);
+        data = binderFor(structure).bind(dataObject);
+
+        return new DomainRecord<T>(structure, data);
+    }
+
+    /**
+     * Reads a record from the stream, binding it to a domain object as its tokens are read.  A record sent
+     * ahead of the structure describing it is held as a tree until the structure arrives.
+     */
+    public DomainRecord<T> read(final JsonReader in) throws IOException {
+        final RecordReader values = new RecordReader();
+        List<FieldMetadata> structure = null;
+        DomainRecordBinder<T> binder = null;
+        T data = null;
+        JsonObject dataObject = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            final String name = in.nextName();
+            if ("structure".equals(name)) {
+                structure = values.readStructure(in);
+                binder = binderFor(structure);
+            } else if ("data".equals(name) && binder == null) {
+                dataObject = new JsonParser().parse(in).getAsJsonObject();
+            } else if ("data".equals(name)) {
+                data = binder.read(in, values);
+            } else {
+                in.skipValue();
+            }
         }
+        in.endObject();
+
+        if (dataObject != null) {
+            if (binder == null) throw new JsonParseException("Record data has no structure");
 
-        data = deserializeDomainRecord(fieldNameToFieldMetaMap, dataObject);
+            data = binder.bind(dataObject);
+        }
 
         return new DomainRecord<T>(structure, data);
     }
@@ -3,13 +3,19 @@ package trackvia.client.model;
 import com.google.gson.*;
 
 import java.lang.reflect.Method;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.lang.reflect.Modifier;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
 
 public abstract class DomainRecordDeserializerBase<T> {
+    private static final int MAX_BINDERS = 64;
+
     protected Class<T> domainClass;
     protected Map<String, Method> methodNameToMethodIndex;
+    private Map<String, BiConsumer<Object, Object>> setterIndex;
+    private final ConcurrentMap<String, DomainRecordBinder<T>> binders = new ConcurrentHashMap<String, DomainRecordBinder<T>>();
 
     public DomainRecordDeserializerBase(Class<T> domainClass) {
         this.domainClass = domainClass;
@@ -19,6 +25,7 @@ public abstract class DomainRecordDeserializerBase<T> {
 
     protected void buildMethodIndex(Class<T> clazz) {
         this.methodNameToMethodIndex = new HashMap<String, Method>();
+        this.setterIndex = new HashMap<String, BiConsumer<Object, Object>>();
 
         for (Method method : clazz.getMethods()) {
             if (method.getName().startsWith("set") && method.getName().length() > "set".length()) {
@@ -28,17 +35,71 @@ public abstract class DomainRecordDeserializerBase<T> {
                 this.methodNameToMethodIndex.put(normalizedName, method);
             }
         }
+
+        for (Map.Entry<String, Method> entry : this.methodNameToMethodIndex.entrySet()) {
+            final Method method = entry.getValue();
+            if (method.getParameterTypes().length == 1 && !Modifier.isStatic(method.getModifiers())) {
+                this.setterIndex.put(entry.getKey(), Accessors.setter(method));
+            }
+        }
     }
 
-    protected T deserializeDomainRecord(final Map<String, FieldMetadata> fm, final JsonObject recordDataObject) {
-        final T recordData;
+    /**
+     * @return the compiled setter of a normalized field name, or null if the domain class has none
+     */
+    BiConsumer<Object, Object> setterFor(final String normalizedName) {
+        return this.setterIndex.get(normalizedName);
+    }
+
+    String setterNameFor(final String normalizedName) {
+        final Method m = this.methodNameToMethodIndex.get(normalizedName);
 
+        return (m == null) ? (null) : (m.getName());
+    }
+
+    /**
+     * @return the binder of records of the structure to the domain class, built on the structure's first use
+     */
+    DomainRecordBinder<T> binderFor(final List<FieldMetadata> structure) {
+        final StringBuilder key = new StringBuilder();
+        for (FieldMetadata fm : structure) {
+            key.append(fm.getName()).append('\u0000').append(fm.getTypeName()).append('\u0000');
+        }
+
+        final String signature = key.toString();
+        DomainRecordBinder<T> binder = this.binders.get(signature);
+        if (binder == null) {
+            // structures vary with the fields a user may read; don't let them pile up
+            if (this.binders.size() >= MAX_BINDERS) this.binders.clear();
+
+            binder = new DomainRecordBinder<T>(this, structure);
+            this.binders.putIfAbsent(signature, binder);
+        }
+
+        return binder;
+    }
+
+    protected Map<String, FieldMetadata> indexStructure(final List<FieldMetadata> structure) {
+        final Map<String, FieldMetadata> fieldNameToFieldMetaMap = new HashMap<String, FieldMetadata>();
+        for (FieldMetadata fm : structure) {
+            final String normalizedName = fm.getName().toUpperCase();
+            fieldNameToFieldMetaMap.put(normalizedName, fm);
+        }
+
+        return fieldNameToFieldMetaMap;
+    }
+
+    protected T newDomainRecord() {
         try {
-            recordData = this.domainClass.newInstance();
+            return this.domainClass.newInstance();
         } catch (Exception e) {
             throw new JsonParseException(String.format("Error creating a new instance of domain class: %s",
                     this.domainClass.getName()), e);
         }
+    }
+
+    protected T deserializeDomainRecord(final Map<String, FieldMetadata> fm, final JsonObject recordDataObject) {
+        final T recordData = newDomainRecord();
 
         // All other non-'id' fields.
         final Set<Map.Entry<String, JsonElement>> entries = recordDataObject.entrySet();
@@ -55,8 +116,11 @@ public abstract class DomainRecordDeserializerBase<T> {
     }
 
     protected Object deserialize(TrackviaDataType type, JsonElement jsonElement) {
+        return convert(type, deserialize(jsonElement));
+    }
+
+    protected Object convert(TrackviaDataType type, Object intermediateValue) {
         Object value = null;
-        Object intermediateValue = deserialize(jsonElement);
 
         // Any further transformation of the value happens next.
         switch (type) {
@@ -81,21 +145,17 @@ public abstract class DomainRecordDeserializerBase<T> {
                 break;
 
             case Date:
-            	SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-                try {
-                    value = sdf.parse((String) intermediateValue);
-                } catch (ParseException e) {
-                    throw new JsonParseException(String.format(
-                            "Error converting Trackvia Date value '%s' to java.util.Date", intermediateValue), e);
+                if (intermediateValue != null) {
+                    value = Iso8601.parseDate((String) intermediateValue);
+                    if (value == null) throw new JsonParseException(String.format(
+                            "Error converting Trackvia Date value '%s' to java.util.Date", intermediateValue));
                 }
                 break;
             case DateTime:
-                SimpleDateFormat sdfDatetime = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX");
-                try {
-                    value = sdfDatetime.parse((String) intermediateValue);
-                } catch (ParseException e) {
-                    throw new JsonParseException(String.format(
-                            "Error converting Trackvia DateTime value '%s' to java.util.Date", intermediateValue), e);
+                if (intermediateValue != null) {
+                    value = Iso8601.parseDateTime((String) intermediateValue);
+                    if (value == null) throw new JsonParseException(String.format(
+                            "Error converting Trackvia DateTime value '%s' to java.util.Date", intermediateValue));
                 }
                 break;
 
@@ -10,19 +10,38 @@ public class DomainRecordSet<T> {
 
     public DomainRecordSet() {}
 
+    /**
+     * Makes a record set of a copy of the structure and a list of its own of the domain objects; see
+     * {@link #wrap(List, List, int)} to take them over as they are.
+     */
     public DomainRecordSet(final List<FieldMetadata> structure, final List<T> data, final int totalCount) {
-        this.structure = new ArrayList<FieldMetadata>();
-        for (FieldMetadata fm : structure) {
-            this.structure.add(new FieldMetadata(fm.getName(), fm.getType().type(), fm.getRequired(), fm.getUnique(),
-                    fm.getChoices()));
-        }
-        this.data = new ArrayList<T>();
-        for (T rd : data) {
-            this.data.add(rd);
-        }
+        this.structure = FieldMetadata.copyOf(structure);
+        this.data = (data != null) ? (new ArrayList<T>(data)) : (null);
         this.totalCount = totalCount;
     }
 
+    /**
+     * Makes a record set of the structure and domain objects without copying them: the record set takes the
+     * lists over, and the caller shouldn't change them afterward.
+     */
+    public static <T> DomainRecordSet<T> wrap(final List<FieldMetadata> structure, final List<T> data,
+            final int totalCount) {
+        final DomainRecordSet<T> recordSet = new DomainRecordSet<T>();
+        recordSet.structure = structure;
+        recordSet.data = data;
+        recordSet.totalCount = totalCount;
+
+        return recordSet;
+    }
+
+    /**
+     * @return a copy of the record set with a structure and list of its own; the domain objects are the
+     * application's, and are shared rather than copied
+     */
+    public DomainRecordSet<T> copy() {
+        return new DomainRecordSet<T>(this.structure, this.data, this.totalCount);
+    }
+
     public List<FieldMetadata> getStructure() {
         return structure;
     }
@@ -2,11 +2,11 @@ package trackvia.client.model;
 
 import com.google.gson.*;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
 
+import java.io.IOException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.*;
 
 /**
@@ -77,16 +77,59 @@ public class DomainRecordSetDeserializer<T> extends DomainRecordDeserializerBase
         final List<T> data = new ArrayList<T>();
 
         // deserialize 'data' elements
-        final Map<String, FieldMetadata> fieldNameToFieldMetaMap = new HashMap<String, FieldMetadata>();
-        for (FieldMetadata fm : structure) {
-            final String normalizedName = fm.getName().toUpperCase();
-            fieldNameToFieldMetaMap.put(normalizedName, fm);
-        }
+        final DomainRecordBinder<T> binder = binderFor(structure);
 
         for (JsonElement recordJsonElement : dataArray) {
-            data.add(deserializeDomainRecord(fieldNameToFieldMetaMap, recordJsonElement.getAsJsonObject()));
+            data.add(binder.bind(recordJsonElement.getAsJsonObject()));
+        }
+
+        return DomainRecordSet.wrap(structure, data, recordCount);
+    }
+
+    /**
+     * Reads a record set from the stream, binding each record to a domain object as its tokens are read.
+     * Records sent ahead of the structure describing them are held as a tree until the structure arrives.
+     */
+    public DomainRecordSet<T> read(final JsonReader in) throws IOException {
+        final RecordReader values = new RecordReader();
+        List<FieldMetadata> structure = null;
+        DomainRecordBinder<T> binder = null;
+        List<T> data = null;
+        JsonArray dataArray = null;
+        int recordCount = 0;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            final String name = in.nextName();
+            if ("structure".equals(name)) {
+                structure = values.readStructure(in);
+                binder = binderFor(structure);
+            } else if ("data".equals(name) && binder == null) {
+                dataArray = new JsonParser().parse(in).getAsJsonArray();
+            } else if ("data".equals(name)) {
+                data = new ArrayList<T>();
+                in.beginArray();
+                while (in.hasNext()) {
+                    data.add(binder.read(in, values));
+                }
+                in.endArray();
+            } else if ("totalCount".equals(name)) {
+                recordCount = in.nextInt();
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (dataArray != null) {
+            if (binder == null) throw new JsonParseException("Record data has no structure");
+
+            data = new ArrayList<T>();
+            for (JsonElement recordJsonElement : dataArray) {
+                data.add(binder.bind(recordJsonElement.getAsJsonObject()));
+            }
         }
 
-        return new DomainRecordSet<T>(structure, data, recordCount);
+        return DomainRecordSet.wrap(structure, data, recordCount);
     }
 }
@@ -23,6 +23,36 @@ public class FieldMetadata {
         this.choices = new ArrayList<String>(choices);
     }
 
+    /**
+     * @return a copy of the field's metadata, with a list of choices of its own
+     */
+    public FieldMetadata copy() {
+        final FieldMetadata copy = new FieldMetadata();
+        copy.name = this.name;
+        copy.type = this.type;
+        copy.required = this.required;
+        copy.unique = this.unique;
+        copy.choices = (this.choices != null) ? (new ArrayList<String>(this.choices)) : (null);
+        copy.canRead = this.canRead;
+        copy.canUpdate = this.canUpdate;
+        copy.canCreate = this.canCreate;
+
+        return copy;
+    }
+
+    /**
+     * @return a copy of each field's metadata, or null if the structure is null
+     */
+    static List<FieldMetadata> copyOf(final List<FieldMetadata> structure) {
+        if (structure == null) return null;
+
+        final List<FieldMetadata> copy = new ArrayList<FieldMetadata>(structure.size());
+        for (FieldMetadata fm : structure) {
+            copy.add((fm != null) ? (fm.copy()) : (null));
+        }
+        return copy;
+    }
+
     public String getName() {
         return name;
     }
@@ -39,6 +69,14 @@ public class FieldMetadata {
         this.type = type.type();
     }
 
+    String getTypeName() {
+        return type;
+    }
+
+    void setTypeName(String type) {
+        this.type = type;
+    }
+
     public Boolean getRequired() {
         return required;
     }
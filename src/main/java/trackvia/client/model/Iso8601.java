@@ -0,0 +1,238 @@
+package trackvia.client.model;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.TimeZone;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Reads and writes Trackvia's DateTime ({@code yyyy-MM-dd'T'HH:mm:ss.SSSX}) and Date ({@code yyyy-MM-dd})
+ * values.
+ *
+ * Unlike {@link java.text.SimpleDateFormat}, the codec holds no state, so one is shared by every thread.
+ * Parsing works on the characters directly and reports a value that isn't a date by returning null, not by
+ * throwing - strings are tried as dates often, and most aren't.  Formatting fills a fixed-size buffer.
+ *
+ * DateTimes are written in UTC ({@code 2014-05-01T18:00:00.000Z}), and read with a zone offset of
+ * {@code Z}, {@code ±HH}, {@code ±HHmm} or {@code ±HH:mm}.  Dates are read and written as midnight in the
+ * default time zone, as {@code SimpleDateFormat} does.  Both use the proleptic Gregorian calendar.
+ */
+public final class Iso8601 {
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+    private static final int DATE_LENGTH = "yyyy-MM-dd".length();
+    private static final int DATE_TIME_LENGTH = "yyyy-MM-ddTHH:mm:ss.SSS".length();
+
+    private static final TypeAdapter<Date> DATE_TIME_ADAPTER = new TypeAdapter<Date>() {
+        @Override
+        public void write(final JsonWriter out, final Date value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+            } else {
+                out.value(formatDateTime(value));
+            }
+        }
+
+        @Override
+        public Date read(final JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            final String value = in.nextString();
+            final Date date = parseDateTime(value);
+            if (date == null) throw new JsonSyntaxException(String.format("Not an ISO-8601 date-time: '%s'", value));
+
+            return date;
+        }
+    };
+
+    private Iso8601() {}
+
+    /**
+     * @return a Gson adapter reading and writing dates as DateTimes
+     */
+    public static TypeAdapter<Date> dateTimeAdapter() {
+        return DATE_TIME_ADAPTER;
+    }
+
+    /**
+     * @param value a DateTime, e.g. {@code 2014-05-01T12:00:00.000-0600}
+     * @return the instant, or null if the value isn't a DateTime
+     */
+    public static Date parseDateTime(final CharSequence value) {
+        if (value == null || value.length() <= DATE_TIME_LENGTH) return null;
+
+        final long day = parseDay(value);
+        if (day == Long.MIN_VALUE || value.charAt(10) != 'T' || value.charAt(13) != ':' || value.charAt(16) != ':'
+                || value.charAt(19) != '.') return null;
+
+        final int hour = digits(value, 11, 2);
+        final int minute = digits(value, 14, 2);
+        final int second = digits(value, 17, 2);
+        final int millis = digits(value, 20, 3);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59 || millis < 0) return null;
+
+        final int offset = parseOffset(value, DATE_TIME_LENGTH);
+        if (offset == Integer.MIN_VALUE) return null;
+
+        return new Date(day * MILLIS_PER_DAY + ((hour * 60L + minute) * 60 + second) * 1000 + millis - offset);
+    }
+
+    /**
+     * @param value a Date, e.g. {@code 2014-05-01}; any time following it is ignored
+     * @return midnight of the date in the default time zone, or null if the value isn't a Date
+     */
+    public static Date parseDate(final CharSequence value) {
+        if (value == null || value.length() < DATE_LENGTH) return null;
+        if (value.length() > DATE_LENGTH && value.charAt(DATE_LENGTH) != 'T') return null;
+
+        final long day = parseDay(value);
+        if (day == Long.MIN_VALUE) return null;
+
+        final long utcMidnight = day * MILLIS_PER_DAY;
+        final TimeZone zone = TimeZone.getDefault();
+        long midnight = utcMidnight - zone.getOffset(utcMidnight - zone.getRawOffset());
+        final int offset = zone.getOffset(midnight);
+        if (utcMidnight - offset != midnight) midnight = utcMidnight - offset;
+
+        return new Date(midnight);
+    }
+
+    /**
+     * @return the instant as a DateTime in UTC
+     */
+    public static String formatDateTime(final Date date) {
+        final long millis = date.getTime();
+        final long day = Math.floorDiv(millis, MILLIS_PER_DAY);
+        final int millisOfDay = (int) Math.floorMod(millis, MILLIS_PER_DAY);
+        final char[] buffer = new char[DATE_TIME_LENGTH + 1];
+
+        formatDay(buffer, day);
+        buffer[10] = 'T';
+        write(buffer, 11, millisOfDay / 3600000, 2);
+        buffer[13] = ':';
+        write(buffer, 14, millisOfDay / 60000 % 60, 2);
+        buffer[16] = ':';
+        write(buffer, 17, millisOfDay / 1000 % 60, 2);
+        buffer[19] = '.';
+        write(buffer, 20, millisOfDay % 1000, 3);
+        buffer[23] = 'Z';
+
+        return new String(buffer);
+    }
+
+    /**
+     * @return the day of the instant in the default time zone, as a Date
+     */
+    public static String formatDate(final Date date) {
+        final long millis = date.getTime();
+        final long day = Math.floorDiv(millis + TimeZone.getDefault().getOffset(millis), MILLIS_PER_DAY);
+        final char[] buffer = new char[DATE_LENGTH];
+
+        formatDay(buffer, day);
+
+        return new String(buffer);
+    }
+
+    // days since 1970-01-01 of a yyyy-MM-dd prefix, or Long.MIN_VALUE if it isn't a valid date
+    private static long parseDay(final CharSequence value) {
+        if (value.charAt(4) != '-' || value.charAt(7) != '-') return Long.MIN_VALUE;
+
+        final int year = digits(value, 0, 4);
+        final int month = digits(value, 5, 2);
+        final int day = digits(value, 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) return Long.MIN_VALUE;
+
+        return daysFromCivil(year, month, day);
+    }
+
+    // offset in milliseconds of the zone designator filling the rest of the value, or Integer.MIN_VALUE
+    private static int parseOffset(final CharSequence value, final int start) {
+        final int length = value.length() - start;
+        final char sign = value.charAt(start);
+
+        if (sign == 'Z') return (length == 1) ? (0) : (Integer.MIN_VALUE);
+        if ((sign != '+' && sign != '-') || (length != 3 && length != 5 && length != 6)) return Integer.MIN_VALUE;
+
+        final int hours = digits(value, start + 1, 2);
+        int minutes = 0;
+        if (length == 5) {
+            minutes = digits(value, start + 3, 2);
+        } else if (length == 6) {
+            minutes = (value.charAt(start + 3) == ':') ? (digits(value, start + 4, 2)) : (-1);
+        }
+        if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59) return Integer.MIN_VALUE;
+
+        final int offset = (hours * 60 + minutes) * 60000;
+
+        return (sign == '-') ? (-offset) : (offset);
+    }
+
+    // the decimal number of count digits at start, or -1 if any of them isn't a digit
+    private static int digits(final CharSequence value, final int start, final int count) {
+        int result = 0;
+        for (int i = start; i < start + count; i++) {
+            final int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) return -1;
+            result = result * 10 + digit;
+        }
+
+        return result;
+    }
+
+    private static void write(final char[] buffer, final int start, int value, final int count) {
+        for (int i = start + count - 1; i >= start; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static void formatDay(final char[] buffer, final long days) {
+        // civil from days, after Howard Hinnant's algorithm
+        final long z = days + 719468;
+        final long era = Math.floorDiv(z, 146097);
+        final long dayOfEra = z - era * 146097;
+        final long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        final long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        final long mp = (5 * dayOfYear + 2) / 153;
+        final int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        final int month = (int) ((mp < 10) ? (mp + 3) : (mp - 9));
+        final long year = yearOfEra + era * 400 + ((month <= 2) ? (1) : (0));
+
+        write(buffer, 0, (int) Math.floorMod(year, 10000), 4);
+        buffer[4] = '-';
+        write(buffer, 5, month, 2);
+        buffer[7] = '-';
+        write(buffer, 8, day, 2);
+    }
+
+    private static long daysFromCivil(final int year, final int month, final int day) {
+        final int y = (month <= 2) ? (year - 1) : (year);
+        final int era = Math.floorDiv(y, 400);
+        final int yearOfEra = y - era * 400;
+        final int dayOfYear = (153 * ((month > 2) ? (month - 3) : (month + 9)) + 2) / 5 + day - 1;
+        final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+
+        return era * 146097L + dayOfEra - 719468;
+    }
+
+    private static int lengthOfMonth(final int year, final int month) {
+        switch (month) {
+            case 2:
+                return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? (29) : (28);
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+}
@@ -19,6 +19,13 @@ public class Record {
 		this.data = new RecordData(data);
 	}
 
+	/**
+	 * @return a copy of the record sharing none of its structure or mutable values with it
+	 */
+	public Record copy() {
+		return new Record(FieldMetadata.copyOf(this.structure), (this.data != null) ? (this.data.copy()) : (null));
+	}
+
 	public List<FieldMetadata> getStructure() {
 		return structure;
 	}
@@ -1,6 +1,10 @@
 package trackvia.client.model;
 
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class RecordData extends HashMap<String, Object> implements Identifiable {
     public RecordData() {}
@@ -9,12 +13,60 @@ public class RecordData extends HashMap<String, Object> implements Identifiable
         putAll(copy);
     }
 
+    /**
+     * @return a copy of the record sharing none of its mutable values - DateTimes, Dates, Points and lists -
+     * with it
+     */
+    public RecordData copy() {
+        final RecordData copy = new RecordData();
+        for (Map.Entry<String, Object> entry : entrySet()) {
+            copy.put(entry.getKey(), copyValue(entry.getValue()));
+        }
+        return copy;
+    }
+
+    static Object copyValue(final Object value) {
+        if (value instanceof Date) {
+            return new Date(((Date) value).getTime());
+        } else if (value instanceof Point) {
+            return new Point(((Point) value).getLatitude(), ((Point) value).getLongitude());
+        } else if (value instanceof List) {
+            List<Object> copy = new ArrayList<Object>(((List<?>) value).size());
+            for (Object element : (List<?>) value) {
+                copy.add(copyValue(element));
+            }
+            return copy;
+        }
+        return value;
+    }
+
     public Long getId() {
         String idString = get(Identifiable.INTERNAL_ID_FIELD_NAME).toString();
 
         return Long.valueOf(idString);
     }
 
+    /**
+     * @return the field's value as a long - the epoch milliseconds of a DateTime or Date - or 0 if it's null
+     * @throws ClassCastException if the value isn't a number, DateTime or Date
+     */
+    public long getLong(final String name) {
+        final Object value = get(name);
+        if (value instanceof Date) return ((Date) value).getTime();
+
+        return (value == null) ? (0L) : (((Number) value).longValue());
+    }
+
+    /**
+     * @return the field's value as a double, or 0 if it's null
+     * @throws ClassCastException if the value isn't a number
+     */
+    public double getDouble(final String name) {
+        final Object value = get(name);
+
+        return (value == null) ? (0.0) : (((Number) value).doubleValue());
+    }
+
     public void setId(Long id) {
         throw new IllegalArgumentException("Internal identifier values are assigned by the Trackvia Service");
     }
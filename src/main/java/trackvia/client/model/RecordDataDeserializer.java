@@ -1,10 +1,8 @@
 package trackvia.client.model;
 
 import java.lang.reflect.Type;
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -49,8 +47,6 @@ import com.google.gson.JsonPrimitive;
  */
 
 public class RecordDataDeserializer implements JsonDeserializer<RecordData> {
-    private DateFormat iso8601Formatter = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX");
-
     @Override
     public RecordData deserialize(JsonElement jsonElement, Type type, JsonDeserializationContext jsonDeserializationContext)
             throws JsonParseException {
@@ -98,11 +94,8 @@ public class RecordDataDeserializer implements JsonDeserializer<RecordData> {
         } else if (jsonPrimitive.isBoolean()) {
             result = jsonPrimitive.getAsBoolean();
         } else {
-            try {
-                result = this.iso8601Formatter.parse(stringValue);
-            } catch (ParseException e) {
-                result = stringValue;
-            }
+            Date date = Iso8601.parseDateTime(stringValue);
+            result = (date != null) ? (date) : (stringValue);
         }
 
         return result;
@@ -9,9 +9,9 @@ public class RecordDataSerializer implements JsonSerializer<RecordData> {
     public JsonElement serialize(RecordData recordData, Type type, JsonSerializationContext jsonSerializationContext) {
         JsonObject data = new JsonObject();
 
-        recordData.remove(Identifiable.INTERNAL_ID_FIELD_NAME);
-
         for (String key : recordData.keySet()) {
+            if (Identifiable.INTERNAL_ID_FIELD_NAME.equals(key)) continue;
+
             data.add(key, jsonSerializationContext.serialize(recordData.get(key)));
         }
 
@@ -0,0 +1,521 @@
+package trackvia.client.model;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Reads records token by token, straight from a JSON stream.
+ *
+ * Each structure entry, record and value is built once, as its tokens are read, rather than first parsed into
+ * a {@link com.google.gson.JsonElement} tree and then walked again.  Values are mapped to the Java types
+ * {@link RecordDataDeserializer} documents.
+ *
+ * By default the type of each value is guessed from the value itself: a whole number is read as a Long, a
+ * decimal one as a Double, and a string that parses as a DateTime as a Date.  A typed reader instead decodes
+ * each field as the type of its column in the structure says, with a decoder chosen once per column - so a
+ * ShortAnswer that happens to look like a date stays a String, and a Number is always a Double.  The record
+ * id is read as a Long either way.  Records read before any structure, or in a column the structure doesn't
+ * list, are guessed at.
+ *
+ * A compact reader reads each record after the structure as a {@link CompactRecordData}, its values in the
+ * slots of a schema shared by the response's records, and its numbers unboxed.
+ *
+ * A typed or compact reader reads records by the structure it read last: use one per response.  Any other
+ * reader holds no state, and may be shared by threads.
+ */
+public class RecordReader {
+    private final boolean typed;
+    private final boolean compact;
+    private RecordSchema schema;
+    private Decoder[] decoders;
+
+    /**
+     * Guesses the type of each value.
+     */
+    public RecordReader() {
+        this(false);
+    }
+
+    /**
+     * @param typed whether values are decoded by the type of their column in the structure, rather than
+     * guessed from the value
+     */
+    public RecordReader(final boolean typed) {
+        this(typed, false);
+    }
+
+    /**
+     * @param typed whether values are decoded by the type of their column in the structure, rather than
+     * guessed from the value
+     * @param compact whether records read after the structure are {@link CompactRecordData}, sharing its
+     * schema
+     */
+    public RecordReader(final boolean typed, final boolean compact) {
+        this.typed = typed;
+        this.compact = compact;
+    }
+
+    /**
+     * Reads a record set object: its structure, data and total count.
+     */
+    public RecordSet readRecordSet(final JsonReader in) throws IOException {
+        final RecordSet recordSet = new RecordSet();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            final String name = in.nextName();
+            if ("structure".equals(name)) {
+                recordSet.setStructure(readStructure(in));
+            } else if ("data".equals(name)) {
+                recordSet.setData(readRecordDataList(in));
+            } else if ("totalCount".equals(name)) {
+                recordSet.setTotalCount(in.nextInt());
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return recordSet;
+    }
+
+    /**
+     * Reads a record set object into columns, each value decoded by the type of its column.  Records read
+     * before the structure are guessed at, and added to their columns once it's read.
+     */
+    public ColumnarRecordSet readColumnarRecordSet(final JsonReader in) throws IOException {
+        ColumnarRecordSet recordSet = null;
+        List<RecordData> early = null;
+        int totalCount = 0;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            final String name = in.nextName();
+            if ("structure".equals(name) && recordSet == null) {
+                final List<FieldMetadata> structure = readStructure(in);
+                recordSet = new ColumnarRecordSet(
+                        (structure != null) ? (structure) : (new ArrayList<FieldMetadata>()));
+            } else if ("data".equals(name) && recordSet == null) {
+                early = readRecordDataList(in);
+            } else if ("data".equals(name) && !skipNull(in)) {
+                in.beginArray();
+                while (in.hasNext()) {
+                    recordSet.read(in);
+                }
+                in.endArray();
+            } else if ("totalCount".equals(name)) {
+                totalCount = in.nextInt();
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (recordSet == null) recordSet = new ColumnarRecordSet(new ArrayList<FieldMetadata>());
+        if (early != null) {
+            for (RecordData rd : early) {
+                recordSet.add((rd != null) ? (rd) : (new RecordData()));
+            }
+        }
+        recordSet.setTotalCount(totalCount);
+        recordSet.trimToSize();
+
+        return recordSet;
+    }
+
+    /**
+     * Reads a record object: its structure and data.
+     */
+    public Record readRecord(final JsonReader in) throws IOException {
+        final Record record = new Record();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            final String name = in.nextName();
+            if ("structure".equals(name)) {
+                record.setStructure(readStructure(in));
+            } else if ("data".equals(name)) {
+                record.setData(readRecordData(in));
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return record;
+    }
+
+    /**
+     * Reads an array of field metadata.
+     */
+    public List<FieldMetadata> readStructure(final JsonReader in) throws IOException {
+        if (skipNull(in)) return null;
+
+        final List<FieldMetadata> structure = new ArrayList<FieldMetadata>();
+        in.beginArray();
+        while (in.hasNext()) {
+            structure.add(readFieldMetadata(in));
+        }
+        in.endArray();
+
+        if (this.typed || this.compact) this.schema = RecordSchema.of(structure);
+        if (this.typed) this.decoders = decoders(structure);
+
+        return structure;
+    }
+
+    /**
+     * Reads one record's fields into a map.
+     */
+    public RecordData readRecordData(final JsonReader in) throws IOException {
+        if (skipNull(in)) return null;
+
+        final RecordSchema schema = this.schema;
+        final Decoder[] decoders = this.decoders;
+        final CompactRecordData row = (this.compact && schema != null) ? (new CompactRecordData(schema)) : (null);
+        final RecordData rd = (row != null) ? (row) : (new RecordData());
+        int next = 0;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            final String fieldName = in.nextName();
+            final int column = (schema == null) ? (-1) : (schema.indexOf(fieldName, next));
+            if (column < 0) {
+                rd.put(fieldName, readValue(in));
+                continue;
+            }
+
+            final Decoder decoder = (decoders == null) ? (null) : (decoders[column]);
+            if (row != null) {
+                readInto(in, row, column, decoder);
+            } else {
+                rd.put(fieldName, decoder.read(in));
+            }
+            next = column + 1;
+        }
+        in.endObject();
+
+        return rd;
+    }
+
+    /**
+     * Reads a field value, mapped as {@link RecordDataDeserializer} maps it.
+     */
+    public Object readValue(final JsonReader in) throws IOException {
+        return readValue(in, true);
+    }
+
+    /**
+     * @param dates whether a string is read as a date when it parses as one
+     */
+    Object readValue(final JsonReader in, final boolean dates) throws IOException {
+        return readGuessed(in, dates);
+    }
+
+    static Object readGuessed(final JsonReader in, final boolean dates) throws IOException {
+        switch (in.peek()) {
+            case NUMBER:
+                return readNumber(in.nextString());
+            case BOOLEAN:
+                return in.nextBoolean();
+            case STRING:
+                return (dates) ? (readDateOrString(in.nextString())) : (in.nextString());
+            case BEGIN_ARRAY:
+                final List<Object> values = new ArrayList<Object>();
+                in.beginArray();
+                while (in.hasNext()) {
+                    values.add(readGuessed(in, dates));
+                }
+                in.endArray();
+                return values;
+            case BEGIN_OBJECT:
+                return readPoint(in);
+            case NULL:
+                in.nextNull();
+                return null;
+            default:
+                throw new JsonParseException(String.format("Unexpected %s in record data", in.peek()));
+        }
+    }
+
+    private List<RecordData> readRecordDataList(final JsonReader in) throws IOException {
+        if (skipNull(in)) return null;
+
+        final List<RecordData> data = new ArrayList<RecordData>();
+        in.beginArray();
+        while (in.hasNext()) {
+            data.add(readRecordData(in));
+        }
+        in.endArray();
+
+        return data;
+    }
+
+    private FieldMetadata readFieldMetadata(final JsonReader in) throws IOException {
+        final FieldMetadata fm = new FieldMetadata();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            final String name = in.nextName();
+            if (skipNull(in)) continue;
+
+            if ("name".equals(name)) {
+                fm.setName(in.nextString());
+            } else if ("type".equals(name)) {
+                fm.setTypeName(in.nextString());
+            } else if ("required".equals(name)) {
+                fm.setRequired(in.nextBoolean());
+            } else if ("unique".equals(name)) {
+                fm.setUnique(in.nextBoolean());
+            } else if ("choices".equals(name)) {
+                fm.setChoices(readStrings(in));
+            } else if ("canRead".equals(name)) {
+                fm.setCanRead(in.nextBoolean());
+            } else if ("canUpdate".equals(name)) {
+                fm.setCanUpdate(in.nextBoolean());
+            } else if ("canCreate".equals(name)) {
+                fm.setCanCreate(in.nextBoolean());
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return fm;
+    }
+
+    private List<String> readStrings(final JsonReader in) throws IOException {
+        final List<String> strings = new ArrayList<String>();
+
+        in.beginArray();
+        while (in.hasNext()) {
+            if (skipNull(in)) {
+                strings.add(null);
+            } else {
+                strings.add(in.nextString());
+            }
+        }
+        in.endArray();
+
+        return strings;
+    }
+
+    // numbers go into the record's slots unboxed
+    private static void readInto(final JsonReader in, final CompactRecordData row, final int slot,
+            final Decoder decoder) throws IOException {
+        final boolean numeric = (decoder == null || decoder == Decoder.WHOLE_NUMBER
+                || decoder == Decoder.DECIMAL_NUMBER || decoder == Decoder.GUESSED);
+
+        if (!numeric || in.peek() != JsonToken.NUMBER) {
+            row.set(slot, (decoder == null) ? (readGuessed(in, true)) : (decoder.read(in)));
+            return;
+        }
+
+        final String literal = in.nextString();
+        if (decoder != Decoder.DECIMAL_NUMBER && isWholeNumber(literal)) {
+            try {
+                row.setLong(slot, Long.parseLong(literal));
+                return;
+            } catch (NumberFormatException e) {
+                // too large for a long
+            }
+        }
+        row.setDouble(slot, Double.parseDouble(literal));
+    }
+
+    private static Point readPoint(final JsonReader in) throws IOException {
+        Double latitude = null;
+        Double longitude = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            final String name = in.nextName();
+            if ("latitude".equals(name)) {
+                latitude = in.nextDouble();
+            } else if ("longitude".equals(name)) {
+                longitude = in.nextDouble();
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (latitude == null || longitude == null) {
+            throw new JsonParseException("A point needs both a latitude and a longitude");
+        }
+
+        return new Point(latitude, longitude);
+    }
+
+    // JSON doesn't tell integer and decimal numbers apart.  Read a number as a Long when it's written as one.
+    static Object readNumber(final String literal) {
+        if (!isWholeNumber(literal)) return Double.parseDouble(literal);
+
+        try {
+            return Long.parseLong(literal);
+        } catch (NumberFormatException e) {
+            return Double.parseDouble(literal);
+        }
+    }
+
+    private static boolean isWholeNumber(final String literal) {
+        for (int i = 0; i < literal.length(); i++) {
+            final char c = literal.charAt(i);
+            if (c == '.' || c == 'e' || c == 'E') return false;
+        }
+
+        return true;
+    }
+
+    private static Object readDateOrString(final String stringValue) {
+        final Date date = Iso8601.parseDateTime(stringValue);
+
+        return (date != null) ? (date) : (stringValue);
+    }
+
+    private static Decoder[] decoders(final List<FieldMetadata> structure) {
+        final Decoder[] decoders = new Decoder[structure.size()];
+        for (int column = 0; column < decoders.length; column++) {
+            decoders[column] = Decoder.of(structure.get(column));
+        }
+
+        return decoders;
+    }
+
+    /**
+     * Decodes the values of a column of one Trackvia type.  A value of an unexpected JSON type is guessed at.
+     */
+    enum Decoder {
+        TEXT {
+            @Override
+            Object decode(final JsonReader in, final JsonToken token) throws IOException {
+                return (token == JsonToken.STRING || token == JsonToken.NUMBER)
+                        ? (in.nextString()) : (readGuessed(in, false));
+            }
+        },
+        WHOLE_NUMBER {
+            @Override
+            Object decode(final JsonReader in, final JsonToken token) throws IOException {
+                return (token == JsonToken.NUMBER) ? (readNumber(in.nextString())) : (readGuessed(in, false));
+            }
+        },
+        DECIMAL_NUMBER {
+            @Override
+            Object decode(final JsonReader in, final JsonToken token) throws IOException {
+                return (token == JsonToken.NUMBER) ? (in.nextDouble()) : (readGuessed(in, false));
+            }
+        },
+        DATE_TIME {
+            @Override
+            Object decode(final JsonReader in, final JsonToken token) throws IOException {
+                if (token != JsonToken.STRING) return readGuessed(in, false);
+
+                final String value = in.nextString();
+                final Date date = Iso8601.parseDateTime(value);
+
+                return (date != null) ? (date) : (value);
+            }
+        },
+        DATE {
+            @Override
+            Object decode(final JsonReader in, final JsonToken token) throws IOException {
+                if (token != JsonToken.STRING) return readGuessed(in, false);
+
+                final String value = in.nextString();
+                final Date date = Iso8601.parseDate(value);
+
+                return (date != null) ? (date) : (value);
+            }
+        },
+        CHOICES {
+            @Override
+            Object decode(final JsonReader in, final JsonToken token) throws IOException {
+                if (token != JsonToken.BEGIN_ARRAY) return TEXT.decode(in, token);
+
+                final List<Object> values = new ArrayList<Object>();
+                in.beginArray();
+                while (in.hasNext()) {
+                    final JsonToken element = in.peek();
+                    if (element == JsonToken.NULL) {
+                        in.nextNull();
+                        values.add(null);
+                    } else {
+                        values.add(TEXT.decode(in, element));
+                    }
+                }
+                in.endArray();
+
+                return values;
+            }
+        },
+        POINT {
+            @Override
+            Object decode(final JsonReader in, final JsonToken token) throws IOException {
+                return (token == JsonToken.BEGIN_OBJECT) ? (readPoint(in)) : (readGuessed(in, false));
+            }
+        },
+        GUESSED {
+            @Override
+            Object decode(final JsonReader in, final JsonToken token) throws IOException {
+                return readGuessed(in, true);
+            }
+        };
+
+        final Object read(final JsonReader in) throws IOException {
+            final JsonToken token = in.peek();
+            if (token == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            return decode(in, token);
+        }
+
+        abstract Object decode(JsonReader in, JsonToken token) throws IOException;
+
+        // the record id is a whole number whatever its column says
+        static Decoder of(final FieldMetadata fm) {
+            return (Identifiable.INTERNAL_ID_FIELD_NAME.equals(fm.getName())) ? (WHOLE_NUMBER) : (of(fm.getType()));
+        }
+
+        static Decoder of(final TrackviaDataType type) {
+            if (type == null) return GUESSED;
+
+            switch (type) {
+                case DateTime:
+                    return DATE_TIME;
+                case Date:
+                    return DATE;
+                case Identifier:
+                case AutoIncrement:
+                case Document:
+                case Image:
+                    return WHOLE_NUMBER;
+                case Number:
+                case Percentage:
+                case Currency:
+                    return DECIMAL_NUMBER;
+                case DropDown:
+                case CheckBox:
+                    return CHOICES;
+                case Point:
+                    return POINT;
+                default:
+                    return TEXT;
+            }
+        }
+    }
+
+    private static boolean skipNull(final JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.NULL) return false;
+
+        in.nextNull();
+        return true;
+    }
+}
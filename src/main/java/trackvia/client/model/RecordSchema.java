@@ -0,0 +1,70 @@
+package trackvia.client.model;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The field names of a record structure, each given a slot: its position in the structure.
+ *
+ * A schema is immutable, and shared by every {@link CompactRecordData} read from one response, so the rows
+ * hold only their values.
+ */
+public final class RecordSchema {
+    private final String[] names;
+    private final Map<String, Integer> slots;
+
+    private RecordSchema(final String[] names) {
+        this.names = names;
+        this.slots = new HashMap<String, Integer>();
+
+        // a name listed twice is found at its first slot
+        for (int slot = names.length - 1; slot >= 0; slot--) {
+            if (names[slot] != null) this.slots.put(names[slot], slot);
+        }
+    }
+
+    /**
+     * @return the schema of the structure's fields, in order
+     */
+    public static RecordSchema of(final List<FieldMetadata> structure) {
+        if (structure == null) throw new IllegalArgumentException("A record schema needs a structure");
+
+        final String[] names = new String[structure.size()];
+        for (int slot = 0; slot < names.length; slot++) {
+            names[slot] = structure.get(slot).getName();
+        }
+
+        return new RecordSchema(names);
+    }
+
+    /**
+     * @return the number of slots
+     */
+    public int size() {
+        return this.names.length;
+    }
+
+    /**
+     * @return the name of the field in the slot
+     */
+    public String name(final int slot) {
+        return this.names[slot];
+    }
+
+    /**
+     * @return the slot of the named field, or -1 if the schema doesn't list it
+     */
+    public int indexOf(final Object name) {
+        final Integer slot = this.slots.get(name);
+
+        return (slot == null) ? (-1) : (slot);
+    }
+
+    // records list their fields in structure order; look a field up only when it's out of order
+    int indexOf(final String name, final int next) {
+        if (next < this.names.length && name.equals(this.names[next])) return next;
+
+        return indexOf(name);
+    }
+}
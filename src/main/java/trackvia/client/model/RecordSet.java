@@ -10,17 +10,50 @@ public class RecordSet {
 
     public RecordSet() {}
 
+    /**
+     * Makes a record set of copies of the structure and records, the records sharing their values with the
+     * originals; see {@link #wrap(List, List, int)} to take them over as they are, and {@link #copy()} to copy
+     * the values too.
+     */
     public RecordSet(final List<FieldMetadata> structure, final List<RecordData> data, final int totalCount) {
-        this.structure = new ArrayList<FieldMetadata>();
-        for (FieldMetadata fm : structure) {
-            this.structure.add(new FieldMetadata(fm.getName(), fm.getType().type(), fm.getRequired(), fm.getUnique(),
-                    fm.getChoices()));
-        }
-        this.data = new ArrayList<RecordData>();
+        this.structure = FieldMetadata.copyOf(structure);
+        this.data = copyOf(data, false);
+        this.totalCount = totalCount;
+    }
+
+    /**
+     * Makes a record set of the structure and data without copying them: the record set takes the lists over,
+     * and the caller shouldn't change them afterward.
+     */
+    public static RecordSet wrap(final List<FieldMetadata> structure, final List<RecordData> data,
+            final int totalCount) {
+        final RecordSet recordSet = new RecordSet();
+        recordSet.structure = structure;
+        recordSet.data = data;
+        recordSet.totalCount = totalCount;
+
+        return recordSet;
+    }
+
+    /**
+     * @return a copy of the record set sharing none of its structure, records or mutable record values with it
+     */
+    public RecordSet copy() {
+        return wrap(FieldMetadata.copyOf(this.structure), copyOf(this.data, true), this.totalCount);
+    }
+
+    private static List<RecordData> copyOf(final List<RecordData> data, final boolean values) {
+        if (data == null) return null;
+
+        final List<RecordData> copy = new ArrayList<RecordData>(data.size());
         for (RecordData rd : data) {
-            this.data.add(new RecordData(rd));
+            if (rd == null) {
+                copy.add(null);
+            } else {
+                copy.add((values) ? (rd.copy()) : ((RecordData) rd.clone()));
+            }
         }
-        this.totalCount = totalCount;
+        return copy;
     }
 
     public RecordDataBatch asBatch() {
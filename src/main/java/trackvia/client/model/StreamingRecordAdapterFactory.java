@@ -0,0 +1,180 @@
+package trackvia.client.model;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Lets Gson read record sets and records token by token, as the response streams in.
+ *
+ * Registered with a Gson, {@link RecordSet} and {@link Record} are read by a {@link RecordReader}, typed or
+ * not, a {@link ColumnarRecordSet} straight into its columns, and the {@link DomainRecordSet} and
+ * {@link DomainRecord} of a domain class by its deserializers' streaming reads.  Writing these types is left
+ * to Gson; a columnar record set is written as the {@link RecordSet} it holds.
+ *
+ * <pre>
+ * {@code
+ *      Gson gson = new GsonBuilder()
+ *              .registerTypeAdapterFactory(StreamingRecordAdapterFactory.forDomainClass(Contact.class))
+ *              .create();
+ * }
+ * </pre>
+ */
+public class StreamingRecordAdapterFactory implements TypeAdapterFactory {
+    private final boolean typed;
+    private final boolean compact;
+    private final Class<?> domainClass;
+    private final DomainRecordSetDeserializer<?> recordSetDeserializer;
+    private final DomainRecordDeserializer<?> recordDeserializer;
+
+    /**
+     * Reads {@link RecordSet} and {@link Record} only.
+     */
+    public StreamingRecordAdapterFactory() {
+        this(false);
+    }
+
+    /**
+     * Reads {@link RecordSet} and {@link Record} only.
+     *
+     * @param typed whether record values are decoded by the type of their column in the structure
+     * @see RecordReader#RecordReader(boolean)
+     */
+    public StreamingRecordAdapterFactory(final boolean typed) {
+        this(typed, false);
+    }
+
+    /**
+     * Reads {@link RecordSet} and {@link Record} only.
+     *
+     * @param typed whether record values are decoded by the type of their column in the structure
+     * @param compact whether records are read as {@link CompactRecordData}
+     * @see RecordReader#RecordReader(boolean, boolean)
+     */
+    public StreamingRecordAdapterFactory(final boolean typed, final boolean compact) {
+        this(typed, compact, null, null, null);
+    }
+
+    private StreamingRecordAdapterFactory(final boolean typed, final boolean compact, final Class<?> domainClass,
+            final DomainRecordSetDeserializer<?> recordSetDeserializer,
+            final DomainRecordDeserializer<?> recordDeserializer) {
+        this.typed = typed;
+        this.compact = compact;
+        this.domainClass = domainClass;
+        this.recordSetDeserializer = recordSetDeserializer;
+        this.recordDeserializer = recordDeserializer;
+    }
+
+    /**
+     * Reads {@link RecordSet} and {@link Record}, and the {@link DomainRecordSet} and {@link DomainRecord} of
+     * the domain class.
+     */
+    public static <T> StreamingRecordAdapterFactory forDomainClass(final Class<T> domainClass) {
+        return new StreamingRecordAdapterFactory(false, false, domainClass,
+                new DomainRecordSetDeserializer<T>(domainClass), new DomainRecordDeserializer<T>(domainClass));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <X> TypeAdapter<X> create(final Gson gson, final TypeToken<X> typeToken) {
+        final Class<? super X> rawType = typeToken.getRawType();
+
+        if (rawType == RecordSet.class) {
+            return streaming(gson, typeToken, new Read<X>() {
+                @Override
+                public X read(final JsonReader in) throws IOException {
+                    return (X) new RecordReader(typed, compact).readRecordSet(in);
+                }
+            });
+        }
+        if (rawType == Record.class) {
+            return streaming(gson, typeToken, new Read<X>() {
+                @Override
+                public X read(final JsonReader in) throws IOException {
+                    return (X) new RecordReader(typed, compact).readRecord(in);
+                }
+            });
+        }
+        if (rawType == ColumnarRecordSet.class) {
+            return (TypeAdapter<X>) columnar(gson);
+        }
+        if (rawType == DomainRecordSet.class && isOfDomainClass(typeToken.getType())) {
+            return streaming(gson, typeToken, new Read<X>() {
+                @Override
+                public X read(final JsonReader in) throws IOException {
+                    return (X) recordSetDeserializer.read(in);
+                }
+            });
+        }
+        if (rawType == DomainRecord.class && isOfDomainClass(typeToken.getType())) {
+            return streaming(gson, typeToken, new Read<X>() {
+                @Override
+                public X read(final JsonReader in) throws IOException {
+                    return (X) recordDeserializer.read(in);
+                }
+            });
+        }
+
+        return null;
+    }
+
+    private boolean isOfDomainClass(final Type type) {
+        return (this.domainClass != null && type instanceof ParameterizedType
+                && ((ParameterizedType) type).getActualTypeArguments()[0] == this.domainClass);
+    }
+
+    private <X> TypeAdapter<X> streaming(final Gson gson, final TypeToken<X> typeToken, final Read<X> read) {
+        final TypeAdapter<X> delegate = gson.getDelegateAdapter(this, typeToken);
+
+        return new TypeAdapter<X>() {
+            @Override
+            public void write(final JsonWriter out, final X value) throws IOException {
+                delegate.write(out, value);
+            }
+
+            @Override
+            public X read(final JsonReader in) throws IOException {
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    return null;
+                }
+
+                return read.read(in);
+            }
+        };
+    }
+
+    // written as the record set it holds, so it reads back as one
+    private TypeAdapter<ColumnarRecordSet> columnar(final Gson gson) {
+        final TypeAdapter<RecordSet> recordSets = gson.getAdapter(RecordSet.class);
+
+        return new TypeAdapter<ColumnarRecordSet>() {
+            @Override
+            public void write(final JsonWriter out, final ColumnarRecordSet value) throws IOException {
+                recordSets.write(out, (value != null) ? (value.toRecordSet()) : (null));
+            }
+
+            @Override
+            public ColumnarRecordSet read(final JsonReader in) throws IOException {
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    return null;
+                }
+
+                return new RecordReader().readColumnarRecordSet(in);
+            }
+        };
+    }
+
+    private interface Read<X> {
+        X read(JsonReader in) throws IOException;
+    }
+}
@@ -0,0 +1,52 @@
+package trackvia.client;
+
+import org.junit.After;
+import org.junit.Before;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base of tests running clients against a {@link LoopbackTransport}: each test gets a fresh transport, and
+ * the clients it creates are shut down after it.
+ */
+public abstract class LoopbackTestBase {
+    protected LoopbackTransport transport;
+    private final List<TrackviaClient> clients = new ArrayList<TrackviaClient>();
+
+    @Before
+    public void setUpTransport() throws Exception {
+        transport = new LoopbackTransport();
+    }
+
+    @After
+    public void shutDownClients() throws Exception {
+        for (TrackviaClient client : clients) client.shutdown();
+        clients.clear();
+    }
+
+    /**
+     * Creates a client on the transport, already holding an access token.
+     */
+    protected TrackviaClient newClient() {
+        return newClient(TrackviaClientConfig.DEFAULT);
+    }
+
+    protected TrackviaClient newClient(final TrackviaClientConfig config) {
+        return track(TrackviaClient.create(transport, "localhost", "loopback-access-token", "", "http", 80,
+                "loopback-user-key", config));
+    }
+
+    /**
+     * Creates a client on the transport that authenticates with a password, so needs /oauth/token answered.
+     */
+    protected TrackviaClient newPasswordClient(final TrackviaClientConfig config) {
+        return track(TrackviaClient.create(transport, "", "http", "localhost", 80,
+                "loopback-user", "loopback-password", "loopback-user-key", config));
+    }
+
+    private TrackviaClient track(final TrackviaClient client) {
+        clients.add(client);
+        return client;
+    }
+}
@@ -0,0 +1,73 @@
+package trackvia.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A local HTTP stand-in for the Trackvia Service, for tests that need real sockets and
+ * connection pooling instead of a mocked http client.
+ */
+public class StubTrackviaService {
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public static StubTrackviaService start() throws IOException {
+        StubTrackviaService service = new StubTrackviaService();
+        service.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        service.executor = Executors.newCachedThreadPool();
+        service.server.setExecutor(service.executor);
+        service.server.start();
+
+        return service;
+    }
+
+    public void stop() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+
+    public int getPort() {
+        return this.server.getAddress().getPort();
+    }
+
+    /**
+     * Creates a client for this service, already holding an access token.
+     */
+    public TrackviaClient newClient() {
+        return newClient(TrackviaClientConfig.DEFAULT);
+    }
+
+    public TrackviaClient newClient(final TrackviaClientConfig config) {
+        return TrackviaClient.create("localhost", "stub-access-token", "", "http", getPort(), "stub-user-key", config);
+    }
+
+    public void handle(final String path, final HttpHandler handler) {
+        this.server.createContext(path, handler);
+    }
+
+    public void respond(final String path, final int statusCode, final String json) {
+        handle(path, new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                send(exchange, statusCode, json);
+            }
+        });
+    }
+
+    public static void send(final HttpExchange exchange, final int statusCode, final String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(statusCode, (body.length == 0) ? (-1) : (body.length));
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package trackvia.client;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import trackvia.client.model.ApiError;
+import trackvia.client.model.ApiErrorResponse;
+import trackvia.client.model.OAuth2Token;
+import trackvia.client.model.RecordSet;
+
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static trackvia.client.TestData.*;
+
+public class TrackviaAsyncClientUnitTest {
+    Gson gson = new GsonBuilder().setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX").create();
+
+    StubTrackviaService service;
+    TrackviaClient client;
+    TrackviaAsyncClient asyncClient;
+
+    @Before
+    public void setUp() throws Exception {
+        service = StubTrackviaService.start();
+        client = service.newClient();
+        asyncClient = TrackviaAsyncClient.create(client);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        asyncClient.shutdown();
+        client.shutdown();
+        service.stop();
+    }
+
+    @Test
+    public void testGetRecords() throws Exception {
+        service.respond("/openapi/views/1", 200, gson.toJson(Unit.getUnitTestRecordSet1()));
+
+        RecordSet rsResponse = asyncClient.getRecords(1).get(5, TimeUnit.SECONDS);
+
+        Assert.assertNotNull(rsResponse);
+        Assert.assertEquals(2, rsResponse.getTotalCount());
+        Assert.assertEquals(2, rsResponse.getData().size());
+    }
+
+    @Test
+    public void testRefreshesTokenOnInvalidToken() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final ApiErrorResponse invalidToken = new ApiErrorResponse();
+        invalidToken.setError(ApiError.InvalidToken.code());
+        final OAuth2Token token = new OAuth2Token();
+        token.setValue("refreshed-access-token");
+
+        service.handle("/openapi/views/1", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                if (calls.getAndIncrement() == 0) {
+                    StubTrackviaService.send(exchange, 401, gson.toJson(invalidToken));
+                } else {
+                    StubTrackviaService.send(exchange, 200, gson.toJson(Unit.getUnitTestRecordSet1()));
+                }
+            }
+        });
+        service.respond("/oauth/token", 200, gson.toJson(token));
+
+        RecordSet rsResponse = asyncClient.getRecords(1).get(5, TimeUnit.SECONDS);
+
+        Assert.assertEquals(2, rsResponse.getData().size());
+        Assert.assertEquals(2, calls.get());
+        Assert.assertEquals("refreshed-access-token", client.getAccessToken());
+    }
+
+    @Test
+    public void testApiErrorFailsFuture() throws Exception {
+        ApiErrorResponse invalidGrant = new ApiErrorResponse();
+        invalidGrant.setError(ApiError.InvalidGrant.code());
+        service.respond("/openapi/views/1", 401, gson.toJson(invalidGrant));
+        service.respond("/oauth/token", 401, gson.toJson(invalidGrant));
+
+        try {
+            asyncClient.getRecords(1).get(5, TimeUnit.SECONDS);
+            Assert.fail("getRecords shouldn't have succeeded");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof TrackviaApiException);
+            Assert.assertEquals(ApiError.InvalidGrant, ((TrackviaApiException) e.getCause()).getApiError());
+        }
+    }
+
+    @Test
+    public void testCancelAbortsInFlightRequest() throws Exception {
+        final CountDownLatch requestReceived = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        service.handle("/openapi/views/2", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                requestReceived.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                StubTrackviaService.send(exchange, 200, gson.toJson(Unit.getUnitTestRecordSet1()));
+            }
+        });
+        service.respond("/openapi/views/1", 200, gson.toJson(Unit.getUnitTestRecordSet1()));
+
+        CompletableFuture<RecordSet> pending = asyncClient.getRecords(2);
+        Assert.assertTrue(requestReceived.await(5, TimeUnit.SECONDS));
+
+        Assert.assertTrue(pending.cancel(true));
+        release.countDown();
+
+        try {
+            pending.get(5, TimeUnit.SECONDS);
+            Assert.fail("a cancelled call shouldn't complete");
+        } catch (CancellationException e) {
+            // expected
+        }
+
+        // the client stays usable after an aborted exchange
+        Assert.assertEquals(2, asyncClient.getRecords(1).get(5, TimeUnit.SECONDS).getData().size());
+    }
+
+    @Test
+    public void testCallTimeoutAbortsInFlightRequest() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        service.handle("/openapi/views/2", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                StubTrackviaService.send(exchange, 200, gson.toJson(Unit.getUnitTestRecordSet1()));
+            }
+        });
+        service.respond("/openapi/views/1", 200, gson.toJson(Unit.getUnitTestRecordSet1()));
+
+        TrackviaClient timedClient = service.newClient(TrackviaClientConfig.custom().setCallTimeoutMillis(200L).build());
+        TrackviaAsyncClient timedAsyncClient = TrackviaAsyncClient.create(timedClient);
+        try {
+            long startNanos = System.nanoTime();
+            try {
+                timedAsyncClient.getRecords(2).get(5, TimeUnit.SECONDS);
+                Assert.fail("a call outliving its timeout shouldn't complete");
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof TrackviaDeadlineExceededException);
+                Assert.assertEquals(200L, ((TrackviaDeadlineExceededException) e.getCause()).getTimeoutMillis());
+            }
+            Assert.assertTrue(System.nanoTime() - startNanos < TimeUnit.SECONDS.toNanos(2));
+            release.countDown();
+
+            // the client stays usable after an aborted exchange
+            Assert.assertEquals(2, timedAsyncClient.getRecords(1).get(5, TimeUnit.SECONDS).getData().size());
+        } finally {
+            release.countDown();
+            timedAsyncClient.shutdown();
+            timedClient.shutdown();
+        }
+    }
+
+    @Test
+    public void testCallerDeadlineBoundsAsyncCall() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        service.handle("/openapi/views/2", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                StubTrackviaService.send(exchange, 200, gson.toJson(Unit.getUnitTestRecordSet1()));
+            }
+        });
+
+        try {
+            CompletableFuture<RecordSet> pending = client.withTimeout(100L, TimeUnit.MILLISECONDS,
+                    () -> asyncClient.getRecords(2));
+            pending.get(5, TimeUnit.SECONDS);
+            Assert.fail("a call outliving its deadline shouldn't complete");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof TrackviaDeadlineExceededException);
+        } finally {
+            release.countDown();
+        }
+    }
+}
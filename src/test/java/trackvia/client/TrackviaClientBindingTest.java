@@ -0,0 +1,170 @@
+package trackvia.client;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import trackvia.client.model.DomainRecord;
+import trackvia.client.model.DomainRecordDeserializer;
+import trackvia.client.model.DomainRecordSet;
+import trackvia.client.model.DomainRecordSetDeserializer;
+import trackvia.client.model.DomainRecordSetType;
+import trackvia.client.model.DomainRecordType;
+import trackvia.client.model.Identifiable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static trackvia.client.TestData.*;
+
+public class TrackviaClientBindingTest {
+    private static final String STRUCTURE = "\"structure\":["
+            + "{\"name\":\"id\",\"type\":\"number\",\"choices\":[]},"
+            + "{\"name\":\"ContactName\",\"type\":\"shortAnswer\",\"choices\":[]},"
+            + "{\"name\":\"Visits\",\"type\":\"number\",\"choices\":[]},"
+            + "{\"name\":\"Notes\",\"type\":\"paragraph\",\"choices\":[]}]";
+
+    public static class Lead implements Identifiable {
+        private Long id;
+        private String contactName;
+        private long visits;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getContactName() {
+            return contactName;
+        }
+
+        public void setContactName(String contactName) {
+            this.contactName = contactName;
+        }
+
+        public long getVisits() {
+            return visits;
+        }
+
+        public void setVisits(long visits) {
+            this.visits = visits;
+        }
+    }
+
+    private static DomainRecordSet<Lead> readSet(final String data) {
+        return Codecs.deserializer(Lead.class, new DomainRecordSetType<Lead>(Lead.class))
+                .fromJson("{" + STRUCTURE + ",\"data\":[" + data + "],\"totalCount\":1}",
+                        new DomainRecordSetType<Lead>(Lead.class));
+    }
+
+    private static DomainRecordSet<Lead> readSetAsTree(final String data) {
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapter(new DomainRecordSetType<Lead>(Lead.class), new DomainRecordSetDeserializer<Lead>(Lead.class))
+                .create();
+
+        return gson.fromJson("{" + STRUCTURE + ",\"data\":[" + data + "],\"totalCount\":1}",
+                new DomainRecordSetType<Lead>(Lead.class));
+    }
+
+    private static List<DomainRecordSet<Lead>> readBothWays(final String data) {
+        List<DomainRecordSet<Lead>> records = new ArrayList<DomainRecordSet<Lead>>();
+        records.add(readSet(data));
+        records.add(readSetAsTree(data));
+        return records;
+    }
+
+    @Test
+    public void testBindsFieldsInStructureOrder() throws Exception {
+        String data = "{\"id\":7,\"ContactName\":\"James Randall\",\"Visits\":3,\"Notes\":\"none\"}";
+
+        for (DomainRecordSet<Lead> records : readBothWays(data)) {
+            Lead lead = records.getData().get(0);
+            Assert.assertEquals(Long.valueOf(7L), lead.getId());
+            Assert.assertEquals("James Randall", lead.getContactName());
+            Assert.assertEquals(3L, lead.getVisits());
+        }
+    }
+
+    @Test
+    public void testBindsFieldsOutOfOrder() throws Exception {
+        String data = "{\"Visits\":3,\"ContactName\":\"James Randall\",\"id\":7}";
+
+        for (DomainRecordSet<Lead> records : readBothWays(data)) {
+            Lead lead = records.getData().get(0);
+            Assert.assertEquals(Long.valueOf(7L), lead.getId());
+            Assert.assertEquals("James Randall", lead.getContactName());
+            Assert.assertEquals(3L, lead.getVisits());
+        }
+    }
+
+    @Test
+    public void testMatchesFieldNamesIgnoringCase() throws Exception {
+        String data = "{\"ID\":7,\"contactname\":\"James Randall\"}";
+
+        for (DomainRecordSet<Lead> records : readBothWays(data)) {
+            Lead lead = records.getData().get(0);
+            Assert.assertEquals(Long.valueOf(7L), lead.getId());
+            Assert.assertEquals("James Randall", lead.getContactName());
+        }
+    }
+
+    @Test
+    public void testSkipsFieldsWithoutColumnOrSetter() throws Exception {
+        String data = "{\"id\":7,\"Unlisted\":{\"nested\":[1,2]},\"Notes\":\"none\",\"Visits\":3}";
+
+        for (DomainRecordSet<Lead> records : readBothWays(data)) {
+            Lead lead = records.getData().get(0);
+            Assert.assertEquals(Long.valueOf(7L), lead.getId());
+            Assert.assertEquals(3L, lead.getVisits());
+        }
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void testSetterTypeMismatchFails() throws Exception {
+        readSet("{\"id\":\"seven\"}");
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void testNullIntoPrimitiveSetterFails() throws Exception {
+        readSet("{\"Visits\":null}");
+    }
+
+    @Test
+    public void testBindsSingleRecord() throws Exception {
+        String json = "{" + STRUCTURE + ",\"data\":{\"id\":7,\"ContactName\":\"James Randall\",\"Visits\":3}}";
+
+        DomainRecord<Lead> streamed = Codecs.deserializer(Lead.class, new DomainRecordType<Lead>(Lead.class))
+                .fromJson(json, new DomainRecordType<Lead>(Lead.class));
+        DomainRecord<Lead> tree = new GsonBuilder()
+                .registerTypeAdapter(new DomainRecordType<Lead>(Lead.class), new DomainRecordDeserializer<Lead>(Lead.class))
+                .create()
+                .fromJson(json, new DomainRecordType<Lead>(Lead.class));
+
+        Assert.assertEquals("James Randall", streamed.getData().getContactName());
+        Assert.assertEquals(3L, streamed.getData().getVisits());
+        Assert.assertEquals("James Randall", tree.getData().getContactName());
+        Assert.assertEquals(3L, tree.getData().getVisits());
+    }
+
+    @Test
+    public void testBindsUnitTestContacts() throws Exception {
+        Gson gson = new GsonBuilder().setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX").create();
+        String json = gson.toJson(Unit.getUnitTestRecordSet3());
+
+        for (int i = 0; i < 2; i++) {
+            DomainRecordSet<Unit.Contact> contacts = Codecs.deserializer(Unit.Contact.class,
+                    new DomainRecordSetType<Unit.Contact>(Unit.Contact.class))
+                    .fromJson(json, new DomainRecordSetType<Unit.Contact>(Unit.Contact.class));
+
+            Assert.assertEquals(Long.valueOf(222L), contacts.getData().get(0).getTestFile());
+            Assert.assertNotNull(contacts.getData().get(0).getLastContactDateTime());
+            Assert.assertNotNull(contacts.getData().get(0).getTestPoint());
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package trackvia.client;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import trackvia.client.model.RecordSet;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static trackvia.client.TestData.*;
+
+public class TrackviaClientCircuitBreakerTest extends LoopbackTestBase {
+    static final String HOST = "localhost:80";
+
+    Gson gson = new GsonBuilder().setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX").create();
+
+    TrackviaClient client;
+    List<String> transitions = new CopyOnWriteArrayList<String>();
+    volatile int statusCode = 503;
+
+    @Before
+    public void setUp() throws Exception {
+        final byte[] records = gson.toJson(Unit.getUnitTestRecordSet1()).getBytes(StandardCharsets.UTF_8);
+        transport.handle("/openapi/views/1", new LoopbackTransport.Handler() {
+            @Override
+            public CloseableHttpResponse handle(HttpRequestBase request) {
+                return LoopbackTransport.response(statusCode, (statusCode == 200) ? (records)
+                        : ("{\"error\":\"unavailable\"}".getBytes(StandardCharsets.UTF_8)));
+            }
+        });
+        transport.respond("/openapi/views", 200, "[]");
+    }
+
+    private void newClient(final CircuitBreakerPolicy.Builder policy) {
+        client = newClient(TrackviaClientConfig.custom()
+                .setRetryPolicy(RetryPolicy.NONE)
+                .setCircuitBreakerPolicy(policy.build())
+                .build());
+        client.getMetrics().addCircuitBreakerListener(new TrackviaClientMetrics.CircuitBreakerListener() {
+            @Override
+            public void onStateChange(String circuit, CircuitBreaker.State from, CircuitBreaker.State to) {
+                transitions.add(from + "->" + to);
+            }
+        });
+    }
+
+    private static CircuitBreakerPolicy.Builder smallWindow() {
+        return CircuitBreakerPolicy.custom()
+                .setWindowSize(10)
+                .setMinimumCalls(4)
+                .setFailureRateThreshold(0.5)
+                .setOpenDurationMillis(50)
+                .setHalfOpenCalls(2);
+    }
+
+    private void failCalls(final int calls) {
+        for (int i = 0; i < calls; i++) {
+            try {
+                client.getRecords(1);
+                Assert.fail("expected the service's 503");
+            } catch (TrackviaApiException e) {
+                Assert.assertEquals(503, e.getStatusCode());
+            }
+        }
+    }
+
+    @Test
+    public void testOpensOnFailureRate() throws Exception {
+        newClient(smallWindow().setOpenDurationMillis(60000));
+        failCalls(4);
+
+        try {
+            client.getRecords(1);
+            Assert.fail("the open circuit should have rejected the call");
+        } catch (TrackviaCircuitOpenException e) {
+            Assert.assertEquals(HOST, e.getCircuit());
+            Assert.assertTrue(e.getRetryAfterMillis() > 0);
+        }
+
+        Assert.assertEquals(4, transport.getRequests());
+        Assert.assertEquals(CircuitBreaker.State.OPEN, client.getMetrics().getCircuitBreakerStates().get(HOST));
+        Assert.assertEquals(1, client.getMetrics().getCircuitBreakerOpenings());
+        Assert.assertEquals(1, client.getMetrics().getCircuitBreakerRejections());
+        Assert.assertEquals("[CLOSED->OPEN]", transitions.toString());
+    }
+
+    @Test
+    public void testDeadlineAbortsNotCounted() throws Exception {
+        newClient(smallWindow().setOpenDurationMillis(60000));
+        transport.handle("/openapi/views/2", new LoopbackTransport.Handler() {
+            @Override
+            public CloseableHttpResponse handle(HttpRequestBase request) throws IOException {
+                long giveUp = System.currentTimeMillis() + 5000;
+                while (!request.isAborted() && System.currentTimeMillis() < giveUp) {
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+                throw new IOException("Request aborted");
+            }
+        });
+
+        for (int i = 0; i < 4; i++) {
+            try {
+                client.withTimeout(20, TimeUnit.MILLISECONDS, new Callable<RecordSet>() {
+                    @Override
+                    public RecordSet call() {
+                        return client.getRecords(2);
+                    }
+                });
+                Assert.fail("expected the call to outlive its deadline");
+            } catch (TrackviaDeadlineExceededException e) {
+                // the caller gave up; the service wasn't at fault
+            }
+        }
+
+        statusCode = 200;
+        Assert.assertEquals(2, client.getRecords(1).getData().size());
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, client.getMetrics().getCircuitBreakerStates().get(HOST));
+        Assert.assertTrue(transitions.isEmpty());
+    }
+
+    @Test
+    public void testStaysClosedBelowThreshold() throws Exception {
+        newClient(smallWindow());
+
+        for (int i = 0; i < 10; i++) {
+            statusCode = (i % 4 == 0) ? (503) : (200);
+            try {
+                client.getRecords(1);
+            } catch (TrackviaApiException e) {
+                // a quarter of calls fail, under the threshold
+            }
+        }
+
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, client.getMetrics().getCircuitBreakerStates().get(HOST));
+        Assert.assertTrue(transitions.isEmpty());
+    }
+
+    @Test
+    public void testClosesAfterSuccessfulTrials() throws Exception {
+        newClient(smallWindow());
+        failCalls(4);
+
+        statusCode = 200;
+        Thread.sleep(60);
+        client.getRecords(1);
+        client.getRecords(1);
+
+        Assert.assertEquals("[CLOSED->OPEN, OPEN->HALF_OPEN, HALF_OPEN->CLOSED]", transitions.toString());
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, client.getMetrics().getCircuitBreakerStates().get(HOST));
+    }
+
+    @Test
+    public void testReopensOnFailedTrial() throws Exception {
+        newClient(smallWindow());
+        failCalls(4);
+
+        Thread.sleep(60);
+        failCalls(1);
+
+        Assert.assertEquals("[CLOSED->OPEN, OPEN->HALF_OPEN, HALF_OPEN->OPEN]", transitions.toString());
+        Assert.assertEquals(2, client.getMetrics().getCircuitBreakerOpenings());
+    }
+
+    @Test
+    public void testOpensOnSlowCalls() throws Exception {
+        newClient(smallWindow().setSlowCallDurationMillis(20).setSlowCallRateThreshold(0.5).setOpenDurationMillis(60000));
+        statusCode = 200;
+        transport.handle("/openapi/views/1", new LoopbackTransport.Handler() {
+            @Override
+            public CloseableHttpResponse handle(HttpRequestBase request) throws IOException {
+                try {
+                    Thread.sleep(30);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return LoopbackTransport.response(200, gson.toJson(Unit.getUnitTestRecordSet1()).getBytes(StandardCharsets.UTF_8));
+            }
+        });
+
+        for (int i = 0; i < 4; i++) {
+            client.getRecords(1);
+        }
+
+        Assert.assertEquals(CircuitBreaker.State.OPEN, client.getMetrics().getCircuitBreakerStates().get(HOST));
+    }
+
+    @Test
+    public void testConnectionFailuresCount() throws Exception {
+        newClient(smallWindow().setOpenDurationMillis(60000));
+        final AtomicInteger calls = new AtomicInteger();
+        transport.handle("/openapi/views/1", new LoopbackTransport.Handler() {
+            @Override
+            public CloseableHttpResponse handle(HttpRequestBase request) throws IOException {
+                calls.incrementAndGet();
+                throw new ConnectException("Connection refused");
+            }
+        });
+
+        for (int i = 0; i < 6; i++) {
+            try {
+                client.getRecords(1);
+            } catch (TrackviaClientException e) {
+                // refused, then rejected by the open circuit
+            }
+        }
+
+        Assert.assertEquals(4, calls.get());
+        Assert.assertEquals(2, client.getMetrics().getCircuitBreakerRejections());
+    }
+
+    @Test
+    public void testPerEndpointCircuits() throws Exception {
+        newClient(smallWindow().setPerEndpoint(true).setOpenDurationMillis(60000));
+        failCalls(4);
+
+        try {
+            client.getRecords(1);
+            Assert.fail("the open circuit should have rejected the call");
+        } catch (TrackviaCircuitOpenException e) {
+            Assert.assertEquals(HOST + " GET /openapi/views/{id}", e.getCircuit());
+        }
+
+        // another endpoint of the same host is unaffected
+        Assert.assertEquals(0, client.getViews().size());
+    }
+
+    @Test
+    public void testEndpointPath() throws Exception {
+        Assert.assertEquals("/openapi/views/{id}/records/{id}", CircuitBreakers.endpointPath("/openapi/views/12/records/345"));
+        Assert.assertEquals("/openapi/views/{id}/records/{id}", CircuitBreakers.endpointPath("/openapi/views/12/records/3,4,5"));
+        Assert.assertEquals("/openapi/views", CircuitBreakers.endpointPath("/openapi/views"));
+    }
+}
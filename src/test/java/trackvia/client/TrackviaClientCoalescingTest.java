@@ -0,0 +1,219 @@
+package trackvia.client;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import trackvia.client.model.Record;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static trackvia.client.TestData.*;
+
+public class TrackviaClientCoalescingTest extends LoopbackTestBase {
+    static final int CALLERS = 8;
+
+    Gson gson = new GsonBuilder().setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX").create();
+
+    TrackviaClient client;
+    ExecutorService executor;
+    CountDownLatch release = new CountDownLatch(1);
+
+    @Before
+    public void setUp() throws Exception {
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    private void newClient(final boolean coalescingEnabled) {
+        client = newClient(TrackviaClientConfig.custom()
+                .setRetryPolicy(RetryPolicy.NONE)
+                .setCoalescingEnabled(coalescingEnabled)
+                .build());
+    }
+
+    /**
+     * Answers a path once released.
+     */
+    private void held(final String path, final int statusCode, final String json) {
+        transport.handle(path, new LoopbackTransport.Handler() {
+            @Override
+            public CloseableHttpResponse handle(HttpRequestBase request) throws IOException {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return LoopbackTransport.response(statusCode, json.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+    }
+
+    private <V> List<Future<V>> callConcurrently(final Callable<V> callable) {
+        List<Future<V>> futures = new ArrayList<Future<V>>();
+        for (int i = 0; i < CALLERS; i++) {
+            futures.add(executor.submit(callable));
+        }
+        return futures;
+    }
+
+    private void awaitCoalesced(final long calls) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (client.getMetrics().getCoalescedCalls() < calls && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static Callable<Record> getRecord(final TrackviaClient client) {
+        return new Callable<Record>() {
+            @Override
+            public Record call() {
+                return client.getRecord(1L, 1L);
+            }
+        };
+    }
+
+    @Test
+    public void testConcurrentReadsShareCall() throws Exception {
+        newClient(true);
+        held("/openapi/views/1/records/1", 200, gson.toJson(Unit.getUnitTestRecord1()));
+
+        List<Future<Record>> futures = callConcurrently(getRecord(client));
+        awaitCoalesced(CALLERS - 1);
+        release.countDown();
+
+        List<Record> records = new ArrayList<Record>();
+        for (Future<Record> future : futures) {
+            records.add(future.get(5, TimeUnit.SECONDS));
+        }
+
+        Assert.assertEquals(1, transport.getRequests());
+        Assert.assertEquals(CALLERS - 1, client.getMetrics().getCoalescedCalls());
+
+        // every caller has data of its own
+        for (int i = 1; i < records.size(); i++) {
+            Assert.assertEquals(records.get(0), records.get(i));
+            Assert.assertNotSame(records.get(0).getData(), records.get(i).getData());
+            Assert.assertNotSame(records.get(0).getData().get("Locations"), records.get(i).getData().get("Locations"));
+        }
+        records.get(0).getData().put("ContactName", "Changed");
+        Assert.assertEquals("James Randall", records.get(1).getData().get("ContactName"));
+    }
+
+    @Test
+    public void testSharedFailure() throws Exception {
+        newClient(true);
+        held("/openapi/views/1/records/1", 404, "{\"code\":\"404\",\"error\":\"not_found\",\"message\":\"No record\"}");
+
+        List<Future<Record>> futures = callConcurrently(getRecord(client));
+        awaitCoalesced(CALLERS - 1);
+        release.countDown();
+
+        for (Future<Record> future : futures) {
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                Assert.fail("every caller should see the failure");
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof TrackviaApiException);
+            }
+        }
+        Assert.assertEquals(1, transport.getRequests());
+    }
+
+    @Test
+    public void testLaterReadsCallAgain() throws Exception {
+        newClient(true);
+        transport.respond("/openapi/views/1/records/1", 200, gson.toJson(Unit.getUnitTestRecord1()));
+
+        client.getRecord(1L, 1L);
+        client.getRecord(1L, 1L);
+
+        Assert.assertEquals(2, transport.getRequests());
+        Assert.assertEquals(0, client.getMetrics().getCoalescedCalls());
+    }
+
+    @Test
+    public void testDifferentReadsNotCoalesced() throws Exception {
+        newClient(true);
+        held("/openapi/views", 200, "[]");
+
+        List<Future<Object>> futures = new ArrayList<Future<Object>>();
+        for (final String name : new String[]{"a", "b", "c"}) {
+            futures.add(executor.submit(new Callable<Object>() {
+                @Override
+                public Object call() {
+                    return client.getView(name);
+                }
+            }));
+        }
+        Thread.sleep(50);
+        release.countDown();
+        for (Future<Object> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+
+        Assert.assertEquals(3, transport.getRequests());
+        Assert.assertEquals(0, client.getMetrics().getCoalescedCalls());
+    }
+
+    @Test
+    public void testNullQueryNotCoalescedWithQueryNull() throws Exception {
+        newClient(true);
+        held("/openapi/views/1/find", 200, gson.toJson(Unit.getUnitTestRecordSet1()));
+
+        List<Future<Object>> futures = new ArrayList<Future<Object>>();
+        for (final String q : new String[]{null, "null"}) {
+            futures.add(executor.submit(new Callable<Object>() {
+                @Override
+                public Object call() {
+                    return client.findRecords(1, q, 0, 10);
+                }
+            }));
+        }
+        Thread.sleep(50);
+        release.countDown();
+        for (Future<Object> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+
+        Assert.assertEquals(2, transport.getRequests());
+        Assert.assertEquals(0, client.getMetrics().getCoalescedCalls());
+    }
+
+    @Test
+    public void testCoalescingDisabled() throws Exception {
+        newClient(false);
+        held("/openapi/views/1/records/1", 200, gson.toJson(Unit.getUnitTestRecord1()));
+
+        List<Future<Record>> futures = callConcurrently(getRecord(client));
+        Thread.sleep(50);
+        release.countDown();
+        for (Future<Record> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+
+        Assert.assertEquals(CALLERS, transport.getRequests());
+        Assert.assertEquals(0, client.getMetrics().getCoalescedCalls());
+    }
+}
@@ -0,0 +1,120 @@
+package trackvia.client;
+
+import com.google.gson.Gson;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import trackvia.client.model.DomainRecordDataBatchType;
+import trackvia.client.model.DomainRecordSet;
+import trackvia.client.model.DomainRecordSetType;
+import trackvia.client.model.DomainRecordType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static trackvia.client.TestData.*;
+
+public class TrackviaClientCodecsTest extends LoopbackTestBase {
+    static final int CALLERS = 8;
+
+    TrackviaClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        client = newClient();
+    }
+
+    @Test
+    public void testSharedAcrossCallsAndClients() throws Exception {
+        TrackviaClient other = newClient();
+
+        Gson deserializer = client.lookupDeserializer(Unit.Contact.class,
+                new DomainRecordSetType<Unit.Contact>(Unit.Contact.class));
+
+        Assert.assertSame(deserializer, client.lookupDeserializer(Unit.Contact.class,
+                new DomainRecordSetType<Unit.Contact>(Unit.Contact.class)));
+        Assert.assertSame(deserializer, other.lookupDeserializer(Unit.Contact.class,
+                new DomainRecordSetType<Unit.Contact>(Unit.Contact.class)));
+        Assert.assertSame(client.lookupSerializer(Unit.Contact.class,
+                        new DomainRecordDataBatchType<Unit.Contact>(Unit.Contact.class)),
+                other.lookupSerializer(Unit.Contact.class,
+                        new DomainRecordDataBatchType<Unit.Contact>(Unit.Contact.class)));
+        Assert.assertSame(client.recordAsMapGson, other.recordAsMapGson);
+    }
+
+    @Test
+    public void testOneCodecReadsRecordsAndRecordSets() throws Exception {
+        Gson records = client.lookupDeserializer(Unit.Contact.class,
+                new DomainRecordSetType<Unit.Contact>(Unit.Contact.class));
+        Gson record = client.lookupDeserializer(Unit.Contact.class,
+                new DomainRecordType<Unit.Contact>(Unit.Contact.class));
+
+        Assert.assertSame(records, record);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedShapeRejected() throws Exception {
+        client.lookupSerializer(Unit.Contact.class, new DomainRecordSetType<Unit.Contact>(Unit.Contact.class));
+    }
+
+    @Test
+    public void testConcurrentLookupsShareOneCodec() throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<Gson>> futures = new ArrayList<Future<Gson>>();
+            for (int i = 0; i < CALLERS; i++) {
+                futures.add(executor.submit(new Callable<Gson>() {
+                    @Override
+                    public Gson call() throws Exception {
+                        start.await();
+                        return client.lookupDeserializer(Unit.Contact.class,
+                                new DomainRecordType<Unit.Contact>(Unit.Contact.class));
+                    }
+                }));
+            }
+            start.countDown();
+
+            Gson first = futures.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<Gson> future : futures) {
+                Assert.assertSame(first, future.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testConcurrentDomainReads() throws Exception {
+        transport.respond("/openapi/views/1", 200, Codecs.RECORDS.toJson(Unit.getUnitTestRecordSet3()));
+
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<DomainRecordSet<Unit.Contact>>> futures = new ArrayList<Future<DomainRecordSet<Unit.Contact>>>();
+            for (int i = 0; i < CALLERS; i++) {
+                futures.add(executor.submit(new Callable<DomainRecordSet<Unit.Contact>>() {
+                    @Override
+                    public DomainRecordSet<Unit.Contact> call() {
+                        return client.getRecords(Unit.Contact.class, 1);
+                    }
+                }));
+            }
+            for (Future<DomainRecordSet<Unit.Contact>> future : futures) {
+                DomainRecordSet<Unit.Contact> records = future.get(10, TimeUnit.SECONDS);
+                Assert.assertEquals(1, records.getData().size());
+                Assert.assertEquals(Unit.getUnitTestRecord1().getData().get("ContactName"),
+                        records.getData().get(0).getContactName());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
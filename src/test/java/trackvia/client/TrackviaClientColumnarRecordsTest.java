@@ -0,0 +1,168 @@
+package trackvia.client;
+
+import com.google.gson.Gson;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import trackvia.client.model.ColumnarRecordSet;
+import trackvia.client.model.Point;
+import trackvia.client.model.RecordData;
+import trackvia.client.model.RecordSet;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import static trackvia.client.TestData.*;
+
+public class TrackviaClientColumnarRecordsTest extends LoopbackTestBase {
+    private static final String STRUCTURE = "\"structure\":["
+            + "{\"name\":\"id\",\"type\":\"number\",\"choices\":[]},"
+            + "{\"name\":\"Code\",\"type\":\"shortAnswer\",\"choices\":[]},"
+            + "{\"name\":\"Visits\",\"type\":\"number\",\"choices\":[]},"
+            + "{\"name\":\"LastContactDateTime\",\"type\":\"datetime\",\"choices\":[]},"
+            + "{\"name\":\"LastContactDate\",\"type\":\"date\",\"choices\":[]},"
+            + "{\"name\":\"Locations\",\"type\":\"checkbox\",\"choices\":[\"CA\",\"CO\"]},"
+            + "{\"name\":\"TestFile\",\"type\":\"document\",\"choices\":[]},"
+            + "{\"name\":\"Where\",\"type\":\"point\",\"choices\":[]}]";
+    private static final String RECORDS = "["
+            + "{\"id\":1,\"Code\":\"2014-05-01T12:00:00.000Z\",\"Visits\":5,"
+            + "\"LastContactDateTime\":\"2014-05-01T12:00:00.000Z\",\"LastContactDate\":\"2014-05-01\","
+            + "\"Locations\":[\"CA\",\"CO\"],\"TestFile\":222,\"Where\":{\"latitude\":39.7,\"longitude\":-104.9}},"
+            + "{\"id\":2,\"Code\":\"A\",\"Visits\":2.5,\"LastContactDateTime\":null,\"Locations\":\"CA\"},"
+            + "{\"Code\":\"A\",\"id\":3,\"Visits\":\"many\",\"LastContactDateTime\":\"soon\",\"Extra\":7}]";
+    private static final String RECORD_SET = "{" + STRUCTURE + ",\"data\":" + RECORDS + ",\"totalCount\":3}";
+
+    TrackviaClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        client = newClient();
+    }
+
+    @Test
+    public void testReadsValuesIntoTheirColumns() throws Exception {
+        transport.respond("/openapi/views/1", 200, RECORD_SET);
+
+        ColumnarRecordSet records = client.getColumnarRecords(1);
+        int visits = records.columnIndex("Visits");
+
+        Assert.assertEquals(3, records.size());
+        Assert.assertEquals(3, records.getTotalCount());
+        Assert.assertEquals(8, records.getStructure().size());
+        Assert.assertEquals(1L, records.getLong(0, "id"));
+        Assert.assertEquals(5.0, records.getDouble(0, visits), 0.0);
+        Assert.assertEquals(2.5, records.getDouble(1, visits), 0.0);
+        Assert.assertEquals("2014-05-01T12:00:00.000Z", records.getString(0, "Code"));
+        Assert.assertEquals(1398945600000L, records.getLong(0, "LastContactDateTime"));
+        Assert.assertEquals(new Date(1398945600000L), records.getValue(0, "LastContactDateTime"));
+        Assert.assertEquals(Long.valueOf(222L), records.getValue(0, "TestFile"));
+        Assert.assertEquals(Arrays.asList("CA", "CO"), records.getValue(0, "Locations"));
+        Assert.assertEquals(39.7, ((Point) records.getValue(0, "Where")).getLatitude(), 0.0);
+    }
+
+    @Test
+    public void testTellsNullFromAbsent() throws Exception {
+        transport.respond("/openapi/views/1", 200, RECORD_SET);
+
+        ColumnarRecordSet records = client.getColumnarRecords(1);
+        int dateTime = records.columnIndex("LastContactDateTime");
+        int date = records.columnIndex("LastContactDate");
+
+        Assert.assertTrue(records.contains(1, dateTime));
+        Assert.assertTrue(records.isNull(1, dateTime));
+        Assert.assertEquals(0L, records.getLong(1, dateTime));
+        Assert.assertFalse(records.contains(1, date));
+        Assert.assertTrue(records.isNull(1, date));
+        Assert.assertTrue(records.get(1).containsKey("LastContactDateTime"));
+        Assert.assertFalse(records.get(1).containsKey("LastContactDate"));
+    }
+
+    @Test
+    public void testKeepsValuesThatDontFitTheirColumn() throws Exception {
+        transport.respond("/openapi/views/1", 200, RECORD_SET);
+
+        ColumnarRecordSet records = client.getColumnarRecords(1);
+
+        Assert.assertEquals("many", records.getValue(2, "Visits"));
+        Assert.assertFalse(records.isNull(2, "Visits"));
+        Assert.assertEquals("soon", records.getString(2, "LastContactDateTime"));
+        Assert.assertEquals("CA", records.getValue(1, "Locations"));
+        Assert.assertEquals(Arrays.asList("id", "Code", "Visits", "LastContactDateTime", "LastContactDate",
+                "Locations", "TestFile", "Where", "Extra"), records.getColumnNames());
+        Assert.assertEquals(Long.valueOf(7L), records.getValue(2, "Extra"));
+        Assert.assertFalse(records.contains(0, records.columnIndex("Extra")));
+    }
+
+    @Test
+    public void testSharesEachDistinctString() throws Exception {
+        transport.respond("/openapi/views/1", 200, RECORD_SET);
+
+        ColumnarRecordSet records = client.getColumnarRecords(1);
+
+        Assert.assertSame(records.getString(1, "Code"), records.getString(2, "Code"));
+    }
+
+    @Test
+    public void testRowsMatchTypedRecords() throws Exception {
+        transport.respond("/openapi/views/1", 200, RECORD_SET);
+        TrackviaClient typed = newClient(TrackviaClientConfig.custom().setTypedRecordsEnabled(true).build());
+
+        RecordSet expected = typed.getRecords(1);
+        ColumnarRecordSet records = client.getColumnarRecords(1);
+
+        Assert.assertEquals(expected.getData(), records.getData());
+        Assert.assertEquals(Long.valueOf(3L), records.get(2).getId());
+        Assert.assertEquals(expected.getData(), records.toRecordSet().getData());
+    }
+
+    @Test
+    public void testDataAheadOfStructure() throws Exception {
+        transport.respond("/openapi/views/1", 200, "{\"data\":" + RECORDS + "," + STRUCTURE + ",\"totalCount\":3}");
+
+        ColumnarRecordSet records = client.getColumnarRecords(1);
+
+        Assert.assertEquals(3, records.size());
+        Assert.assertEquals(5.0, records.getDouble(0, "Visits"), 0.0);
+        Assert.assertEquals(Double.valueOf(5.0), records.get(0).get("Visits"));
+        Assert.assertEquals(1398945600000L, records.getLong(0, "LastContactDateTime"));
+    }
+
+    @Test
+    public void testOfRecordSet() throws Exception {
+        RecordSet rs = Unit.getUnitTestRecordSet3();
+        ColumnarRecordSet records = ColumnarRecordSet.of(rs);
+
+        Assert.assertEquals(rs.getData().size(), records.size());
+        for (int row = 0; row < records.size(); row++) {
+            RecordData rd = records.get(row);
+            Assert.assertEquals(rs.get(row).keySet(), rd.keySet());
+            Assert.assertEquals(rs.get(row).getId(), rd.getId());
+        }
+    }
+
+    @Test
+    public void testWritesAsARecordSet() throws Exception {
+        ColumnarRecordSet records = Codecs.RECORDS.fromJson(RECORD_SET, ColumnarRecordSet.class);
+        Gson withNulls = Codecs.records(false, false, true);
+        String json = withNulls.toJson(records);
+
+        Assert.assertEquals(withNulls.toJson(records.toRecordSet()), json);
+        Assert.assertEquals(3, Codecs.RECORDS.fromJson(json, ColumnarRecordSet.class).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownColumnName() throws Exception {
+        transport.respond("/openapi/views/1", 200, RECORD_SET);
+
+        client.getColumnarRecords(1).getDouble(0, "Nowhere");
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testRowOutOfRange() throws Exception {
+        transport.respond("/openapi/views/1", 200, RECORD_SET);
+
+        client.getColumnarRecords(1).getValue(3, 0);
+    }
+}
@@ -0,0 +1,232 @@
+package trackvia.client;
+
+import com.google.gson.JsonParser;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import trackvia.client.model.CompactRecordData;
+import trackvia.client.model.FieldMetadata;
+import trackvia.client.model.RecordData;
+import trackvia.client.model.RecordSchema;
+import trackvia.client.model.RecordSet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+public class TrackviaClientCompactRecordsTest extends LoopbackTestBase {
+    private static final String STRUCTURE = "\"structure\":["
+            + "{\"name\":\"id\",\"type\":\"number\",\"choices\":[]},"
+            + "{\"name\":\"Code\",\"type\":\"shortAnswer\",\"choices\":[]},"
+            + "{\"name\":\"Visits\",\"type\":\"number\",\"choices\":[]},"
+            + "{\"name\":\"LastContactDateTime\",\"type\":\"datetime\",\"choices\":[]},"
+            + "{\"name\":\"Locations\",\"type\":\"checkbox\",\"choices\":[\"CA\",\"CO\"]}]";
+    private static final String RECORDS = "["
+            + "{\"id\":1,\"Code\":\"2014-05-01T12:00:00.000Z\",\"Visits\":5,"
+            + "\"LastContactDateTime\":\"2014-05-01T12:00:00.000Z\",\"Locations\":[\"CA\",\"CO\"]},"
+            + "{\"Visits\":2.5,\"id\":2,\"Code\":null,\"Extra\":\"x\"},"
+            + "{\"id\":3,\"Visits\":123456789012345678901234567890}]";
+    private static final String RECORD_SET = "{" + STRUCTURE + ",\"data\":" + RECORDS + ",\"totalCount\":3}";
+
+    TrackviaClient guessing;
+    TrackviaClient compact;
+
+    @Before
+    public void setUp() throws Exception {
+        transport.respond("/openapi/views/1", 200, RECORD_SET);
+        guessing = newClient();
+        compact = newClient(TrackviaClientConfig.custom().setCompactRecordsEnabled(true).build());
+    }
+
+    private static CompactRecordData row() {
+        List<FieldMetadata> structure = new ArrayList<FieldMetadata>();
+        for (String name : Arrays.asList("id", "Name", "Amount")) {
+            FieldMetadata fm = new FieldMetadata();
+            fm.setName(name);
+            structure.add(fm);
+        }
+
+        CompactRecordData rd = new CompactRecordData(RecordSchema.of(structure));
+        rd.put("id", 7L);
+        rd.put("Name", "James Randall");
+
+        return rd;
+    }
+
+    @Test
+    public void testRecordsShareOneSchema() throws Exception {
+        RecordSet records = compact.getRecords(1);
+
+        Assert.assertTrue(records.get(0) instanceof CompactRecordData);
+        Assert.assertSame(((CompactRecordData) records.get(0)).getSchema(),
+                ((CompactRecordData) records.get(2)).getSchema());
+    }
+
+    @Test
+    public void testReadsAsMapsDo() throws Exception {
+        RecordSet expected = guessing.getRecords(1);
+        RecordSet records = compact.getRecords(1);
+
+        Assert.assertEquals(expected.getData(), records.getData());
+        Assert.assertEquals(records.getData(), expected.getData());
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(expected.get(i).hashCode(), records.get(i).hashCode());
+            Assert.assertEquals(expected.get(i).keySet(), records.get(i).keySet());
+        }
+        Assert.assertEquals(Long.valueOf(2L), records.get(1).getId());
+        Assert.assertTrue(records.get(1).containsKey("Code"));
+        Assert.assertNull(records.get(1).get("Code"));
+        Assert.assertFalse(records.get(1).containsKey("LastContactDateTime"));
+        Assert.assertEquals("x", records.get(1).get("Extra"));
+        Assert.assertEquals(5, records.get(0).size());
+        Assert.assertEquals(4, records.get(1).size());
+    }
+
+    @Test
+    public void testTypedAndCompact() throws Exception {
+        TrackviaClient typed = newClient(TrackviaClientConfig.custom().setTypedRecordsEnabled(true).build());
+        TrackviaClient both = newClient(TrackviaClientConfig.custom().setTypedRecordsEnabled(true)
+                .setCompactRecordsEnabled(true).build());
+
+        RecordSet records = both.getRecords(1);
+
+        Assert.assertEquals(typed.getRecords(1).getData(), records.getData());
+        Assert.assertEquals(Double.valueOf(5.0), records.get(0).get("Visits"));
+        Assert.assertEquals("2014-05-01T12:00:00.000Z", records.get(0).get("Code"));
+    }
+
+    @Test
+    public void testTypedAccessors() throws Exception {
+        RecordSet records = compact.getRecords(1);
+
+        Assert.assertEquals(5L, records.get(0).getLong("Visits"));
+        Assert.assertEquals(5.0, records.get(0).getDouble("Visits"), 0.0);
+        Assert.assertEquals(2.5, records.get(1).getDouble("Visits"), 0.0);
+        Assert.assertEquals(1.2345678901234568E29, records.get(2).getDouble("Visits"), 0.0);
+        Assert.assertEquals(1398945600000L, records.get(0).getLong("LastContactDateTime"));
+        Assert.assertEquals(0L, records.get(1).getLong("Code"));
+        Assert.assertEquals(0.0, records.get(1).getDouble("Nowhere"), 0.0);
+        Assert.assertEquals(5L, guessing.getRecords(1).get(0).getLong("Visits"));
+    }
+
+    @Test
+    public void testCursorReadsCompactRecords() throws Exception {
+        try (RecordCursor cursor = compact.openRecords(1)) {
+            RecordData rd = cursor.next();
+
+            Assert.assertTrue(rd instanceof CompactRecordData);
+            Assert.assertEquals(guessing.getRecords(1).get(0), rd);
+        }
+    }
+
+    @Test
+    public void testBehavesAsAMap() throws Exception {
+        CompactRecordData rd = row();
+        Map<String, Object> expected = new HashMap<String, Object>(rd);
+
+        Assert.assertEquals(Arrays.asList("id", "Name"), new ArrayList<String>(rd.keySet()));
+        Assert.assertNull(rd.put("Amount", 1.5));
+        Assert.assertNull(rd.put("Note", "spilled"));
+        Assert.assertEquals(1.5, rd.put("Amount", 2.5));
+        expected.put("Amount", 2.5);
+        expected.put("Note", "spilled");
+        Assert.assertEquals(expected, rd);
+        Assert.assertEquals(Arrays.asList("id", "Name", "Amount", "Note"), new ArrayList<String>(rd.keySet()));
+        Assert.assertTrue(rd.containsValue("spilled"));
+        Assert.assertTrue(rd.containsValue(7L));
+
+        Assert.assertEquals("James Randall", rd.remove("Name"));
+        Assert.assertFalse(rd.containsKey("Name"));
+        Assert.assertEquals(3, rd.size());
+        Assert.assertEquals("default", rd.getOrDefault("Name", "default"));
+        Assert.assertNull(rd.putIfAbsent("Name", "Jane"));
+        Assert.assertEquals("Jane", rd.putIfAbsent("Name", "Other"));
+        Assert.assertEquals(8L, rd.merge("id", 1L, (a, b) -> (Long) a + (Long) b));
+        Assert.assertEquals("JANE", rd.computeIfPresent("Name", (k, v) -> ((String) v).toUpperCase()));
+        Assert.assertNull(rd.compute("Name", (k, v) -> null));
+        Assert.assertFalse(rd.containsKey("Name"));
+        Assert.assertTrue(rd.replace("Amount", 2.5, 3.5));
+        Assert.assertEquals(3.5, rd.getDouble("Amount"), 0.0);
+
+        Map<String, Object> seen = new HashMap<String, Object>();
+        rd.forEach(seen::put);
+        Assert.assertEquals(seen, rd);
+
+        rd.clear();
+        Assert.assertTrue(rd.isEmpty());
+        Assert.assertEquals(new HashMap<String, Object>(), rd);
+    }
+
+    @Test
+    public void testViewsWriteThrough() throws Exception {
+        CompactRecordData rd = row();
+        rd.put("Note", "spilled");
+
+        for (Map.Entry<String, Object> entry : rd.entrySet()) {
+            if (entry.getKey().equals("Name")) entry.setValue("Jane");
+        }
+        Assert.assertEquals("Jane", rd.get("Name"));
+
+        Iterator<String> keys = rd.keySet().iterator();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            if (key.equals("id") || key.equals("Note")) keys.remove();
+        }
+        Assert.assertEquals(Arrays.asList("Name"), new ArrayList<String>(rd.keySet()));
+
+        rd.values().clear();
+        Assert.assertTrue(rd.isEmpty());
+    }
+
+    @Test
+    public void testCopiesAreIndependent() throws Exception {
+        CompactRecordData rd = row();
+        rd.put("Note", "spilled");
+        CompactRecordData clone = (CompactRecordData) rd.clone();
+        RecordData copy = new RecordData(rd);
+
+        rd.put("id", 8L);
+        rd.put("Note", "changed");
+
+        Assert.assertEquals(7L, clone.getLong("id"));
+        Assert.assertEquals("spilled", clone.get("Note"));
+        Assert.assertEquals(3, copy.size());
+        Assert.assertEquals(Long.valueOf(7L), copy.getId());
+    }
+
+    @Test
+    public void testSerializesAsRecordData() throws Exception {
+        CompactRecordData rd = row();
+        rd.put("When", new Date(0L));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(rd);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            Object read = in.readObject();
+
+            Assert.assertEquals(RecordData.class, read.getClass());
+            Assert.assertEquals(rd, read);
+        }
+
+        Assert.assertEquals(new JsonParser().parse(Codecs.RECORDS.toJson(new RecordData(rd))),
+                new JsonParser().parse(Codecs.RECORDS.toJson(rd)));
+    }
+
+    @Test
+    public void testConfigCopyKeepsCompactRecords() throws Exception {
+        Assert.assertFalse(TrackviaClientConfig.DEFAULT.isCompactRecordsEnabled());
+        Assert.assertTrue(TrackviaClientConfig.copy(compact.getConfig()).build().isCompactRecordsEnabled());
+    }
+}
@@ -0,0 +1,203 @@
+package trackvia.client;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import trackvia.client.model.RecordDataBatch;
+import trackvia.client.model.RecordSet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static trackvia.client.TestData.*;
+
+public class TrackviaClientCompressionTest {
+    Gson gson = new GsonBuilder().setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX").create();
+
+    StubTrackviaService service;
+    TrackviaClient client;
+    List<TrackviaClientMetrics.Exchange> exchanges = new ArrayList<TrackviaClientMetrics.Exchange>();
+
+    @Before
+    public void setUp() throws Exception {
+        service = StubTrackviaService.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (client != null) client.shutdown();
+        service.stop();
+    }
+
+    private void newClient(final TrackviaClientConfig config) {
+        client = service.newClient(config);
+        client.getMetrics().addListener(new TrackviaClientMetrics.ExchangeListener() {
+            @Override
+            public void onExchange(TrackviaClientMetrics.Exchange exchange) {
+                exchanges.add(exchange);
+            }
+        });
+    }
+
+    @Test
+    public void testGzipResponse() throws Exception {
+        newClient(TrackviaClientConfig.DEFAULT);
+        final AtomicReference<String> acceptEncoding = new AtomicReference<String>();
+        final byte[] json = gson.toJson(Unit.getUnitTestRecordSet1()).getBytes(StandardCharsets.UTF_8);
+        service.handle("/openapi/views/1", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                acceptEncoding.set(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+                send(exchange, "gzip", gzip(json));
+            }
+        });
+
+        RecordSet rsResponse = client.getRecords(1);
+
+        Assert.assertEquals(2, rsResponse.getData().size());
+        Assert.assertTrue(acceptEncoding.get().contains("gzip"));
+
+        TrackviaClientMetrics.Exchange exchange = exchanges.get(0);
+        Assert.assertEquals("gzip", exchange.getResponseContentEncoding());
+        Assert.assertEquals(gzip(json).length, exchange.getResponseWireBytes());
+        Assert.assertEquals(json.length, exchange.getResponseContentBytes());
+        Assert.assertEquals(json.length, client.getMetrics().getResponseContentBytes());
+        Assert.assertEquals(1, client.getMetrics().getExchanges());
+    }
+
+    @Test
+    public void testRawDeflateResponse() throws Exception {
+        newClient(TrackviaClientConfig.DEFAULT);
+        final byte[] json = gson.toJson(Unit.getUnitTestRecordSet1()).getBytes(StandardCharsets.UTF_8);
+        service.handle("/openapi/views/1", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                ByteArrayOutputStream deflated = new ByteArrayOutputStream();
+                try (OutputStream out = new DeflaterOutputStream(deflated, new Deflater(Deflater.DEFAULT_COMPRESSION, true))) {
+                    out.write(json);
+                }
+                send(exchange, "deflate", deflated.toByteArray());
+            }
+        });
+
+        Assert.assertEquals(2, client.getRecords(1).getData().size());
+        Assert.assertEquals(json.length, exchanges.get(0).getResponseContentBytes());
+    }
+
+    @Test
+    public void testResponseCompressionDisabled() throws Exception {
+        newClient(TrackviaClientConfig.custom().setResponseCompressionEnabled(false).build());
+        final AtomicReference<String> acceptEncoding = new AtomicReference<String>();
+        final String json = gson.toJson(Unit.getUnitTestRecordSet1());
+        service.handle("/openapi/views/1", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                acceptEncoding.set(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+                StubTrackviaService.send(exchange, 200, json);
+            }
+        });
+
+        Assert.assertEquals(2, client.getRecords(1).getData().size());
+        Assert.assertEquals("identity", acceptEncoding.get());
+
+        TrackviaClientMetrics.Exchange exchange = exchanges.get(0);
+        Assert.assertNull(exchange.getResponseContentEncoding());
+        Assert.assertEquals(exchange.getResponseWireBytes(), exchange.getResponseContentBytes());
+    }
+
+    @Test
+    public void testLargeRequestBodyCompressed() throws Exception {
+        newClient(TrackviaClientConfig.custom()
+                .setRequestCompressionEnabled(true)
+                .setRequestCompressionThresholdBytes(64)
+                .build());
+        final AtomicReference<String> contentEncoding = new AtomicReference<String>();
+        final AtomicReference<String> body = new AtomicReference<String>();
+        final RecordSet rs = Unit.getUnitTestRecordSet1();
+        service.handle("/openapi/views/1/records", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                contentEncoding.set(exchange.getRequestHeaders().getFirst("Content-Encoding"));
+                body.set(new String(readAll(new GZIPInputStream(exchange.getRequestBody())), StandardCharsets.UTF_8));
+                StubTrackviaService.send(exchange, 201, gson.toJson(rs));
+            }
+        });
+
+        Assert.assertEquals(2, client.createRecords(1, new RecordDataBatch(rs.getData())).getData().size());
+
+        Assert.assertEquals("gzip", contentEncoding.get());
+        Assert.assertTrue(body.get().startsWith("{\"data\":"));
+
+        TrackviaClientMetrics.Exchange exchange = exchanges.get(0);
+        Assert.assertEquals("gzip", exchange.getRequestContentEncoding());
+        Assert.assertEquals(body.get().getBytes(StandardCharsets.UTF_8).length, exchange.getRequestContentBytes());
+        Assert.assertTrue(exchange.getRequestWireBytes() > 0);
+    }
+
+    @Test
+    public void testSmallRequestBodyNotCompressed() throws Exception {
+        newClient(TrackviaClientConfig.custom()
+                .setRequestCompressionEnabled(true)
+                .setRequestCompressionThresholdBytes(1 << 20)
+                .build());
+        final AtomicReference<String> contentEncoding = new AtomicReference<String>("unset");
+        final RecordSet rs = Unit.getUnitTestRecordSet1();
+        service.handle("/openapi/views/1/records", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                contentEncoding.set(exchange.getRequestHeaders().getFirst("Content-Encoding"));
+                readAll(exchange.getRequestBody());
+                StubTrackviaService.send(exchange, 201, gson.toJson(rs));
+            }
+        });
+
+        client.createRecords(1, new RecordDataBatch(rs.getData()));
+
+        Assert.assertNull(contentEncoding.get());
+        Assert.assertNull(exchanges.get(0).getRequestContentEncoding());
+        Assert.assertEquals(exchanges.get(0).getRequestContentBytes(), exchanges.get(0).getRequestWireBytes());
+    }
+
+    static byte[] gzip(final byte[] content) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(content);
+        }
+        return compressed.toByteArray();
+    }
+
+    static byte[] readAll(final InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int n; (n = in.read(buffer)) != -1; ) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    static void send(final HttpExchange exchange, final String contentEncoding, final byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("Content-Encoding", contentEncoding);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
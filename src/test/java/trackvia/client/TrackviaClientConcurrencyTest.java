@@ -0,0 +1,97 @@
+package trackvia.client;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import trackvia.client.model.RecordSet;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static trackvia.client.TestData.*;
+
+public class TrackviaClientConcurrencyTest {
+    static final int CONCURRENT_CALLS = 8;
+
+    Gson gson = new GsonBuilder().setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX").create();
+
+    StubTrackviaService service;
+    TrackviaClient client;
+    ExecutorService callers;
+
+    @Before
+    public void setUp() throws Exception {
+        service = StubTrackviaService.start();
+        client = service.newClient();
+        callers = Executors.newFixedThreadPool(CONCURRENT_CALLS);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        callers.shutdownNow();
+        client.shutdown();
+        service.stop();
+    }
+
+    @Test
+    public void testEachCallLeasesOneConnection() throws Exception {
+        final CountDownLatch allArrived = new CountDownLatch(CONCURRENT_CALLS);
+        final CountDownLatch release = new CountDownLatch(1);
+        service.handle("/openapi/views/1", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                allArrived.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                StubTrackviaService.send(exchange, 200, gson.toJson(Unit.getUnitTestRecordSet1()));
+            }
+        });
+
+        List<Future<RecordSet>> calls = new ArrayList<Future<RecordSet>>();
+        for (int i = 0; i < CONCURRENT_CALLS; i++) {
+            calls.add(callers.submit(new Callable<RecordSet>() {
+                @Override
+                public RecordSet call() throws Exception {
+                    return client.getRecords(1);
+                }
+            }));
+        }
+
+        try {
+            Assert.assertTrue(allArrived.await(5, TimeUnit.SECONDS));
+
+            // every call is parked on the server, holding whatever it leased from the pool
+            PoolingHttpClientConnectionManager pool = (PoolingHttpClientConnectionManager) ((ApacheTransport) client.getTransport()).getConnectionManager();
+            Assert.assertEquals(CONCURRENT_CALLS, pool.getTotalStats().getLeased());
+            Assert.assertEquals(0, pool.getTotalStats().getPending());
+        } finally {
+            release.countDown();
+        }
+
+        for (Future<RecordSet> call : calls) {
+            Assert.assertEquals(2, call.get(5, TimeUnit.SECONDS).getData().size());
+        }
+
+        PoolingHttpClientConnectionManager pool = (PoolingHttpClientConnectionManager) ((ApacheTransport) client.getTransport()).getConnectionManager();
+        Assert.assertEquals(0, pool.getTotalStats().getLeased());
+        Assert.assertEquals(CONCURRENT_CALLS, pool.getTotalStats().getAvailable());
+    }
+}
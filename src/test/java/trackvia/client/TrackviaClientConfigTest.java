@@ -0,0 +1,167 @@
+package trackvia.client;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import trackvia.client.model.RecordSet;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static trackvia.client.TestData.*;
+
+public class TrackviaClientConfigTest {
+    Gson gson = new GsonBuilder().setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX").create();
+
+    StubTrackviaService service;
+    TrackviaClient client;
+    ExecutorService callers;
+
+    @Before
+    public void setUp() throws Exception {
+        service = StubTrackviaService.start();
+        callers = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        callers.shutdownNow();
+        if (client != null) client.shutdown();
+        service.stop();
+    }
+
+    @Test
+    public void testDefaults() {
+        TrackviaClientConfig config = TrackviaClientConfig.DEFAULT;
+
+        Assert.assertEquals(50, config.getMaxConnectionsPerRoute());
+        Assert.assertEquals(250, config.getMaxConnectionsTotal());
+        Assert.assertEquals(5000, config.getConnectionRequestTimeoutMillis());
+        Assert.assertEquals(1000, config.getConnectTimeoutMillis());
+        Assert.assertTrue(config.isStaleConnectionCheckEnabled());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRouteLimitExceedsTotal() {
+        TrackviaClientConfig.custom().setMaxConnectionsPerRoute(10).setMaxConnectionsTotal(5).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeTimeout() {
+        TrackviaClientConfig.custom().setSocketTimeoutMillis(-1);
+    }
+
+    @Test
+    public void testPoolLimitBoundsConcurrentCalls() throws Exception {
+        client = service.newClient(TrackviaClientConfig.custom()
+                .setMaxConnectionsPerRoute(2)
+                .setConnectionRequestTimeoutMillis(200)
+                .build());
+
+        final CountDownLatch bothArrived = new CountDownLatch(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        service.handle("/openapi/views/1", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                bothArrived.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                StubTrackviaService.send(exchange, 200, gson.toJson(Unit.getUnitTestRecordSet1()));
+            }
+        });
+
+        Future<RecordSet> first = callers.submit(getRecords(1));
+        Future<RecordSet> second = callers.submit(getRecords(1));
+        try {
+            Assert.assertTrue(bothArrived.await(5, TimeUnit.SECONDS));
+
+            client.getRecords(1);
+            Assert.fail("a third concurrent call shouldn't have found a pooled connection");
+        } catch (TrackviaClientException e) {
+            Assert.assertTrue(rootCause(e) instanceof ConnectionPoolTimeoutException);
+        } finally {
+            release.countDown();
+        }
+
+        Assert.assertEquals(2, first.get(5, TimeUnit.SECONDS).getData().size());
+        Assert.assertEquals(2, second.get(5, TimeUnit.SECONDS).getData().size());
+    }
+
+    @Test
+    public void testSocketTimeout() throws Exception {
+        client = service.newClient(TrackviaClientConfig.custom().setSocketTimeoutMillis(100).build());
+
+        final CountDownLatch release = new CountDownLatch(1);
+        service.handle("/openapi/views/1", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                StubTrackviaService.send(exchange, 200, gson.toJson(Unit.getUnitTestRecordSet1()));
+            }
+        });
+
+        try {
+            client.getRecords(1);
+            Assert.fail("a stalled response should have timed out");
+        } catch (TrackviaClientException e) {
+            Assert.assertTrue(rootCause(e) instanceof SocketTimeoutException);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testEvictorClosesIdleConnections() throws Exception {
+        client = service.newClient(TrackviaClientConfig.custom()
+                .setIdleConnectionTimeoutMillis(50)
+                .setEvictionIntervalMillis(25)
+                .build());
+        service.respond("/openapi/views/1", 200, gson.toJson(Unit.getUnitTestRecordSet1()));
+
+        client.getRecords(1);
+
+        PoolingHttpClientConnectionManager pool = (PoolingHttpClientConnectionManager) ((ApacheTransport) client.getTransport()).getConnectionManager();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pool.getTotalStats().getAvailable() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(25);
+        }
+
+        Assert.assertEquals(0, pool.getTotalStats().getAvailable());
+    }
+
+    private Callable<RecordSet> getRecords(final int viewId) {
+        return new Callable<RecordSet>() {
+            @Override
+            public RecordSet call() throws Exception {
+                return client.getRecords(viewId);
+            }
+        };
+    }
+
+    private static Throwable rootCause(Throwable e) {
+        while (e.getCause() != null) e = e.getCause();
+        return e;
+    }
+}
@@ -0,0 +1,209 @@
+package trackvia.client;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import trackvia.client.model.RecordData;
+import trackvia.client.model.RecordSet;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static trackvia.client.TestData.*;
+
+public class TrackviaClientCursorTest extends LoopbackTestBase {
+    Gson gson = new GsonBuilder().setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX").create();
+
+    TrackviaClient client;
+    AtomicInteger closes = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        client = newClient();
+    }
+
+    private CloseableHttpResponse streamed(final InputStream body) {
+        ClosingHttpResponse response = new ClosingHttpResponse(HttpVersion.HTTP_1_1, 200, null, new Closeable() {
+            @Override
+            public void close() {
+                closes.incrementAndGet();
+            }
+        });
+        response.setEntity(new InputStreamEntity(body, ContentType.APPLICATION_JSON));
+
+        return response;
+    }
+
+    private void respondStreamed(final String path, final InputStream body) {
+        transport.handle(path, new LoopbackTransport.Handler() {
+            @Override
+            public CloseableHttpResponse handle(HttpRequestBase request) {
+                return streamed(body);
+            }
+        });
+    }
+
+    private static String records(final int count) {
+        StringBuilder json = new StringBuilder("{\"structure\":[{\"name\":\"id\",\"type\":\"number\",\"choices\":[]},"
+                + "{\"name\":\"ContactName\",\"type\":\"shortAnswer\",\"choices\":[]}],\"data\":[");
+        for (int i = 1; i <= count; i++) {
+            if (i > 1) json.append(',');
+            json.append("{\"id\":").append(i).append(",\"ContactName\":\"Contact ").append(i).append("\"}");
+        }
+
+        return json.append("],\"totalCount\":").append(count).append('}').toString();
+    }
+
+    @Test
+    public void testReadsAllRecords() throws Exception {
+        RecordSet rs = Unit.getUnitTestRecordSet1();
+        respondStreamed("/openapi/views/1", new ByteArrayInputStream(gson.toJson(rs).getBytes(StandardCharsets.UTF_8)));
+
+        List<RecordData> read = new ArrayList<RecordData>();
+        try (RecordCursor cursor = client.openRecords(1)) {
+            Assert.assertEquals(3, cursor.getStructure().size());
+            while (cursor.hasNext()) {
+                read.add(cursor.next());
+            }
+
+            Assert.assertEquals(1, closes.get());
+            Assert.assertEquals(2, cursor.getTotalCount());
+            Assert.assertFalse(cursor.hasNext());
+        }
+
+        Assert.assertEquals(1, closes.get());
+        Assert.assertEquals(2, read.size());
+        Assert.assertEquals("James Randall", read.get(0).get("ContactName"));
+        Assert.assertEquals(Long.valueOf(2L), read.get(1).getId());
+    }
+
+    @Test(timeout = 10000)
+    public void testYieldsRecordsWhileStreaming() throws Exception {
+        final String json = records(3);
+        final int firstRecordEnd = json.indexOf('}', json.indexOf("\"data\":[")) + 1;
+        final PipedOutputStream out = new PipedOutputStream();
+        final PipedInputStream body = new PipedInputStream(out, 64 * 1024);
+        final CountDownLatch rest = new CountDownLatch(1);
+        respondStreamed("/openapi/views/1", body);
+
+        Thread server = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    out.write(json.substring(0, firstRecordEnd).getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                    rest.await();
+                    out.write(json.substring(firstRecordEnd).getBytes(StandardCharsets.UTF_8));
+                    out.close();
+                } catch (Exception e) {
+                    // the test fails on its own
+                }
+            }
+        });
+        server.start();
+
+        try (RecordCursor cursor = client.openRecords(1)) {
+            Assert.assertEquals(2, cursor.getStructure().size());
+            Assert.assertEquals(-1, cursor.getTotalCount());
+            Assert.assertEquals("Contact 1", cursor.next().get("ContactName"));
+
+            rest.countDown();
+            Assert.assertEquals("Contact 2", cursor.next().get("ContactName"));
+            Assert.assertEquals("Contact 3", cursor.next().get("ContactName"));
+            Assert.assertFalse(cursor.hasNext());
+            Assert.assertEquals(3, cursor.getTotalCount());
+        } finally {
+            server.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    @Test
+    public void testClosingEarlyAbortsResponse() throws Exception {
+        final byte[] json = records(10000).getBytes(StandardCharsets.UTF_8);
+        final AtomicLong bytesRead = new AtomicLong();
+        respondStreamed("/openapi/views/1", new FilterInputStream(new ByteArrayInputStream(json)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n > 0) bytesRead.addAndGet(n);
+                return n;
+            }
+        });
+
+        RecordCursor cursor = client.openRecords(1);
+        Assert.assertEquals(Long.valueOf(1L), cursor.next().getId());
+        cursor.close();
+        cursor.close();
+
+        Assert.assertEquals(1, closes.get());
+        Assert.assertFalse(cursor.hasNext());
+        Assert.assertTrue(bytesRead.get() < json.length / 10);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testNextPastEnd() throws Exception {
+        transport.respond("/openapi/views/1", 200, records(0));
+
+        try (RecordCursor cursor = client.openRecords(1)) {
+            Assert.assertFalse(cursor.hasNext());
+            cursor.next();
+        }
+    }
+
+    @Test
+    public void testFindOpensCursor() throws Exception {
+        transport.respond("/openapi/views/1/find", 200, records(2));
+
+        int count = 0;
+        try (RecordCursor cursor = client.openRecords(1, "Contact", 0, 10)) {
+            while (cursor.hasNext()) {
+                cursor.next();
+                count++;
+            }
+        }
+
+        Assert.assertEquals(2, count);
+    }
+
+    @Test(expected = TrackviaApiException.class)
+    public void testServiceErrorThrown() throws Exception {
+        client.openRecords(404);
+    }
+
+    @Test
+    public void testMalformedResponseFailsAndReleases() throws Exception {
+        respondStreamed("/openapi/views/1", new ByteArrayInputStream(
+                "{\"data\":[{\"id\":1},{\"id\":".getBytes(StandardCharsets.UTF_8)));
+
+        RecordCursor cursor = client.openRecords(1);
+        cursor.next();
+        try {
+            cursor.next();
+            Assert.fail();
+        } catch (TrackviaClientException e) {
+            Assert.assertEquals(1, closes.get());
+        }
+    }
+}
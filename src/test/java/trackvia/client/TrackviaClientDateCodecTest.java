@@ -0,0 +1,175 @@
+package trackvia.client;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import trackvia.client.model.DomainRecordSet;
+import trackvia.client.model.DomainRecordSetType;
+import trackvia.client.model.Iso8601;
+import trackvia.client.model.RecordData;
+import trackvia.client.model.RecordDataDeserializer;
+import trackvia.client.model.RecordSet;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static trackvia.client.TestData.*;
+
+public class TrackviaClientDateCodecTest {
+    private static SimpleDateFormat utc(final String pattern) {
+        SimpleDateFormat format = new SimpleDateFormat(pattern);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+        return format;
+    }
+
+    @Test
+    public void testParsesDateTimeOffsets() throws Exception {
+        Date expected = utc("yyyy-MM-dd'T'HH:mm:ss.SSSX").parse("2014-05-01T18:00:00.123Z");
+
+        Assert.assertEquals(expected, Iso8601.parseDateTime("2014-05-01T18:00:00.123Z"));
+        Assert.assertEquals(expected, Iso8601.parseDateTime("2014-05-01T12:00:00.123-06"));
+        Assert.assertEquals(expected, Iso8601.parseDateTime("2014-05-01T12:00:00.123-0600"));
+        Assert.assertEquals(expected, Iso8601.parseDateTime("2014-05-01T12:00:00.123-06:00"));
+        Assert.assertEquals(expected, Iso8601.parseDateTime("2014-05-01T23:30:00.123+05:30"));
+    }
+
+    @Test
+    public void testRejectsNonDateTimes() throws Exception {
+        String[] values = { null, "", "James Randall", "2014-05-01", "2014-05-01T12:00:00.000",
+                "2014-05-01T12:00:00Z", "2014-13-01T12:00:00.000Z", "2014-02-29T12:00:00.000Z",
+                "2014-05-01T24:00:00.000Z", "2014-05-01T12:00:00.000Zjunk", "2014-05-01T12:00:00.000+0", "2014/05/01T12:00:00.000Z",
+                "2014-05-01T12:00:00.0a0Z", "2014-05-01T12:00:00.000-06:0" };
+
+        for (String value : values) {
+            Assert.assertNull(value, Iso8601.parseDateTime(value));
+        }
+        Assert.assertNotNull(Iso8601.parseDateTime("2016-02-29T12:00:00.000Z"));
+    }
+
+    @Test
+    public void testFormatsAndParsesAsSimpleDateFormat() throws Exception {
+        SimpleDateFormat dateTimes = utc("yyyy-MM-dd'T'HH:mm:ss.SSSX");
+        Random random = new Random(42);
+
+        for (int i = 0; i < 10000; i++) {
+            // 1900 through 2100
+            Date date = new Date(-2208988800000L + (long) (random.nextDouble() * 6311433600000L));
+            String formatted = Iso8601.formatDateTime(date);
+
+            Assert.assertEquals(dateTimes.format(date), formatted);
+            Assert.assertEquals(date, Iso8601.parseDateTime(formatted));
+        }
+    }
+
+    @Test
+    public void testDatesAreLocalMidnight() throws Exception {
+        SimpleDateFormat dates = new SimpleDateFormat("yyyy-MM-dd");
+        Random random = new Random(42);
+
+        for (int i = 0; i < 2000; i++) {
+            Date date = new Date(-2208988800000L + (long) (random.nextDouble() * 6311433600000L));
+            String formatted = dates.format(date);
+
+            Assert.assertEquals(formatted, Iso8601.formatDate(date));
+            Assert.assertEquals(dates.parse(formatted), Iso8601.parseDate(formatted));
+        }
+
+        Assert.assertEquals(dates.parse("2014-05-01"), Iso8601.parseDate("2014-05-01T12:00:00.000Z"));
+        Assert.assertNull(Iso8601.parseDate("2014-05-01 junk"));
+        Assert.assertNull(Iso8601.parseDate("2014-04-31"));
+    }
+
+    @Test
+    public void testSharedDeserializerParsesDatesOnAllThreads() throws Exception {
+        final Gson gson = new GsonBuilder()
+                .registerTypeAdapter(RecordData.class, new RecordDataDeserializer())
+                .create();
+        final long base = 1398967200000L;
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int t = 0; t < 4; t++) {
+                final int thread = t;
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        for (int i = 0; i < 2000; i++) {
+                            Date expected = new Date(base + thread * 86400000L + i * 1000L);
+                            RecordData rd = gson.fromJson("{\"When\":\"" + Iso8601.formatDateTime(expected)
+                                    + "\",\"What\":\"not a date\"}", RecordData.class);
+                            if (!expected.equals(rd.get("When")) || !"not a date".equals(rd.get("What"))) return false;
+                        }
+                        return true;
+                    }
+                }));
+            }
+
+            for (Future<Boolean> result : results) {
+                Assert.assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRecordsReadDatesAsBefore() throws Exception {
+        Gson gson = new GsonBuilder().setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX").create();
+        String json = gson.toJson(Unit.getUnitTestRecordSet3());
+
+        RecordSet records = Codecs.RECORDS.fromJson(json, RecordSet.class);
+        DomainRecordSet<Unit.Contact> contacts = Codecs.deserializer(Unit.Contact.class,
+                new DomainRecordSetType<Unit.Contact>(Unit.Contact.class))
+                .fromJson(json, new DomainRecordSetType<Unit.Contact>(Unit.Contact.class));
+
+        Date dateTime = (Date) records.get(0).get("LastContactDateTime");
+        Assert.assertEquals(dateTime, contacts.getData().get(0).getLastContactDateTime());
+        Assert.assertEquals(new SimpleDateFormat("yyyy-MM-dd").parse((String) records.get(0).get("LastContactDate")),
+                contacts.getData().get(0).getLastContactDate());
+    }
+
+    @Test
+    public void testNullDomainDatesStayNull() throws Exception {
+        String json = "{\"structure\":[{\"name\":\"LastContactDate\",\"type\":\"date\",\"choices\":[]},"
+                + "{\"name\":\"LastContactDateTime\",\"type\":\"datetime\",\"choices\":[]}],"
+                + "\"data\":[{\"LastContactDate\":null,\"LastContactDateTime\":null}],\"totalCount\":1}";
+
+        DomainRecordSet<Unit.Contact> contacts = Codecs.deserializer(Unit.Contact.class,
+                new DomainRecordSetType<Unit.Contact>(Unit.Contact.class))
+                .fromJson(json, new DomainRecordSetType<Unit.Contact>(Unit.Contact.class));
+
+        Assert.assertNull(contacts.getData().get(0).getLastContactDate());
+        Assert.assertNull(contacts.getData().get(0).getLastContactDateTime());
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void testMalformedDomainDateTimeFails() throws Exception {
+        String json = "{\"structure\":[{\"name\":\"LastContactDateTime\",\"type\":\"datetime\",\"choices\":[]}],"
+                + "\"data\":[{\"LastContactDateTime\":\"yesterday\"}],\"totalCount\":1}";
+
+        Codecs.deserializer(Unit.Contact.class, new DomainRecordSetType<Unit.Contact>(Unit.Contact.class))
+                .fromJson(json, new DomainRecordSetType<Unit.Contact>(Unit.Contact.class));
+    }
+
+    @Test
+    public void testCodecsWriteDateTimesInUtc() throws Exception {
+        Date date = new Date(1398967200123L);
+
+        Assert.assertEquals("\"2014-05-01T18:00:00.123Z\"", Codecs.RECORDS.toJson(date));
+        Assert.assertEquals(date, Codecs.RECORDS.fromJson("\"2014-05-01T12:00:00.123-0600\"", Date.class));
+    }
+}
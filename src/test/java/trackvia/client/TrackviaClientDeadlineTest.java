@@ -0,0 +1,203 @@
+package trackvia.client;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import trackvia.client.model.RecordSet;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static trackvia.client.TestData.*;
+
+public class TrackviaClientDeadlineTest extends LoopbackTestBase {
+    Gson gson = new GsonBuilder().setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX").create();
+
+    TrackviaClient client;
+    String records;
+
+    @Before
+    public void setUp() throws Exception {
+        records = gson.toJson(Unit.getUnitTestRecordSet1());
+    }
+
+    private void newClient(final TrackviaClientConfig.Builder config) {
+        client = newClient(config.build());
+    }
+
+    /**
+     * Answers only when the request is aborted, as a transport stuck reading from a silent service would.
+     */
+    private void hang(final String path) {
+        transport.handle(path, new LoopbackTransport.Handler() {
+            @Override
+            public CloseableHttpResponse handle(HttpRequestBase request) throws IOException {
+                long giveUp = System.currentTimeMillis() + 5000;
+                while (!request.isAborted() && System.currentTimeMillis() < giveUp) {
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+                throw new IOException("Request aborted");
+            }
+        });
+    }
+
+    private Callable<RecordSet> getRecords() {
+        return new Callable<RecordSet>() {
+            @Override
+            public RecordSet call() {
+                return client.getRecords(1);
+            }
+        };
+    }
+
+    @Test
+    public void testAbortsRequestAtDeadline() throws Exception {
+        newClient(TrackviaClientConfig.custom());
+        hang("/openapi/views/1");
+
+        long start = System.nanoTime();
+        try {
+            client.withTimeout(100, TimeUnit.MILLISECONDS, getRecords());
+            Assert.fail("the call should have run out of time");
+        } catch (TrackviaDeadlineExceededException e) {
+            Assert.assertEquals(100, e.getTimeoutMillis());
+            Assert.assertEquals("GET", e.getRequestMethod());
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Assert.assertTrue("took " + elapsedMillis + " ms", elapsedMillis < 1000);
+    }
+
+    @Test
+    public void testConfiguredCallTimeout() throws Exception {
+        newClient(TrackviaClientConfig.custom().setCallTimeoutMillis(100));
+        hang("/openapi/views/1");
+
+        try {
+            client.getRecords(1);
+            Assert.fail("the call should have run out of time");
+        } catch (TrackviaDeadlineExceededException e) {
+            Assert.assertEquals(100, e.getTimeoutMillis());
+        }
+    }
+
+    @Test
+    public void testNestedDeadlineCantExtend() throws Exception {
+        newClient(TrackviaClientConfig.custom());
+        hang("/openapi/views/1");
+
+        long start = System.nanoTime();
+        try {
+            client.withTimeout(100, TimeUnit.MILLISECONDS, new Callable<RecordSet>() {
+                @Override
+                public RecordSet call() {
+                    return client.withTimeout(10, TimeUnit.SECONDS, getRecords());
+                }
+            });
+            Assert.fail("the call should have run out of time");
+        } catch (TrackviaDeadlineExceededException e) {
+            Assert.assertEquals(100, e.getTimeoutMillis());
+        }
+
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        Assert.assertNull(Deadline.current());
+    }
+
+    @Test
+    public void testNotSentPastDeadline() throws Exception {
+        newClient(TrackviaClientConfig.custom());
+        transport.respond("/openapi/views/1", 200, records);
+
+        try {
+            client.withDeadline(Deadline.after(1, TimeUnit.MILLISECONDS), new Callable<RecordSet>() {
+                @Override
+                public RecordSet call() throws Exception {
+                    Thread.sleep(10);
+                    return client.getRecords(1);
+                }
+            });
+            Assert.fail("the deadline passed before the call");
+        } catch (TrackviaDeadlineExceededException e) {
+            // expected
+        }
+
+        Assert.assertEquals(0, transport.getRequests());
+    }
+
+    @Test
+    public void testNoRetryPastDeadline() throws Exception {
+        newClient(TrackviaClientConfig.custom());
+        transport.handle("/openapi/views/1", new LoopbackTransport.Handler() {
+            @Override
+            public CloseableHttpResponse handle(HttpRequestBase request) {
+                CloseableHttpResponse response = LoopbackTransport.response(503, "{}".getBytes(StandardCharsets.UTF_8));
+                response.addHeader("Retry-After", "2");
+                return response;
+            }
+        });
+
+        long start = System.nanoTime();
+        try {
+            client.withTimeout(500, TimeUnit.MILLISECONDS, getRecords());
+            Assert.fail("the service was unavailable");
+        } catch (TrackviaApiException e) {
+            Assert.assertEquals(503, e.getStatusCode());
+        }
+
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 500);
+        Assert.assertEquals(1, transport.getRequests());
+    }
+
+    @Test
+    public void testBoundsRequestTimeouts() throws Exception {
+        newClient(TrackviaClientConfig.custom().setConnectTimeoutMillis(5000));
+        final AtomicReference<RequestConfig> requestConfig = new AtomicReference<RequestConfig>();
+        transport.handle("/openapi/views/1", new LoopbackTransport.Handler() {
+            @Override
+            public CloseableHttpResponse handle(HttpRequestBase request) {
+                requestConfig.set(request.getConfig());
+                return LoopbackTransport.response(200, records.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+
+        client.withTimeout(500, TimeUnit.MILLISECONDS, getRecords());
+
+        RequestConfig config = requestConfig.get();
+        Assert.assertTrue(config.getConnectionRequestTimeout() > 0 && config.getConnectionRequestTimeout() <= 500);
+        Assert.assertTrue(config.getConnectTimeout() > 0 && config.getConnectTimeout() <= 500);
+        Assert.assertTrue(config.getSocketTimeout() > 0 && config.getSocketTimeout() <= 500);
+    }
+
+    @Test
+    public void testRateLimitWaitBounded() throws Exception {
+        newClient(TrackviaClientConfig.custom().setRateLimitPolicy(RateLimitPolicy.custom().setLimit(1, 1).build()));
+        transport.respond("/openapi/views/1", 200, records);
+        client.getRecords(1);
+
+        long start = System.nanoTime();
+        try {
+            client.withTimeout(100, TimeUnit.MILLISECONDS, getRecords());
+            Assert.fail("the next permit is due after the deadline");
+        } catch (TrackviaDeadlineExceededException e) {
+            // expected
+        }
+
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 500);
+        Assert.assertEquals(1, transport.getRequests());
+    }
+}
@@ -0,0 +1,182 @@
+package trackvia.client;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParser;
+import com.google.gson.annotations.SerializedName;
+
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.util.EntityUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import trackvia.client.model.DomainRecordDataBatch;
+import trackvia.client.model.DomainRecordDataBatchAdapterFactory;
+import trackvia.client.model.DomainRecordDataBatchSerializer;
+import trackvia.client.model.DomainRecordDataBatchType;
+import trackvia.client.model.Iso8601;
+import trackvia.client.model.Point;
+import trackvia.client.model.TrackviaSerializationExclusionStrategy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static trackvia.client.TestData.*;
+
+public class TrackviaClientDomainWriteTest extends LoopbackTestBase {
+    TrackviaClient client;
+
+    public static class Account {
+        private String accountNumber;
+        private transient String session = "not written";
+        private static String shared = "not written";
+
+        public String getAccountNumber() {
+            return accountNumber;
+        }
+
+        public void setAccountNumber(String accountNumber) {
+            this.accountNumber = accountNumber;
+        }
+    }
+
+    public static class Customer extends Account {
+        @SerializedName("Customer Name")
+        private String name;
+        private long visits;
+        private double score;
+        private boolean active;
+        private Object note;
+        private List<String> tags;
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        client = newClient();
+    }
+
+    private static <T> Gson reflective(final Class<T> domainClass) {
+        return new GsonBuilder()
+                .registerTypeAdapter(Date.class, Iso8601.dateTimeAdapter())
+                .addSerializationExclusionStrategy(new TrackviaSerializationExclusionStrategy())
+                .registerTypeAdapter(DomainRecordDataBatch.class, new DomainRecordDataBatchSerializer<T>(domainClass))
+                .create();
+    }
+
+    private static <T> Gson compiled(final Class<T> domainClass) {
+        return new GsonBuilder()
+                .registerTypeAdapter(Date.class, Iso8601.dateTimeAdapter())
+                .addSerializationExclusionStrategy(new TrackviaSerializationExclusionStrategy())
+                .registerTypeAdapterFactory(DomainRecordDataBatchAdapterFactory.forDomainClass(domainClass))
+                .create();
+    }
+
+    private static Unit.Contact contact(final long id) {
+        Unit.Contact contact = Unit.getUnitTestContact1();
+        contact.setId(id);
+        contact.setTestPoint(new Point(39.7392, -104.9903));
+
+        return contact;
+    }
+
+    @Test
+    public void testWritesWhatGsonWrites() throws Exception {
+        List<Unit.Contact> contacts = new ArrayList<Unit.Contact>();
+        contacts.add(contact(1L));
+        contacts.add(null);
+        Unit.Contact sparse = new Unit.Contact();
+        sparse.setContactName("Sparse");
+        contacts.add(sparse);
+        DomainRecordDataBatch<Unit.Contact> batch = new DomainRecordDataBatch<Unit.Contact>(contacts);
+
+        String expected = reflective(Unit.Contact.class).toJson(batch);
+        String actual = compiled(Unit.Contact.class).toJson(batch,
+                new DomainRecordDataBatchType<Unit.Contact>(Unit.Contact.class));
+
+        Assert.assertEquals(expected, actual);
+        Assert.assertTrue(actual.contains("\"lastContactDateTime\":\""));
+    }
+
+    @Test
+    public void testWritesFieldsAsGsonBindsThem() throws Exception {
+        Customer customer = new Customer();
+        customer.setName("James Randall");
+        customer.setAccountNumber("A-1");
+        customer.visits = 3;
+        customer.score = 0.5;
+        customer.active = true;
+        customer.note = Long.valueOf(7L);
+        customer.tags = Arrays.asList("CA", "CO");
+        DomainRecordDataBatch<Customer> batch = new DomainRecordDataBatch<Customer>(Arrays.asList(customer));
+
+        String expected = reflective(Customer.class).toJson(batch);
+        String actual = compiled(Customer.class).toJson(batch);
+
+        Assert.assertEquals(expected, actual);
+        Assert.assertEquals("{\"data\":[{\"Customer Name\":\"James Randall\",\"visits\":3,\"score\":0.5,"
+                + "\"active\":true,\"note\":7,\"tags\":[\"CA\",\"CO\"],\"accountNumber\":\"A-1\"}]}", actual);
+    }
+
+    @Test
+    public void testWritesNullsWhenAsked() throws Exception {
+        DomainRecordDataBatch<Customer> batch = new DomainRecordDataBatch<Customer>(Arrays.asList(new Customer()));
+        Gson gson = new GsonBuilder()
+                .serializeNulls()
+                .registerTypeAdapterFactory(DomainRecordDataBatchAdapterFactory.forDomainClass(Customer.class))
+                .create();
+
+        Assert.assertEquals("{\"data\":[{\"Customer Name\":null,\"visits\":0,\"score\":0.0,\"active\":false,"
+                + "\"note\":null,\"tags\":null,\"accountNumber\":null}]}", gson.toJson(batch));
+    }
+
+    @Test
+    public void testCreateRecordsSendsCompiledJson() throws Exception {
+        final AtomicReference<String> sent = new AtomicReference<String>();
+        transport.handle("/openapi/views/1/records", new LoopbackTransport.Handler() {
+            @Override
+            public CloseableHttpResponse handle(HttpRequestBase request) throws IOException {
+                sent.set(EntityUtils.toString(((HttpEntityEnclosingRequest) request).getEntity(), StandardCharsets.UTF_8));
+                return LoopbackTransport.response(200, new Gson().toJson(Unit.getUnitTestRecordSet1())
+                        .getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        DomainRecordDataBatch<Unit.Contact> batch = new DomainRecordDataBatch<Unit.Contact>(
+                Arrays.asList(contact(1L), contact(2L)));
+
+        Assert.assertEquals(2, client.createRecords(1, batch).getData().size());
+        Assert.assertEquals(new JsonParser().parse(reflective(Unit.Contact.class).toJson(batch)),
+                new JsonParser().parse(sent.get()));
+    }
+
+    @Test
+    public void testUpdateRecordSendsCompiledJson() throws Exception {
+        final AtomicReference<String> sent = new AtomicReference<String>();
+        transport.handle("/openapi/views/1/records/1", new LoopbackTransport.Handler() {
+            @Override
+            public CloseableHttpResponse handle(HttpRequestBase request) throws IOException {
+                sent.set(EntityUtils.toString(((HttpEntityEnclosingRequest) request).getEntity(), StandardCharsets.UTF_8));
+                return LoopbackTransport.response(200, new Gson().toJson(Unit.getUnitTestRecordSet1())
+                        .getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        Unit.Contact contact = contact(1L);
+        contact.setContactName("Jämes Rändall");
+        contact.setLastContactDateTime(new Date(0L));
+
+        Assert.assertNotNull(client.updateRecord(1, 1L, contact));
+        Assert.assertEquals(reflective(Unit.Contact.class).toJson(new DomainRecordDataBatch<Unit.Contact>(
+                Arrays.asList(contact))), sent.get());
+    }
+}
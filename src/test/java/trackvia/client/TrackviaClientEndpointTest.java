@@ -0,0 +1,128 @@
+package trackvia.client;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.apache.http.NameValuePair;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.utils.URLEncodedUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static trackvia.client.TestData.*;
+
+public class TrackviaClientEndpointTest extends LoopbackTestBase {
+    static final EndpointTemplate RECORD = EndpointTemplate.compile("/openapi/views/{}/records/{}",
+            "access_token", "user_key");
+    static final EndpointTemplate FILE = EndpointTemplate.compile("/openapi/views/{}/records/{}/files/{}",
+            "access_token", "user_key");
+    static final EndpointTemplate FIND = EndpointTemplate.compile("/openapi/views/{}/find",
+            "q", "start", "max", "access_token", "user_key");
+
+    Gson gson = new GsonBuilder().setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX").create();
+
+    TrackviaClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        client = newClient();
+    }
+
+    private static Map<String, String> parametersOf(final URI uri) {
+        Map<String, String> parameters = new HashMap<String, String>();
+        List<NameValuePair> pairs = URLEncodedUtils.parse(uri, "UTF-8");
+        for (NameValuePair pair : pairs) {
+            parameters.put(pair.getName(), pair.getValue());
+        }
+        return parameters;
+    }
+
+    @Test
+    public void testExpands() throws Exception {
+        URI uri = RECORD.expand("https", "go.api.trackvia.com", 443, "", 1, 2L, "token", "key");
+
+        Assert.assertEquals("https://go.api.trackvia.com:443/openapi/views/1/records/2?access_token=token&user_key=key",
+                uri.toString());
+    }
+
+    @Test
+    public void testBasePath() throws Exception {
+        Assert.assertEquals("/gateway/openapi/views/1/records/2",
+                RECORD.expand("https", "localhost", 443, "/gateway", 1, 2, "t", "k").getPath());
+        Assert.assertEquals("/gateway/openapi/views/1/records/2",
+                RECORD.expand("https", "localhost", 443, "gateway", 1, 2, "t", "k").getPath());
+        Assert.assertEquals("/gw/openapi/views/1/records/2",
+                RECORD.expand("https", "localhost", 443, "/gw/", 1, 2, "t", "k").getPath());
+    }
+
+    @Test
+    public void testDefaultBasePath() throws Exception {
+        Assert.assertEquals("https://localhost:443/openapi/views/1/records/2?access_token=t&user_key=k",
+                RECORD.expand("https", "localhost", 443, TrackviaClient.DEFAULT_BASE_URI_PATH, 1, 2, "t", "k")
+                        .toString());
+        Assert.assertEquals("/openapi/views/1/records/2",
+                RECORD.expand("https", "localhost", 443, null, 1, 2, "t", "k").getPath());
+    }
+
+    @Test
+    public void testEncodesSegment() throws Exception {
+        URI uri = FILE.expand("https", "localhost", 443, "", 1, 2, "q3 report/draft #1 ü.pdf", "t", "k");
+
+        Assert.assertEquals("/openapi/views/1/records/2/files/q3%20report%2Fdraft%20%231%20%C3%BC.pdf", uri.getRawPath());
+        Assert.assertEquals("/openapi/views/1/records/2/files/q3 report/draft #1 ü.pdf", uri.getPath());
+    }
+
+    @Test
+    public void testEncodesParameters() throws Exception {
+        String q = "Smith & Sons = 100% +1 #2 😀";
+        URI uri = FIND.expand("https", "localhost", 443, "", 1, q, 0, 25, "t=1", "k");
+
+        Map<String, String> parameters = parametersOf(uri);
+        Assert.assertEquals(q, parameters.get("q"));
+        Assert.assertEquals("0", parameters.get("start"));
+        Assert.assertEquals("25", parameters.get("max"));
+        Assert.assertEquals("t=1", parameters.get("access_token"));
+    }
+
+    @Test
+    public void testLeavesOutNullParameters() throws Exception {
+        URI uri = FIND.expand("https", "localhost", 443, "", 1, null, 0, 25, "t", "k");
+
+        Assert.assertEquals("start=0&max=25&access_token=t&user_key=k", uri.getRawQuery());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testValueCountChecked() throws Exception {
+        RECORD.expand("https", "localhost", 443, "", 1, 2, "t");
+    }
+
+    @Test
+    public void testClientSendsEncodedSearch() throws Exception {
+        final AtomicReference<URI> received = new AtomicReference<URI>();
+        final String records = gson.toJson(Unit.getUnitTestRecordSet1());
+        transport.handle("/openapi/views/1/find", new LoopbackTransport.Handler() {
+            @Override
+            public CloseableHttpResponse handle(HttpRequestBase request) {
+                received.set(request.getURI());
+                return LoopbackTransport.response(200, records.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+
+        client.findRecords(1, "Smith & Sons", -1, 10);
+
+        Map<String, String> parameters = parametersOf(received.get());
+        Assert.assertEquals("Smith & Sons", parameters.get("q"));
+        Assert.assertEquals("0", parameters.get("start"));
+        Assert.assertEquals("loopback-access-token", parameters.get("access_token"));
+        Assert.assertEquals("loopback-user-key", parameters.get("user_key"));
+    }
+}
@@ -0,0 +1,201 @@
+package trackvia.client;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import trackvia.client.model.RecordDataBatch;
+import trackvia.client.model.RecordSet;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static trackvia.client.TestData.*;
+
+public class TrackviaClientHedgingTest extends LoopbackTestBase {
+    Gson gson = new GsonBuilder().setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX").create();
+
+    TrackviaClient client;
+    byte[] records;
+
+    @Before
+    public void setUp() throws Exception {
+        records = gson.toJson(Unit.getUnitTestRecordSet1()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void newClient(final HedgePolicy hedgePolicy) {
+        client = newClient(TrackviaClientConfig.custom()
+                .setRetryPolicy(RetryPolicy.NONE)
+                .setHedgePolicy(hedgePolicy)
+                .build());
+    }
+
+    /**
+     * Answers the first few calls to a path only after a while, the rest at once.
+     */
+    private void slowFirst(final String path, final int slowCalls, final long slowMillis, final int statusCode) {
+        final AtomicInteger calls = new AtomicInteger();
+        transport.handle(path, new LoopbackTransport.Handler() {
+            @Override
+            public CloseableHttpResponse handle(HttpRequestBase request) throws IOException {
+                if (calls.incrementAndGet() <= slowCalls) {
+                    try {
+                        Thread.sleep(slowMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return LoopbackTransport.response(statusCode, records);
+            }
+        });
+    }
+
+    private static HedgePolicy.Builder fixedDelay(final long delayMillis) {
+        return HedgePolicy.custom().setDelayPercentile(0).setDelayMillis(delayMillis).setHedgeBudgetMinPerSecond(5);
+    }
+
+    @Test
+    public void testHedgeAnswersSlowRead() throws Exception {
+        newClient(fixedDelay(20).build());
+        slowFirst("/openapi/views/1", 1, 2000, 200);
+
+        long start = System.nanoTime();
+        RecordSet rs = client.getRecords(1);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Assert.assertEquals(2, rs.getData().size());
+        Assert.assertTrue("took " + elapsedMillis + " ms", elapsedMillis < 1000);
+        Assert.assertEquals(2, transport.getRequests());
+        Assert.assertEquals(1, client.getMetrics().getHedges());
+        Assert.assertEquals(1, client.getMetrics().getHedgeWins());
+    }
+
+    @Test
+    public void testFastReadNotHedged() throws Exception {
+        newClient(fixedDelay(1000).build());
+        transport.respond("/openapi/views/1", 200, new String(records, StandardCharsets.UTF_8));
+
+        for (int i = 0; i < 5; i++) {
+            client.getRecords(1);
+        }
+
+        Assert.assertEquals(5, transport.getRequests());
+        Assert.assertEquals(0, client.getMetrics().getHedges());
+    }
+
+    @Test
+    public void testHedgeBudget() throws Exception {
+        newClient(fixedDelay(10).setHedgeBudgetRatio(0).setHedgeBudgetMinPerSecond(0).build());
+        slowFirst("/openapi/views/1", 1, 100, 200);
+
+        Assert.assertEquals(2, client.getRecords(1).getData().size());
+
+        Assert.assertEquals(1, transport.getRequests());
+        Assert.assertEquals(0, client.getMetrics().getHedges());
+        Assert.assertEquals(1, client.getMetrics().getHedgesSkipped());
+    }
+
+    @Test
+    public void testWritesNotHedged() throws Exception {
+        newClient(fixedDelay(10).build());
+        slowFirst("/openapi/views/1/records", 1, 100, 201);
+
+        client.createRecords(1, new RecordDataBatch(Unit.getUnitTestRecordSet1().getData()));
+
+        Assert.assertEquals(1, transport.getRequests());
+        Assert.assertEquals(0, client.getMetrics().getHedges());
+    }
+
+    @Test
+    public void testObservedPercentileDelay() throws Exception {
+        // the fixed delay applies only until enough latencies have been observed
+        newClient(HedgePolicy.custom().setDelayPercentile(0.9).setDelayMillis(60000).build());
+        slowFirst("/openapi/views/1", 0, 0, 200);
+        for (int i = 0; i < 30; i++) {
+            client.getRecords(1);
+        }
+
+        slowFirst("/openapi/views/1", 1, 2000, 200);
+        long start = System.nanoTime();
+        client.getRecords(1);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Assert.assertTrue("took " + elapsedMillis + " ms", elapsedMillis < 1000);
+        Assert.assertEquals(1, client.getMetrics().getHedgeWins());
+    }
+
+    @Test
+    public void testHedgeWinsDontHoldThePercentile() throws Exception {
+        newClient(HedgePolicy.custom().setDelayPercentile(0.5).setDelayMillis(10).setHedgeBudgetMinPerSecond(100).build());
+        // while reads are hedged, every first attempt is slow and every hedge fast
+        final AtomicInteger calls = new AtomicInteger();
+        transport.handle("/openapi/views/1", new LoopbackTransport.Handler() {
+            @Override
+            public CloseableHttpResponse handle(HttpRequestBase request) throws IOException {
+                if (calls.incrementAndGet() % 2 == 1) {
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return LoopbackTransport.response(200, records);
+            }
+        });
+
+        for (int i = 0; i < 30; i++) {
+            client.getRecords(1);
+        }
+
+        // once the fixed delay gives way, first attempts that lost are known only to be slow: hedging stops
+        Assert.assertTrue("hedged " + client.getMetrics().getHedges(), client.getMetrics().getHedges() < 25);
+    }
+
+    @Test
+    public void testTokenGrantsNotHedged() throws Exception {
+        final AtomicInteger grants = new AtomicInteger();
+        transport.handle("/oauth/token", new LoopbackTransport.Handler() {
+            @Override
+            public CloseableHttpResponse handle(HttpRequestBase request) throws IOException {
+                int n = grants.incrementAndGet();
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                String token = "{\"value\":\"access-token-" + n + "\",\"refreshToken\":{\"value\":\"refresh-token-" + n
+                        + "\"},\"expires_in\":3600}";
+                return LoopbackTransport.response(200, token.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        client = newPasswordClient(TrackviaClientConfig.custom()
+                .setRetryPolicy(RetryPolicy.NONE)
+                .setHedgePolicy(fixedDelay(10).build())
+                .build());
+
+        client.refreshAccessToken();
+
+        Assert.assertEquals(2, grants.get());
+        Assert.assertEquals(2, transport.getRequests());
+        Assert.assertEquals(0, client.getMetrics().getHedges());
+        Assert.assertEquals("access-token-2", client.getAccessToken());
+    }
+
+    @Test
+    public void testDisabledByDefault() throws Exception {
+        client = newClient();
+        slowFirst("/openapi/views/1", 1, 100, 200);
+
+        client.getRecords(1);
+
+        Assert.assertEquals(1, transport.getRequests());
+        Assert.assertEquals(0, client.getMetrics().getHedges());
+    }
+}
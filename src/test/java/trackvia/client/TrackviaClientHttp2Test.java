@@ -0,0 +1,189 @@
+package trackvia.client;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import okio.Buffer;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import trackvia.client.model.RecordDataBatch;
+import trackvia.client.model.RecordSet;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static trackvia.client.TestData.*;
+
+public class TrackviaClientHttp2Test {
+    static final int CONCURRENT_CALLS = 8;
+    static final TrackviaClientConfig HTTP_2 = TrackviaClientConfig.custom()
+            .setHttpProtocol(TrackviaClientConfig.HttpProtocol.HTTP_2)
+            .build();
+
+    Gson gson = new GsonBuilder().setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX").create();
+
+    MockWebServer server;
+    TrackviaClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.setProtocols(Arrays.asList(Protocol.H2_PRIOR_KNOWLEDGE));
+        server.start();
+        client = TrackviaClient.create("localhost", "stub-access-token", "", "http", server.getPort(), "stub-user-key", HTTP_2);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.shutdown();
+        server.shutdown();
+    }
+
+    @Test
+    public void testGetRecords() throws Exception {
+        server.enqueue(json(200, gson.toJson(Unit.getUnitTestRecordSet1())));
+
+        RecordSet rsResponse = client.getRecords(1);
+
+        Assert.assertEquals(2, rsResponse.getTotalCount());
+        Assert.assertEquals(2, rsResponse.getData().size());
+        Assert.assertEquals("/openapi/views/1", server.takeRequest().getRequestUrl().encodedPath());
+    }
+
+    @Test
+    public void testCreateRecords() throws Exception {
+        RecordSet rs = Unit.getUnitTestRecordSet1();
+        server.enqueue(json(201, gson.toJson(rs)));
+
+        RecordSet rsResponse = client.createRecords(1, new RecordDataBatch(rs.getData()));
+
+        Assert.assertEquals(2, rsResponse.getData().size());
+        RecordedRequest request = server.takeRequest();
+        Assert.assertEquals("POST", request.getMethod());
+        Assert.assertTrue(request.getBody().readUtf8().startsWith("{\"data\":"));
+    }
+
+    @Test
+    public void testGzipResponse() throws Exception {
+        byte[] json = gson.toJson(Unit.getUnitTestRecordSet1()).getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = TrackviaClientCompressionTest.gzip(json);
+        server.enqueue(json(200, "")
+                .setHeader("Content-Encoding", "gzip")
+                .setBody(new Buffer().write(compressed)));
+
+        Assert.assertEquals(2, client.getRecords(1).getData().size());
+
+        Assert.assertEquals("gzip, deflate", server.takeRequest().getHeader("Accept-Encoding"));
+        Assert.assertEquals(compressed.length, client.getMetrics().getResponseWireBytes());
+        Assert.assertEquals(json.length, client.getMetrics().getResponseContentBytes());
+    }
+
+    @Test
+    public void testApiError() throws Exception {
+        server.enqueue(json(404, "{\"message\":\"not found\",\"error\":\"not_found\"}"));
+
+        try {
+            client.getRecords(1);
+            Assert.fail("getRecords shouldn't have succeeded");
+        } catch (TrackviaApiException e) {
+            Assert.assertEquals("not found", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testConcurrentCallsShareOneConnection() throws Exception {
+        final CountDownLatch allArrived = new CountDownLatch(CONCURRENT_CALLS);
+        final String body = gson.toJson(Unit.getUnitTestRecordSet1());
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                allArrived.countDown();
+                allArrived.await(5, TimeUnit.SECONDS);
+                return json(200, body);
+            }
+        });
+
+        ExecutorService callers = Executors.newFixedThreadPool(CONCURRENT_CALLS);
+        try {
+            List<Future<RecordSet>> calls = new ArrayList<Future<RecordSet>>();
+            for (int i = 0; i < CONCURRENT_CALLS; i++) {
+                calls.add(callers.submit(new Callable<RecordSet>() {
+                    @Override
+                    public RecordSet call() throws Exception {
+                        return client.getRecords(1);
+                    }
+                }));
+            }
+            for (Future<RecordSet> call : calls) {
+                Assert.assertEquals(2, call.get(10, TimeUnit.SECONDS).getData().size());
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        // streams of one connection are numbered in sequence; separate connections would each start at 0
+        Set<Integer> sequenceNumbers = new HashSet<Integer>();
+        for (int i = 0; i < CONCURRENT_CALLS; i++) {
+            sequenceNumbers.add(server.takeRequest().getSequenceNumber());
+        }
+        Assert.assertEquals(CONCURRENT_CALLS, sequenceNumbers.size());
+    }
+
+    @Test
+    public void testFallsBackToHttp11() throws Exception {
+        StubTrackviaService service = StubTrackviaService.start();
+        TrackviaClient http11Client = service.newClient(HTTP_2);
+        try {
+            service.respond("/openapi/views/1", 200, gson.toJson(Unit.getUnitTestRecordSet1()));
+
+            Assert.assertEquals(2, http11Client.getRecords(1).getData().size());
+            Assert.assertEquals(2, http11Client.getRecords(1).getData().size());
+        } finally {
+            http11Client.shutdown();
+            service.stop();
+        }
+    }
+
+    @Test
+    public void testStreamResetDoesNotFallBack() throws Exception {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.RESET_STREAM_AT_START).setHttp2ErrorCode(2));
+        server.enqueue(json(200, gson.toJson(Unit.getUnitTestRecordSet1())));
+
+        try {
+            client.getRecords(1);
+            Assert.fail("a reset stream should fail the call");
+        } catch (TrackviaClientException e) {
+            // expected
+        }
+
+        // the service speaks only h2c; had the reset switched the transport to HTTP/1.1, this would fail
+        Assert.assertEquals(2, client.getRecords(1).getData().size());
+    }
+
+    static MockResponse json(final int status, final String body) {
+        return new MockResponse()
+                .setResponseCode(status)
+                .setHeader("Content-Type", "application/json")
+                .setBody(body);
+    }
+}
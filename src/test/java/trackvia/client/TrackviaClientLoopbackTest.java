@@ -0,0 +1,86 @@
+package trackvia.client;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.util.EntityUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import trackvia.client.model.RecordDataBatch;
+import trackvia.client.model.RecordSet;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static trackvia.client.TestData.*;
+
+public class TrackviaClientLoopbackTest extends LoopbackTestBase {
+    Gson gson = new GsonBuilder().setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX").create();
+
+    TrackviaClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        client = newClient();
+    }
+
+    @Test
+    public void testGetRecords() throws Exception {
+        transport.respond("/openapi/views/1", 200, gson.toJson(Unit.getUnitTestRecordSet1()));
+
+        RecordSet rsResponse = client.getRecords(1);
+
+        Assert.assertEquals(2, rsResponse.getTotalCount());
+        Assert.assertEquals(2, rsResponse.getData().size());
+        Assert.assertEquals(1, transport.getRequests());
+        Assert.assertEquals(1, client.getMetrics().getExchanges());
+    }
+
+    @Test
+    public void testRespondServesEveryCall() throws Exception {
+        transport.respond("/openapi/views/1", 200, gson.toJson(Unit.getUnitTestRecordSet1()));
+
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(2, client.getRecords(1).getData().size());
+        }
+        Assert.assertEquals(3, transport.getRequests());
+    }
+
+    @Test
+    public void testHandlerSeesRequest() throws Exception {
+        final RecordSet rs = Unit.getUnitTestRecordSet1();
+        final AtomicReference<HttpRequestBase> received = new AtomicReference<HttpRequestBase>();
+        final AtomicReference<String> body = new AtomicReference<String>();
+        transport.handle("/openapi/views/1/records", new LoopbackTransport.Handler() {
+            @Override
+            public CloseableHttpResponse handle(HttpRequestBase request) throws IOException {
+                received.set(request);
+                body.set(EntityUtils.toString(((HttpEntityEnclosingRequest) request).getEntity(), StandardCharsets.UTF_8));
+                return LoopbackTransport.response(201, gson.toJson(rs).getBytes(StandardCharsets.UTF_8));
+            }
+        });
+
+        RecordSet rsResponse = client.createRecords(1, new RecordDataBatch(rs.getData()));
+
+        Assert.assertEquals(2, rsResponse.getData().size());
+        Assert.assertEquals("POST", received.get().getMethod());
+        Assert.assertTrue(received.get().getURI().getQuery().contains("user_key=loopback-user-key"));
+        Assert.assertTrue(body.get().startsWith("{\"data\":"));
+    }
+
+    @Test
+    public void testUnhandledPath() throws Exception {
+        try {
+            client.getRecords(1);
+            Assert.fail("expected the unhandled path to answer 404");
+        } catch (TrackviaApiException e) {
+            Assert.assertEquals(1, transport.getRequests());
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package trackvia.client;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import trackvia.client.model.RecordDataBatch;
+import trackvia.client.model.RecordSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static trackvia.client.TestData.*;
+
+public class TrackviaClientRateLimitTest extends LoopbackTestBase {
+    Gson gson = new GsonBuilder().setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX").create();
+
+    TrackviaClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        RecordSet rs = Unit.getUnitTestRecordSet1();
+        transport.respond("/openapi/views/1", 200, gson.toJson(rs));
+        transport.respond("/openapi/views/1/records", 201, gson.toJson(rs));
+    }
+
+    private void newClient(final RateLimitPolicy rateLimitPolicy) {
+        client = newClient(TrackviaClientConfig.custom().setRateLimitPolicy(rateLimitPolicy).build());
+    }
+
+    @Test
+    public void testBurstThenReject() throws Exception {
+        RateLimiter limiter = new RateLimiter(1, 3);
+
+        Assert.assertTrue(limiter.tryAcquire());
+        Assert.assertTrue(limiter.tryAcquire());
+        Assert.assertTrue(limiter.tryAcquire());
+        Assert.assertFalse(limiter.tryAcquire());
+        Assert.assertFalse(limiter.tryAcquire(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testConcurrentCallersShareBurst() throws Exception {
+        final RateLimiter limiter = new RateLimiter(0.01, 50);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        int acquired = 0;
+                        for (int j = 0; j < 100; j++) {
+                            if (limiter.tryAcquire()) acquired++;
+                        }
+                        return acquired;
+                    }
+                }));
+            }
+
+            int acquired = 0;
+            for (Future<Integer> future : futures) {
+                acquired += future.get(5, TimeUnit.SECONDS);
+            }
+            Assert.assertEquals(50, acquired);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRejectsOverLimit() throws Exception {
+        newClient(RateLimitPolicy.custom().setLimit(0.1, 2).setMaxWaitMillis(0).build());
+
+        client.getRecords(1);
+        client.getRecords(1);
+        try {
+            client.getRecords(1);
+            Assert.fail("a third call should have been over the burst");
+        } catch (TrackviaRateLimitException e) {
+            Assert.assertEquals(RateLimitPolicy.EndpointClass.READ, e.getEndpointClass());
+        }
+
+        Assert.assertEquals(2, transport.getRequests());
+        Assert.assertEquals(1, client.getMetrics().getRateLimitRejections());
+    }
+
+    @Test
+    public void testWaitsForPermit() throws Exception {
+        newClient(RateLimitPolicy.custom().setLimit(20, 1).build());
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            client.getRecords(1);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Assert.assertTrue("took " + elapsedMillis + " ms", elapsedMillis >= 90);
+        Assert.assertEquals(3, transport.getRequests());
+        Assert.assertEquals(2, client.getMetrics().getRateLimitDelays());
+    }
+
+    @Test
+    public void testEndpointClassLimit() throws Exception {
+        newClient(RateLimitPolicy.custom()
+                .setEndpointLimit(RateLimitPolicy.EndpointClass.WRITE, 0.1, 1)
+                .setMaxWaitMillis(0)
+                .build());
+        RecordDataBatch batch = new RecordDataBatch(Unit.getUnitTestRecordSet1().getData());
+
+        client.createRecords(1, batch);
+        try {
+            client.createRecords(1, batch);
+            Assert.fail("a second write should have been over the write limit");
+        } catch (TrackviaRateLimitException e) {
+            Assert.assertEquals(RateLimitPolicy.EndpointClass.WRITE, e.getEndpointClass());
+        }
+
+        // reads have no limit of their own
+        for (int i = 0; i < 5; i++) {
+            client.getRecords(1);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package trackvia.client;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.util.EntityUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import trackvia.client.model.OAuth2Token;
+import trackvia.client.model.RecordData;
+import trackvia.client.model.RecordDataBatch;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static trackvia.client.TestData.*;
+
+public class TrackviaClientRecordWriteTest extends LoopbackTestBase {
+    Gson gson = new GsonBuilder().setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX").create();
+
+    TrackviaClient client;
+    AtomicReference<String> sent = new AtomicReference<String>();
+
+    @Before
+    public void setUp() throws Exception {
+        transport.handle("/oauth/token", new LoopbackTransport.Handler() {
+            @Override
+            public CloseableHttpResponse handle(HttpRequestBase request) {
+                OAuth2Token token = new OAuth2Token();
+                token.setValue("access-token");
+                token.setExpiresIn(3600L);
+                return LoopbackTransport.response(200, gson.toJson(token).getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        LoopbackTransport.Handler records = new LoopbackTransport.Handler() {
+            @Override
+            public CloseableHttpResponse handle(HttpRequestBase request) throws IOException {
+                sent.set(EntityUtils.toString(((HttpEntityEnclosingRequest) request).getEntity(), StandardCharsets.UTF_8));
+                return LoopbackTransport.response(200, new Gson().toJson(Unit.getUnitTestRecordSet1())
+                        .getBytes(StandardCharsets.UTF_8));
+            }
+        };
+        transport.handle("/openapi/views/1/records", records);
+        transport.handle("/openapi/views/1/records/1", records);
+
+        // created with a password, the client reads records with a codec omitting nulls
+        client = newPasswordClient(TrackviaClientConfig.DEFAULT);
+    }
+
+    private JsonObject sentRecord() {
+        return new JsonParser().parse(sent.get()).getAsJsonObject().getAsJsonArray("data").get(0).getAsJsonObject();
+    }
+
+    @Test
+    public void testCreateRecordsSendsNulls() throws Exception {
+        RecordData rd = new RecordData();
+        rd.put("Name", null);
+        rd.put("Code", "A");
+        RecordDataBatch batch = new RecordDataBatch();
+        batch.setData(Arrays.asList(rd));
+
+        client.createRecords(1L, batch);
+
+        Assert.assertTrue(sentRecord().has("Name"));
+        Assert.assertTrue(sentRecord().get("Name").isJsonNull());
+        Assert.assertEquals("A", sentRecord().get("Code").getAsString());
+    }
+
+    @Test
+    public void testUpdateRecordClearsAField() throws Exception {
+        RecordData rd = new RecordData();
+        rd.put("Name", null);
+
+        client.updateRecord(1, 1L, rd);
+
+        Assert.assertTrue(sentRecord().has("Name"));
+        Assert.assertTrue(sentRecord().get("Name").isJsonNull());
+        Assert.assertEquals(Long.valueOf(1L), rd.getId());
+    }
+
+    @Test
+    public void testWritingLeavesTheRecordAsItWas() throws Exception {
+        RecordData rd = new RecordData();
+        rd.put("id", 1L);
+        rd.put("Name", "James Randall");
+
+        Codecs.RECORDS.toJson(rd);
+
+        Assert.assertEquals(Long.valueOf(1L), rd.getId());
+        Assert.assertEquals(2, rd.size());
+    }
+}
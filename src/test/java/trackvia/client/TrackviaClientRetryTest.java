@@ -0,0 +1,233 @@
+package trackvia.client;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.utils.DateUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import trackvia.client.model.RecordDataBatch;
+import trackvia.client.model.RecordSet;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static trackvia.client.TestData.*;
+
+public class TrackviaClientRetryTest extends LoopbackTestBase {
+    static final RetryPolicy FAST = RetryPolicy.custom()
+            .setInitialBackoffMillis(1)
+            .setMaxBackoffMillis(5)
+            .build();
+
+    Gson gson = new GsonBuilder().setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX").create();
+
+    TrackviaClient client;
+
+    private void newClient(final RetryPolicy retryPolicy) {
+        client = newClient(TrackviaClientConfig.custom().setRetryPolicy(retryPolicy).build());
+    }
+
+    /**
+     * Fails the first calls with the given status, then answers with a record set.
+     */
+    private AtomicInteger failFirst(final String path, final int failures, final int statusCode, final String retryAfter) {
+        final AtomicInteger calls = new AtomicInteger();
+        final byte[] json = gson.toJson(Unit.getUnitTestRecordSet1()).getBytes(StandardCharsets.UTF_8);
+        transport.handle(path, new LoopbackTransport.Handler() {
+            @Override
+            public CloseableHttpResponse handle(HttpRequestBase request) {
+                if (calls.incrementAndGet() > failures) return LoopbackTransport.response(200, json);
+
+                CloseableHttpResponse response = LoopbackTransport.response(statusCode,
+                        "{\"error\":\"unavailable\",\"message\":\"try again\"}".getBytes(StandardCharsets.UTF_8));
+                if (retryAfter != null) response.setHeader("Retry-After", retryAfter);
+                return response;
+            }
+        });
+        return calls;
+    }
+
+    @Test
+    public void testRetriesServiceUnavailable() throws Exception {
+        newClient(FAST);
+        AtomicInteger calls = failFirst("/openapi/views/1", 2, 503, null);
+
+        Assert.assertEquals(2, client.getRecords(1).getData().size());
+        Assert.assertEquals(3, calls.get());
+        Assert.assertEquals(2, client.getMetrics().getRetries());
+    }
+
+    @Test
+    public void testGivesUpAfterMaxAttempts() throws Exception {
+        newClient(FAST);
+        AtomicInteger calls = failFirst("/openapi/views/1", 5, 502, null);
+
+        try {
+            client.getRecords(1);
+            Assert.fail("expected the third 502 to fail the call");
+        } catch (TrackviaApiException e) {
+            Assert.assertEquals(502, e.getStatusCode());
+            Assert.assertEquals("GET", e.getRequestMethod());
+        }
+        Assert.assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void testHonorsRetryAfter() throws Exception {
+        newClient(RetryPolicy.custom().setInitialBackoffMillis(0).setMaxBackoffMillis(0).build());
+        AtomicInteger calls = failFirst("/openapi/views/1", 1, 429, "1");
+
+        long start = System.nanoTime();
+        client.getRecords(1);
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+        Assert.assertEquals(2, calls.get());
+        Assert.assertTrue("waited " + elapsedMillis + " ms", elapsedMillis >= 1000);
+    }
+
+    @Test
+    public void testRetryAfterBeyondLimitFails() throws Exception {
+        newClient(RetryPolicy.custom().setMaxRetryAfterMillis(1000).build());
+        AtomicInteger calls = failFirst("/openapi/views/1", 1, 503, "120");
+
+        try {
+            client.getRecords(1);
+            Assert.fail("expected a two minute Retry-After to fail the call");
+        } catch (TrackviaApiException e) {
+            Assert.assertEquals(120000, e.getRetryAfterMillis());
+        }
+        Assert.assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testPostNotRetriedOnServiceUnavailable() throws Exception {
+        newClient(FAST);
+        AtomicInteger calls = failFirst("/openapi/views/1/records", 1, 503, null);
+
+        try {
+            client.createRecords(1, new RecordDataBatch(Unit.getUnitTestRecordSet1().getData()));
+            Assert.fail("a POST that may have reached the service shouldn't be retried");
+        } catch (TrackviaApiException e) {
+            Assert.assertEquals("POST", e.getRequestMethod());
+        }
+        Assert.assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testPostRetriedOnTooManyRequests() throws Exception {
+        newClient(FAST);
+        AtomicInteger calls = failFirst("/openapi/views/1/records", 1, 429, "0");
+
+        RecordSet rs = client.createRecords(1, new RecordDataBatch(Unit.getUnitTestRecordSet1().getData()));
+
+        Assert.assertEquals(2, rs.getData().size());
+        Assert.assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testRetriesSocketTimeout() throws Exception {
+        newClient(FAST);
+        final AtomicInteger calls = new AtomicInteger();
+        final byte[] json = gson.toJson(Unit.getUnitTestRecordSet1()).getBytes(StandardCharsets.UTF_8);
+        transport.handle("/openapi/views/1", new LoopbackTransport.Handler() {
+            @Override
+            public CloseableHttpResponse handle(HttpRequestBase request) throws IOException {
+                if (calls.incrementAndGet() == 1) throw new SocketTimeoutException("Read timed out");
+                return LoopbackTransport.response(200, json);
+            }
+        });
+
+        Assert.assertEquals(2, client.getRecords(1).getData().size());
+        Assert.assertEquals(2, calls.get());
+        Assert.assertEquals(1, client.getMetrics().getRetries());
+    }
+
+    @Test
+    public void testRetryBudgetExhausted() throws Exception {
+        newClient(RetryPolicy.copy(FAST).setRetryBudgetRatio(0).setRetryBudgetMinPerSecond(0).build());
+        AtomicInteger calls = failFirst("/openapi/views/1", 1, 503, null);
+
+        try {
+            client.getRecords(1);
+            Assert.fail("an empty retry budget should fail the call");
+        } catch (TrackviaApiException e) {
+            Assert.assertEquals(503, e.getStatusCode());
+        }
+        Assert.assertEquals(1, calls.get());
+        Assert.assertEquals(0, client.getMetrics().getRetries());
+        Assert.assertEquals(1, client.getMetrics().getRetryBudgetRejections());
+    }
+
+    @Test
+    public void testRetriesDisabled() throws Exception {
+        newClient(RetryPolicy.NONE);
+        AtomicInteger calls = failFirst("/openapi/views/1", 1, 503, null);
+
+        try {
+            client.getRecords(1);
+            Assert.fail("expected the 503 to fail the call");
+        } catch (TrackviaApiException e) {
+            Assert.assertEquals(503, e.getStatusCode());
+        }
+        Assert.assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testNotRetriedByDefault() throws Exception {
+        Assert.assertSame(RetryPolicy.NONE, TrackviaClientConfig.DEFAULT.getRetryPolicy());
+
+        client = newClient();
+        AtomicInteger calls = failFirst("/openapi/views/1", 1, 503, null);
+
+        try {
+            client.getRecords(1);
+            Assert.fail("expected the 503 to fail the call");
+        } catch (TrackviaApiException e) {
+            Assert.assertEquals(503, e.getStatusCode());
+        }
+        Assert.assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testTokenRefreshDoesntUseAnAttempt() throws Exception {
+        newClient(FAST);
+        final AtomicInteger calls = new AtomicInteger();
+        final byte[] json = gson.toJson(Unit.getUnitTestRecordSet1()).getBytes(StandardCharsets.UTF_8);
+        transport.handle("/openapi/views/1", new LoopbackTransport.Handler() {
+            @Override
+            public CloseableHttpResponse handle(HttpRequestBase request) {
+                int n = calls.incrementAndGet();
+                if (n == 1) {
+                    return LoopbackTransport.response(401,
+                            "{\"error\":\"invalid_token\",\"message\":\"expired\"}".getBytes(StandardCharsets.UTF_8));
+                }
+                if (n <= 3) {
+                    return LoopbackTransport.response(503,
+                            "{\"error\":\"unavailable\",\"message\":\"try again\"}".getBytes(StandardCharsets.UTF_8));
+                }
+                return LoopbackTransport.response(200, json);
+            }
+        });
+        transport.respond("/oauth/token", 200, "{\"value\":\"refreshed-access-token\",\"expires_in\":3600}");
+
+        Assert.assertEquals(2, client.getRecords(1).getData().size());
+        Assert.assertEquals(4, calls.get());
+        Assert.assertEquals(2, client.getMetrics().getRetries());
+    }
+
+    @Test
+    public void testParseRetryAfter() throws Exception {
+        Assert.assertEquals(5000, RetryPolicy.parseRetryAfter("5", 0));
+        Assert.assertEquals(-1, RetryPolicy.parseRetryAfter("soon", 0));
+        Assert.assertEquals(-1, RetryPolicy.parseRetryAfter(null, 0));
+
+        long now = DateUtils.parseDate("Wed, 21 Oct 2015 07:28:00 GMT").getTime();
+        Assert.assertEquals(60000, RetryPolicy.parseRetryAfter("Wed, 21 Oct 2015 07:29:00 GMT", now));
+    }
+}
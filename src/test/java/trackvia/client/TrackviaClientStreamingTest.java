@@ -0,0 +1,219 @@
+package trackvia.client;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import trackvia.client.model.CompactRecordData;
+import trackvia.client.model.DomainRecord;
+import trackvia.client.model.DomainRecordSet;
+import trackvia.client.model.DomainRecordSetType;
+import trackvia.client.model.DomainRecordType;
+import trackvia.client.model.FieldMetadata;
+import trackvia.client.model.Point;
+import trackvia.client.model.Record;
+import trackvia.client.model.RecordData;
+import trackvia.client.model.RecordDataDeserializer;
+import trackvia.client.model.RecordSet;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static trackvia.client.TestData.*;
+
+public class TrackviaClientStreamingTest extends LoopbackTestBase {
+    private static final String STRUCTURE = "\"structure\":["
+            + "{\"name\":\"id\",\"type\":\"number\",\"choices\":[]},"
+            + "{\"name\":\"Code\",\"type\":\"shortAnswer\",\"choices\":[]},"
+            + "{\"name\":\"Visits\",\"type\":\"number\",\"choices\":[]}]";
+    private static final String RECORD = "{\"id\":1,\"Code\":\"2014-05-01T12:00:00.000Z\",\"Visits\":5}";
+
+    Gson gson = new GsonBuilder().setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX").create();
+    Gson tree = new GsonBuilder()
+            .setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX")
+            .registerTypeAdapter(RecordData.class, new RecordDataDeserializer())
+            .create();
+
+    TrackviaClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        client = newClient();
+    }
+
+    private static void assertSameStructure(final List<FieldMetadata> expected, final List<FieldMetadata> actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(expected.get(i).getName(), actual.get(i).getName());
+            Assert.assertEquals(expected.get(i).getType(), actual.get(i).getType());
+            Assert.assertEquals(expected.get(i).getRequired(), actual.get(i).getRequired());
+            Assert.assertEquals(expected.get(i).getChoices(), actual.get(i).getChoices());
+        }
+    }
+
+    @Test
+    public void testRecordSetReadAsTreeReadsIt() throws Exception {
+        String json = gson.toJson(Unit.getUnitTestRecordSet3());
+
+        RecordSet expected = tree.fromJson(json, RecordSet.class);
+        RecordSet actual = Codecs.RECORDS.fromJson(json, RecordSet.class);
+
+        assertSameStructure(expected.getStructure(), actual.getStructure());
+        Assert.assertEquals(expected.getTotalCount(), actual.getTotalCount());
+        Assert.assertEquals(expected.getData(), actual.getData());
+        Assert.assertTrue(actual.get(0).get("LastContactDateTime") instanceof Date);
+        Assert.assertTrue(actual.get(0).get("TestPoint") instanceof Point);
+        Assert.assertEquals(Long.valueOf(222L), actual.get(0).get("TestFile"));
+        Assert.assertEquals(Double.valueOf(0.35), actual.get(0).get("RevenueCaptured"));
+    }
+
+    @Test
+    public void testRecordReadAsTreeReadsIt() throws Exception {
+        String json = gson.toJson(Unit.getUnitTestRecord1());
+
+        Record expected = tree.fromJson(json, Record.class);
+        Record actual = Codecs.RECORDS.fromJson(json, Record.class);
+
+        assertSameStructure(expected.getStructure(), actual.getStructure());
+        Assert.assertEquals(expected.getData(), actual.getData());
+    }
+
+    @Test
+    public void testValuesMapped() throws Exception {
+        String json = "{\"structure\":[],\"data\":[{\"id\":9007199254740993,\"big\":12345678901234567890,"
+                + "\"ratio\":1e3,\"flag\":false,\"none\":null,\"text\":\"12\",\"list\":[\"a\",2]}],\"totalCount\":1}";
+
+        RecordData data = Codecs.RECORDS.fromJson(json, RecordSet.class).get(0);
+
+        Assert.assertEquals(Long.valueOf(9007199254740993L), data.get("id"));
+        Assert.assertEquals(Double.valueOf(12345678901234567890d), data.get("big"));
+        Assert.assertEquals(Double.valueOf(1000d), data.get("ratio"));
+        Assert.assertEquals(Boolean.FALSE, data.get("flag"));
+        Assert.assertTrue(data.containsKey("none"));
+        Assert.assertNull(data.get("none"));
+        Assert.assertEquals("12", data.get("text"));
+        Assert.assertEquals(2, ((List<?>) data.get("list")).size());
+        Assert.assertEquals(Long.valueOf(2L), ((List<?>) data.get("list")).get(1));
+    }
+
+    @Test
+    public void testDomainRecordSetRead() throws Exception {
+        String json = gson.toJson(Unit.getUnitTestRecordSet3());
+
+        DomainRecordSet<Unit.Contact> records = Codecs.deserializer(Unit.Contact.class,
+                new DomainRecordSetType<Unit.Contact>(Unit.Contact.class))
+                .fromJson(json, new DomainRecordSetType<Unit.Contact>(Unit.Contact.class));
+
+        Assert.assertEquals(1, records.getTotalCount());
+        Unit.Contact contact = records.getData().get(0);
+        Assert.assertEquals("James Randall", contact.getContactName());
+        Assert.assertEquals(Long.valueOf(222L), contact.getTestFile());
+        Assert.assertNotNull(contact.getLastContactDate());
+        Assert.assertNotNull(contact.getLastContactDateTime());
+        Assert.assertEquals(new Point(39.7501158, -104.9989422), contact.getTestPoint());
+    }
+
+    @Test
+    public void testDomainDataAheadOfStructure() throws Exception {
+        String json = "{\"totalCount\":1,\"data\":[{\"id\":7,\"ContactName\":\"Ada\"}],\"structure\":["
+                + "{\"name\":\"id\",\"type\":\"number\",\"choices\":[]},"
+                + "{\"name\":\"ContactName\",\"type\":\"shortAnswer\",\"choices\":[]}]}";
+
+        DomainRecordSet<Unit.Contact> records = Codecs.deserializer(Unit.Contact.class,
+                new DomainRecordSetType<Unit.Contact>(Unit.Contact.class))
+                .fromJson(json, new DomainRecordSetType<Unit.Contact>(Unit.Contact.class));
+
+        Assert.assertEquals(Long.valueOf(7L), records.getData().get(0).getId());
+        Assert.assertEquals("Ada", records.getData().get(0).getContactName());
+    }
+
+    @Test
+    public void testDomainRecordRead() throws Exception {
+        String json = gson.toJson(Unit.getUnitTestRecord1());
+
+        DomainRecord<Unit.Contact> record = Codecs.deserializer(Unit.Contact.class,
+                new DomainRecordType<Unit.Contact>(Unit.Contact.class))
+                .fromJson(json, new DomainRecordType<Unit.Contact>(Unit.Contact.class));
+
+        Assert.assertEquals(Long.valueOf(1L), record.getData().getId());
+        Assert.assertEquals("Cryogenic Futures", record.getData().getCompanyName());
+    }
+
+    @Test
+    public void testClientReadsUtf8() throws Exception {
+        RecordSet rs = Unit.getUnitTestRecordSet1();
+        rs.get(0).put("ContactName", "Zoë Ångström 😀");
+        transport.respond("/openapi/views/1", 200, gson.toJson(rs));
+
+        Assert.assertEquals("Zoë Ångström 😀", client.getRecords(1).get(0).get("ContactName"));
+        Assert.assertEquals("Zoë Ångström 😀",
+                client.getRecords(Unit.Contact.class, 1).getData().get(0).getContactName());
+    }
+
+    private static TrackviaClient streamingClient(final MockWebServer server) {
+        // only records read token by token are compact, and typed by their structure
+        return TrackviaClient.create("localhost", "stub-access-token", "", "http", server.getPort(), "stub-user-key",
+                TrackviaClientConfig.custom().setTypedRecordsEnabled(true).setCompactRecordsEnabled(true).build());
+    }
+
+    private static MockResponse json(final String body) {
+        // a few bytes at a time, so the body is read as it arrives
+        return new MockResponse()
+                .setResponseCode(200)
+                .setHeader("Content-Type", "application/json")
+                .setBody(body)
+                .throttleBody(16, 1, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testClientStreamsRecordSets() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.start();
+        TrackviaClient streaming = streamingClient(server);
+        String json = "{" + STRUCTURE + ",\"data\":[" + RECORD + "],\"totalCount\":1}";
+        try {
+            server.enqueue(json(json));
+            server.enqueue(json(json));
+
+            for (RecordSet rs : Arrays.asList(streaming.getRecords(1), streaming.findRecords(1, "A", 0, 10))) {
+                Assert.assertEquals(1, rs.getTotalCount());
+                Assert.assertTrue(rs.get(0) instanceof CompactRecordData);
+                Assert.assertEquals("2014-05-01T12:00:00.000Z", rs.get(0).get("Code"));
+                Assert.assertEquals(Double.valueOf(5.0), rs.get(0).get("Visits"));
+            }
+            Assert.assertEquals("/openapi/views/1", server.takeRequest().getRequestUrl().encodedPath());
+            Assert.assertEquals("/openapi/views/1/find", server.takeRequest().getRequestUrl().encodedPath());
+        } finally {
+            streaming.shutdown();
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void testClientStreamsRecords() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.start();
+        TrackviaClient streaming = streamingClient(server);
+        try {
+            server.enqueue(json("{" + STRUCTURE + ",\"data\":" + RECORD + "}"));
+
+            Record record = streaming.getRecord(1, 1);
+
+            Assert.assertEquals(3, record.getStructure().size());
+            Assert.assertTrue(record.getData() instanceof CompactRecordData);
+            Assert.assertEquals("2014-05-01T12:00:00.000Z", record.getData().get("Code"));
+            Assert.assertEquals("/openapi/views/1/records/1", server.takeRequest().getRequestUrl().encodedPath());
+        } finally {
+            streaming.shutdown();
+            server.shutdown();
+        }
+    }
+}
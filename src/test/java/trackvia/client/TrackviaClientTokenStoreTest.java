@@ -0,0 +1,192 @@
+package trackvia.client;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import trackvia.client.model.OAuth2Token;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TrackviaClientTokenStoreTest extends LoopbackTestBase {
+    static final int CALLERS = 4;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    Gson gson = new GsonBuilder().setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX").create();
+
+    Path directory;
+    AtomicInteger tokenRequests = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        directory = folder.getRoot().toPath().resolve("tokens");
+        transport.handle("/oauth/token", new LoopbackTransport.Handler() {
+            @Override
+            public CloseableHttpResponse handle(HttpRequestBase request) {
+                int n = tokenRequests.incrementAndGet();
+                OAuth2Token token = new OAuth2Token();
+                token.setValue("access-token-" + n);
+                token.setRefreshToken(new OAuth2Token.RefreshToken("refresh-token-" + n, null));
+                token.setExpiresIn(3600L);
+                token.setApiVersion("21");
+                return LoopbackTransport.response(200, gson.toJson(token).getBytes(StandardCharsets.UTF_8));
+            }
+        });
+    }
+
+    private TrackviaClient newClient(final TokenStore store) {
+        return newPasswordClient(TrackviaClientConfig.custom().setTokenStore(store).build());
+    }
+
+    private static OAuth2Token token(final String value, final Date expiration) {
+        OAuth2Token token = new OAuth2Token();
+        token.setValue(value);
+        token.setExpiration(expiration);
+
+        return token;
+    }
+
+    private static TokenStore.Authorizer authorizer(final AtomicInteger calls, final String value) {
+        return new TokenStore.Authorizer() {
+            @Override
+            public OAuth2Token authorize() {
+                calls.incrementAndGet();
+                return token(value, null);
+            }
+        };
+    }
+
+    @Test
+    public void testStartsWithStoredToken() throws Exception {
+        FileTokenStore store = new FileTokenStore(directory, "passphrase".toCharArray());
+
+        TrackviaClient first = newClient(store);
+        TrackviaClient second = newClient(new FileTokenStore(directory, "passphrase".toCharArray()));
+
+        Assert.assertEquals(1, tokenRequests.get());
+        Assert.assertEquals("access-token-1", second.getAccessToken());
+        Assert.assertEquals("refresh-token-1", second.getRefreshToken());
+        Assert.assertEquals("21", second.getApiVersion());
+        Assert.assertEquals(first.getAccessToken(), second.getAccessToken());
+    }
+
+    @Test
+    public void testStoresRefreshedToken() throws Exception {
+        FileTokenStore store = new FileTokenStore(directory, "passphrase".toCharArray());
+
+        newClient(store).refreshAccessToken();
+        TrackviaClient next = newClient(store);
+
+        Assert.assertEquals(2, tokenRequests.get());
+        Assert.assertEquals("access-token-2", next.getAccessToken());
+    }
+
+    @Test
+    public void testFilesEncryptedAndOwnerOnly() throws Exception {
+        newClient(new FileTokenStore(directory, "passphrase".toCharArray()));
+
+        File[] files = directory.toFile().listFiles();
+        Assert.assertNotNull(files);
+        boolean found = false;
+        for (File file : files) {
+            if (!file.getName().endsWith(".token")) continue;
+            found = true;
+            String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.ISO_8859_1);
+            Assert.assertFalse(content.contains("access-token-1"));
+            Assert.assertFalse(content.contains("loopback-user"));
+
+            Assume.assumeTrue(Files.getFileStore(directory).supportsFileAttributeView(PosixFileAttributeView.class));
+            Assert.assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(file.toPath())));
+            Assert.assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(directory)));
+        }
+        Assert.assertTrue(found);
+    }
+
+    @Test
+    public void testLockFilesOwnerOnly() throws Exception {
+        newClient(new FileTokenStore(directory, "passphrase".toCharArray()));
+        Assume.assumeTrue(Files.getFileStore(directory).supportsFileAttributeView(PosixFileAttributeView.class));
+
+        File[] files = directory.toFile().listFiles();
+        Assert.assertNotNull(files);
+        boolean found = false;
+        for (File file : files) {
+            if (!file.getName().endsWith(".lock")) continue;
+            found = true;
+            Assert.assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(file.toPath())));
+        }
+        Assert.assertTrue(found);
+    }
+
+    @Test
+    public void testOtherPassphraseAuthorizes() throws Exception {
+        newClient(new FileTokenStore(directory, "passphrase".toCharArray()));
+        TrackviaClient other = newClient(new FileTokenStore(directory, "another-passphrase".toCharArray()));
+
+        Assert.assertEquals(2, tokenRequests.get());
+        Assert.assertEquals("access-token-2", other.getAccessToken());
+    }
+
+    @Test
+    public void testExpiredTokenNotReused() throws Exception {
+        FileTokenStore store = new FileTokenStore(directory, "passphrase".toCharArray());
+        AtomicInteger calls = new AtomicInteger();
+
+        store.save("key", token("expired", new Date(System.currentTimeMillis() - 1000)));
+        OAuth2Token token = store.loadOrAuthorize("key", authorizer(calls, "fresh"));
+
+        Assert.assertEquals(1, calls.get());
+        Assert.assertEquals("fresh", token.getValue());
+        Assert.assertEquals("fresh", store.loadOrAuthorize("key", authorizer(calls, "unused")).getValue());
+        Assert.assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testConcurrentStartsAuthorizeOnce() throws Exception {
+        final FileTokenStore store = new FileTokenStore(directory, "passphrase".toCharArray());
+        final AtomicInteger calls = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<OAuth2Token>> futures = new ArrayList<Future<OAuth2Token>>();
+            for (int i = 0; i < CALLERS; i++) {
+                futures.add(executor.submit(new Callable<OAuth2Token>() {
+                    @Override
+                    public OAuth2Token call() {
+                        return store.loadOrAuthorize("key", authorizer(calls, "shared"));
+                    }
+                }));
+            }
+            for (Future<OAuth2Token> future : futures) {
+                Assert.assertEquals("shared", future.get(10, TimeUnit.SECONDS).getValue());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assert.assertEquals(1, calls.get());
+    }
+}
@@ -0,0 +1,193 @@
+package trackvia.client;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import trackvia.client.model.ApiError;
+import trackvia.client.model.ApiErrorResponse;
+import trackvia.client.model.OAuth2Token;
+import trackvia.client.model.RecordSet;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static trackvia.client.TestData.*;
+
+public class TrackviaClientTokenTest extends LoopbackTestBase {
+    static final int CALLERS = 8;
+
+    Gson gson = new GsonBuilder().setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX").create();
+
+    TrackviaClient client;
+    ExecutorService executor;
+    AtomicInteger tokenRequests = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+    }
+
+    private void newClient(final TrackviaClientConfig.Builder config) {
+        client = newClient(config.build());
+    }
+
+    private String token(final String value, final String refreshToken, final Long expiresIn) {
+        OAuth2Token token = new OAuth2Token();
+        token.setValue(value);
+        token.setRefreshToken(new OAuth2Token.RefreshToken(refreshToken, null));
+        token.setExpiresIn(expiresIn);
+
+        return gson.toJson(token);
+    }
+
+    /**
+     * Issues a token for a password grant, expiring in a second, and a lasting one for a refresh grant.
+     */
+    private void issueTokens() {
+        transport.handle("/oauth/token", new LoopbackTransport.Handler() {
+            @Override
+            public CloseableHttpResponse handle(HttpRequestBase request) {
+                int n = tokenRequests.incrementAndGet();
+                String json = (request.getURI().getQuery().contains("grant_type=password"))
+                        ? (token("first-access-token", "first-refresh-token", 1L))
+                        : (token("refreshed-access-token-" + n, "next-refresh-token", 3600L));
+                return LoopbackTransport.response(200, json.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+    }
+
+    private void awaitAccessToken(final String accessToken) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!accessToken.equals(client.getAccessToken()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testConcurrentRejectionsRefreshOnce() throws Exception {
+        newClient(TrackviaClientConfig.custom());
+        final ApiErrorResponse invalidToken = new ApiErrorResponse();
+        invalidToken.setError(ApiError.InvalidToken.code());
+        final String records = gson.toJson(Unit.getUnitTestRecordSet1());
+        final CountDownLatch rejected = new CountDownLatch(CALLERS);
+
+        transport.handle("/openapi/views/1", new LoopbackTransport.Handler() {
+            @Override
+            public CloseableHttpResponse handle(HttpRequestBase request) {
+                if (request.getURI().getQuery().contains("access_token=loopback-access-token")) {
+                    // reject every caller's first attempt together
+                    rejected.countDown();
+                    try {
+                        rejected.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return LoopbackTransport.response(401, gson.toJson(invalidToken).getBytes(StandardCharsets.UTF_8));
+                }
+                return LoopbackTransport.response(200, records.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        transport.handle("/oauth/token", new LoopbackTransport.Handler() {
+            @Override
+            public CloseableHttpResponse handle(HttpRequestBase request) {
+                tokenRequests.incrementAndGet();
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                String json = token("refreshed-access-token", "next-refresh-token", null);
+                return LoopbackTransport.response(200, json.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+
+        List<Future<RecordSet>> futures = new ArrayList<Future<RecordSet>>();
+        for (int i = 0; i < CALLERS; i++) {
+            futures.add(executor.submit(new Callable<RecordSet>() {
+                @Override
+                public RecordSet call() {
+                    return client.getRecords(1);
+                }
+            }));
+        }
+        for (Future<RecordSet> future : futures) {
+            Assert.assertEquals(2, future.get(5, TimeUnit.SECONDS).getData().size());
+        }
+
+        Assert.assertEquals(1, tokenRequests.get());
+        Assert.assertEquals(1, client.getMetrics().getTokenRefreshes());
+        Assert.assertEquals("refreshed-access-token", client.getAccessToken());
+    }
+
+    @Test
+    public void testRefreshesAheadOfExpiry() throws Exception {
+        newClient(TrackviaClientConfig.custom());
+        issueTokens();
+
+        client.authorize("loopback-user", "loopback-password");
+        Assert.assertEquals("first-access-token", client.getAccessToken());
+        Assert.assertEquals("first-refresh-token", client.getRefreshToken());
+
+        awaitAccessToken("refreshed-access-token-2");
+
+        Assert.assertEquals("refreshed-access-token-2", client.getAccessToken());
+        Assert.assertEquals("next-refresh-token", client.getRefreshToken());
+        Assert.assertEquals(1, client.getMetrics().getTokenRefreshes());
+    }
+
+    @Test
+    public void testRefreshAheadDisabled() throws Exception {
+        newClient(TrackviaClientConfig.custom().setTokenRefreshAheadMillis(0));
+        issueTokens();
+
+        client.authorize("loopback-user", "loopback-password");
+        Thread.sleep(700);
+
+        Assert.assertEquals("first-access-token", client.getAccessToken());
+        Assert.assertEquals(1, tokenRequests.get());
+    }
+
+    @Test
+    public void testShutdownStopsRefresh() throws Exception {
+        newClient(TrackviaClientConfig.custom());
+        issueTokens();
+
+        client.authorize("loopback-user", "loopback-password");
+        client.shutdown();
+        Thread.sleep(700);
+
+        Assert.assertEquals("first-access-token", client.getAccessToken());
+        Assert.assertEquals(1, tokenRequests.get());
+    }
+
+    @Test
+    public void testUpdateApiVersionKeepsToken() throws Exception {
+        newClient(TrackviaClientConfig.custom());
+
+        client.updateApiVersion("21");
+
+        Assert.assertEquals("21", client.getApiVersion());
+        Assert.assertEquals("loopback-access-token", client.getAccessToken());
+    }
+}
@@ -0,0 +1,123 @@
+package trackvia.client;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import trackvia.client.model.Point;
+import trackvia.client.model.Record;
+import trackvia.client.model.RecordData;
+import trackvia.client.model.RecordSet;
+
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+
+public class TrackviaClientTypedRecordsTest extends LoopbackTestBase {
+    private static final String STRUCTURE = "\"structure\":["
+            + "{\"name\":\"id\",\"type\":\"number\",\"choices\":[]},"
+            + "{\"name\":\"Code\",\"type\":\"shortAnswer\",\"choices\":[]},"
+            + "{\"name\":\"Visits\",\"type\":\"number\",\"choices\":[]},"
+            + "{\"name\":\"LastContactDateTime\",\"type\":\"datetime\",\"choices\":[]},"
+            + "{\"name\":\"LastContactDate\",\"type\":\"date\",\"choices\":[]},"
+            + "{\"name\":\"Locations\",\"type\":\"checkbox\",\"choices\":[\"CA\",\"CO\"]},"
+            + "{\"name\":\"TestFile\",\"type\":\"document\",\"choices\":[]},"
+            + "{\"name\":\"Where\",\"type\":\"point\",\"choices\":[]},"
+            + "{\"name\":\"Mystery\",\"type\":\"hologram\",\"choices\":[]}]";
+    private static final String RECORD = "{\"id\":1,\"Code\":\"2014-05-01T12:00:00.000Z\",\"Visits\":5,"
+            + "\"LastContactDateTime\":\"2014-05-01T12:00:00.000Z\",\"LastContactDate\":\"2014-05-01\","
+            + "\"Locations\":[\"CA\",\"CO\"],\"TestFile\":222,\"Where\":{\"latitude\":39.7,\"longitude\":-104.9},"
+            + "\"Mystery\":\"2014-05-01T12:00:00.000Z\"}";
+
+    TrackviaClient typed;
+    TrackviaClient guessing;
+
+    @Before
+    public void setUp() throws Exception {
+        typed = newClient(TrackviaClientConfig.custom().setTypedRecordsEnabled(true).build());
+        guessing = newClient();
+    }
+
+    private static void assertTyped(final RecordData rd) throws Exception {
+        Date dateTime = new Date(1398945600000L);
+
+        Assert.assertEquals(Long.valueOf(1L), rd.get("id"));
+        Assert.assertEquals(Long.valueOf(1L), rd.getId());
+        Assert.assertEquals("2014-05-01T12:00:00.000Z", rd.get("Code"));
+        Assert.assertEquals(Double.valueOf(5.0), rd.get("Visits"));
+        Assert.assertEquals(dateTime, rd.get("LastContactDateTime"));
+        Assert.assertEquals(new SimpleDateFormat("yyyy-MM-dd").parse("2014-05-01"), rd.get("LastContactDate"));
+        Assert.assertEquals(Arrays.asList("CA", "CO"), rd.get("Locations"));
+        Assert.assertEquals(Long.valueOf(222L), rd.get("TestFile"));
+        Assert.assertEquals(39.7, ((Point) rd.get("Where")).getLatitude(), 0.0);
+        Assert.assertEquals(dateTime, rd.get("Mystery"));
+    }
+
+    @Test
+    public void testRecordSetDecodedByStructure() throws Exception {
+        transport.respond("/openapi/views/1", 200, "{" + STRUCTURE + ",\"data\":[" + RECORD + "],\"totalCount\":1}");
+
+        assertTyped(typed.getRecords(1).get(0));
+    }
+
+    @Test
+    public void testRecordDecodedByStructure() throws Exception {
+        transport.respond("/openapi/views/1/records/1", 200, "{" + STRUCTURE + ",\"data\":" + RECORD + "}");
+
+        Record record = typed.getRecord(1, 1L);
+        assertTyped(record.getData());
+    }
+
+    @Test
+    public void testCursorDecodesByStructure() throws Exception {
+        transport.respond("/openapi/views/1", 200, "{" + STRUCTURE + ",\"data\":[" + RECORD + "],\"totalCount\":1}");
+
+        try (RecordCursor cursor = typed.openRecords(1)) {
+            assertTyped(cursor.next());
+        }
+    }
+
+    @Test
+    public void testGuessesByDefault() throws Exception {
+        transport.respond("/openapi/views/1", 200, "{" + STRUCTURE + ",\"data\":[" + RECORD + "],\"totalCount\":1}");
+
+        RecordData rd = guessing.getRecords(1).get(0);
+        Assert.assertTrue(rd.get("Code") instanceof Date);
+        Assert.assertEquals(Long.valueOf(5L), rd.get("Visits"));
+        Assert.assertEquals("2014-05-01", rd.get("LastContactDate"));
+    }
+
+    @Test
+    public void testNullsAndUnexpectedValues() throws Exception {
+        String record = "{\"Visits\":null,\"Code\":12,\"id\":2,\"LastContactDateTime\":\"soon\","
+                + "\"Locations\":\"CA\",\"Unlisted\":\"2014-05-01T12:00:00.000Z\",\"Where\":null,\"TestFile\":\"none\"}";
+        transport.respond("/openapi/views/1", 200, "{" + STRUCTURE + ",\"data\":[" + record + "],\"totalCount\":1}");
+
+        RecordData rd = typed.getRecords(1).get(0);
+        Assert.assertTrue(rd.containsKey("Visits"));
+        Assert.assertNull(rd.get("Visits"));
+        Assert.assertEquals("12", rd.get("Code"));
+        Assert.assertEquals(Long.valueOf(2L), rd.getId());
+        Assert.assertEquals("soon", rd.get("LastContactDateTime"));
+        Assert.assertEquals("CA", rd.get("Locations"));
+        Assert.assertTrue(rd.get("Unlisted") instanceof Date);
+        Assert.assertNull(rd.get("Where"));
+        Assert.assertEquals("none", rd.get("TestFile"));
+    }
+
+    @Test
+    public void testDataAheadOfStructureIsGuessed() throws Exception {
+        transport.respond("/openapi/views/1", 200, "{\"data\":[" + RECORD + "]," + STRUCTURE + ",\"totalCount\":1}");
+
+        RecordSet rs = typed.getRecords(1);
+        Assert.assertEquals(9, rs.getStructure().size());
+        Assert.assertTrue(rs.get(0).get("Code") instanceof Date);
+        Assert.assertEquals(Long.valueOf(5L), rs.get(0).get("Visits"));
+    }
+
+    @Test
+    public void testConfigCopyKeepsTypedRecords() throws Exception {
+        Assert.assertFalse(TrackviaClientConfig.DEFAULT.isTypedRecordsEnabled());
+        Assert.assertTrue(TrackviaClientConfig.copy(typed.getConfig()).build().isTypedRecordsEnabled());
+    }
+}
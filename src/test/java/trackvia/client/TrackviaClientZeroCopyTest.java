@@ -0,0 +1,152 @@
+package trackvia.client;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import trackvia.client.model.CompactRecordData;
+import trackvia.client.model.DomainRecord;
+import trackvia.client.model.DomainRecordSet;
+import trackvia.client.model.FieldMetadata;
+import trackvia.client.model.Point;
+import trackvia.client.model.Record;
+import trackvia.client.model.RecordData;
+import trackvia.client.model.RecordSchema;
+import trackvia.client.model.RecordSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+public class TrackviaClientZeroCopyTest {
+    private static List<FieldMetadata> structure() {
+        List<FieldMetadata> structure = new ArrayList<FieldMetadata>();
+        for (String name : Arrays.asList("id", "When", "Where", "Locations")) {
+            FieldMetadata fm = new FieldMetadata(name, "shortAnswer", false, false, Arrays.asList("CA", "CO"));
+            fm.setCanRead(true);
+            fm.setCanUpdate(false);
+            structure.add(fm);
+        }
+        return structure;
+    }
+
+    private static RecordData row(final RecordData rd) {
+        rd.put("id", 7L);
+        rd.put("When", new Date(0L));
+        rd.put("Where", new Point(39.7, -104.9));
+        rd.put("Locations", new ArrayList<Object>(Arrays.asList("CA")));
+        rd.put("Extra", new Date(1L));
+
+        return rd;
+    }
+
+    private static void change(final RecordData rd) {
+        ((Date) rd.get("When")).setTime(99L);
+        ((Point) rd.get("Where")).setLatitude(0.0);
+        ((List<?>) rd.get("Locations")).clear();
+        ((Date) rd.get("Extra")).setTime(99L);
+        rd.put("id", 8L);
+    }
+
+    private static void assertUnchanged(final RecordData rd) {
+        Assert.assertEquals(Long.valueOf(7L), rd.getId());
+        Assert.assertEquals(new Date(0L), rd.get("When"));
+        Assert.assertEquals(39.7, ((Point) rd.get("Where")).getLatitude(), 0.0);
+        Assert.assertEquals(Arrays.asList("CA"), rd.get("Locations"));
+        Assert.assertEquals(new Date(1L), rd.get("Extra"));
+    }
+
+    @Test
+    public void testWrapTakesTheListsOver() throws Exception {
+        List<FieldMetadata> structure = structure();
+        List<RecordData> data = new ArrayList<RecordData>(Arrays.asList(row(new RecordData())));
+
+        RecordSet rs = RecordSet.wrap(structure, data, 1);
+
+        Assert.assertSame(structure, rs.getStructure());
+        Assert.assertSame(data, rs.getData());
+        Assert.assertEquals(1, rs.getTotalCount());
+
+        List<Object> objects = new ArrayList<Object>(Arrays.asList("domain object"));
+        DomainRecordSet<Object> domain = DomainRecordSet.wrap(structure, objects, 1);
+
+        Assert.assertSame(structure, domain.getStructure());
+        Assert.assertSame(objects, domain.getData());
+    }
+
+    @Test
+    public void testCopiesAreIsolated() throws Exception {
+        RecordSet rs = RecordSet.wrap(structure(), new ArrayList<RecordData>(Arrays.asList(row(new RecordData()))), 1);
+        RecordSet copy = rs.copy();
+
+        Assert.assertEquals(rs.getData(), copy.getData());
+        change(rs.get(0));
+        rs.getStructure().get(0).setName("changed");
+        rs.getStructure().get(0).getChoices().add("NY");
+        rs.add(new RecordData());
+
+        assertUnchanged(copy.get(0));
+        Assert.assertEquals(1, copy.getData().size());
+        Assert.assertEquals("id", copy.getStructure().get(0).getName());
+        Assert.assertEquals(Arrays.asList("CA", "CO"), copy.getStructure().get(0).getChoices());
+        Assert.assertEquals(Boolean.TRUE, copy.getStructure().get(0).getCanRead());
+        Assert.assertEquals(Boolean.FALSE, copy.getStructure().get(0).getCanUpdate());
+    }
+
+    @Test
+    public void testConstructorCopiesRecordsNotValues() throws Exception {
+        RecordData rd = row(new RecordData());
+        RecordSet rs = new RecordSet(structure(), Arrays.asList(rd), 1);
+
+        Assert.assertNotSame(rd, rs.get(0));
+        Assert.assertEquals(rd, rs.get(0));
+        Assert.assertSame(rd.get("When"), rs.get(0).get("When"));
+        rd.put("id", 8L);
+        Assert.assertEquals(Long.valueOf(7L), rs.get(0).getId());
+    }
+
+    @Test
+    public void testCompactRecordsCopyCompactly() throws Exception {
+        CompactRecordData rd = (CompactRecordData) row(new CompactRecordData(RecordSchema.of(structure())));
+        RecordData copy = rd.copy();
+
+        Assert.assertTrue(copy instanceof CompactRecordData);
+        Assert.assertSame(rd.getSchema(), ((CompactRecordData) copy).getSchema());
+        Assert.assertEquals(rd, copy);
+        change(rd);
+        assertUnchanged(copy);
+        Assert.assertEquals(7L, copy.getLong("id"));
+    }
+
+    @Test
+    public void testRecordCopies() throws Exception {
+        Record record = new Record(structure(), row(new RecordData()));
+        Record copy = record.copy();
+
+        Assert.assertEquals(record, copy);
+        change(record.getData());
+        assertUnchanged(copy.getData());
+
+        Object object = new Object();
+        DomainRecordSet<Object> domain = DomainRecordSet.wrap(structure(), new ArrayList<Object>(Arrays.asList(object)), 1);
+        DomainRecordSet<Object> domainCopy = domain.copy();
+        domain.getData().clear();
+        domain.getStructure().get(0).setName("changed");
+
+        Assert.assertSame(object, domainCopy.getData().get(0));
+        Assert.assertEquals("id", domainCopy.getStructure().get(0).getName());
+
+        DomainRecord<Object> domainRecord = new DomainRecord<Object>(structure(), object);
+        Assert.assertSame(object, domainRecord.copy().getData());
+        Assert.assertNotSame(domainRecord.getStructure().get(0), domainRecord.copy().getStructure().get(0));
+    }
+
+    @Test
+    public void testCopiesKeepNulls() throws Exception {
+        RecordSet copy = new RecordSet().copy();
+
+        Assert.assertNull(copy.getStructure());
+        Assert.assertNull(copy.getData());
+        Assert.assertNull(new Record().copy().getData());
+    }
+}
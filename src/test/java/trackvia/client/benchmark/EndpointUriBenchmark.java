@@ -0,0 +1,128 @@
+package trackvia.client.benchmark;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.NameValuePair;
+import org.apache.http.client.utils.URIBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import trackvia.client.EndpointTemplate;
+
+/**
+ * Building the URI of a record search and of a record's file, the way every call used to - a formatted
+ * path, a URIBuilder and a list of parameter pairs - against expanding a precompiled endpoint template.
+ * Run with -prof gc to compare allocation per URI as well as time.
+ *
+ * Run from the project directory:
+ *
+ * <pre>
+ *     mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=trackvia.client.benchmark.EndpointUriBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EndpointUriBenchmark {
+    static final EndpointTemplate FIND = EndpointTemplate.compile("/openapi/views/{}/find",
+            "q", "start", "max", "access_token", "user_key");
+    static final EndpointTemplate FILE = EndpointTemplate.compile("/openapi/views/{}/records/{}/files/{}",
+            "access_token", "user_key");
+
+    public String scheme = "https";
+    public String hostname = "go.api.trackvia.com";
+    public int port = 443;
+    public String basePath = "";
+    public int viewId = 12;
+    public long recordId = 3456;
+    public String q = "Smith & Sons";
+    public String fileName = "q3 report.pdf";
+    public String accessToken = "8f4e0c3a-2b7d-4c59-9e61-0d5a7b3f2c18";
+    public String userKey = "4a1b9c7d2e6f8a0b3c5d7e9f1a2b4c6d";
+
+    @Benchmark
+    public URI findWithUriBuilder() throws URISyntaxException {
+        final List<NameValuePair> params = pairsFromFindRecordParams(q, 0, 25);
+        params.add(new NameValuePair() {
+            @Override public String getName() { return "access_token"; }
+            @Override public String getValue() { return accessToken; }
+        });
+        params.add(new NameValuePair() {
+            @Override public String getName() { return "user_key"; }
+            @Override public String getValue() { return userKey; }
+        });
+        final String path = String.format("%s/openapi/views/%d/find", basePath, viewId);
+        return new URIBuilder()
+                .setScheme(scheme)
+                .setHost(hostname)
+                .setPort(port)
+                .setPath(path)
+                .setParameters(params)
+                .build();
+    }
+
+    @Benchmark
+    public URI findWithTemplate() throws URISyntaxException {
+        return FIND.expand(scheme, hostname, port, basePath, viewId, q, 0, 25, accessToken, userKey);
+    }
+
+    @Benchmark
+    public URI fileWithUriBuilder() throws URISyntaxException {
+        final String path = String.format("%s/openapi/views/%d/records/%d/files/%s", basePath, viewId, recordId, fileName);
+        return new URIBuilder()
+                .setScheme(scheme)
+                .setHost(hostname)
+                .setPort(port)
+                .setPath(path)
+                .setParameter("access_token", accessToken)
+                .setParameter("user_key", userKey)
+                .build();
+    }
+
+    @Benchmark
+    public URI fileWithTemplate() throws URISyntaxException {
+        return FILE.expand(scheme, hostname, port, basePath, viewId, recordId, fileName, accessToken, userKey);
+    }
+
+    private static List<NameValuePair> pairsFromFindRecordParams(final String q, final int start, final int max) {
+        List<NameValuePair> pairs = new ArrayList<NameValuePair>(3);
+
+        pairs.add(new NameValuePair() {
+            @Override public String getName() { return "q"; }
+            @Override public String getValue() { return q; }
+        });
+
+        pairs.add(new NameValuePair() {
+            @Override public String getName() { return "start"; }
+            @Override public String getValue() { return (start < 0) ? ("0") : (String.valueOf(start)); }
+        });
+
+        pairs.add(new NameValuePair() {
+            @Override public String getName() { return "max"; }
+            @Override public String getValue() { return (max < 0) ? ("0") : (String.valueOf(max)); }
+        });
+
+        return pairs;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(EndpointUriBenchmark.class.getSimpleName()).build()).run();
+    }
+}
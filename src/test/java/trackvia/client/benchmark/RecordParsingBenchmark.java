@@ -0,0 +1,107 @@
+package trackvia.client.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import trackvia.client.LoopbackTransport;
+import trackvia.client.TrackviaClient;
+import trackvia.client.TrackviaClientConfig;
+import trackvia.client.model.ColumnarRecordSet;
+import trackvia.client.model.RecordSet;
+
+/**
+ * getRecords over the in-memory loopback transport, so the score is the client's own cost of
+ * building the request and parsing and binding a view's records - no sockets, no service - as a map per
+ * record, as compact records sharing a schema, and by column.
+ *
+ * Run from the project directory:
+ *
+ * <pre>
+ *     mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=trackvia.client.benchmark.RecordParsingBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecordParsingBenchmark {
+    @Param({"10", "1000"})
+    public int records;
+
+    TrackviaClient client;
+    TrackviaClient compactClient;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        LoopbackTransport transport = new LoopbackTransport();
+        transport.respond("/openapi/views/1", 200, viewJson(records));
+
+        client = TrackviaClient.create(transport, "localhost", "bench-access-token", "", "http", 80,
+                "bench-user-key", TrackviaClientConfig.DEFAULT);
+        compactClient = TrackviaClient.create(transport, "localhost", "bench-access-token", "", "http", 80,
+                "bench-user-key", TrackviaClientConfig.custom().setCompactRecordsEnabled(true).build());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.shutdown();
+        compactClient.shutdown();
+    }
+
+    @Benchmark
+    public RecordSet getRecords() {
+        return client.getRecords(1);
+    }
+
+    @Benchmark
+    public RecordSet getCompactRecords() {
+        return compactClient.getRecords(1);
+    }
+
+    @Benchmark
+    public ColumnarRecordSet getColumnarRecords() {
+        return client.getColumnarRecords(1);
+    }
+
+    static String viewJson(final int records) {
+        StringBuilder json = new StringBuilder()
+                .append("{\"structure\":[")
+                .append("{\"name\":\"id\",\"type\":\"identifier\",\"required\":false,\"unique\":true},")
+                .append("{\"name\":\"Name\",\"type\":\"shortAnswer\",\"required\":true,\"unique\":false},")
+                .append("{\"name\":\"Amount\",\"type\":\"number\",\"required\":false,\"unique\":false},")
+                .append("{\"name\":\"Due\",\"type\":\"date\",\"required\":false,\"unique\":false}")
+                .append("],\"data\":[");
+
+        for (int i = 0; i < records; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"id\":").append(i + 1)
+                    .append(",\"Name\":\"Customer ").append(i + 1).append('"')
+                    .append(",\"Amount\":").append(i * 10.5)
+                    .append(",\"Due\":\"2014-05-0").append(1 + i % 9).append("T12:00:00.000-0600\"}");
+        }
+
+        return json.append("],\"totalCount\":").append(records).append('}').toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RecordParsingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,146 @@
+package trackvia.client.benchmark;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import javax.net.ServerSocketFactory;
+
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import trackvia.client.TrackviaClient;
+import trackvia.client.TrackviaClientConfig;
+import trackvia.client.model.Record;
+
+/**
+ * Concurrent getRecord calls over HTTP/1.1 (one pooled connection per in-flight call) versus
+ * HTTP/2 (calls multiplexed over a shared connection), against a local stub answering after a
+ * fixed service latency.
+ *
+ * Run from the project directory:
+ *
+ * <pre>
+ *     mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=trackvia.client.benchmark.TransportBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(32)
+public class TransportBenchmark {
+    static final String RECORD_JSON = "{\"structure\":[{\"name\":\"id\",\"type\":\"identifier\",\"required\":false,\"unique\":true,"
+            + "\"canRead\":true,\"canUpdate\":false,\"canCreate\":false}],"
+            + "\"data\":{\"id\":1,\"First Name\":\"Jane\",\"Last Name\":\"Doe\"}}";
+
+    // the stub logs every request it serves; held here, as loggers are only weakly referenced
+    static final Logger STUB_LOG = Logger.getLogger(MockWebServer.class.getName());
+
+    @Param({"HTTP_1_1", "HTTP_2"})
+    public TrackviaClientConfig.HttpProtocol protocol;
+
+    @Param({"5"})
+    public long serviceLatencyMillis;
+
+    MockWebServer server;
+    TrackviaClient client;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        STUB_LOG.setLevel(java.util.logging.Level.WARNING);
+        server = new MockWebServer();
+        server.setServerSocketFactory(new NoDelayServerSocketFactory());
+        if (protocol == TrackviaClientConfig.HttpProtocol.HTTP_2) {
+            server.setProtocols(Arrays.asList(Protocol.H2_PRIOR_KNOWLEDGE));
+        }
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse()
+                        .setHeader("Content-Type", "application/json")
+                        .setBody(RECORD_JSON)
+                        .setHeadersDelay(serviceLatencyMillis, TimeUnit.MILLISECONDS);
+            }
+        });
+        server.start();
+
+        TrackviaClientConfig config = TrackviaClientConfig.custom().setHttpProtocol(protocol).build();
+        client = TrackviaClient.create("localhost", "bench-access-token", "", "http", server.getPort(), "bench-user-key", config);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        client.shutdown();
+        server.shutdown();
+    }
+
+    @Benchmark
+    public Record getRecord() {
+        return client.getRecord(1, 1L);
+    }
+
+    /**
+     * The stub writes response headers and body separately; with Nagle's algorithm on, every reused
+     * connection would stall on the client's delayed ACK and the benchmark would measure that instead.
+     */
+    static class NoDelayServerSocketFactory extends ServerSocketFactory {
+        @Override
+        public ServerSocket createServerSocket() throws IOException {
+            return new ServerSocket() {
+                @Override
+                public Socket accept() throws IOException {
+                    Socket socket = super.accept();
+                    socket.setTcpNoDelay(true);
+                    return socket;
+                }
+            };
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog, InetAddress address) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TransportBenchmark.class.getSimpleName()).build()).run();
+    }
+}